@@ -12,20 +12,28 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.example.rpghabittracker.data.local.dao.BossDao;
 import com.example.rpghabittracker.data.local.dao.CategoryDao;
 import com.example.rpghabittracker.data.local.dao.EquipmentDao;
+import com.example.rpghabittracker.data.local.dao.FieldClockDao;
+import com.example.rpghabittracker.data.local.dao.PendingWriteDao;
+import com.example.rpghabittracker.data.local.dao.SyncStateDao;
 import com.example.rpghabittracker.data.local.dao.TaskDao;
+import com.example.rpghabittracker.data.local.dao.TaskDayStatsDao;
 import com.example.rpghabittracker.data.local.dao.UserDao;
 import com.example.rpghabittracker.data.model.Boss;
 import com.example.rpghabittracker.data.model.Category;
 import com.example.rpghabittracker.data.model.Equipment;
+import com.example.rpghabittracker.data.model.FieldClock;
+import com.example.rpghabittracker.data.model.PendingWrite;
+import com.example.rpghabittracker.data.model.SyncState;
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDayStats;
+import com.example.rpghabittracker.data.model.TaskFts;
 import com.example.rpghabittracker.data.model.User;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 /**
  * Room Database for RPG Habit Tracker
  * Contains all entities: User, Task, Category, Boss, Equipment
+ * plus the derived task_day_stats aggregate table, the tasks_fts search index
+ * and the Firestore sync bookkeeping (sync_state watermarks, outbox, field_clocks)
  */
 @Database(
     entities = {
@@ -33,9 +41,14 @@ import java.util.concurrent.Executors;
         Task.class,
         Category.class,
         Boss.class,
-        Equipment.class
+        Equipment.class,
+        TaskDayStats.class,
+        TaskFts.class,
+        SyncState.class,
+        PendingWrite.class,
+        FieldClock.class
     },
-    version = 1,
+    version = 11,
     exportSchema = false
 )
 @TypeConverters(Converters.class)
@@ -47,15 +60,14 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract CategoryDao categoryDao();
     public abstract BossDao bossDao();
     public abstract EquipmentDao equipmentDao();
+    public abstract TaskDayStatsDao taskDayStatsDao();
+    public abstract SyncStateDao syncStateDao();
+    public abstract PendingWriteDao pendingWriteDao();
+    public abstract FieldClockDao fieldClockDao();
     
     // Singleton instance
     private static volatile AppDatabase INSTANCE;
     
-    // Executor for database operations
-    private static final int NUMBER_OF_THREADS = 4;
-    public static final ExecutorService databaseWriteExecutor = 
-        Executors.newFixedThreadPool(NUMBER_OF_THREADS);
-    
     /**
      * Get database instance (singleton)
      */
@@ -68,8 +80,13 @@ public abstract class AppDatabase extends RoomDatabase {
                         AppDatabase.class,
                         "rpg_habit_tracker_db"
                     )
+                    .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                    .setQueryExecutor(DatabaseExecutors.reader())
+                    .setTransactionExecutor(DatabaseExecutors.writer())
                     .addCallback(sRoomDatabaseCallback)
-                    .fallbackToDestructiveMigration()
+                    .addMigrations(Migrations.ALL)
+                    // Only a downgrade (older APK over newer data) may wipe the cache
+                    .fallbackToDestructiveMigrationOnDowngrade()
                     .build();
                 }
             }
@@ -86,7 +103,7 @@ public abstract class AppDatabase extends RoomDatabase {
             super.onCreate(db);
             
             // Prepopulate with default categories in background
-            databaseWriteExecutor.execute(() -> {
+            DatabaseExecutors.writer().execute(() -> {
                 // Default categories will be created per user after registration
                 // No global prepopulation needed
             });
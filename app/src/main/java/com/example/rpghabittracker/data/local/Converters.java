@@ -1,7 +1,13 @@
 package com.example.rpghabittracker.data.local;
 
+import android.util.Log;
+
 import androidx.room.TypeConverter;
 
+import com.example.rpghabittracker.data.model.RepeatUnit;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.model.TaskStatus;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
@@ -9,97 +15,330 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Type converters for Room database
  * Converts complex types to/from database-friendly types
+ *
+ * Collections are stored in a compact hand-written text format instead of JSON:
+ *  List<String>          "3:abc2:de"      (length-prefixed, '~' = null element)
+ *  List<Integer>         "1,2,3"          ('n' = null element)
+ *  Map<String, Integer>  "3:abc12;1:x4;"  (length-prefixed key, value, ';')
+ *  Map<String, Double>   "3:abc1.5;"
+ * Values written by older versions are JSON (they start with '[' or '{') and
+ * are still decoded through Gson, so existing rows stay readable.
  */
 public class Converters {
-    
+
+    private static final String TAG = "Converters";
+
     private static final Gson gson = new Gson();
-    
+
+    // Legacy JSON types, resolved once
+    private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
+    private static final Type INT_LIST_TYPE = new TypeToken<List<Integer>>() {}.getType();
+    private static final Type INT_MAP_TYPE = new TypeToken<Map<String, Integer>>() {}.getType();
+    private static final Type DOUBLE_MAP_TYPE = new TypeToken<Map<String, Double>>() {}.getType();
+
+    private static final char NULL_STRING = '~';
+    private static final char NULL_NUMBER = 'n';
+
     // Date converters
     @TypeConverter
     public static Date fromTimestamp(Long value) {
         return value == null ? null : new Date(value);
     }
-    
+
     @TypeConverter
     public static Long dateToTimestamp(Date date) {
         return date == null ? null : date.getTime();
     }
-    
+
+    // Task enums are stored as their small integer codes
+    @TypeConverter
+    public static Integer fromTaskStatus(TaskStatus status) {
+        return status == null ? null : status.code;
+    }
+
+    @TypeConverter
+    public static TaskStatus toTaskStatus(Integer code) {
+        return TaskStatus.fromCode(code);
+    }
+
+    @TypeConverter
+    public static Integer fromTaskDifficulty(TaskDifficulty difficulty) {
+        return difficulty == null ? null : difficulty.code;
+    }
+
+    @TypeConverter
+    public static TaskDifficulty toTaskDifficulty(Integer code) {
+        return TaskDifficulty.fromCode(code);
+    }
+
+    @TypeConverter
+    public static Integer fromTaskImportance(TaskImportance importance) {
+        return importance == null ? null : importance.code;
+    }
+
+    @TypeConverter
+    public static TaskImportance toTaskImportance(Integer code) {
+        return TaskImportance.fromCode(code);
+    }
+
+    @TypeConverter
+    public static Integer fromRepeatUnit(RepeatUnit unit) {
+        return unit == null ? null : unit.code;
+    }
+
+    @TypeConverter
+    public static RepeatUnit toRepeatUnit(Integer code) {
+        return RepeatUnit.fromCode(code);
+    }
+
     // List<String> converters
     @TypeConverter
     public static List<String> fromString(String value) {
         if (value == null) {
             return new ArrayList<>();
         }
-        Type listType = new TypeToken<List<String>>() {}.getType();
-        return gson.fromJson(value, listType);
+        if (isLegacyJson(value)) {
+            return gson.fromJson(value, STRING_LIST_TYPE);
+        }
+        List<String> list = new ArrayList<>();
+        try {
+            int pos = 0;
+            int length = value.length();
+            while (pos < length) {
+                if (value.charAt(pos) == NULL_STRING) {
+                    list.add(null);
+                    pos++;
+                    continue;
+                }
+                int colon = value.indexOf(':', pos);
+                int size = parseInt(value, pos, colon);
+                int start = colon + 1;
+                list.add(value.substring(start, start + size));
+                pos = start + size;
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Malformed string list: " + value, e);
+        }
+        return list;
     }
-    
+
     @TypeConverter
     public static String fromList(List<String> list) {
         if (list == null) {
             return null;
         }
-        return gson.toJson(list);
+        StringBuilder sb = new StringBuilder();
+        for (String item : list) {
+            appendString(sb, item);
+        }
+        return sb.toString();
     }
-    
+
     // Map<String, Integer> converters (for equipment counts, stats, etc.)
     @TypeConverter
     public static Map<String, Integer> fromMapString(String value) {
         if (value == null) {
             return new HashMap<>();
         }
-        Type mapType = new TypeToken<Map<String, Integer>>() {}.getType();
-        return gson.fromJson(value, mapType);
+        if (isLegacyJson(value)) {
+            return gson.fromJson(value, INT_MAP_TYPE);
+        }
+        Map<String, Integer> map = new LinkedHashMap<>();
+        try {
+            int pos = 0;
+            int length = value.length();
+            while (pos < length) {
+                String key;
+                int valueStart;
+                if (value.charAt(pos) == NULL_STRING) {
+                    key = null;
+                    valueStart = pos + 1;
+                } else {
+                    int colon = value.indexOf(':', pos);
+                    int size = parseInt(value, pos, colon);
+                    int keyStart = colon + 1;
+                    key = value.substring(keyStart, keyStart + size);
+                    valueStart = keyStart + size;
+                }
+                int end = value.indexOf(';', valueStart);
+                map.put(key, value.charAt(valueStart) == NULL_NUMBER
+                        ? null
+                        : parseInt(value, valueStart, end));
+                pos = end + 1;
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Malformed int map: " + value, e);
+        }
+        return map;
     }
-    
+
     @TypeConverter
     public static String fromMap(Map<String, Integer> map) {
         if (map == null) {
             return null;
         }
-        return gson.toJson(map);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            appendString(sb, entry.getKey());
+            Integer number = entry.getValue();
+            if (number == null) {
+                sb.append(NULL_NUMBER);
+            } else {
+                sb.append(number.intValue());
+            }
+            sb.append(';');
+        }
+        return sb.toString();
     }
-    
+
     // List<Integer> converters (for recurring days, etc.)
     @TypeConverter
     public static List<Integer> fromIntListString(String value) {
         if (value == null) {
             return new ArrayList<>();
         }
-        Type listType = new TypeToken<List<Integer>>() {}.getType();
-        return gson.fromJson(value, listType);
+        if (isLegacyJson(value)) {
+            return gson.fromJson(value, INT_LIST_TYPE);
+        }
+        List<Integer> list = new ArrayList<>();
+        try {
+            int pos = 0;
+            int length = value.length();
+            while (pos < length) {
+                int end = value.indexOf(',', pos);
+                if (end < 0) end = length;
+                list.add(value.charAt(pos) == NULL_NUMBER ? null : parseInt(value, pos, end));
+                pos = end + 1;
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Malformed int list: " + value, e);
+        }
+        return list;
     }
-    
+
     @TypeConverter
     public static String fromIntList(List<Integer> list) {
         if (list == null) {
             return null;
         }
-        return gson.toJson(list);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(',');
+            Integer number = list.get(i);
+            if (number == null) {
+                sb.append(NULL_NUMBER);
+            } else {
+                sb.append(number.intValue());
+            }
+        }
+        return sb.toString();
     }
-    
+
     // Map<String, Double> converters (for weapon upgrades, etc.)
     @TypeConverter
     public static Map<String, Double> fromDoubleMapString(String value) {
         if (value == null) {
             return new HashMap<>();
         }
-        Type mapType = new TypeToken<Map<String, Double>>() {}.getType();
-        return gson.fromJson(value, mapType);
+        if (isLegacyJson(value)) {
+            return gson.fromJson(value, DOUBLE_MAP_TYPE);
+        }
+        Map<String, Double> map = new LinkedHashMap<>();
+        try {
+            int pos = 0;
+            int length = value.length();
+            while (pos < length) {
+                String key;
+                int valueStart;
+                if (value.charAt(pos) == NULL_STRING) {
+                    key = null;
+                    valueStart = pos + 1;
+                } else {
+                    int colon = value.indexOf(':', pos);
+                    int size = parseInt(value, pos, colon);
+                    int keyStart = colon + 1;
+                    key = value.substring(keyStart, keyStart + size);
+                    valueStart = keyStart + size;
+                }
+                int end = value.indexOf(';', valueStart);
+                map.put(key, value.charAt(valueStart) == NULL_NUMBER
+                        ? null
+                        : Double.valueOf(value.substring(valueStart, end)));
+                pos = end + 1;
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Malformed double map: " + value, e);
+        }
+        return map;
     }
-    
+
     @TypeConverter
     public static String fromDoubleMap(Map<String, Double> map) {
         if (map == null) {
             return null;
         }
-        return gson.toJson(map);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Double> entry : map.entrySet()) {
+            appendString(sb, entry.getKey());
+            Double number = entry.getValue();
+            if (number == null) {
+                sb.append(NULL_NUMBER);
+            } else {
+                sb.append(number.doubleValue());
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    // Codec helpers
+
+    private static boolean isLegacyJson(String value) {
+        if (value.isEmpty()) return false;
+        char first = value.charAt(0);
+        return first == '[' || first == '{' || value.equals("null");
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append(NULL_STRING);
+            return;
+        }
+        sb.append(value.length()).append(':').append(value);
+    }
+
+    // Parses a decimal int in value[start, end) without allocating a substring
+    private static int parseInt(String value, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty number at " + start);
+        }
+        boolean negative = value.charAt(start) == '-';
+        int pos = negative ? start + 1 : start;
+        if (pos >= end) {
+            throw new NumberFormatException("Sign without digits at " + start);
+        }
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = value.charAt(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Unexpected character at " + pos);
+            }
+            result = result * 10 + digit;
+            if (result > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Number overflow at " + start);
+            }
+        }
+        long signed = negative ? -result : result;
+        if (signed > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number overflow at " + start);
+        }
+        return (int) signed;
     }
 }
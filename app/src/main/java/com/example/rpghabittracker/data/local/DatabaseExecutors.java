@@ -0,0 +1,55 @@
+package com.example.rpghabittracker.data.local;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Central execution layer for local database work.
+ *
+ * writer()  - one serialized thread for every Room write (and Room transactions),
+ *             so writes never contend with each other for the SQLite write lock
+ * reader()  - small bounded pool for reads and LiveData queries; with WAL
+ *             journaling readers run concurrently with the writer, so long
+ *             statistics or calendar loads never block task completion
+ */
+public final class DatabaseExecutors {
+
+    private static final int READER_THREADS = 3;
+
+    private static final ExecutorService WRITER =
+            Executors.newSingleThreadExecutor(new NamedThreadFactory("db-writer"));
+
+    private static final ExecutorService READER =
+            Executors.newFixedThreadPool(READER_THREADS, new NamedThreadFactory("db-reader"));
+
+    private DatabaseExecutors() {
+    }
+
+    public static ExecutorService writer() {
+        return WRITER;
+    }
+
+    public static ExecutorService reader() {
+        return READER;
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
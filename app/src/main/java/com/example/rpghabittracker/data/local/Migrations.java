@@ -0,0 +1,272 @@
+package com.example.rpghabittracker.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.rpghabittracker.utils.DayClock;
+
+/**
+ * Versioned schema migrations for AppDatabase.
+ * Every schema change must add a migration here so upgrades keep the local
+ * cache instead of wiping it and re-downloading everything from Firestore.
+ */
+public final class Migrations {
+
+    private Migrations() {
+    }
+
+    /**
+     * 1 -> 2: composite indexes on tasks matching the hot TaskDao access paths
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            createTaskIndexes(db);
+        }
+    };
+
+    /**
+     * 2 -> 3: pre-aggregated task_day_stats, backfilled from the existing tasks
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_day_stats` ("
+                    + "`userId` TEXT NOT NULL, `epochDay` INTEGER NOT NULL, "
+                    + "`categoryId` TEXT NOT NULL, `difficulty` TEXT NOT NULL, "
+                    + "`createdCount` INTEGER NOT NULL, `openCount` INTEGER NOT NULL, "
+                    + "`completedCount` INTEGER NOT NULL, `failedCount` INTEGER NOT NULL, "
+                    + "`cancelledCount` INTEGER NOT NULL, `doneCount` INTEGER NOT NULL, "
+                    + "`doneXp` INTEGER NOT NULL, `doneDifficultyXp` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `epochDay`, `categoryId`, `difficulty`))");
+            backfillTaskDayStats(db);
+        }
+    };
+
+    /**
+     * 3 -> 4: external-content FTS4 index over task names/descriptions.
+     * Table and trigger definitions must match what Room generates for TaskFts.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `tasks_fts` USING FTS4("
+                    + "`name` TEXT, `description` TEXT, tokenize=unicode61, content=`tasks`)");
+            createTaskFtsTriggers(db);
+            // Index every existing task
+            db.execSQL("INSERT INTO `tasks_fts`(`tasks_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * 4 -> 5: status/difficulty/importance/repeatUnit move from TEXT names to
+     * INTEGER enum codes. SQLite cannot change column types in place, so the
+     * tasks table is rebuilt (keeping rowids, which tasks_fts docids point at).
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `tasks_new` ("
+                    + "`id` TEXT NOT NULL, `userId` TEXT, `name` TEXT, `description` TEXT, "
+                    + "`categoryId` TEXT, `difficulty` INTEGER, `importance` INTEGER, "
+                    + "`difficultyXp` INTEGER NOT NULL, `importanceXp` INTEGER NOT NULL, "
+                    + "`totalXp` INTEGER NOT NULL, `status` INTEGER, `isRecurring` INTEGER NOT NULL, "
+                    + "`parentTaskId` TEXT, `repeatInterval` INTEGER NOT NULL, `repeatUnit` INTEGER, "
+                    + "`startDate` INTEGER NOT NULL, `endDate` INTEGER NOT NULL, "
+                    + "`createdAt` INTEGER NOT NULL, `dueDate` INTEGER NOT NULL, "
+                    + "`completedDate` INTEGER NOT NULL, `userLevelAtCreation` INTEGER NOT NULL, "
+                    + "`countsTowardQuota` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+
+            // The name -> code mapping is frozen as of schema 5; later enum
+            // changes must not alter what this migration writes.
+            String status = "CASE status WHEN 'ACTIVE' THEN 0 WHEN 'COMPLETED' THEN 1"
+                    + " WHEN 'FAILED' THEN 2 WHEN 'PAUSED' THEN 3 WHEN 'CANCELLED' THEN 4"
+                    + " WHEN 'CANCELED' THEN 4 ELSE 0 END";
+            String difficulty = "CASE difficulty WHEN 'VERY_EASY' THEN 0 WHEN 'EASY' THEN 1"
+                    + " WHEN 'HARD' THEN 2 WHEN 'EXTREME' THEN 3 ELSE NULL END";
+            String importance = "CASE importance WHEN 'NORMAL' THEN 0 WHEN 'IMPORTANT' THEN 1"
+                    + " WHEN 'VERY_IMPORTANT' THEN 2 WHEN 'SPECIAL' THEN 3 ELSE NULL END";
+            String repeatUnit = "CASE repeatUnit WHEN 'DAY' THEN 0 WHEN 'WEEK' THEN 1 ELSE NULL END";
+
+            db.execSQL("INSERT INTO `tasks_new` (rowid, id, userId, name, description, categoryId, "
+                    + "difficulty, importance, difficultyXp, importanceXp, totalXp, status, isRecurring, "
+                    + "parentTaskId, repeatInterval, repeatUnit, startDate, endDate, createdAt, dueDate, "
+                    + "completedDate, userLevelAtCreation, countsTowardQuota) "
+                    + "SELECT rowid, id, userId, name, description, categoryId, "
+                    + difficulty + ", " + importance + ", difficultyXp, importanceXp, totalXp, "
+                    + status + ", isRecurring, parentTaskId, repeatInterval, " + repeatUnit + ", "
+                    + "startDate, endDate, createdAt, dueDate, completedDate, userLevelAtCreation, "
+                    + "countsTowardQuota FROM `tasks`");
+
+            // Dropping the old table also drops its indexes and FTS sync triggers
+            db.execSQL("DROP TABLE `tasks`");
+            db.execSQL("ALTER TABLE `tasks_new` RENAME TO `tasks`");
+            createTaskIndexes(db);
+            createTaskFtsTriggers(db);
+            db.execSQL("INSERT INTO `tasks_fts`(`tasks_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * 5 -> 6: per-collection Firestore sync watermarks
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sync_state` ("
+                    + "`userId` TEXT NOT NULL, `collection` TEXT NOT NULL, "
+                    + "`watermark` INTEGER NOT NULL, `lastFullSync` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `collection`))");
+        }
+    };
+
+    /**
+     * 6 -> 7: outbox of pending Firestore writes
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `outbox` ("
+                    + "`collection` TEXT NOT NULL, `documentId` TEXT NOT NULL, `op` INTEGER NOT NULL, "
+                    + "`fields` TEXT, `increments` TEXT, `tombstoneUserId` TEXT, "
+                    + "`revision` INTEGER NOT NULL, `attempts` INTEGER NOT NULL, "
+                    + "`nextAttemptAt` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`collection`, `documentId`))");
+        }
+    };
+
+    /**
+     * 7 -> 8: per-field hybrid logical clocks of synced documents
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `field_clocks` ("
+                    + "`collection` TEXT NOT NULL, `documentId` TEXT NOT NULL, `field` TEXT NOT NULL, "
+                    + "`stamp` INTEGER NOT NULL, PRIMARY KEY(`collection`, `documentId`, `field`))");
+        }
+    };
+
+    /**
+     * 8 -> 9: next scheduled day of recurring templates. The per-user
+     * generation cursor in sync_state becomes each template's starting point;
+     * without one the next run starts from today.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `nextOccurrenceDay` INTEGER");
+            db.execSQL("UPDATE `tasks` SET `nextOccurrenceDay` = IFNULL(("
+                    + "SELECT " + localEpochDay("s.watermark") + " + 1 FROM `sync_state` s "
+                    + "WHERE s.userId = tasks.userId AND s.collection = 'tasks:occurrences'), 0) "
+                    + "WHERE isRecurring = 1 AND (parentTaskId IS NULL OR parentTaskId = '')");
+            db.execSQL("DELETE FROM `sync_state` WHERE collection = 'tasks:occurrences'");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_userId_nextOccurrenceDay` "
+                    + "ON `tasks` (`userId`, `nextOccurrenceDay`)");
+        }
+    };
+
+    /**
+     * 9 -> 10: users created locally before their Firestore profile was checked
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `users` ADD COLUMN `provisional` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * 10 -> 11: time zone keying each task's task_day_stats rows. Existing
+     * contributions were counted in the current device zone; rows left at
+     * zero by earlier removals are dropped.
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `statsZone` TEXT");
+            db.execSQL("UPDATE `tasks` SET `statsZone` = ?", new Object[]{DayClock.zoneId()});
+            db.execSQL("DELETE FROM `task_day_stats` WHERE createdCount = 0 AND openCount = 0 "
+                    + "AND completedCount = 0 AND failedCount = 0 AND cancelledCount = 0 AND doneCount = 0");
+        }
+    };
+
+    public static final Migration[] ALL = {
+        MIGRATION_1_2,
+        MIGRATION_2_3,
+        MIGRATION_3_4,
+        MIGRATION_4_5,
+        MIGRATION_5_6,
+        MIGRATION_6_7,
+        MIGRATION_7_8,
+        MIGRATION_8_9,
+        MIGRATION_9_10,
+        MIGRATION_10_11
+    };
+
+    // Local epoch day of a millisecond column, matching TaskDayStats.toEpochDay()
+    private static String localEpochDay(String column) {
+        return "CAST(julianday(" + column + " / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER)";
+    }
+
+    // Rebuilds task_day_stats from the tasks table (same rules as TaskStatsWriter).
+    // Written against the v2-v4 schema, where status/difficulty are still TEXT.
+    static void backfillTaskDayStats(SupportSQLiteDatabase db) {
+        String effective = "CASE WHEN dueDate > 0 THEN dueDate "
+                + "WHEN completedDate > 0 THEN completedDate ELSE createdAt END";
+        db.execSQL("DELETE FROM `task_day_stats`");
+        db.execSQL("INSERT INTO `task_day_stats` (userId, epochDay, categoryId, difficulty, "
+                + "createdCount, openCount, completedCount, failedCount, cancelledCount, "
+                + "doneCount, doneXp, doneDifficultyXp) "
+                + "SELECT userId, epochDay, categoryId, difficulty, SUM(c), SUM(o), SUM(d), "
+                + "SUM(f), SUM(x), SUM(n), SUM(nx), SUM(ndx) FROM ("
+                // created day
+                + "SELECT userId, " + localEpochDay("createdAt") + " AS epochDay, "
+                + "IFNULL(categoryId, '') AS categoryId, IFNULL(difficulty, '') AS difficulty, "
+                + "1 AS c, 0 AS o, 0 AS d, 0 AS f, 0 AS x, 0 AS n, 0 AS nx, 0 AS ndx "
+                + "FROM tasks WHERE userId IS NOT NULL AND createdAt > 0 "
+                // effective day
+                + "UNION ALL SELECT userId, " + localEpochDay(effective) + ", "
+                + "IFNULL(categoryId, ''), IFNULL(difficulty, ''), 0, "
+                + "status IN ('ACTIVE', 'PAUSED'), status = 'COMPLETED', status = 'FAILED', "
+                + "status = 'CANCELLED', 0, 0, 0 "
+                + "FROM tasks WHERE userId IS NOT NULL AND (" + effective + ") > 0 "
+                // completion day
+                + "UNION ALL SELECT userId, " + localEpochDay("completedDate") + ", "
+                + "IFNULL(categoryId, ''), IFNULL(difficulty, ''), 0, 0, 0, 0, 0, 1, "
+                + "MAX(totalXp, 0), MAX(difficultyXp, 0) "
+                + "FROM tasks WHERE userId IS NOT NULL AND status = 'COMPLETED' AND completedDate > 0"
+                + ") GROUP BY userId, epochDay, categoryId, difficulty");
+    }
+
+    // Room's content-sync triggers for TaskFts
+    static void createTaskFtsTriggers(SupportSQLiteDatabase db) {
+        for (String when : new String[]{"BEFORE_UPDATE", "BEFORE_DELETE"}) {
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_" + when
+                    + " " + when.replace('_', ' ') + " ON `tasks` BEGIN "
+                    + "DELETE FROM `tasks_fts` WHERE `docid`=OLD.`rowid`; END");
+        }
+        for (String when : new String[]{"AFTER_UPDATE", "AFTER_INSERT"}) {
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_" + when
+                    + " " + when.replace('_', ' ') + " ON `tasks` BEGIN "
+                    + "INSERT INTO `tasks_fts`(`docid`, `name`, `description`) "
+                    + "VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END");
+        }
+    }
+
+    // Must stay in sync with the @Index declarations on Task (the
+    // nextOccurrenceDay index is added by MIGRATION_8_9, after these run)
+    static void createTaskIndexes(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_userId_status_dueDate` "
+                + "ON `tasks` (`userId`, `status`, `dueDate`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_userId_dueDate` "
+                + "ON `tasks` (`userId`, `dueDate`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_parentTaskId_dueDate` "
+                + "ON `tasks` (`parentTaskId`, `dueDate`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_userId_status_completedDate` "
+                + "ON `tasks` (`userId`, `status`, `completedDate`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_categoryId` "
+                + "ON `tasks` (`categoryId`)");
+    }
+}
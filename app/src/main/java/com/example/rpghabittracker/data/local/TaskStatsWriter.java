@@ -0,0 +1,99 @@
+package com.example.rpghabittracker.data.local;
+
+import com.example.rpghabittracker.data.local.dao.TaskDayStatsDao;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDayStats;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.utils.DayClock;
+
+/**
+ * Applies a task's contribution to task_day_stats.
+ * Callers must run this inside the same Room transaction as the task write,
+ * removing the old row's contribution and adding the new one.
+ *
+ * Days are taken in the task's statsZone, fixed when the task is first
+ * stored, so a contribution is always removed from the rows it was added to
+ * even after the device changed time zone. add() and replace() set it on the
+ * new row, so they must run before that row is written. Rows whose counters
+ * all drop to zero are deleted.
+ */
+public class TaskStatsWriter {
+
+    private final TaskDayStatsDao statsDao;
+
+    public TaskStatsWriter(TaskDayStatsDao statsDao) {
+        this.statsDao = statsDao;
+    }
+
+    // Replace the contribution of 'before' with the contribution of 'after' (either may be null)
+    public void replace(Task before, Task after) {
+        if (before != null) apply(before, -1);
+        if (after != null) {
+            after.setStatsZone(before != null ? zoneOf(before) : DayClock.zoneId());
+            apply(after, 1);
+        }
+    }
+
+    public void add(Task task) {
+        if (task.getStatsZone() == null) task.setStatsZone(DayClock.zoneId());
+        apply(task, 1);
+    }
+
+    public void remove(Task task) {
+        apply(task, -1);
+    }
+
+    private void apply(Task task, int sign) {
+        String userId = task.getUserId();
+        if (userId == null) return;
+
+        String zone = zoneOf(task);
+        String categoryId = task.getCategoryId() != null ? task.getCategoryId() : "";
+        String difficulty = task.getDifficulty() != null ? task.getDifficulty() : "";
+
+        // Created day
+        if (task.getCreatedAt() > 0) {
+            adjust(userId, DayClock.epochDay(task.getCreatedAt(), zone), categoryId, difficulty,
+                    sign, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        // Effective day: status counters
+        long effective = task.getDueDate() > 0 ? task.getDueDate()
+                : task.getCompletedDate() > 0 ? task.getCompletedDate()
+                : task.getCreatedAt();
+        if (effective > 0) {
+            TaskStatus status = task.getTaskStatus();
+            int open = status != null && status.isOpen() ? sign : 0;
+            int completed = status == TaskStatus.COMPLETED ? sign : 0;
+            int failed = status == TaskStatus.FAILED ? sign : 0;
+            int cancelled = status == TaskStatus.CANCELLED ? sign : 0;
+            if (open != 0 || completed != 0 || failed != 0 || cancelled != 0) {
+                adjust(userId, DayClock.epochDay(effective, zone), categoryId, difficulty,
+                        0, open, completed, failed, cancelled, 0, 0, 0);
+            }
+        }
+
+        // Completion day: XP counters
+        if (task.getTaskStatus() == TaskStatus.COMPLETED && task.getCompletedDate() > 0) {
+            adjust(userId, DayClock.epochDay(task.getCompletedDate(), zone), categoryId, difficulty,
+                    0, 0, 0, 0, 0, sign,
+                    sign * task.getTotalXp(), sign * task.getDifficultyXp());
+        }
+    }
+
+    // Rows stored before statsZone existed were counted in the device zone
+    private static String zoneOf(Task task) {
+        return task.getStatsZone() != null ? task.getStatsZone() : DayClock.zoneId();
+    }
+
+    private void adjust(String userId, long epochDay, String categoryId, String difficulty,
+                        int created, int open, int completed, int failed, int cancelled,
+                        int done, int doneXp, int doneDifficultyXp) {
+        statsDao.ensureRow(new TaskDayStats(userId, epochDay, categoryId, difficulty));
+        statsDao.adjust(userId, epochDay, categoryId, difficulty,
+                created, open, completed, failed, cancelled, done, doneXp, doneDifficultyXp);
+        if (created + open + completed + failed + cancelled + done < 0) {
+            statsDao.deleteIfEmpty(userId, epochDay, categoryId, difficulty);
+        }
+    }
+}
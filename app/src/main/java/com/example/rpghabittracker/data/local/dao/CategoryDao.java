@@ -33,18 +33,27 @@ public interface CategoryDao {
     @Query("DELETE FROM categories WHERE id = :categoryId")
     void deleteById(String categoryId);
     
+    @Query("DELETE FROM categories WHERE id IN (:categoryIds)")
+    void deleteByIds(List<String> categoryIds);
+    
     @Query("SELECT * FROM categories WHERE id = :categoryId")
     LiveData<Category> getCategoryById(String categoryId);
     
     @Query("SELECT * FROM categories WHERE id = :categoryId")
     Category getCategoryByIdSync(String categoryId);
     
+    @Query("SELECT * FROM categories WHERE id IN (:categoryIds)")
+    List<Category> getCategoriesByIdsSync(List<String> categoryIds);
+    
     @Query("SELECT * FROM categories WHERE userId = :userId ORDER BY name ASC")
     LiveData<List<Category>> getUserCategories(String userId);
     
     @Query("SELECT * FROM categories WHERE userId = :userId ORDER BY name ASC")
     List<Category> getUserCategoriesSync(String userId);
     
+    @Query("SELECT id FROM categories WHERE userId = :userId")
+    List<String> getUserCategoryIdsSync(String userId);
+    
     @Query("SELECT * FROM categories WHERE userId = :userId AND color = :color LIMIT 1")
     Category getCategoryByColor(String userId, String color);
     
@@ -0,0 +1,31 @@
+package com.example.rpghabittracker.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.rpghabittracker.data.model.FieldClock;
+
+import java.util.List;
+
+/**
+ * Data Access Object for per-field sync clocks
+ */
+@Dao
+public interface FieldClockDao {
+
+    // Caller keeps ids under the bound-variable limit
+    @Query("SELECT * FROM field_clocks WHERE collection = :collection AND documentId IN (:documentIds)")
+    List<FieldClock> getForDocuments(String collection, List<String> documentIds);
+
+    // Newest stamp stored on this device, null when there is none (seeds Hlc)
+    @Query("SELECT MAX(stamp) FROM field_clocks")
+    Long getMaxStamp();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<FieldClock> clocks);
+
+    @Query("DELETE FROM field_clocks WHERE collection = :collection AND documentId IN (:documentIds)")
+    void deleteForDocuments(String collection, List<String> documentIds);
+}
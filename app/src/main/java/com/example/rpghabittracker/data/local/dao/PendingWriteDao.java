@@ -0,0 +1,39 @@
+package com.example.rpghabittracker.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.rpghabittracker.data.model.PendingWrite;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the Firestore write-behind outbox
+ */
+@Dao
+public interface PendingWriteDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(PendingWrite write);
+
+    @Query("SELECT * FROM outbox WHERE collection = :collection AND documentId = :documentId")
+    PendingWrite get(String collection, String documentId);
+
+    // Documents of the collection with a local write not yet acknowledged
+    // (caller keeps ids under the bound-variable limit)
+    @Query("SELECT documentId FROM outbox WHERE collection = :collection AND documentId IN (:documentIds)")
+    List<String> getPendingIds(String collection, List<String> documentIds);
+
+    // Oldest first, so a document's write is never starved by newer ones
+    @Query("SELECT * FROM outbox WHERE nextAttemptAt <= :now ORDER BY createdAt ASC LIMIT :limit")
+    List<PendingWrite> getDue(long now, int limit);
+
+    // Earliest retry time, null when the outbox is empty
+    @Query("SELECT MIN(nextAttemptAt) FROM outbox")
+    Long getNextAttemptAt();
+
+    @Query("DELETE FROM outbox WHERE collection = :collection AND documentId = :documentId")
+    void delete(String collection, String documentId);
+}
@@ -0,0 +1,30 @@
+package com.example.rpghabittracker.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.rpghabittracker.data.model.SyncState;
+
+/**
+ * Data Access Object for per-collection sync watermarks
+ */
+@Dao
+public interface SyncStateDao {
+
+    @Query("SELECT * FROM sync_state WHERE userId = :userId AND collection = :collection")
+    SyncState get(String userId, String collection);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void ensureRow(SyncState state);
+
+    // Watermarks only move forward
+    @Query("UPDATE sync_state SET watermark = MAX(watermark, :watermark) " +
+            "WHERE userId = :userId AND collection = :collection")
+    void advanceWatermark(String userId, String collection, long watermark);
+
+    @Query("UPDATE sync_state SET lastFullSync = :lastFullSync " +
+            "WHERE userId = :userId AND collection = :collection")
+    void setLastFullSync(String userId, String collection, long lastFullSync);
+}
@@ -3,25 +3,31 @@ package com.example.rpghabittracker.data.local.dao;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
-import androidx.room.Insert;
-import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
+import androidx.room.Upsert;
 
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.data.model.TaskFts;
+import com.example.rpghabittracker.data.model.TaskListItem;
 
 import java.util.List;
 
 /**
  * Data Access Object for Task entity
+ * status/difficulty/importance are integer codes: inline the enum CODE_*
+ * constants in SQL and pass the enums themselves as parameters
  */
 @Dao
 public interface TaskDao {
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    // Upsert rather than REPLACE: REPLACE deletes the old row without firing
+    // delete triggers, which would leave stale entries in tasks_fts
+    @Upsert
     void insert(Task task);
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    @Upsert
     void insertAll(List<Task> tasks);
 
     @Update
@@ -33,6 +39,9 @@ public interface TaskDao {
     @Query("DELETE FROM tasks WHERE id = :taskId")
     void deleteById(String taskId);
 
+    @Query("DELETE FROM tasks WHERE id IN (:taskIds)")
+    void deleteByIds(List<String> taskIds);
+
     // Get single task
     @Query("SELECT * FROM tasks WHERE id = :taskId")
     LiveData<Task> getTaskById(String taskId);
@@ -40,16 +49,20 @@ public interface TaskDao {
     @Query("SELECT * FROM tasks WHERE id = :taskId")
     Task getTaskByIdSync(String taskId);
 
-    // Get all tasks for user
-    @Query("SELECT * FROM tasks WHERE userId = :userId ORDER BY dueDate ASC")
-    LiveData<List<Task>> getUserTasks(String userId);
+    // Row delta for the in-memory snapshot (caller keeps ids under the bound-variable limit)
+    @Query("SELECT * FROM tasks WHERE id IN (:taskIds)")
+    List<Task> getTasksByIdsSync(List<String> taskIds);
+
+    @Query("SELECT id FROM tasks WHERE userId = :userId")
+    List<String> getUserTaskIdsSync(String userId);
 
-    @Query("SELECT * FROM tasks WHERE userId = :userId ORDER BY dueDate ASC")
-    List<Task> getUserTasksSync(String userId);
+    // Slim rows for list screens (no full entity, description cut to a preview)
+    @Query("SELECT " + TaskListItem.COLUMNS + " FROM tasks WHERE userId = :userId ORDER BY dueDate ASC")
+    List<TaskListItem> getUserTaskListItemsSync(String userId);
 
-    // Get tasks by status
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND status = :status ORDER BY dueDate ASC")
-    LiveData<List<Task>> getTasksByStatus(String userId, String status);
+    // Slim row delta for the in-memory snapshot (caller keeps ids under the bound-variable limit)
+    @Query("SELECT " + TaskListItem.COLUMNS + " FROM tasks WHERE userId = :userId AND id IN (:taskIds)")
+    List<TaskListItem> getTaskListItemsByIdsSync(String userId, List<String> taskIds);
 
     // Get tasks in date range
     @Query("SELECT * FROM tasks WHERE userId = :userId AND dueDate >= :startDate AND dueDate <= :endDate ORDER BY dueDate ASC")
@@ -58,79 +71,80 @@ public interface TaskDao {
     @Query("SELECT * FROM tasks WHERE userId = :userId AND dueDate >= :startDate AND dueDate <= :endDate ORDER BY dueDate ASC")
     List<Task> getTasksInDateRangeSync(String userId, long startDate, long endDate);
 
-    // Get today's tasks
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND dueDate >= :dayStart AND dueDate < :dayEnd ORDER BY dueDate ASC")
-    LiveData<List<Task>> getTodayTasks(String userId, long dayStart, long dayEnd);
-
     // Get tasks by category
     @Query("SELECT * FROM tasks WHERE userId = :userId AND categoryId = :categoryId ORDER BY dueDate ASC")
     LiveData<List<Task>> getTasksByCategory(String userId, String categoryId);
 
-    // Get one-time tasks only (not recurring)
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND isRecurring = 0 ORDER BY dueDate ASC")
-    LiveData<List<Task>> getOneTimeTasks(String userId);
-
     // Get recurring TEMPLATES only (parent rows — no parentTaskId)
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND isRecurring = 1 AND (parentTaskId IS NULL OR parentTaskId = '') ORDER BY startDate ASC")
-    LiveData<List<Task>> getRecurringTemplates(String userId);
-
     @Query("SELECT * FROM tasks WHERE userId = :userId AND isRecurring = 1 AND (parentTaskId IS NULL OR parentTaskId = '')")
     List<Task> getRecurringTemplatesSync(String userId);
 
-    // Get recurring OCCURRENCES only (child rows — have a parentTaskId)
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND isRecurring = 1 AND parentTaskId IS NOT NULL AND parentTaskId != '' ORDER BY dueDate ASC")
-    LiveData<List<Task>> getRecurringOccurrences(String userId);
+    // Active templates whose next scheduled day is today or earlier (index range scan)
+    @Query("SELECT * FROM tasks WHERE userId = :userId AND nextOccurrenceDay <= :today " +
+           "AND status = " + TaskStatus.CODE_ACTIVE)
+    List<Task> getDueTemplatesSync(String userId, long today);
 
-    // Get today's occurrence for a specific template (returns null if none yet)
-    @Query("SELECT * FROM tasks WHERE parentTaskId = :parentId AND dueDate >= :dayStart AND dueDate < :dayEnd LIMIT 1")
-    Task getTodayOccurrenceSync(String parentId, long dayStart, long dayEnd);
+    @Query("UPDATE tasks SET nextOccurrenceDay = :day WHERE id = :taskId")
+    void setNextOccurrenceDay(String taskId, long day);
+
+    // Occurrences of all the user's templates due in [from, to): one query for a whole catch-up range
+    @Query("SELECT parentTaskId, dueDate FROM tasks WHERE userId = :userId AND dueDate >= :from AND dueDate < :to " +
+           "AND parentTaskId IS NOT NULL AND parentTaskId != ''")
+    List<Task.OccurrenceSlot> getOccurrenceSlotsSync(String userId, long from, long to);
+
+    // A template's occurrence due in [from, to), if stored
+    @Query("SELECT * FROM tasks WHERE parentTaskId = :parentId AND dueDate >= :from AND dueDate < :to LIMIT 1")
+    Task getOccurrenceSync(String parentId, long from, long to);
+
+    @Query("SELECT * FROM tasks WHERE parentTaskId = :parentId AND status = " + TaskStatus.CODE_ACTIVE)
+    List<Task> getFutureOccurrencesSync(String parentId);
 
     // Delete all future occurrences for a template (used when deleting a series)
-    @Query("DELETE FROM tasks WHERE parentTaskId = :parentId AND status = 'ACTIVE'")
+    @Query("DELETE FROM tasks WHERE parentTaskId = :parentId AND status = " + TaskStatus.CODE_ACTIVE)
     void deleteFutureOccurrences(String parentId);
 
     // Update status
     @Query("UPDATE tasks SET status = :status WHERE id = :taskId")
-    void updateStatus(String taskId, String status);
+    void updateStatus(String taskId, TaskStatus status);
 
     @Query("UPDATE tasks SET status = :status, completedDate = :completedDate WHERE id = :taskId")
-    void markComplete(String taskId, String status, long completedDate);
+    void markComplete(String taskId, TaskStatus status, long completedDate);
 
     // Count tasks
     @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND status = :status")
-    int countTasksByStatus(String userId, String status);
+    int countTasksByStatus(String userId, TaskStatus status);
 
-    @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND completedDate >= :dayStart AND completedDate < :dayEnd AND status = 'COMPLETED'")
+    @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND completedDate >= :dayStart AND completedDate < :dayEnd AND status = " + TaskStatus.CODE_COMPLETED)
     int countCompletedTasksForDate(String userId, long dayStart, long dayEnd);
 
-    // Quota tracking - count tasks by difficulty completed today
-    @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND difficulty = :difficulty AND status = 'COMPLETED' AND completedDate >= :dayStart AND completedDate < :dayEnd")
-    int countCompletedByDifficultyToday(String userId, String difficulty, long dayStart, long dayEnd);
-
-    // Quota tracking - count tasks by importance completed today
-    @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND importance = :importance AND status = 'COMPLETED' AND completedDate >= :dayStart AND completedDate < :dayEnd")
-    int countCompletedByImportanceToday(String userId, String importance, long dayStart, long dayEnd);
+    // Quota ledger hydration: completions counting toward the quota since :from
+    @Query("SELECT difficulty, importance, completedDate FROM tasks WHERE userId = :userId AND status = "
+            + TaskStatus.CODE_COMPLETED + " AND completedDate >= :from AND countsTowardQuota = 1")
+    List<Task.QuotaCompletion> getQuotaCompletionsSync(String userId, long from);
 
-    // Get ACTIVE occurrences (not templates) past their expiry window — for auto-failing
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND status = 'ACTIVE' AND dueDate < :cutoffTime AND parentTaskId IS NOT NULL AND parentTaskId != ''")
-    List<Task> getExpiredOccurrences(String userId, long cutoffTime);
+    // Get ACTIVE occurrences and one-time tasks (never templates) past their expiry window — for auto-failing
+    @Query("SELECT * FROM tasks WHERE userId = :userId AND status = " + TaskStatus.CODE_ACTIVE + " AND dueDate < :cutoffTime " +
+           "AND ((parentTaskId IS NOT NULL AND parentTaskId != '') OR isRecurring = 0)")
+    List<Task> getExpiredTasksSync(String userId, long cutoffTime);
 
-    // Get ACTIVE one-time tasks past their expiry window
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND status = 'ACTIVE' AND dueDate < :cutoffTime AND isRecurring = 0")
-    List<Task> getExpiredOneTimeTasks(String userId, long cutoffTime);
+    // Set-based status transition; the status guard keeps rows changed meanwhile untouched
+    @Query("UPDATE tasks SET status = :newStatus WHERE id IN (:taskIds) AND status = :expectedStatus")
+    int updateStatusForIds(List<String> taskIds, TaskStatus expectedStatus, TaskStatus newStatus);
 
     // Statistics
-    @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND status = 'COMPLETED' AND categoryId = :categoryId")
+    @Query("SELECT COUNT(*) FROM tasks WHERE userId = :userId AND status = " + TaskStatus.CODE_COMPLETED + " AND categoryId = :categoryId")
     int countCompletedByCategory(String userId, String categoryId);
 
     // Check if any task (any status) references this category
     @Query("SELECT COUNT(*) FROM tasks WHERE categoryId = :categoryId")
     int countTasksByCategory(String categoryId);
 
-    @Query("SELECT COALESCE(SUM(totalXp), 0) FROM tasks WHERE userId = :userId AND status = 'COMPLETED' AND completedDate >= :sinceDate")
+    @Query("SELECT COALESCE(SUM(totalXp), 0) FROM tasks WHERE userId = :userId AND status = " + TaskStatus.CODE_COMPLETED + " AND completedDate >= :sinceDate")
     int getTotalXpSince(String userId, long sinceDate);
 
-    // Get all completed tasks for statistics
-    @Query("SELECT * FROM tasks WHERE userId = :userId AND status = 'COMPLETED' ORDER BY completedDate DESC")
-    LiveData<List<Task>> getCompletedTasks(String userId);
+    // Full-text search; rank hits with TaskFts.SearchHit.score()
+    @Query("SELECT tasks.id AS id, matchinfo(tasks_fts, 'pcx') AS matchInfo FROM tasks_fts " +
+           "JOIN tasks ON tasks.rowid = tasks_fts.rowid " +
+           "WHERE tasks_fts MATCH :matchQuery AND tasks.userId = :userId")
+    LiveData<List<TaskFts.SearchHit>> search(String userId, String matchQuery);
 }
@@ -0,0 +1,63 @@
+package com.example.rpghabittracker.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.rpghabittracker.data.model.TaskDayStats;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the pre-aggregated task_day_stats table
+ */
+@Dao
+public interface TaskDayStatsDao {
+
+    // Creates a zeroed row if it does not exist yet
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void ensureRow(TaskDayStats row);
+
+    @Query("UPDATE task_day_stats SET " +
+            "createdCount = createdCount + :created, " +
+            "openCount = openCount + :open, " +
+            "completedCount = completedCount + :completed, " +
+            "failedCount = failedCount + :failed, " +
+            "cancelledCount = cancelledCount + :cancelled, " +
+            "doneCount = doneCount + :done, " +
+            "doneXp = doneXp + :doneXp, " +
+            "doneDifficultyXp = doneDifficultyXp + :doneDifficultyXp " +
+            "WHERE userId = :userId AND epochDay = :epochDay " +
+            "AND categoryId = :categoryId AND difficulty = :difficulty")
+    void adjust(String userId, long epochDay, String categoryId, String difficulty,
+                int created, int open, int completed, int failed, int cancelled,
+                int done, int doneXp, int doneDifficultyXp);
+
+    // Drops a row whose counters are all back to zero
+    @Query("DELETE FROM task_day_stats WHERE userId = :userId AND epochDay = :epochDay " +
+            "AND categoryId = :categoryId AND difficulty = :difficulty " +
+            "AND createdCount = 0 AND openCount = 0 AND completedCount = 0 " +
+            "AND failedCount = 0 AND cancelledCount = 0 AND doneCount = 0")
+    void deleteIfEmpty(String userId, long epochDay, String categoryId, String difficulty);
+
+    @Query("DELETE FROM task_day_stats WHERE userId = :userId")
+    void deleteForUser(String userId);
+
+    // Per-day rollup for the statistics screen
+    @Query("SELECT epochDay, " +
+            "SUM(createdCount) AS createdCount, SUM(openCount) AS openCount, " +
+            "SUM(completedCount) AS completedCount, SUM(failedCount) AS failedCount, " +
+            "SUM(cancelledCount) AS cancelledCount, SUM(doneCount) AS doneCount, " +
+            "SUM(doneXp) AS doneXp, SUM(doneDifficultyXp) AS doneDifficultyXp " +
+            "FROM task_day_stats WHERE userId = :userId " +
+            "GROUP BY epochDay ORDER BY epochDay ASC")
+    LiveData<List<TaskDayStats.DayTotals>> getDayTotals(String userId);
+
+    // Completed tasks per category
+    @Query("SELECT categoryId, SUM(completedCount) AS completedCount " +
+            "FROM task_day_stats WHERE userId = :userId " +
+            "GROUP BY categoryId HAVING SUM(completedCount) > 0")
+    LiveData<List<TaskDayStats.CategoryTotals>> getCategoryTotals(String userId);
+}
@@ -68,6 +68,9 @@ public interface UserDao {
     @Query("UPDATE users SET totalTasksFailed = totalTasksFailed + 1 WHERE id = :userId")
     void incrementTasksFailed(String userId);
     
+    @Query("UPDATE users SET totalTasksFailed = totalTasksFailed + :count WHERE id = :userId")
+    void incrementTasksFailedBy(String userId, int count);
+    
     @Query("UPDATE users SET totalTasksCreated = totalTasksCreated + 1 WHERE id = :userId")
     void incrementTasksCreated(String userId);
     
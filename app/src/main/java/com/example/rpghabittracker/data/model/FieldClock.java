@@ -0,0 +1,53 @@
+package com.example.rpghabittracker.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Hybrid logical clock stamp of the last write to one field of a synced
+ * document, as known on this device (see FieldMerge). Fields without a row
+ * have never been written with a clock and lose to any stamped value.
+ */
+@Entity(
+    tableName = "field_clocks",
+    primaryKeys = {"collection", "documentId", "field"}
+)
+public class FieldClock {
+
+    @NonNull
+    private String collection;
+    @NonNull
+    private String documentId;
+    @NonNull
+    private String field; // Key in the Firestore document
+
+    private long stamp;
+
+    public FieldClock() {
+        this.collection = "";
+        this.documentId = "";
+        this.field = "";
+    }
+
+    public FieldClock(@NonNull String collection, @NonNull String documentId, @NonNull String field, long stamp) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.field = field;
+        this.stamp = stamp;
+    }
+
+    @NonNull
+    public String getCollection() { return collection; }
+    public void setCollection(@NonNull String collection) { this.collection = collection; }
+
+    @NonNull
+    public String getDocumentId() { return documentId; }
+    public void setDocumentId(@NonNull String documentId) { this.documentId = documentId; }
+
+    @NonNull
+    public String getField() { return field; }
+    public void setField(@NonNull String field) { this.field = field; }
+
+    public long getStamp() { return stamp; }
+    public void setStamp(long stamp) { this.stamp = stamp; }
+}
@@ -0,0 +1,83 @@
+package com.example.rpghabittracker.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One not yet acknowledged Firestore mutation, at most one row per document.
+ * Later writes to the same document are coalesced into the row (see Outbox),
+ * so the row always holds the net effect still owed to the server.
+ */
+@Entity(
+    tableName = "outbox",
+    primaryKeys = {"collection", "documentId"}
+)
+public class PendingWrite {
+
+    public static final int OP_SET = 0;    // Replace the whole document
+    public static final int OP_MERGE = 1;  // Set the given fields, keep the rest
+    public static final int OP_DELETE = 2; // Delete (and leave a tombstone when owned)
+
+    @NonNull
+    private String collection;
+    @NonNull
+    private String documentId;
+
+    private int op;
+    private String fields;                   // Typed JSON, see Outbox
+    private Map<String, Integer> increments; // Field -> delta, applied with FieldValue.increment
+    private String tombstoneUserId;          // Owner for the delete tombstone, null for none
+
+    private int revision;       // Bumped on every coalesced write; acks only clear the revision sent
+    private int attempts;
+    private long nextAttemptAt; // Device time in millis; backoff after failed flushes
+    private long createdAt;
+
+    public PendingWrite() {
+        this.collection = "";
+        this.documentId = "";
+        this.increments = new HashMap<>();
+    }
+
+    public PendingWrite(@NonNull String collection, @NonNull String documentId) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.increments = new HashMap<>();
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    @NonNull
+    public String getCollection() { return collection; }
+    public void setCollection(@NonNull String collection) { this.collection = collection; }
+
+    @NonNull
+    public String getDocumentId() { return documentId; }
+    public void setDocumentId(@NonNull String documentId) { this.documentId = documentId; }
+
+    public int getOp() { return op; }
+    public void setOp(int op) { this.op = op; }
+
+    public String getFields() { return fields; }
+    public void setFields(String fields) { this.fields = fields; }
+
+    public Map<String, Integer> getIncrements() { return increments; }
+    public void setIncrements(Map<String, Integer> increments) { this.increments = increments; }
+
+    public String getTombstoneUserId() { return tombstoneUserId; }
+    public void setTombstoneUserId(String tombstoneUserId) { this.tombstoneUserId = tombstoneUserId; }
+
+    public int getRevision() { return revision; }
+    public void setRevision(int revision) { this.revision = revision; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(long nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,37 @@
+package com.example.rpghabittracker.data.model;
+
+import java.util.Locale;
+
+/**
+ * Repeat unit of a recurring task template, stored in Room as a small integer code.
+ */
+public enum RepeatUnit {
+    DAY(RepeatUnit.CODE_DAY),
+    WEEK(RepeatUnit.CODE_WEEK);
+
+    // Stored codes; never renumber
+    public static final int CODE_DAY = 0;
+    public static final int CODE_WEEK = 1;
+
+    private static final RepeatUnit[] BY_CODE = values();
+
+    public final int code;
+
+    RepeatUnit(int code) {
+        this.code = code;
+    }
+
+    public static RepeatUnit fromCode(Integer code) {
+        if (code == null || code < 0 || code >= BY_CODE.length) return null;
+        return BY_CODE[code];
+    }
+
+    public static RepeatUnit fromName(String name) {
+        if (name == null) return null;
+        String normalized = name.trim().toUpperCase(Locale.ROOT);
+        for (RepeatUnit unit : BY_CODE) {
+            if (unit.name().equals(normalized)) return unit;
+        }
+        return null;
+    }
+}
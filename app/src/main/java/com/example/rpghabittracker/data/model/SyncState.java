@@ -0,0 +1,48 @@
+package com.example.rpghabittracker.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Delta-sync bookkeeping for one (user, Firestore collection) pair.
+ * watermark is the highest server `lastUpdated` already applied locally;
+ * startup only asks Firestore for documents changed after it.
+ */
+@Entity(
+    tableName = "sync_state",
+    primaryKeys = {"userId", "collection"}
+)
+public class SyncState {
+
+    @NonNull
+    private String userId;
+    @NonNull
+    private String collection; // Firestore collection, or "<collection>:tombstones"
+
+    private long watermark;    // Server time in millis of the newest applied change
+    private long lastFullSync; // Device time in millis of the last full reconciliation pass
+
+    public SyncState() {
+        this.userId = "";
+        this.collection = "";
+    }
+
+    public SyncState(@NonNull String userId, @NonNull String collection) {
+        this.userId = userId;
+        this.collection = collection;
+    }
+
+    @NonNull
+    public String getUserId() { return userId; }
+    public void setUserId(@NonNull String userId) { this.userId = userId; }
+
+    @NonNull
+    public String getCollection() { return collection; }
+    public void setCollection(@NonNull String collection) { this.collection = collection; }
+
+    public long getWatermark() { return watermark; }
+    public void setWatermark(long watermark) { this.watermark = watermark; }
+
+    public long getLastFullSync() { return lastFullSync; }
+    public void setLastFullSync(long lastFullSync) { this.lastFullSync = lastFullSync; }
+}
@@ -1,15 +1,32 @@
 package com.example.rpghabittracker.data.model;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.Ignore;
 
 import java.io.Serializable;
-import java.util.Locale;
 import java.util.UUID;
 
-@Entity(tableName = "tasks")
+@Entity(
+    tableName = "tasks",
+    indices = {
+        // getExpired*, countTasksByStatus
+        @Index(value = {"userId", "status", "dueDate"}),
+        // getUserTaskListItemsSync, getTasksInDateRange
+        @Index(value = {"userId", "dueDate"}),
+        // deleteFutureOccurrences
+        @Index(value = {"parentTaskId", "dueDate"}),
+        // quota counters and completed-task statistics
+        @Index(value = {"userId", "status", "completedDate"}),
+        // countTasksByCategory (category delete guard)
+        @Index(value = {"categoryId"}),
+        // getDueTemplatesSync (NULL on everything but recurring templates)
+        @Index(value = {"userId", "nextOccurrenceDay"})
+    }
+)
 public class Task implements Serializable {
     
     @PrimaryKey
@@ -20,6 +37,9 @@ public class Task implements Serializable {
     private String description;
     private String categoryId;
     
+    // String names below are the Firestore wire values; Room stores the enum codes
+    // (TaskDifficulty / TaskImportance / TaskStatus / RepeatUnit)
+
     // Difficulty (Težina) - Base XP values
     public static final String DIFFICULTY_VERY_EASY = "VERY_EASY"; // 1 XP (base)
     public static final String DIFFICULTY_EASY = "EASY"; // 3 XP (base)
@@ -39,20 +59,33 @@ public class Task implements Serializable {
     public static final String STATUS_PAUSED = "PAUSED"; // Only for recurring
     public static final String STATUS_CANCELLED = "CANCELLED"; // Otkazan (not user's fault)
     
-    private String difficulty;
-    private String importance;
+    // Levels with precomputed XP in the difficulty/importance enums
+    static final int XP_TABLE_LEVELS = 100;
+    
+    @ColumnInfo(name = "difficulty")
+    private TaskDifficulty taskDifficulty;
+    @ColumnInfo(name = "importance")
+    private TaskImportance taskImportance;
     private int difficultyXp; // XP for difficulty (adjusted for level)
     private int importanceXp; // XP for importance (adjusted for level)
     private int totalXp; // Total XP value
-    private String status;
+    @ColumnInfo(name = "status")
+    private TaskStatus taskStatus;
     
     // Recurring task fields
     private boolean isRecurring;
     private String parentTaskId; // For recurring task instances
     private int repeatInterval; // 1, 2, 3...
-    private String repeatUnit; // "DAY", "WEEK"
+    @ColumnInfo(name = "repeatUnit")
+    private RepeatUnit taskRepeatUnit; // DAY, WEEK
     private long startDate;
     private long endDate;
+    // Templates only, local-only: next scheduled epoch day not generated yet
+    // (see RecurrenceCalculator), 0 = not computed yet
+    private Long nextOccurrenceDay;
+    // Local-only: time zone whose days key this row's task_day_stats
+    // contribution (see TaskStatsWriter), kept across zone changes
+    private String statsZone;
     
     // Timestamps
     private long createdAt;
@@ -67,7 +100,7 @@ public class Task implements Serializable {
     
     public Task() {
         this.id = UUID.randomUUID().toString();
-        this.status = STATUS_ACTIVE;
+        this.taskStatus = TaskStatus.ACTIVE;
         this.createdAt = System.currentTimeMillis();
         this.isRecurring = false;
         this.countsTowardQuota = true;
@@ -80,132 +113,88 @@ public class Task implements Serializable {
         this.userId = userId;
         this.name = name;
         this.userLevelAtCreation = Math.max(1, userLevel);
-        this.difficulty = normalizeDifficulty(difficulty);
-        this.importance = normalizeImportance(importance);
+        this.taskDifficulty = TaskDifficulty.fromName(difficulty);
+        this.taskImportance = TaskImportance.fromName(importance);
         calculateXpValues(this.userLevelAtCreation);
     }
+
+    // Field-for-field copy (rows handed out by the shared task snapshot)
+    @Ignore
+    public Task(Task other) {
+        this.id = other.id;
+        this.userId = other.userId;
+        this.name = other.name;
+        this.description = other.description;
+        this.categoryId = other.categoryId;
+        this.taskDifficulty = other.taskDifficulty;
+        this.taskImportance = other.taskImportance;
+        this.difficultyXp = other.difficultyXp;
+        this.importanceXp = other.importanceXp;
+        this.totalXp = other.totalXp;
+        this.taskStatus = other.taskStatus;
+        this.isRecurring = other.isRecurring;
+        this.parentTaskId = other.parentTaskId;
+        this.repeatInterval = other.repeatInterval;
+        this.taskRepeatUnit = other.taskRepeatUnit;
+        this.startDate = other.startDate;
+        this.endDate = other.endDate;
+        this.nextOccurrenceDay = other.nextOccurrenceDay;
+        this.statsZone = other.statsZone;
+        this.createdAt = other.createdAt;
+        this.dueDate = other.dueDate;
+        this.completedDate = other.completedDate;
+        this.userLevelAtCreation = other.userLevelAtCreation;
+        this.countsTowardQuota = other.countsTowardQuota;
+    }
     
     // Calculate XP values based on difficulty, importance, and user level
     public void calculateXpValues(int userLevel) {
         int safeLevel = Math.max(1, userLevel);
-        this.difficultyXp = getDifficultyXpForLevel(difficulty, safeLevel);
-        this.importanceXp = getImportanceXpForLevel(importance, safeLevel);
+        this.difficultyXp = taskDifficulty != null ? taskDifficulty.xpForLevel(safeLevel) : 0;
+        this.importanceXp = taskImportance != null ? taskImportance.xpForLevel(safeLevel) : 0;
         this.totalXp = difficultyXp + importanceXp;
     }
     
     // Get difficulty XP for a specific level
     // Formula: XP_prev + XP_prev / 2 (rounded) for each level after 1
     public static int getDifficultyXpForLevel(String difficulty, int level) {
-        int baseXp = getBaseDifficultyXp(difficulty);
-        int safeLevel = Math.max(1, level);
-        if (safeLevel == 1) return baseXp;
-        
-        int xp = baseXp;
-        for (int i = 2; i <= safeLevel; i++) {
-            xp = (int) Math.round(xp + xp / 2.0);
-        }
-        return xp;
+        TaskDifficulty value = TaskDifficulty.fromName(difficulty);
+        return value != null ? value.xpForLevel(level) : 0;
     }
 
     // Get importance XP for a specific level
     // Formula: XP_prev + XP_prev / 2 (rounded) for each level after 1
     public static int getImportanceXpForLevel(String importance, int level) {
-        int baseXp = getBaseImportanceXp(importance);
-        int safeLevel = Math.max(1, level);
-        if (safeLevel == 1) return baseXp;
+        TaskImportance value = TaskImportance.fromName(importance);
+        return value != null ? value.xpForLevel(level) : 0;
+    }
 
+    // XP for levels 1..XP_TABLE_LEVELS, built once per enum constant
+    static int[] buildXpTable(int baseXp) {
+        int[] table = new int[XP_TABLE_LEVELS];
         int xp = baseXp;
-        for (int i = 2; i <= safeLevel; i++) {
+        table[0] = xp;
+        for (int i = 1; i < table.length; i++) {
             xp = (int) Math.round(xp + xp / 2.0);
+            table[i] = xp;
         }
-        return xp;
-    }
-    
-    // Base XP values for difficulty (level 1)
-    private static int getBaseDifficultyXp(String difficulty) {
-        if (difficulty == null) return 0;
-        switch (difficulty) {
-            case DIFFICULTY_VERY_EASY: return 1;
-            case DIFFICULTY_EASY: return 3;
-            case DIFFICULTY_HARD: return 7;
-            case DIFFICULTY_EXTREME: return 20;
-            default: return 0;
-        }
-    }
-    
-    // Base XP values for importance (level 1)
-    private static int getBaseImportanceXp(String importance) {
-        if (importance == null) return 0;
-        switch (importance) {
-            case IMPORTANCE_NORMAL: return 1;
-            case IMPORTANCE_IMPORTANT: return 3;
-            case IMPORTANCE_VERY_IMPORTANT: return 10;
-            case IMPORTANCE_SPECIAL: return 100;
-            default: return 0;
-        }
+        return table;
     }
 
-    private static String normalizeDifficulty(String difficulty) {
-        if (difficulty == null) return null;
-        String normalized = difficulty.trim()
-                .toUpperCase(Locale.ROOT)
-                .replace('-', '_')
-                .replace(' ', '_');
-        if (normalized.isEmpty()) return null;
-        if ("VERYEASY".equals(normalized)) return DIFFICULTY_VERY_EASY;
-        switch (normalized) {
-            case DIFFICULTY_VERY_EASY:
-            case DIFFICULTY_EASY:
-            case DIFFICULTY_HARD:
-            case DIFFICULTY_EXTREME:
-                return normalized;
-            default:
-                return null;
-        }
-    }
-
-    private static String normalizeImportance(String importance) {
-        if (importance == null) return null;
-        String normalized = importance.trim()
-                .toUpperCase(Locale.ROOT)
-                .replace('-', '_')
-                .replace(' ', '_');
-        if (normalized.isEmpty()) return null;
-        if ("VERYIMPORTANT".equals(normalized)) return IMPORTANCE_VERY_IMPORTANT;
-        switch (normalized) {
-            case IMPORTANCE_NORMAL:
-            case IMPORTANCE_IMPORTANT:
-            case IMPORTANCE_VERY_IMPORTANT:
-            case IMPORTANCE_SPECIAL:
-                return normalized;
-            default:
-                return null;
-        }
-    }
+    static int lookupXp(int[] table, int baseXp, int level) {
+        int safeLevel = Math.max(1, level);
+        if (safeLevel <= table.length) return table[safeLevel - 1];
 
-    private static String normalizeStatus(String status) {
-        if (status == null) return STATUS_ACTIVE;
-        String normalized = status.trim()
-                .toUpperCase(Locale.ROOT)
-                .replace('-', '_')
-                .replace(' ', '_');
-        if (normalized.isEmpty()) return STATUS_ACTIVE;
-        if ("CANCELED".equals(normalized)) return STATUS_CANCELLED;
-        switch (normalized) {
-            case STATUS_ACTIVE:
-            case STATUS_COMPLETED:
-            case STATUS_FAILED:
-            case STATUS_PAUSED:
-            case STATUS_CANCELLED:
-                return normalized;
-            default:
-                return normalized;
+        int xp = table[table.length - 1];
+        for (int i = table.length + 1; i <= safeLevel; i++) {
+            xp = (int) Math.round(xp + xp / 2.0);
         }
+        return xp;
     }
     
     // Check if task is expired (3 days after due date)
     public boolean isExpired() {
-        if (STATUS_COMPLETED.equals(status) || STATUS_CANCELLED.equals(status)) {
+        if (taskStatus == TaskStatus.COMPLETED || taskStatus == TaskStatus.CANCELLED) {
             return false;
         }
         if (dueDate <= 0L) {
@@ -239,18 +228,25 @@ public class Task implements Serializable {
     public String getCategoryId() { return categoryId; }
     public void setCategoryId(String categoryId) { this.categoryId = categoryId; }
     
-    public String getDifficulty() { return difficulty; }
+    // String accessors use the wire names (forms, Firestore); Room uses the enum accessors
+    public String getDifficulty() { return taskDifficulty != null ? taskDifficulty.name() : null; }
     public void setDifficulty(String difficulty) { 
-        this.difficulty = normalizeDifficulty(difficulty);
+        this.taskDifficulty = TaskDifficulty.fromName(difficulty);
         calculateXpValues(userLevelAtCreation);
     }
     
-    public String getImportance() { return importance; }
+    public TaskDifficulty getTaskDifficulty() { return taskDifficulty; }
+    public void setTaskDifficulty(TaskDifficulty taskDifficulty) { this.taskDifficulty = taskDifficulty; }
+    
+    public String getImportance() { return taskImportance != null ? taskImportance.name() : null; }
     public void setImportance(String importance) { 
-        this.importance = normalizeImportance(importance);
+        this.taskImportance = TaskImportance.fromName(importance);
         calculateXpValues(userLevelAtCreation);
     }
     
+    public TaskImportance getTaskImportance() { return taskImportance; }
+    public void setTaskImportance(TaskImportance taskImportance) { this.taskImportance = taskImportance; }
+    
     public int getDifficultyXp() { return difficultyXp; }
     public void setDifficultyXp(int difficultyXp) { this.difficultyXp = difficultyXp; }
     
@@ -260,8 +256,11 @@ public class Task implements Serializable {
     public int getTotalXp() { return totalXp; }
     public void setTotalXp(int totalXp) { this.totalXp = totalXp; }
     
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = normalizeStatus(status); }
+    public String getStatus() { return taskStatus != null ? taskStatus.name() : null; }
+    public void setStatus(String status) { this.taskStatus = TaskStatus.fromName(status); }
+    
+    public TaskStatus getTaskStatus() { return taskStatus; }
+    public void setTaskStatus(TaskStatus taskStatus) { this.taskStatus = taskStatus; }
     
     public boolean isRecurring() { return isRecurring; }
     public void setRecurring(boolean recurring) { isRecurring = recurring; }
@@ -272,8 +271,11 @@ public class Task implements Serializable {
     public int getRepeatInterval() { return repeatInterval; }
     public void setRepeatInterval(int repeatInterval) { this.repeatInterval = repeatInterval; }
     
-    public String getRepeatUnit() { return repeatUnit; }
-    public void setRepeatUnit(String repeatUnit) { this.repeatUnit = repeatUnit; }
+    public String getRepeatUnit() { return taskRepeatUnit != null ? taskRepeatUnit.name() : null; }
+    public void setRepeatUnit(String repeatUnit) { this.taskRepeatUnit = RepeatUnit.fromName(repeatUnit); }
+    
+    public RepeatUnit getTaskRepeatUnit() { return taskRepeatUnit; }
+    public void setTaskRepeatUnit(RepeatUnit taskRepeatUnit) { this.taskRepeatUnit = taskRepeatUnit; }
     
     public long getStartDate() { return startDate; }
     public void setStartDate(long startDate) { this.startDate = startDate; }
@@ -281,6 +283,12 @@ public class Task implements Serializable {
     public long getEndDate() { return endDate; }
     public void setEndDate(long endDate) { this.endDate = endDate; }
     
+    public Long getNextOccurrenceDay() { return nextOccurrenceDay; }
+    public void setNextOccurrenceDay(Long nextOccurrenceDay) { this.nextOccurrenceDay = nextOccurrenceDay; }
+    
+    public String getStatsZone() { return statsZone; }
+    public void setStatsZone(String statsZone) { this.statsZone = statsZone; }
+    
     public long getCreatedAt() { return createdAt; }
     public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
     
@@ -298,4 +306,17 @@ public class Task implements Serializable {
     
     public boolean isCountsTowardQuota() { return countsTowardQuota; }
     public void setCountsTowardQuota(boolean countsTowardQuota) { this.countsTowardQuota = countsTowardQuota; }
+
+    // Existing occurrence of a template, for the catch-up generation existence check
+    public static class OccurrenceSlot {
+        public String parentTaskId;
+        public long dueDate;
+    }
+
+    // Completed task counted by the quota ledger
+    public static class QuotaCompletion {
+        public TaskDifficulty difficulty;
+        public TaskImportance importance;
+        public long completedDate;
+    }
 }
@@ -0,0 +1,124 @@
+package com.example.rpghabittracker.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+import com.example.rpghabittracker.utils.DayClock;
+
+/**
+ * Pre-aggregated task statistics per (user, local day, category, difficulty).
+ * Maintained by TaskRepository in the same transaction as every task write,
+ * so the statistics screen reads aggregates instead of the whole task history.
+ *
+ * A task contributes to up to three rows:
+ *  - its created day        -> createdCount
+ *  - its effective day      -> open/completed/failed/cancelledCount
+ *                              (dueDate, else completedDate, else createdAt)
+ *  - its completion day     -> doneCount, doneXp, doneDifficultyXp
+ */
+@Entity(
+    tableName = "task_day_stats",
+    primaryKeys = {"userId", "epochDay", "categoryId", "difficulty"}
+)
+public class TaskDayStats {
+
+    @NonNull
+    private String userId;
+    private long epochDay; // Days since 1970-01-01 in the contributing task's statsZone
+    @NonNull
+    private String categoryId; // "" when the task has no category
+    @NonNull
+    private String difficulty; // "" when the task has no difficulty
+
+    private int createdCount;
+    private int openCount; // ACTIVE or PAUSED
+    private int completedCount;
+    private int failedCount;
+    private int cancelledCount;
+
+    private int doneCount;
+    private int doneXp;
+    private int doneDifficultyXp;
+
+    public TaskDayStats() {
+        this.userId = "";
+        this.categoryId = "";
+        this.difficulty = "";
+    }
+
+    public TaskDayStats(@NonNull String userId, long epochDay, @NonNull String categoryId,
+                        @NonNull String difficulty) {
+        this.userId = userId;
+        this.epochDay = epochDay;
+        this.categoryId = categoryId;
+        this.difficulty = difficulty;
+    }
+
+    // Local epoch day for a timestamp (same day boundaries as Calendar.getInstance())
+    public static long toEpochDay(long millis) {
+        return DayClock.epochDay(millis);
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getUserId() { return userId; }
+    public void setUserId(@NonNull String userId) { this.userId = userId; }
+
+    public long getEpochDay() { return epochDay; }
+    public void setEpochDay(long epochDay) { this.epochDay = epochDay; }
+
+    @NonNull
+    public String getCategoryId() { return categoryId; }
+    public void setCategoryId(@NonNull String categoryId) { this.categoryId = categoryId; }
+
+    @NonNull
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(@NonNull String difficulty) { this.difficulty = difficulty; }
+
+    public int getCreatedCount() { return createdCount; }
+    public void setCreatedCount(int createdCount) { this.createdCount = createdCount; }
+
+    public int getOpenCount() { return openCount; }
+    public void setOpenCount(int openCount) { this.openCount = openCount; }
+
+    public int getCompletedCount() { return completedCount; }
+    public void setCompletedCount(int completedCount) { this.completedCount = completedCount; }
+
+    public int getFailedCount() { return failedCount; }
+    public void setFailedCount(int failedCount) { this.failedCount = failedCount; }
+
+    public int getCancelledCount() { return cancelledCount; }
+    public void setCancelledCount(int cancelledCount) { this.cancelledCount = cancelledCount; }
+
+    public int getDoneCount() { return doneCount; }
+    public void setDoneCount(int doneCount) { this.doneCount = doneCount; }
+
+    public int getDoneXp() { return doneXp; }
+    public void setDoneXp(int doneXp) { this.doneXp = doneXp; }
+
+    public int getDoneDifficultyXp() { return doneDifficultyXp; }
+    public void setDoneDifficultyXp(int doneDifficultyXp) { this.doneDifficultyXp = doneDifficultyXp; }
+
+    /**
+     * Per-day rollup across categories and difficulties
+     */
+    public static class DayTotals {
+        public long epochDay;
+        public int createdCount;
+        public int openCount;
+        public int completedCount;
+        public int failedCount;
+        public int cancelledCount;
+        public int doneCount;
+        public int doneXp;
+        public int doneDifficultyXp;
+    }
+
+    /**
+     * Completed tasks per category
+     */
+    public static class CategoryTotals {
+        public String categoryId;
+        public int completedCount;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.rpghabittracker.data.model;
+
+import java.util.Locale;
+
+/**
+ * Task difficulty (Težina), stored in Room as a small integer code.
+ * XP per user level is precomputed once per constant.
+ */
+public enum TaskDifficulty {
+    VERY_EASY(TaskDifficulty.CODE_VERY_EASY, 1),
+    EASY(TaskDifficulty.CODE_EASY, 3),
+    HARD(TaskDifficulty.CODE_HARD, 7),
+    EXTREME(TaskDifficulty.CODE_EXTREME, 20);
+
+    // Stored codes; never renumber
+    public static final int CODE_VERY_EASY = 0;
+    public static final int CODE_EASY = 1;
+    public static final int CODE_HARD = 2;
+    public static final int CODE_EXTREME = 3;
+
+    private static final TaskDifficulty[] BY_CODE = values();
+
+    public final int code;
+    public final int baseXp;
+    private final int[] xpByLevel;
+
+    TaskDifficulty(int code, int baseXp) {
+        this.code = code;
+        this.baseXp = baseXp;
+        this.xpByLevel = Task.buildXpTable(baseXp);
+    }
+
+    public int xpForLevel(int level) {
+        return Task.lookupXp(xpByLevel, baseXp, level);
+    }
+
+    public static TaskDifficulty fromCode(Integer code) {
+        if (code == null || code < 0 || code >= BY_CODE.length) return null;
+        return BY_CODE[code];
+    }
+
+    // Lenient parse of wire/form strings ("very-easy", "VERYEASY", ...); null if unknown
+    public static TaskDifficulty fromName(String name) {
+        if (name == null) return null;
+        String normalized = name.trim()
+                .toUpperCase(Locale.ROOT)
+                .replace('-', '_')
+                .replace(' ', '_');
+        if ("VERYEASY".equals(normalized)) return VERY_EASY;
+        for (TaskDifficulty difficulty : BY_CODE) {
+            if (difficulty.name().equals(normalized)) return difficulty;
+        }
+        return null;
+    }
+}
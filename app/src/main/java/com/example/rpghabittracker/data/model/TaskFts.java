@@ -0,0 +1,85 @@
+package com.example.rpghabittracker.data.model;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * FTS4 shadow table over Task.name / Task.description.
+ * External-content table: Room keeps it in sync with `tasks` through triggers,
+ * so only the full-text index is stored here, never a second copy of the text.
+ */
+@Entity(tableName = "tasks_fts")
+@Fts4(contentEntity = Task.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+public class TaskFts {
+
+    // Column weights for ranking: a hit in the name counts more than one in the description
+    private static final double[] COLUMN_WEIGHTS = {2.0, 1.0};
+
+    private String name;
+    private String description;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    /**
+     * Builds a MATCH expression from free user input: every word becomes a
+     * prefix term and all terms must match. Returns null when nothing is searchable.
+     */
+    public static String toMatchQuery(String input) {
+        if (input == null) return null;
+        StringBuilder query = new StringBuilder();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= input.length(); i++) {
+            char c = i < input.length() ? input.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (term.length() > 0) {
+                if (query.length() > 0) query.append(' ');
+                query.append(term).append('*');
+                term.setLength(0);
+            }
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * Search result row: task id plus the raw matchinfo(tasks_fts, 'pcx') blob
+     */
+    public static class SearchHit {
+        public String id;
+        public byte[] matchInfo;
+
+        /**
+         * tf-idf style score: for every phrase/column pair, hits in this row divided
+         * by hits across all rows, weighted per column.
+         */
+        public double score() {
+            if (matchInfo == null || matchInfo.length < 8) return 0;
+            IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+            int phrases = info.get(0);
+            int columns = info.get(1);
+            double score = 0;
+            for (int p = 0; p < phrases; p++) {
+                for (int c = 0; c < columns; c++) {
+                    int base = 2 + 3 * (p * columns + c);
+                    if (base + 1 >= info.limit()) return score;
+                    int hitsInRow = info.get(base);
+                    int hitsInAllRows = info.get(base + 1);
+                    if (hitsInRow > 0 && hitsInAllRows > 0) {
+                        double weight = c < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[c] : 1.0;
+                        score += weight * hitsInRow / hitsInAllRows;
+                    }
+                }
+            }
+            return score;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.rpghabittracker.data.model;
+
+import java.util.Locale;
+
+/**
+ * Task importance (Bitnost), stored in Room as a small integer code.
+ * XP per user level is precomputed once per constant.
+ */
+public enum TaskImportance {
+    NORMAL(TaskImportance.CODE_NORMAL, 1),
+    IMPORTANT(TaskImportance.CODE_IMPORTANT, 3),
+    VERY_IMPORTANT(TaskImportance.CODE_VERY_IMPORTANT, 10),
+    SPECIAL(TaskImportance.CODE_SPECIAL, 100);
+
+    // Stored codes; never renumber
+    public static final int CODE_NORMAL = 0;
+    public static final int CODE_IMPORTANT = 1;
+    public static final int CODE_VERY_IMPORTANT = 2;
+    public static final int CODE_SPECIAL = 3;
+
+    private static final TaskImportance[] BY_CODE = values();
+
+    public final int code;
+    public final int baseXp;
+    private final int[] xpByLevel;
+
+    TaskImportance(int code, int baseXp) {
+        this.code = code;
+        this.baseXp = baseXp;
+        this.xpByLevel = Task.buildXpTable(baseXp);
+    }
+
+    public int xpForLevel(int level) {
+        return Task.lookupXp(xpByLevel, baseXp, level);
+    }
+
+    public static TaskImportance fromCode(Integer code) {
+        if (code == null || code < 0 || code >= BY_CODE.length) return null;
+        return BY_CODE[code];
+    }
+
+    // Lenient parse of wire/form strings ("very important", "VERYIMPORTANT", ...); null if unknown
+    public static TaskImportance fromName(String name) {
+        if (name == null) return null;
+        String normalized = name.trim()
+                .toUpperCase(Locale.ROOT)
+                .replace('-', '_')
+                .replace(' ', '_');
+        if ("VERYIMPORTANT".equals(normalized)) return VERY_IMPORTANT;
+        for (TaskImportance importance : BY_CODE) {
+            if (importance.name().equals(normalized)) return importance;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.rpghabittracker.data.model;
+
+/**
+ * Slim read-only projection of a task for list screens (task list, calendar).
+ * Only the columns a list row renders are loaded; the description is cut to a
+ * short preview in SQL. Load the full Task entity only on the details screen.
+ */
+public class TaskListItem {
+
+    // Description characters kept for the two-line preview in item_task
+    public static final int DESCRIPTION_PREVIEW_LENGTH = 80;
+
+    // Column list for TaskDao list queries
+    public static final String COLUMNS = "id, name, substr(description, 1, " + DESCRIPTION_PREVIEW_LENGTH + ") AS description, "
+            + "totalXp, difficulty, importance, status, dueDate, categoryId, isRecurring, parentTaskId";
+
+    private final String id;
+    private final String name;
+    private final String description;
+    private final int totalXp;
+    private final TaskDifficulty difficulty;
+    private final TaskImportance importance;
+    private final TaskStatus status;
+    private final long dueDate;
+    private final String categoryId;
+    private final boolean isRecurring;
+    private final String parentTaskId;
+
+    // Rows are immutable so one loaded list can be shared by every screen
+    public TaskListItem(String id, String name, String description, int totalXp,
+                        TaskDifficulty difficulty, TaskImportance importance, TaskStatus status,
+                        long dueDate, String categoryId, boolean isRecurring, String parentTaskId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.totalXp = totalXp;
+        this.difficulty = difficulty;
+        this.importance = importance;
+        this.status = status;
+        this.dueDate = dueDate;
+        this.categoryId = categoryId;
+        this.isRecurring = isRecurring;
+        this.parentTaskId = parentTaskId;
+    }
+
+    public String getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getDescription() { return description; }
+
+    public int getTotalXp() { return totalXp; }
+
+    public TaskDifficulty getDifficulty() { return difficulty; }
+
+    public TaskImportance getImportance() { return importance; }
+
+    public TaskStatus getStatus() { return status; }
+
+    public long getDueDate() { return dueDate; }
+
+    public String getCategoryId() { return categoryId; }
+
+    public boolean isRecurring() { return isRecurring; }
+
+    public String getParentTaskId() { return parentTaskId; }
+
+    // Same row built from an already loaded entity (e.g. a recurring template)
+    public static TaskListItem of(Task task) {
+        String text = task.getDescription();
+        return new TaskListItem(task.getId(), task.getName(),
+                text != null && text.length() > DESCRIPTION_PREVIEW_LENGTH
+                        ? text.substring(0, DESCRIPTION_PREVIEW_LENGTH)
+                        : text,
+                task.getTotalXp(), task.getTaskDifficulty(), task.getTaskImportance(),
+                task.getTaskStatus(), task.getDueDate(), task.getCategoryId(),
+                task.isRecurring(), task.getParentTaskId());
+    }
+
+    // Copy of this row as an occurrence of the given template, due on another day
+    public TaskListItem asOccurrence(String occurrenceId, String templateId, long occurrenceDueDate) {
+        return new TaskListItem(occurrenceId, name, description, totalXp, difficulty, importance,
+                status, occurrenceDueDate, categoryId, isRecurring, templateId);
+    }
+
+    // Daily occurrence of a recurring series (templates have no parent)
+    public boolean isOccurrence() {
+        return isRecurring && parentTaskId != null && !parentTaskId.isEmpty();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.rpghabittracker.data.model;
+
+import java.util.Locale;
+
+/**
+ * Task status, stored in Room as a small integer code.
+ * The Firestore wire format keeps the name() strings (Task.STATUS_*).
+ */
+public enum TaskStatus {
+    ACTIVE(TaskStatus.CODE_ACTIVE),
+    COMPLETED(TaskStatus.CODE_COMPLETED),
+    FAILED(TaskStatus.CODE_FAILED),       // Neurađen (auto-expired after 3 days)
+    PAUSED(TaskStatus.CODE_PAUSED),       // Only for recurring
+    CANCELLED(TaskStatus.CODE_CANCELLED); // Otkazan (not user's fault)
+
+    // Stored codes; compile-time constants so TaskDao SQL can inline them.
+    // Never renumber: the values are persisted.
+    public static final int CODE_ACTIVE = 0;
+    public static final int CODE_COMPLETED = 1;
+    public static final int CODE_FAILED = 2;
+    public static final int CODE_PAUSED = 3;
+    public static final int CODE_CANCELLED = 4;
+
+    private static final TaskStatus[] BY_CODE = values();
+
+    public final int code;
+
+    TaskStatus(int code) {
+        this.code = code;
+    }
+
+    public static TaskStatus fromCode(Integer code) {
+        if (code == null || code < 0 || code >= BY_CODE.length) return null;
+        return BY_CODE[code];
+    }
+
+    // Lenient parse of wire/legacy strings; unknown or missing values count as ACTIVE
+    public static TaskStatus fromName(String name) {
+        if (name == null) return ACTIVE;
+        String normalized = name.trim()
+                .toUpperCase(Locale.ROOT)
+                .replace('-', '_')
+                .replace(' ', '_');
+        if ("CANCELED".equals(normalized)) return CANCELLED;
+        for (TaskStatus status : BY_CODE) {
+            if (status.name().equals(normalized)) return status;
+        }
+        return ACTIVE;
+    }
+
+    // Open tasks still count toward today's workload
+    public boolean isOpen() {
+        return this == ACTIVE || this == PAUSED;
+    }
+}
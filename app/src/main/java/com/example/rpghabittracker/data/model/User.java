@@ -36,6 +36,11 @@ public class User implements Serializable {
     private long createdAt;
     private long lastLoginAt;
     
+    // Created locally before Firestore was checked for an existing profile;
+    // never pushed until that check confirms there is none
+    @Exclude
+    private boolean provisional;
+    
     // Inventory - IDs of equipment
     private List<String> potionIds;
     private List<String> clothingIds;
@@ -200,6 +205,11 @@ public class User implements Serializable {
     public boolean isActive() { return isActive; }
     public void setActive(boolean active) { isActive = active; }
     
+    @Exclude
+    public boolean isProvisional() { return provisional; }
+    @Exclude
+    public void setProvisional(boolean provisional) { this.provisional = provisional; }
+    
     public long getCreatedAt() { return createdAt; }
     public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
     
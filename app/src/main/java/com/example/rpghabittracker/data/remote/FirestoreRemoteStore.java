@@ -0,0 +1,239 @@
+package com.example.rpghabittracker.data.remote;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RemoteStore backed by Cloud Firestore
+ */
+public final class FirestoreRemoteStore implements RemoteStore {
+
+    private final FirebaseFirestore firestore;
+
+    public FirestoreRemoteStore(FirebaseFirestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @Override
+    public Task<RemoteDocument> get(String collection, String documentId) {
+        return ref(collection, documentId).get().continueWith(task -> toDocument(task.getResult()));
+    }
+
+    @Override
+    public Task<List<RemoteDocument>> query(RemoteQuery query) {
+        Source source = query.isServerOnly() ? Source.SERVER : Source.DEFAULT;
+        return toFirestoreQuery(query).get(source).continueWith(task -> {
+            List<RemoteDocument> documents = new ArrayList<>();
+            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                documents.add(toDocument(doc));
+            }
+            return documents;
+        });
+    }
+
+    @Override
+    public Registration listen(RemoteQuery query, ChangeListener listener) {
+        ListenerRegistration registration = toFirestoreQuery(query).addSnapshotListener((snapshots, error) -> {
+            if (error != null) {
+                listener.onChanges(null, error);
+                return;
+            }
+            if (snapshots == null) return;
+            List<RemoteChange> changes = new ArrayList<>(snapshots.getDocumentChanges().size());
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                changes.add(new RemoteChange(toType(change.getType()), toDocument(change.getDocument())));
+            }
+            listener.onChanges(changes, null);
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public Registration listen(String collection, String documentId, DocumentListener listener) {
+        ListenerRegistration registration = ref(collection, documentId).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                listener.onDocument(null, error);
+            } else if (snapshot != null) {
+                listener.onDocument(toDocument(snapshot), null);
+            }
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public Batch batch() {
+        WriteBatch batch = firestore.batch();
+        return new Batch() {
+            private int size;
+
+            @Override
+            public Batch set(String collection, String documentId, Map<String, Object> data) {
+                batch.set(ref(collection, documentId), data);
+                size++;
+                return this;
+            }
+
+            @Override
+            public Batch merge(String collection, String documentId, Map<String, Object> data) {
+                batch.set(ref(collection, documentId), data, SetOptions.merge());
+                size++;
+                return this;
+            }
+
+            @Override
+            public Batch delete(String collection, String documentId) {
+                batch.delete(ref(collection, documentId));
+                size++;
+                return this;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Task<Void> commit() {
+                return batch.commit();
+            }
+        };
+    }
+
+    @Override
+    public <T> Task<T> runTransaction(TransactionFunction<T> function) {
+        return firestore.runTransaction(transaction -> {
+            Transaction wrapped = new Transaction() {
+                @Override
+                public RemoteDocument get(String collection, String documentId) throws Exception {
+                    return toDocument(transaction.get(ref(collection, documentId)));
+                }
+
+                @Override
+                public void set(String collection, String documentId, Map<String, Object> data) {
+                    transaction.set(ref(collection, documentId), data);
+                }
+
+                @Override
+                public void merge(String collection, String documentId, Map<String, Object> data) {
+                    transaction.set(ref(collection, documentId), data, SetOptions.merge());
+                }
+
+                @Override
+                public void delete(String collection, String documentId) {
+                    transaction.delete(ref(collection, documentId));
+                }
+            };
+            try {
+                return function.apply(wrapped);
+            } catch (FirebaseFirestoreException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new FirebaseFirestoreException(String.valueOf(e.getMessage()),
+                        FirebaseFirestoreException.Code.ABORTED, e);
+            }
+        });
+    }
+
+    @Override
+    public Object serverTimestamp() {
+        return FieldValue.serverTimestamp();
+    }
+
+    @Override
+    public Object increment(long delta) {
+        return FieldValue.increment(delta);
+    }
+
+    @Override
+    public Object arrayUnion(Object... elements) {
+        return FieldValue.arrayUnion(elements);
+    }
+
+    @Override
+    public Object arrayRemove(Object... elements) {
+        return FieldValue.arrayRemove(elements);
+    }
+
+    @Override
+    public boolean isPermanentFailure(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) return false;
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+            case FAILED_PRECONDITION:
+            case OUT_OF_RANGE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Conversion
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private DocumentReference ref(String collection, String documentId) {
+        return firestore.collection(collection).document(documentId);
+    }
+
+    private Query toFirestoreQuery(RemoteQuery query) {
+        Query result = firestore.collection(query.getCollection());
+        for (RemoteQuery.Filter filter : query.getFilters()) {
+            switch (filter.op) {
+                case EQUAL:
+                    result = result.whereEqualTo(filter.field, filter.value);
+                    break;
+                case IN:
+                    result = result.whereIn(filter.field, (List<?>) filter.value);
+                    break;
+                case STARTS_WITH:
+                    result = result.whereGreaterThanOrEqualTo(filter.field, filter.value)
+                            .whereLessThanOrEqualTo(filter.field, filter.value + "\uf8ff");
+                    break;
+                case AFTER:
+                    result = result.whereGreaterThan(filter.field, toTimestamp((Long) filter.value));
+                    break;
+                case BEFORE:
+                    result = result.whereLessThan(filter.field, toTimestamp((Long) filter.value));
+                    break;
+            }
+        }
+        if (query.getOrderBy() != null) result = result.orderBy(query.getOrderBy());
+        if (query.getLimit() > 0) result = result.limit(query.getLimit());
+        return result;
+    }
+
+    private static RemoteDocument toDocument(DocumentSnapshot doc) {
+        return new RemoteDocument(doc.getId(), doc.getData(), doc.getMetadata().hasPendingWrites());
+    }
+
+    private static RemoteChange.Type toType(DocumentChange.Type type) {
+        switch (type) {
+            case ADDED:
+                return RemoteChange.Type.ADDED;
+            case REMOVED:
+                return RemoteChange.Type.REMOVED;
+            default:
+                return RemoteChange.Type.MODIFIED;
+        }
+    }
+
+    private static Timestamp toTimestamp(long millis) {
+        return new Timestamp(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000);
+    }
+}
@@ -0,0 +1,545 @@
+package com.example.rpghabittracker.data.remote;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Deterministic in-process RemoteStore for running the data layer offline and
+ * measuring sync traffic.
+ *
+ * Every operation completes on one background thread after a fixed latency,
+ * so operations finish in the order they were issued. Server timestamps come
+ * from the supplied clock and are strictly increasing. Writes are applied
+ * atomically per batch/transaction and fanned out to listeners like Firestore
+ * (ADDED / MODIFIED / REMOVED relative to what each listener has seen).
+ * Query listeners ignore limit(); query() applies orderBy() and limit().
+ * There is no local cache: nothing ever has pending writes.
+ * Document reads (including listener deliveries) and writes are counted.
+ */
+public final class InMemoryRemoteStore implements RemoteStore {
+
+    private static final Object SERVER_TIMESTAMP = new Object();
+
+    private static final class Increment {
+        final long delta;
+
+        Increment(long delta) {
+            this.delta = delta;
+        }
+    }
+
+    private static final class ArrayOp {
+        final boolean union;
+        final List<Object> elements;
+
+        ArrayOp(boolean union, Object... elements) {
+            this.union = union;
+            this.elements = Arrays.asList(elements);
+        }
+    }
+
+    private enum OpType { SET, MERGE, DELETE }
+
+    private static final class Op {
+        final OpType type;
+        final String collection;
+        final String documentId;
+        final Map<String, Object> data;
+
+        Op(OpType type, String collection, String documentId, Map<String, Object> data) {
+            this.type = type;
+            this.collection = collection;
+            this.documentId = documentId;
+            this.data = data;
+        }
+    }
+
+    private final class Listener implements Registration {
+        final RemoteQuery query;
+        final ChangeListener callback;
+        // Set instead of callback for single-document listeners
+        final String documentId;
+        final DocumentListener documentCallback;
+        final Map<String, Map<String, Object>> seen = new HashMap<>();
+        boolean removed;
+
+        Listener(RemoteQuery query, ChangeListener callback) {
+            this.query = query;
+            this.callback = callback;
+            this.documentId = null;
+            this.documentCallback = null;
+        }
+
+        Listener(String collection, String documentId, DocumentListener documentCallback) {
+            this.query = RemoteQuery.on(collection);
+            this.callback = null;
+            this.documentId = documentId;
+            this.documentCallback = documentCallback;
+        }
+
+        @Override
+        public void remove() {
+            synchronized (lock) {
+                removed = true;
+                listeners.remove(this);
+            }
+        }
+    }
+
+    private final long latencyMs;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    // Guarded by lock; ordered by id so queries are deterministic
+    private final Map<String, TreeMap<String, Map<String, Object>>> collections = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private long lastServerTime;
+
+    private final AtomicLong documentReads = new AtomicLong();
+    private final AtomicLong documentWrites = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    public InMemoryRemoteStore() {
+        this(0, System::currentTimeMillis);
+    }
+
+    public InMemoryRemoteStore(long latencyMs, LongSupplier clock) {
+        this.latencyMs = latencyMs;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "remote-store-fake");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getDocumentReads() { return documentReads.get(); }
+
+    public long getDocumentWrites() { return documentWrites.get(); }
+
+    public long getCommits() { return commits.get(); }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // RemoteStore
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Override
+    public Task<RemoteDocument> get(String collection, String documentId) {
+        return later(() -> {
+            synchronized (lock) {
+                documentReads.incrementAndGet();
+                return snapshot(documentId, documents(collection).get(documentId));
+            }
+        });
+    }
+
+    @Override
+    public Task<List<RemoteDocument>> query(RemoteQuery query) {
+        return later(() -> {
+            List<RemoteDocument> result = new ArrayList<>();
+            synchronized (lock) {
+                for (Map.Entry<String, Map<String, Object>> entry : documents(query.getCollection()).entrySet()) {
+                    if (matches(query, entry.getValue())) {
+                        result.add(snapshot(entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+            String orderBy = query.getOrderBy();
+            if (orderBy != null) {
+                // Like Firestore, documents without the field are left out
+                List<RemoteDocument> ordered = new ArrayList<>();
+                for (RemoteDocument doc : result) {
+                    if (doc.get(orderBy) != null) ordered.add(doc);
+                }
+                Collections.sort(ordered, (a, b) -> compareValues(a.get(orderBy), b.get(orderBy)));
+                result = ordered;
+            }
+            if (query.getLimit() > 0 && result.size() > query.getLimit()) {
+                result = new ArrayList<>(result.subList(0, query.getLimit()));
+            }
+            // Firestore bills an empty result as one read
+            documentReads.addAndGet(Math.max(1, result.size()));
+            return result;
+        });
+    }
+
+    @Override
+    public Registration listen(RemoteQuery query, ChangeListener callback) {
+        Listener listener = new Listener(query, callback);
+        executor.schedule(() -> {
+            List<RemoteChange> initial = new ArrayList<>();
+            synchronized (lock) {
+                if (listener.removed) return;
+                for (Map.Entry<String, Map<String, Object>> entry : documents(query.getCollection()).entrySet()) {
+                    if (matches(query, entry.getValue())) {
+                        listener.seen.put(entry.getKey(), entry.getValue());
+                        initial.add(new RemoteChange(RemoteChange.Type.ADDED, snapshot(entry.getKey(), entry.getValue())));
+                    }
+                }
+                listeners.add(listener);
+            }
+            documentReads.addAndGet(Math.max(1, initial.size()));
+            callback.onChanges(initial, null);
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return listener;
+    }
+
+    @Override
+    public Registration listen(String collection, String documentId, DocumentListener callback) {
+        Listener listener = new Listener(collection, documentId, callback);
+        executor.schedule(() -> {
+            Map<String, Object> data;
+            synchronized (lock) {
+                if (listener.removed) return;
+                data = documents(collection).get(documentId);
+                if (data != null) listener.seen.put(documentId, data);
+                listeners.add(listener);
+            }
+            documentReads.incrementAndGet();
+            callback.onDocument(snapshot(documentId, data), null);
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return listener;
+    }
+
+    @Override
+    public Batch batch() {
+        List<Op> ops = new ArrayList<>();
+        return new Batch() {
+            @Override
+            public Batch set(String collection, String documentId, Map<String, Object> data) {
+                ops.add(new Op(OpType.SET, collection, documentId, new LinkedHashMap<>(data)));
+                return this;
+            }
+
+            @Override
+            public Batch merge(String collection, String documentId, Map<String, Object> data) {
+                ops.add(new Op(OpType.MERGE, collection, documentId, new LinkedHashMap<>(data)));
+                return this;
+            }
+
+            @Override
+            public Batch delete(String collection, String documentId) {
+                ops.add(new Op(OpType.DELETE, collection, documentId, null));
+                return this;
+            }
+
+            @Override
+            public int size() {
+                return ops.size();
+            }
+
+            @Override
+            public Task<Void> commit() {
+                List<Op> committed = new ArrayList<>(ops);
+                return later(() -> {
+                    apply(committed);
+                    return null;
+                });
+            }
+        };
+    }
+
+    @Override
+    public <T> Task<T> runTransaction(TransactionFunction<T> function) {
+        // Runs alone on the store thread, so it never has to be retried
+        return later(() -> {
+            List<Op> ops = new ArrayList<>();
+            T result;
+            synchronized (lock) {
+                result = function.apply(new Transaction() {
+                    @Override
+                    public RemoteDocument get(String collection, String documentId) {
+                        documentReads.incrementAndGet();
+                        return snapshot(documentId, documents(collection).get(documentId));
+                    }
+
+                    @Override
+                    public void set(String collection, String documentId, Map<String, Object> data) {
+                        ops.add(new Op(OpType.SET, collection, documentId, new LinkedHashMap<>(data)));
+                    }
+
+                    @Override
+                    public void merge(String collection, String documentId, Map<String, Object> data) {
+                        ops.add(new Op(OpType.MERGE, collection, documentId, new LinkedHashMap<>(data)));
+                    }
+
+                    @Override
+                    public void delete(String collection, String documentId) {
+                        ops.add(new Op(OpType.DELETE, collection, documentId, null));
+                    }
+                });
+            }
+            if (!ops.isEmpty()) apply(ops);
+            return result;
+        });
+    }
+
+    @Override
+    public Object serverTimestamp() {
+        return SERVER_TIMESTAMP;
+    }
+
+    @Override
+    public Object increment(long delta) {
+        return new Increment(delta);
+    }
+
+    @Override
+    public Object arrayUnion(Object... elements) {
+        return new ArrayOp(true, elements);
+    }
+
+    @Override
+    public Object arrayRemove(Object... elements) {
+        return new ArrayOp(false, elements);
+    }
+
+    @Override
+    public boolean isPermanentFailure(Exception e) {
+        return e instanceof IllegalArgumentException;
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Writes and listener fan-out (store thread)
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private void apply(List<Op> ops) {
+        List<Runnable> deliveries = new ArrayList<>();
+        synchronized (lock) {
+            long now = Math.max(clock.getAsLong(), lastServerTime + 1);
+            lastServerTime = now;
+            Timestamp serverTime = new Timestamp(new Date(now));
+
+            Map<String, List<String>> touched = new LinkedHashMap<>();
+            for (Op op : ops) {
+                TreeMap<String, Map<String, Object>> docs = documents(op.collection);
+                Map<String, Object> before = docs.get(op.documentId);
+                if (op.type == OpType.DELETE) {
+                    docs.remove(op.documentId);
+                } else {
+                    Map<String, Object> base = op.type == OpType.MERGE && before != null
+                            ? before
+                            : new LinkedHashMap<>();
+                    docs.put(op.documentId, resolve(base, op.data, serverTime, op.type == OpType.MERGE));
+                }
+                List<String> ids = touched.get(op.collection);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    touched.put(op.collection, ids);
+                }
+                if (!ids.contains(op.documentId)) ids.add(op.documentId);
+            }
+            documentWrites.addAndGet(ops.size());
+            commits.incrementAndGet();
+
+            for (Listener listener : listeners) {
+                List<String> ids = touched.get(listener.query.getCollection());
+                if (ids == null) continue;
+                if (listener.documentId != null) {
+                    if (!ids.contains(listener.documentId)) continue;
+                    Map<String, Object> current = documents(listener.query.getCollection()).get(listener.documentId);
+                    if (Objects.equals(current, listener.seen.get(listener.documentId))) continue;
+                    if (current != null) {
+                        listener.seen.put(listener.documentId, current);
+                    } else {
+                        listener.seen.remove(listener.documentId);
+                    }
+                    RemoteDocument document = snapshot(listener.documentId, current);
+                    documentReads.incrementAndGet();
+                    deliveries.add(() -> listener.documentCallback.onDocument(document, null));
+                    continue;
+                }
+                List<RemoteChange> changes = diff(listener, ids);
+                if (!changes.isEmpty()) {
+                    documentReads.addAndGet(changes.size());
+                    deliveries.add(() -> listener.callback.onChanges(changes, null));
+                }
+            }
+        }
+        for (Runnable delivery : deliveries) {
+            delivery.run();
+        }
+    }
+
+    private List<RemoteChange> diff(Listener listener, List<String> ids) {
+        List<RemoteChange> changes = new ArrayList<>();
+        TreeMap<String, Map<String, Object>> docs = documents(listener.query.getCollection());
+        for (String id : ids) {
+            Map<String, Object> now = docs.get(id);
+            Map<String, Object> seen = listener.seen.get(id);
+            boolean matchesNow = now != null && matches(listener.query, now);
+            if (matchesNow && seen == null) {
+                changes.add(new RemoteChange(RemoteChange.Type.ADDED, snapshot(id, now)));
+                listener.seen.put(id, now);
+            } else if (matchesNow && !seen.equals(now)) {
+                changes.add(new RemoteChange(RemoteChange.Type.MODIFIED, snapshot(id, now)));
+                listener.seen.put(id, now);
+            } else if (!matchesNow && seen != null) {
+                changes.add(new RemoteChange(RemoteChange.Type.REMOVED, snapshot(id, seen)));
+                listener.seen.remove(id);
+            }
+        }
+        return changes;
+    }
+
+    // New stored map: special values resolved, numbers normalized, nested maps merged
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> resolve(Map<String, Object> base, Map<String, Object> data,
+                                               Timestamp serverTime, boolean merge) {
+        Map<String, Object> result = new LinkedHashMap<>(base);
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            Object existing = result.get(entry.getKey());
+            if (value instanceof Increment) {
+                long delta = ((Increment) value).delta;
+                result.put(entry.getKey(), existing instanceof Number ? ((Number) existing).longValue() + delta : delta);
+            } else if (value instanceof ArrayOp) {
+                ArrayOp op = (ArrayOp) value;
+                List<Object> list = existing instanceof List && merge
+                        ? new ArrayList<>((List<Object>) existing)
+                        : new ArrayList<>();
+                for (Object element : op.elements) {
+                    Object normalized = normalize(element, serverTime);
+                    if (op.union) {
+                        if (!list.contains(normalized)) list.add(normalized);
+                    } else {
+                        list.removeAll(Collections.singleton(normalized));
+                    }
+                }
+                result.put(entry.getKey(), list);
+            } else if (merge && value instanceof Map && existing instanceof Map) {
+                result.put(entry.getKey(), resolve((Map<String, Object>) existing, (Map<String, Object>) value, serverTime, true));
+            } else {
+                result.put(entry.getKey(), normalize(value, serverTime));
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object normalize(Object value, Timestamp serverTime) {
+        if (value == SERVER_TIMESTAMP) return serverTime;
+        if (value instanceof Double || value instanceof Float) return ((Number) value).doubleValue();
+        if (value instanceof Number) return ((Number) value).longValue();
+        if (value instanceof Date) return new Timestamp((Date) value);
+        if (value instanceof Map) return resolve(new LinkedHashMap<>(), (Map<String, Object>) value, serverTime, false);
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(normalize(item, serverTime));
+            }
+            return list;
+        }
+        if (value instanceof Increment || value instanceof ArrayOp) {
+            throw new IllegalArgumentException("increment() and array ops are only supported as top-level field values");
+        }
+        return value;
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Helpers
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private TreeMap<String, Map<String, Object>> documents(String collection) {
+        TreeMap<String, Map<String, Object>> docs = collections.get(collection);
+        if (docs == null) {
+            docs = new TreeMap<>();
+            collections.put(collection, docs);
+        }
+        return docs;
+    }
+
+    private static RemoteDocument snapshot(String id, Map<String, Object> data) {
+        return new RemoteDocument(id, data != null ? new LinkedHashMap<>(data) : null, false);
+    }
+
+    private static boolean matches(RemoteQuery query, Map<String, Object> data) {
+        for (RemoteQuery.Filter filter : query.getFilters()) {
+            Object value = data.get(filter.field);
+            switch (filter.op) {
+                case EQUAL:
+                    if (!sameValue(value, filter.value)) return false;
+                    break;
+                case IN: {
+                    boolean any = false;
+                    for (Object expected : (List<?>) filter.value) {
+                        if (sameValue(value, expected)) {
+                            any = true;
+                            break;
+                        }
+                    }
+                    if (!any) return false;
+                    break;
+                }
+                case STARTS_WITH:
+                    if (!(value instanceof String) || !((String) value).startsWith((String) filter.value)) return false;
+                    break;
+                case AFTER:
+                case BEFORE: {
+                    Long millis = new RemoteDocument(null, data, false).getMillis(filter.field);
+                    if (millis == null) return false;
+                    long bound = (Long) filter.value;
+                    if (filter.op == RemoteQuery.Op.AFTER ? millis <= bound : millis >= bound) return false;
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValue(Object stored, Object expected) {
+        if (stored instanceof Number && expected instanceof Number) {
+            return ((Number) stored).doubleValue() == ((Number) expected).doubleValue();
+        }
+        return Objects.equals(stored, expected);
+    }
+
+    // Firestore type order is not modelled: numbers, then comparable values, then the rest
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Number) return -1;
+        if (b instanceof Number) return 1;
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return a.getClass().getName().compareTo(b.getClass().getName());
+    }
+
+    private <T> Task<T> later(Callable<T> work) {
+        TaskCompletionSource<T> source = new TaskCompletionSource<>();
+        executor.schedule(() -> {
+            try {
+                source.setResult(work.call());
+            } catch (Exception e) {
+                source.setException(e);
+            }
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return source.getTask();
+    }
+}
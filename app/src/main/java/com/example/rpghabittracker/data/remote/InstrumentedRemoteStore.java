@@ -0,0 +1,270 @@
+package com.example.rpghabittracker.data.remote;
+
+import android.os.SystemClock;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * RemoteStore decorator that records every call in SyncMetrics under the
+ * caller it was created for (see RemoteStores.forCaller). Calls pass through
+ * unchanged; only completion is observed.
+ */
+final class InstrumentedRemoteStore implements RemoteStore {
+
+    // Metrics bookkeeping is cheap, no need to hop threads for it
+    private static final Executor DIRECT = Runnable::run;
+
+    private final RemoteStore delegate;
+    private final String caller;
+
+    InstrumentedRemoteStore(RemoteStore delegate, String caller) {
+        this.delegate = delegate;
+        this.caller = caller;
+    }
+
+    @Override
+    public Task<RemoteDocument> get(String collection, String documentId) {
+        long start = SystemClock.elapsedRealtime();
+        Task<RemoteDocument> task = delegate.get(collection, documentId);
+        task.addOnCompleteListener(DIRECT, t -> {
+            RemoteDocument doc = t.isSuccessful() ? t.getResult() : null;
+            SyncMetrics.recordRead(caller, collection, SyncMetrics.Op.GET, 1,
+                    doc != null ? sizeOf(doc) : 0, SystemClock.elapsedRealtime() - start, !t.isSuccessful());
+        });
+        return task;
+    }
+
+    @Override
+    public Task<List<RemoteDocument>> query(RemoteQuery query) {
+        long start = SystemClock.elapsedRealtime();
+        Task<List<RemoteDocument>> task = delegate.query(query);
+        task.addOnCompleteListener(DIRECT, t -> {
+            List<RemoteDocument> docs = t.isSuccessful() ? t.getResult() : null;
+            long bytes = 0;
+            if (docs != null) {
+                for (RemoteDocument doc : docs) bytes += sizeOf(doc);
+            }
+            SyncMetrics.recordRead(caller, query.getCollection(), SyncMetrics.Op.QUERY,
+                    docs != null ? docs.size() : 0, bytes, SystemClock.elapsedRealtime() - start,
+                    !t.isSuccessful());
+        });
+        return task;
+    }
+
+    @Override
+    public Registration listen(RemoteQuery query, ChangeListener listener) {
+        String collection = query.getCollection();
+        long start = SystemClock.elapsedRealtime();
+        AtomicBoolean first = new AtomicBoolean(true);
+        SyncMetrics.listenerAttached(caller, collection);
+        Registration registration = delegate.listen(query, (changes, error) -> {
+            long firstLatency = first.getAndSet(false) ? SystemClock.elapsedRealtime() - start : -1;
+            long bytes = 0;
+            if (changes != null) {
+                for (RemoteChange change : changes) {
+                    if (change.getType() != RemoteChange.Type.REMOVED) bytes += sizeOf(change.getDocument());
+                }
+            }
+            SyncMetrics.listenerEvent(caller, collection, changes != null ? changes.size() : 0,
+                    bytes, firstLatency, error != null);
+            listener.onChanges(changes, error);
+        });
+        AtomicBoolean removed = new AtomicBoolean(false);
+        return () -> {
+            if (!removed.getAndSet(true)) SyncMetrics.listenerDetached(caller, collection);
+            registration.remove();
+        };
+    }
+
+    @Override
+    public Registration listen(String collection, String documentId, DocumentListener listener) {
+        long start = SystemClock.elapsedRealtime();
+        AtomicBoolean first = new AtomicBoolean(true);
+        SyncMetrics.listenerAttached(caller, collection);
+        Registration registration = delegate.listen(collection, documentId, (document, error) -> {
+            long firstLatency = first.getAndSet(false) ? SystemClock.elapsedRealtime() - start : -1;
+            SyncMetrics.listenerEvent(caller, collection, document != null ? 1 : 0,
+                    document != null ? sizeOf(document) : 0, firstLatency, error != null);
+            listener.onDocument(document, error);
+        });
+        AtomicBoolean removed = new AtomicBoolean(false);
+        return () -> {
+            if (!removed.getAndSet(true)) SyncMetrics.listenerDetached(caller, collection);
+            registration.remove();
+        };
+    }
+
+    @Override
+    public Batch batch() {
+        return new InstrumentedBatch(delegate.batch());
+    }
+
+    @Override
+    public <T> Task<T> runTransaction(TransactionFunction<T> function) {
+        long start = SystemClock.elapsedRealtime();
+        // Replaced on every attempt; the last one is what got committed
+        Map<String, long[]> reads = new LinkedHashMap<>();
+        Map<String, long[]> writes = new LinkedHashMap<>();
+        Task<T> task = delegate.runTransaction(transaction -> {
+            synchronized (reads) {
+                reads.clear();
+                writes.clear();
+            }
+            return function.apply(new InstrumentedTransaction(transaction, reads, writes));
+        });
+        task.addOnCompleteListener(DIRECT, t -> {
+            long latency = SystemClock.elapsedRealtime() - start;
+            synchronized (reads) {
+                for (Map.Entry<String, long[]> entry : reads.entrySet()) {
+                    SyncMetrics.recordRead(caller, entry.getKey(), SyncMetrics.Op.TRANSACTION,
+                            (int) entry.getValue()[0], entry.getValue()[1], latency, !t.isSuccessful());
+                }
+                for (Map.Entry<String, long[]> entry : writes.entrySet()) {
+                    SyncMetrics.recordWrite(caller, entry.getKey(), SyncMetrics.Op.TRANSACTION,
+                            (int) entry.getValue()[0], entry.getValue()[1], latency, !t.isSuccessful());
+                }
+            }
+        });
+        return task;
+    }
+
+    @Override
+    public Object serverTimestamp() {
+        return delegate.serverTimestamp();
+    }
+
+    @Override
+    public Object increment(long delta) {
+        return delegate.increment(delta);
+    }
+
+    @Override
+    public Object arrayUnion(Object... elements) {
+        return delegate.arrayUnion(elements);
+    }
+
+    @Override
+    public Object arrayRemove(Object... elements) {
+        return delegate.arrayRemove(elements);
+    }
+
+    @Override
+    public boolean isPermanentFailure(Exception e) {
+        return delegate.isPermanentFailure(e);
+    }
+
+    private static long sizeOf(RemoteDocument doc) {
+        return doc.exists() ? SyncMetrics.estimateBytes(doc.getId(), doc.getData()) : 0;
+    }
+
+    // Per collection {documents, bytes}
+    private static void count(Map<String, long[]> counts, String collection, long bytes) {
+        long[] entry = counts.get(collection);
+        if (entry == null) {
+            entry = new long[2];
+            counts.put(collection, entry);
+        }
+        entry[0]++;
+        entry[1] += bytes;
+    }
+
+    private final class InstrumentedBatch implements Batch {
+        private final Batch batch;
+        private final Map<String, long[]> writes = new LinkedHashMap<>();
+
+        InstrumentedBatch(Batch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public Batch set(String collection, String documentId, Map<String, Object> data) {
+            batch.set(collection, documentId, data);
+            count(writes, collection, SyncMetrics.estimateBytes(documentId, data));
+            return this;
+        }
+
+        @Override
+        public Batch merge(String collection, String documentId, Map<String, Object> data) {
+            batch.merge(collection, documentId, data);
+            count(writes, collection, SyncMetrics.estimateBytes(documentId, data));
+            return this;
+        }
+
+        @Override
+        public Batch delete(String collection, String documentId) {
+            batch.delete(collection, documentId);
+            count(writes, collection, 0);
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return batch.size();
+        }
+
+        @Override
+        public Task<Void> commit() {
+            long start = SystemClock.elapsedRealtime();
+            Task<Void> task = batch.commit();
+            task.addOnCompleteListener(DIRECT, t -> {
+                long latency = SystemClock.elapsedRealtime() - start;
+                for (Map.Entry<String, long[]> entry : writes.entrySet()) {
+                    SyncMetrics.recordWrite(caller, entry.getKey(), SyncMetrics.Op.BATCH,
+                            (int) entry.getValue()[0], entry.getValue()[1], latency, !t.isSuccessful());
+                }
+            });
+            return task;
+        }
+    }
+
+    private static final class InstrumentedTransaction implements Transaction {
+        private final Transaction transaction;
+        private final Map<String, long[]> reads;
+        private final Map<String, long[]> writes;
+
+        InstrumentedTransaction(Transaction transaction, Map<String, long[]> reads, Map<String, long[]> writes) {
+            this.transaction = transaction;
+            this.reads = reads;
+            this.writes = writes;
+        }
+
+        @Override
+        public RemoteDocument get(String collection, String documentId) throws Exception {
+            RemoteDocument doc = transaction.get(collection, documentId);
+            synchronized (reads) {
+                count(reads, collection, doc != null ? sizeOf(doc) : 0);
+            }
+            return doc;
+        }
+
+        @Override
+        public void set(String collection, String documentId, Map<String, Object> data) {
+            transaction.set(collection, documentId, data);
+            synchronized (reads) {
+                count(writes, collection, SyncMetrics.estimateBytes(documentId, data));
+            }
+        }
+
+        @Override
+        public void merge(String collection, String documentId, Map<String, Object> data) {
+            transaction.merge(collection, documentId, data);
+            synchronized (reads) {
+                count(writes, collection, SyncMetrics.estimateBytes(documentId, data));
+            }
+        }
+
+        @Override
+        public void delete(String collection, String documentId) {
+            transaction.delete(collection, documentId);
+            synchronized (reads) {
+                count(writes, collection, 0);
+            }
+        }
+    }
+}
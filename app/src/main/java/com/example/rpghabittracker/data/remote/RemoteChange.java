@@ -0,0 +1,22 @@
+package com.example.rpghabittracker.data.remote;
+
+/**
+ * One document change delivered to a RemoteStore listener
+ */
+public final class RemoteChange {
+
+    public enum Type { ADDED, MODIFIED, REMOVED }
+
+    private final Type type;
+    private final RemoteDocument document;
+
+    public RemoteChange(Type type, RemoteDocument document) {
+        this.type = type;
+        this.document = document;
+    }
+
+    public Type getType() { return type; }
+
+    // For REMOVED: the last state the listener saw
+    public RemoteDocument getDocument() { return document; }
+}
@@ -0,0 +1,68 @@
+package com.example.rpghabittracker.data.remote;
+
+import com.google.firebase.Timestamp;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Immutable copy of one remote document, with DocumentSnapshot-style accessors.
+ * Integers read back as Long and fractions as Double, like Firestore.
+ */
+public final class RemoteDocument {
+
+    private final String id;
+    private final Map<String, Object> data; // null when the document does not exist
+    private final boolean pendingWrites;
+
+    public RemoteDocument(String id, Map<String, Object> data, boolean pendingWrites) {
+        this.id = id;
+        this.data = data != null ? Collections.unmodifiableMap(data) : null;
+        this.pendingWrites = pendingWrites;
+    }
+
+    public String getId() { return id; }
+
+    public boolean exists() { return data != null; }
+
+    // Latency-compensated local state not yet acknowledged by the server
+    public boolean hasPendingWrites() { return pendingWrites; }
+
+    public Map<String, Object> getData() { return data; }
+
+    public boolean contains(String field) {
+        return data != null && data.containsKey(field);
+    }
+
+    public Object get(String field) {
+        return data != null ? data.get(field) : null;
+    }
+
+    public String getString(String field) {
+        return (String) get(field);
+    }
+
+    public Long getLong(String field) {
+        Number value = (Number) get(field);
+        return value != null ? value.longValue() : null;
+    }
+
+    public Double getDouble(String field) {
+        Number value = (Number) get(field);
+        return value != null ? value.doubleValue() : null;
+    }
+
+    public Boolean getBoolean(String field) {
+        return (Boolean) get(field);
+    }
+
+    // Server timestamps (Timestamp), dates or plain millis; null if unset or pending
+    public Long getMillis(String field) {
+        Object value = get(field);
+        if (value instanceof Timestamp) return ((Timestamp) value).toDate().getTime();
+        if (value instanceof Date) return ((Date) value).getTime();
+        if (value instanceof Number) return ((Number) value).longValue();
+        return null;
+    }
+}
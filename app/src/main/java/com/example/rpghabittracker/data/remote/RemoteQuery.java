@@ -0,0 +1,112 @@
+package com.example.rpghabittracker.data.remote;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collection query with AND-ed filters, built like a Firestore query:
+ * RemoteQuery.on("tasks").whereEqualTo("userId", id).whereAfter("lastUpdated", millis)
+ * Time filters take millis and compare against server timestamps; whereIn
+ * matches any of up to 10 values; whereStartsWith is a string prefix match.
+ * orderBy() sorts ascending and limit() caps the result of query().
+ * fromServer() makes query() fail instead of answering from the local cache
+ * when the server cannot be reached.
+ */
+public final class RemoteQuery {
+
+    public enum Op { EQUAL, IN, STARTS_WITH, AFTER, BEFORE }
+
+    public static final class Filter {
+        public final String field;
+        public final Op op;
+        public final Object value; // List for IN, millis (Long) for AFTER / BEFORE
+
+        Filter(String field, Op op, Object value) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+        }
+    }
+
+    private final String collection;
+    private final List<Filter> filters;
+    private final String orderBy; // null = unordered
+    private final int limit; // 0 = no limit
+    private final boolean serverOnly;
+
+    private RemoteQuery(String collection, List<Filter> filters, String orderBy, int limit,
+                        boolean serverOnly) {
+        this.collection = collection;
+        this.filters = filters;
+        this.orderBy = orderBy;
+        this.limit = limit;
+        this.serverOnly = serverOnly;
+    }
+
+    public static RemoteQuery on(String collection) {
+        return new RemoteQuery(collection, Collections.emptyList(), null, 0, false);
+    }
+
+    // For callers that treat a missing document as deleted: a cached result
+    // offline holds only what listeners happened to load
+    public RemoteQuery fromServer() {
+        return new RemoteQuery(collection, filters, orderBy, limit, true);
+    }
+
+    public RemoteQuery whereEqualTo(String field, Object value) {
+        return with(new Filter(field, Op.EQUAL, value));
+    }
+
+    public RemoteQuery whereIn(String field, List<?> values) {
+        return with(new Filter(field, Op.IN, Collections.unmodifiableList(new ArrayList<>(values))));
+    }
+
+    public RemoteQuery whereStartsWith(String field, String prefix) {
+        return with(new Filter(field, Op.STARTS_WITH, prefix));
+    }
+
+    public RemoteQuery whereAfter(String field, long millis) {
+        return with(new Filter(field, Op.AFTER, millis));
+    }
+
+    public RemoteQuery whereBefore(String field, long millis) {
+        return with(new Filter(field, Op.BEFORE, millis));
+    }
+
+    public RemoteQuery orderBy(String field) {
+        return new RemoteQuery(collection, filters, field, limit, serverOnly);
+    }
+
+    public RemoteQuery limit(int limit) {
+        return new RemoteQuery(collection, filters, orderBy, limit, serverOnly);
+    }
+
+    public String getCollection() { return collection; }
+
+    public List<Filter> getFilters() { return filters; }
+
+    public String getOrderBy() { return orderBy; }
+
+    public int getLimit() { return limit; }
+
+    public boolean isServerOnly() { return serverOnly; }
+
+    private RemoteQuery with(Filter filter) {
+        List<Filter> next = new ArrayList<>(filters);
+        next.add(filter);
+        return new RemoteQuery(collection, Collections.unmodifiableList(next), orderBy, limit, serverOnly);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(collection);
+        for (Filter filter : filters) {
+            sb.append(' ').append(filter.field).append(' ').append(filter.op).append(' ').append(filter.value);
+        }
+        if (orderBy != null) sb.append(" order by ").append(orderBy);
+        if (limit > 0) sb.append(" limit ").append(limit);
+        if (serverOnly) sb.append(" (server)");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.rpghabittracker.data.remote;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Document store the data layer syncs with.
+ *
+ * Mirrors the small part of Firestore the repositories use (documents,
+ * simple queries, listeners, batches and transactions) so the sync code does
+ * not depend on FirebaseFirestore directly. FirestoreRemoteStore is the real
+ * backend; InMemoryRemoteStore is a deterministic fake with configurable
+ * latency for running and measuring the data layer without a network.
+ * Collections are Firestore paths, so a subcollection is addressed as
+ * "users/{id}/equipment". Use RemoteStores.get() for the process-wide instance.
+ */
+public interface RemoteStore {
+
+    // Single document; completes with a RemoteDocument whose exists() is false if missing
+    Task<RemoteDocument> get(String collection, String documentId);
+
+    Task<List<RemoteDocument>> query(RemoteQuery query);
+
+    // Initial matches arrive as ADDED changes, then one callback per change set
+    Registration listen(RemoteQuery query, ChangeListener listener);
+
+    // Current state first, then every change; a missing document has exists() false
+    Registration listen(String collection, String documentId, DocumentListener listener);
+
+    Batch batch();
+
+    // Single-document writes, each committed on its own
+    default Task<Void> set(String collection, String documentId, Map<String, Object> data) {
+        return batch().set(collection, documentId, data).commit();
+    }
+
+    default Task<Void> merge(String collection, String documentId, Map<String, Object> data) {
+        return batch().merge(collection, documentId, data).commit();
+    }
+
+    default Task<Void> delete(String collection, String documentId) {
+        return batch().delete(collection, documentId).commit();
+    }
+
+    <T> Task<T> runTransaction(TransactionFunction<T> function);
+
+    // Write-side special values, usable in set/merge field maps
+    Object serverTimestamp();
+
+    Object increment(long delta);
+
+    // Adds the elements missing from an array field / removes every occurrence
+    Object arrayUnion(Object... elements);
+
+    Object arrayRemove(Object... elements);
+
+    // Rejected for a reason that retrying the same write will not fix
+    boolean isPermanentFailure(Exception e);
+
+    interface Registration {
+        void remove();
+    }
+
+    interface ChangeListener {
+        // error != null means the listener failed and will receive nothing more
+        void onChanges(List<RemoteChange> changes, Exception error);
+    }
+
+    interface DocumentListener {
+        // error != null means the listener failed and will receive nothing more
+        void onDocument(RemoteDocument document, Exception error);
+    }
+
+    /**
+     * Atomic group of writes, applied by commit()
+     */
+    interface Batch {
+        Batch set(String collection, String documentId, Map<String, Object> data);
+
+        // Creates the document if missing, keeps fields not in data
+        Batch merge(String collection, String documentId, Map<String, Object> data);
+
+        Batch delete(String collection, String documentId);
+
+        int size();
+
+        Task<Void> commit();
+    }
+
+    /**
+     * Reads must happen before writes; the function may be re-run on contention
+     */
+    interface Transaction {
+        RemoteDocument get(String collection, String documentId) throws Exception;
+
+        void set(String collection, String documentId, Map<String, Object> data);
+
+        void merge(String collection, String documentId, Map<String, Object> data);
+
+        void delete(String collection, String documentId);
+    }
+
+    interface TransactionFunction<T> {
+        T apply(Transaction transaction) throws Exception;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.rpghabittracker.data.remote;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+/**
+ * Process-wide RemoteStore used by the repositories, sync and outbox.
+ * Defaults to Firestore; install() swaps in another backend (e.g. the
+ * in-memory fake) and must run before the first repository is created.
+ * forCaller() wraps it so the traffic shows up in SyncMetrics under that name.
+ */
+public final class RemoteStores {
+
+    private static volatile RemoteStore instance;
+
+    private RemoteStores() {
+    }
+
+    public static RemoteStore get() {
+        if (instance == null) {
+            synchronized (RemoteStores.class) {
+                if (instance == null) {
+                    instance = new FirestoreRemoteStore(FirebaseFirestore.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static RemoteStore forCaller(String caller) {
+        return new InstrumentedRemoteStore(get(), caller);
+    }
+
+    public static synchronized void install(RemoteStore store) {
+        instance = store;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.rpghabittracker.data.remote;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Process-wide counters of Firestore traffic, per caller (screen or
+ * repository), collection and operation.
+ *
+ * Fed by InstrumentedRemoteStore, which wraps every RemoteStore handed out by
+ * RemoteStores.forCaller. Document reads follow Firestore billing: a one-shot
+ * read costs at least one read even when nothing matches, a listener event
+ * costs one read per changed document.
+ * Bytes are estimated from document contents with Firestore's storage size
+ * rules (see estimateBytes), not measured on the wire.
+ *
+ * dump() / dumpToFile() render the totals, most read documents first, for the
+ * debug screen and for pulling off a device.
+ */
+public final class SyncMetrics {
+
+    public enum Op { GET, QUERY, LISTEN, WRITE, BATCH, TRANSACTION }
+
+    // Latency samples kept per key for the percentiles
+    private static final int LATENCY_SAMPLES = 64;
+
+    private static final class Stats {
+        final String caller;
+        final String collection;
+        final Op op;
+
+        long calls;
+        long errors;
+        long documentsRead;
+        long documentsWritten;
+        long bytesRead;
+        long bytesWritten;
+        int activeListeners;
+        long listenerEvents;
+
+        final long[] latencies = new long[LATENCY_SAMPLES];
+        int latencyCount;
+        long maxLatencyMs;
+
+        Stats(String caller, String collection, Op op) {
+            this.caller = caller;
+            this.collection = collection;
+            this.op = op;
+        }
+
+        void addLatency(long latencyMs) {
+            latencies[latencyCount % LATENCY_SAMPLES] = latencyMs;
+            latencyCount++;
+            maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        }
+
+        long percentile(double fraction) {
+            int count = Math.min(latencyCount, LATENCY_SAMPLES);
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(fraction * count) - 1)];
+        }
+    }
+
+    // Guarded by SyncMetrics.class
+    private static final Map<String, Stats> stats = new LinkedHashMap<>();
+    private static long since = System.currentTimeMillis();
+
+    private SyncMetrics() {
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Recording
+    // ──────────────────────────────────────────────────────────────────────────
+
+    static synchronized void recordRead(String caller, String collection, Op op, int documents,
+                                        long bytes, long latencyMs, boolean failed) {
+        Stats entry = entry(caller, collection, op);
+        entry.calls++;
+        if (failed) {
+            entry.errors++;
+        } else {
+            entry.documentsRead += Math.max(1, documents);
+            entry.bytesRead += bytes;
+        }
+        entry.addLatency(latencyMs);
+    }
+
+    static synchronized void recordWrite(String caller, String collection, Op op, int documents,
+                                         long bytes, long latencyMs, boolean failed) {
+        Stats entry = entry(caller, collection, op);
+        entry.calls++;
+        if (failed) {
+            entry.errors++;
+        } else {
+            entry.documentsWritten += documents;
+            entry.bytesWritten += bytes;
+        }
+        entry.addLatency(latencyMs);
+    }
+
+    static synchronized void listenerAttached(String caller, String collection) {
+        Stats entry = entry(caller, collection, Op.LISTEN);
+        entry.calls++;
+        entry.activeListeners++;
+    }
+
+    static synchronized void listenerDetached(String caller, String collection) {
+        Stats entry = entry(caller, collection, Op.LISTEN);
+        entry.activeListeners = Math.max(0, entry.activeListeners - 1);
+    }
+
+    // firstLatencyMs: attach to first snapshot, or -1 for later events
+    static synchronized void listenerEvent(String caller, String collection, int documents,
+                                           long bytes, long firstLatencyMs, boolean failed) {
+        Stats entry = entry(caller, collection, Op.LISTEN);
+        if (failed) {
+            entry.errors++;
+            return;
+        }
+        entry.listenerEvents++;
+        // An empty first snapshot is still billed as one read
+        entry.documentsRead += firstLatencyMs >= 0 ? Math.max(1, documents) : documents;
+        entry.bytesRead += bytes;
+        if (firstLatencyMs >= 0) entry.addLatency(firstLatencyMs);
+    }
+
+    private static Stats entry(String caller, String collection, Op op) {
+        String key = caller + '|' + collection + '|' + op;
+        Stats entry = stats.get(key);
+        if (entry == null) {
+            entry = new Stats(caller, collection, op);
+            stats.put(key, entry);
+        }
+        return entry;
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Reporting
+    // ──────────────────────────────────────────────────────────────────────────
+
+    public static synchronized void reset() {
+        stats.clear();
+        since = System.currentTimeMillis();
+    }
+
+    public static synchronized String dump() {
+        List<Stats> rows = new ArrayList<>(stats.values());
+        rows.sort((a, b) -> {
+            int byReads = Long.compare(b.documentsRead, a.documentsRead);
+            return byReads != 0 ? byReads : Long.compare(b.documentsWritten, a.documentsWritten);
+        });
+
+        long reads = 0, writes = 0, bytesRead = 0, bytesWritten = 0, errors = 0;
+        int listeners = 0;
+        for (Stats row : rows) {
+            reads += row.documentsRead;
+            writes += row.documentsWritten;
+            bytesRead += row.bytesRead;
+            bytesWritten += row.bytesWritten;
+            errors += row.errors;
+            listeners += row.activeListeners;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ROOT);
+        sb.append("Firestore traffic since ").append(format.format(new Date(since))).append('\n');
+        sb.append(String.format(Locale.ROOT,
+                "reads %d (%s), writes %d (%s), errors %d, active listeners %d%n%n",
+                reads, formatBytes(bytesRead), writes, formatBytes(bytesWritten), errors, listeners));
+        for (Stats row : rows) {
+            sb.append(row.caller).append(" · ").append(row.collection).append(" · ").append(row.op).append('\n');
+            sb.append(String.format(Locale.ROOT,
+                    "  calls %d, errors %d, read %d docs / %s, wrote %d docs / %s%n",
+                    row.calls, row.errors, row.documentsRead, formatBytes(row.bytesRead),
+                    row.documentsWritten, formatBytes(row.bytesWritten)));
+            if (row.op == Op.LISTEN) {
+                sb.append(String.format(Locale.ROOT, "  active %d, events %d%n",
+                        row.activeListeners, row.listenerEvents));
+            }
+            if (row.latencyCount > 0) {
+                sb.append(String.format(Locale.ROOT, "  %s p50 %d ms, p95 %d ms, max %d ms%n",
+                        row.op == Op.LISTEN ? "first snapshot" : "latency",
+                        row.percentile(0.5), row.percentile(0.95), row.maxLatencyMs));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Writes dump() to a new timestamped file in the directory and returns it
+    public static File dumpToFile(File directory) throws IOException {
+        String name = "sync-metrics-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date()) + ".txt";
+        File file = new File(directory, name);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(dump());
+        }
+        return file;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Size estimate: Firestore storage size rules (document name counted as
+    // the id plus a fixed overhead; strings UTF-8 + 1; numbers, timestamps 8;
+    // booleans, null 1; field names like strings; maps and lists summed)
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private static final int DOCUMENT_OVERHEAD = 32;
+
+    static long estimateBytes(String documentId, Map<String, Object> data) {
+        long size = DOCUMENT_OVERHEAD + (documentId != null ? utf8Length(documentId) + 1 : 0);
+        return data != null ? size + estimateMap(data) : size;
+    }
+
+    private static long estimateMap(Map<?, ?> map) {
+        long size = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            size += utf8Length(String.valueOf(entry.getKey())) + 1 + estimateValue(entry.getValue());
+        }
+        return size;
+    }
+
+    private static long estimateValue(Object value) {
+        if (value == null || value instanceof Boolean) return 1;
+        if (value instanceof String) return utf8Length((String) value) + 1;
+        if (value instanceof Map) return estimateMap((Map<?, ?>) value);
+        if (value instanceof List) {
+            long size = 0;
+            for (Object item : (List<?>) value) {
+                size += estimateValue(item);
+            }
+            return size;
+        }
+        // Numbers, timestamps, references, sentinels
+        return 8;
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
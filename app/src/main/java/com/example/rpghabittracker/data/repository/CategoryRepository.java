@@ -6,21 +6,23 @@ import android.util.Log;
 import androidx.lifecycle.LiveData;
 
 import com.example.rpghabittracker.data.local.AppDatabase;
+import com.example.rpghabittracker.data.local.DatabaseExecutors;
 import com.example.rpghabittracker.data.local.dao.CategoryDao;
 import com.example.rpghabittracker.data.local.dao.TaskDao;
 import com.example.rpghabittracker.data.model.Category;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Repository for Category data operations
@@ -30,12 +32,18 @@ public class CategoryRepository {
     
     private static final String TAG = "CategoryRepository";
     private static final String COLLECTION_CATEGORIES = "categories";
+
+    // SQLite bound-variable limit is 999
+    private static final int SQL_VARIABLE_CHUNK = 900;
     
+    private final AppDatabase db;
     private final CategoryDao categoryDao;
     private final TaskDao taskDao;
-    private final FirebaseFirestore firestore;
-    private final ExecutorService executor;
-    private ListenerRegistration categoriesListener;
+    private final RemoteStore remote;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService readExecutor;
+    private final DeltaSync categorySync;
+    private final Outbox outbox;
     
     // Default category colors
     public static final String[] DEFAULT_COLORS = {
@@ -61,105 +69,154 @@ public class CategoryRepository {
         "Ostalo"
     };
     
-    public CategoryRepository(Application application) {
-        AppDatabase db = AppDatabase.getInstance(application);
-        categoryDao = db.categoryDao();
-        taskDao = db.taskDao();
-        firestore = FirebaseFirestore.getInstance();
-        executor = Executors.newSingleThreadExecutor();
-    }
+    private static volatile CategoryRepository INSTANCE;
     
-    // Start listening to Firestore changes
-    public void startListeningToCategories(String userId) {
-        if (categoriesListener != null) {
-            categoriesListener.remove();
+    // One instance per process, shared by every ViewModel
+    public static CategoryRepository getInstance(Application application) {
+        if (INSTANCE == null) {
+            synchronized (CategoryRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new CategoryRepository(application);
+                }
+            }
         }
-        
-        categoriesListener = firestore.collection(COLLECTION_CATEGORIES)
-                .whereEqualTo("userId", userId)
-                .addSnapshotListener((snapshots, error) -> {
-                    if (error != null) {
-                        Log.e(TAG, "Firestore listen error", error);
-                        return;
+        return INSTANCE;
+    }
+    
+    private CategoryRepository(Application application) {
+        db = AppDatabase.getInstance(application);
+        categoryDao = db.categoryDao();
+        taskDao = db.taskDao();
+        remote = RemoteStores.forCaller(TAG);
+        writeExecutor = DatabaseExecutors.writer();
+        readExecutor = DatabaseExecutors.reader();
+        outbox = Outbox.getInstance(application);
+        categorySync = new DeltaSync(remote, db.syncStateDao(), outbox, writeExecutor, COLLECTION_CATEGORIES,
+                new DeltaSync.Sink() {
+                    @Override
+                    public Set<String> localIds(String userId) {
+                        return new HashSet<>(categoryDao.getUserCategoryIdsSync(userId));
                     }
-                    
-                    if (snapshots != null) {
-                        executor.execute(() -> {
-                            for (QueryDocumentSnapshot doc : snapshots) {
-                                Category category = documentToCategory(doc);
-                                if (category != null) {
-                                    categoryDao.insert(category);
-                                }
-                            }
-                        });
+
+                    @Override
+                    public void apply(List<RemoteDocument> changed, Set<String> removedIds) {
+                        applyRemoteChanges(changed, removedIds);
                     }
                 });
     }
     
+    // Start listening to Firestore changes (only documents changed since the
+    // stored watermark, see DeltaSync). The listener is shared and reference
+    // counted: balance every call with stopListening()
+    public void startListeningToCategories(String userId) {
+        categorySync.acquire(userId);
+    }
+    
     public void stopListening() {
-        if (categoriesListener != null) {
-            categoriesListener.remove();
-            categoriesListener = null;
+        categorySync.release();
+    }
+    
+    // Remote changes for one listener snapshot, applied in one transaction.
+    // Categories whose content already matches the local row (acknowledged
+    // echoes of our own writes) are skipped so observers are not re-triggered.
+    private void applyRemoteChanges(List<RemoteDocument> changed, Set<String> removedIds) {
+        List<Category> categories = new ArrayList<>(changed.size());
+        List<String> ids = new ArrayList<>(changed.size());
+        for (RemoteDocument doc : changed) {
+            Category category = documentToCategory(doc);
+            if (category != null && category.getId() != null) {
+                categories.add(category);
+                ids.add(category.getId());
+            }
         }
+        if (categories.isEmpty() && removedIds.isEmpty()) return;
+        db.runInTransaction(() -> {
+            Map<String, Category> local = new HashMap<>();
+            for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+                for (Category category : categoryDao.getCategoriesByIdsSync(ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size())))) {
+                    local.put(category.getId(), category);
+                }
+            }
+            List<Category> toWrite = new ArrayList<>();
+            for (Category remote : categories) {
+                Category before = local.get(remote.getId());
+                if (before == null || !sameContent(before, remote)) toWrite.add(remote);
+            }
+            if (!toWrite.isEmpty()) categoryDao.insertAll(toWrite);
+            List<String> removed = new ArrayList<>(removedIds);
+            for (int from = 0; from < removed.size(); from += SQL_VARIABLE_CHUNK) {
+                categoryDao.deleteByIds(removed.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, removed.size())));
+            }
+        });
+    }
+    
+    private static boolean sameContent(Category a, Category b) {
+        return Objects.equals(a.getUserId(), b.getUserId())
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getColor(), b.getColor())
+                && a.getCreatedAt() == b.getCreatedAt();
     }
     
     // Basic CRUD with Firebase sync
     public void insert(Category category) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             if (category.getId() == null || category.getId().isEmpty()) {
                 category.setId(UUID.randomUUID().toString());
             }
-            categoryDao.insert(category);
-            syncCategoryToFirestore(category);
+            db.runInTransaction(() -> {
+                categoryDao.insert(category);
+                syncCategoryToFirestore(category);
+            });
         });
     }
     
     public void update(Category category) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> db.runInTransaction(() -> {
             categoryDao.update(category);
             syncCategoryToFirestore(category);
-        });
+        }));
     }
     
     public void delete(Category category) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> db.runInTransaction(() -> {
             categoryDao.delete(category);
-            deleteFromFirestore(category.getId());
-        });
+            deleteFromFirestore(category.getId(), category.getUserId());
+        }));
     }
     
     public void deleteById(String categoryId) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> db.runInTransaction(() -> {
+            Category category = categoryDao.getCategoryByIdSync(categoryId);
             categoryDao.deleteById(categoryId);
-            deleteFromFirestore(categoryId);
-        });
+            deleteFromFirestore(categoryId, category != null ? category.getUserId() : null);
+        }));
     }
     
     // Sync category to Firestore
-    private void syncCategoryToFirestore(Category category) {
+    private Map<String, Object> categoryToMap(Category category) {
         Map<String, Object> data = new HashMap<>();
         data.put("id", category.getId());
         data.put("userId", category.getUserId());
         data.put("name", category.getName());
         data.put("color", category.getColor());
         data.put("createdAt", category.getCreatedAt());
-        
-        firestore.collection(COLLECTION_CATEGORIES)
-                .document(category.getId())
-                .set(data)
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Category synced: " + category.getName()))
-                .addOnFailureListener(e -> Log.e(TAG, "Error syncing category", e));
+        data.put(DeltaSync.FIELD_LAST_UPDATED, Outbox.SERVER_TIMESTAMP);
+        return data;
     }
     
-    private void deleteFromFirestore(String categoryId) {
-        firestore.collection(COLLECTION_CATEGORIES)
-                .document(categoryId)
-                .delete()
-                .addOnFailureListener(e -> Log.e(TAG, "Error deleting category", e));
+    // Remote writes are queued in the outbox (writer thread only), in the
+    // transaction of the local write they mirror
+    private void syncCategoryToFirestore(Category category) {
+        outbox.set(COLLECTION_CATEGORIES, category.getId(), categoryToMap(category));
+    }
+    
+    // Deletes the document and leaves a tombstone for delta sync on other devices
+    private void deleteFromFirestore(String categoryId, String userId) {
+        outbox.delete(COLLECTION_CATEGORIES, categoryId, userId);
     }
     
     // Convert Firestore document to Category
-    private Category documentToCategory(DocumentSnapshot doc) {
+    private Category documentToCategory(RemoteDocument doc) {
         try {
             Category category = new Category();
             category.setId(doc.getString("id"));
@@ -183,7 +240,7 @@ public class CategoryRepository {
     }
     
     public void getCategoryByIdSync(String categoryId, CategoryCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             Category category = categoryDao.getCategoryByIdSync(categoryId);
             callback.onResult(category);
         });
@@ -194,7 +251,7 @@ public class CategoryRepository {
     }
     
     public void getUserCategoriesSync(String userId, CategoriesCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             List<Category> categories = categoryDao.getUserCategoriesSync(userId);
             callback.onResult(categories);
         });
@@ -202,7 +259,7 @@ public class CategoryRepository {
     
     // Check if color is already used
     public void isColorUsed(String userId, String color, ColorCheckCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             int count = categoryDao.isColorUsed(userId, color);
             callback.onResult(count > 0);
         });
@@ -211,7 +268,7 @@ public class CategoryRepository {
     // Update category color
     public void updateCategoryColor(String categoryId, String newColor, String userId, 
                                     UpdateCallback callback) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             int colorUsed = categoryDao.isColorUsed(userId, newColor);
             if (colorUsed > 0) {
                 callback.onResult(false, "Ova boja je već dodeljena drugoj kategoriji");
@@ -221,8 +278,10 @@ public class CategoryRepository {
             Category category = categoryDao.getCategoryByIdSync(categoryId);
             if (category != null) {
                 category.setColor(newColor);
-                categoryDao.update(category);
-                syncCategoryToFirestore(category);
+                db.runInTransaction(() -> {
+                    categoryDao.update(category);
+                    syncCategoryToFirestore(category);
+                });
                 callback.onResult(true, null);
             } else {
                 callback.onResult(false, "Kategorija nije pronađena");
@@ -230,28 +289,35 @@ public class CategoryRepository {
         });
     }
     
-    // Create default categories for new user
+    // Create default categories for new user: the rows and their outbox entries are
+    // written in one local transaction, and the outbox sends them as one batch.
     public void createDefaultCategories(String userId) {
-        executor.execute(() -> {
-            int existingCount = categoryDao.getCategoryCount(userId);
-            if (existingCount == 0) {
+        writeExecutor.execute(() -> {
+            List<Category> created = db.runInTransaction(() -> {
+                if (categoryDao.getCategoryCount(userId) > 0) {
+                    return new ArrayList<Category>();
+                }
                 List<Category> defaultCategories = new ArrayList<>();
                 for (int i = 0; i < DEFAULT_NAMES.length; i++) {
                     Category category = new Category(userId, DEFAULT_NAMES[i], DEFAULT_COLORS[i]);
                     category.setId(UUID.randomUUID().toString());
                     defaultCategories.add(category);
-                    
-                    // Sync each to Firestore
-                    syncCategoryToFirestore(category);
                 }
                 categoryDao.insertAll(defaultCategories);
+                for (Category category : defaultCategories) {
+                    syncCategoryToFirestore(category);
+                }
+                return defaultCategories;
+            });
+            if (!created.isEmpty()) {
+                Log.d(TAG, "Default categories created: " + created.size());
             }
         });
     }
     
     // Get next available color
     public void getNextAvailableColor(String userId, ColorCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             for (String color : DEFAULT_COLORS) {
                 int count = categoryDao.isColorUsed(userId, color);
                 if (count == 0) {
@@ -266,7 +332,7 @@ public class CategoryRepository {
     
     // Check if any task references this category (prevents deletion)
     public void isCategoryInUse(String categoryId, ColorCheckCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             int count = taskDao.countTasksByCategory(categoryId);
             callback.onResult(count > 0);
         });
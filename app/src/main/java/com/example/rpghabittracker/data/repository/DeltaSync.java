@@ -0,0 +1,349 @@
+package com.example.rpghabittracker.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.rpghabittracker.data.local.dao.SyncStateDao;
+import com.example.rpghabittracker.data.model.SyncState;
+import com.example.rpghabittracker.data.remote.RemoteChange;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Watermark-based delta sync of one user-owned Firestore collection.
+ *
+ * Every synced document carries a server-assigned `lastUpdated`. sync_state
+ * keeps the newest value already applied, so a cold start only listens to
+ * documents changed after it instead of downloading the whole collection.
+ * Deletes are published as small documents in `tombstones`, which are
+ * followed with their own watermark. A full pass (all documents, local rows
+ * missing remotely are dropped) runs on first sync and then at most once per
+ * FULL_SYNC_INTERVAL_MS to catch anything the deltas missed, e.g. documents
+ * written by older app versions without `lastUpdated`.
+ *
+ * Echoes of this device's own writes are dropped before they reach the Sink:
+ * snapshots with pending local writes are skipped (the Room row already holds
+ * that state), and so is any document that still has a queued write in the
+ * Outbox, whose local row is newer than the server's copy (a Sink that merges
+ * per field gets those documents anyway, its clocks keep the newer fields).
+ * What is left of an echo once the server acknowledges it matches the local
+ * row, which the Sink's own content check skips, so a local edit renders once.
+ *
+ * One DeltaSync per collection lives in the application-scoped repository and
+ * is shared by every screen: acquire/release keep a reference count, and the
+ * listeners are only detached RELEASE_GRACE_MS after the last release, so
+ * moving between screens neither duplicates nor re-attaches them.
+ *
+ * Needs composite Firestore indexes on (userId, lastUpdated) for the synced
+ * collection and (userId, collection, lastUpdated) for tombstones.
+ */
+final class DeltaSync {
+
+    private static final String TAG = "DeltaSync";
+
+    static final String FIELD_LAST_UPDATED = "lastUpdated";
+    static final String COLLECTION_TOMBSTONES = "tombstones";
+
+    private static final long FULL_SYNC_INTERVAL_MS = 7L * 24 * 60 * 60 * 1000;
+    // A device that has not synced for this long does a full pass anyway,
+    // so older tombstones are never read again
+    private static final long TOMBSTONE_TTL_MS = 2 * FULL_SYNC_INTERVAL_MS;
+    private static final int FIRESTORE_BATCH_LIMIT = 500;
+    private static final long RELEASE_GRACE_MS = 30_000;
+
+    /**
+     * Local side of the collection; called on the writer thread
+     */
+    interface Sink {
+        // Ids of the user's rows currently stored locally
+        Set<String> localIds(String userId);
+
+        // Upsert changed documents and delete removed ids in one transaction
+        void apply(List<RemoteDocument> changed, Set<String> removedIds);
+
+        // apply() merges documents per field (FieldMerge), so one with a queued
+        // local write can be applied: the newer local fields win over it
+        default boolean mergesFields() {
+            return false;
+        }
+    }
+
+    private final RemoteStore remote;
+    private final SyncStateDao syncStateDao;
+    private final Outbox outbox;
+    private final ExecutorService writeExecutor;
+    private final String collection;
+    private final String tombstoneKey;
+    private final Sink sink;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable stopIfUnused = this::stopIfUnused;
+
+    // Guarded by this; generation drops callbacks of a run that was stopped
+    private RemoteStore.Registration documentsListener;
+    private RemoteStore.Registration tombstonesListener;
+    private int generation;
+    // Only the signed-in user is synced; acquiring for another user switches to it
+    private String activeUserId;
+    private int refCount;
+
+    DeltaSync(RemoteStore remote, SyncStateDao syncStateDao, Outbox outbox,
+              ExecutorService writeExecutor, String collection, Sink sink) {
+        this.remote = remote;
+        this.syncStateDao = syncStateDao;
+        this.outbox = outbox;
+        this.writeExecutor = writeExecutor;
+        this.collection = collection;
+        this.tombstoneKey = collection + ":tombstones";
+        this.sink = sink;
+    }
+
+    synchronized void acquire(String userId) {
+        mainHandler.removeCallbacks(stopIfUnused);
+        refCount++;
+        if (!userId.equals(activeUserId)) {
+            activeUserId = userId;
+            start(userId);
+        }
+    }
+
+    synchronized void release() {
+        if (refCount == 0) return;
+        if (--refCount == 0) {
+            mainHandler.postDelayed(stopIfUnused, RELEASE_GRACE_MS);
+        }
+    }
+
+    private synchronized void stopIfUnused() {
+        if (refCount == 0 && activeUserId != null) {
+            Log.d(TAG, "Detaching " + collection + " listeners");
+            activeUserId = null;
+            stop();
+        }
+    }
+
+    private void start(String userId) {
+        int run;
+        synchronized (this) {
+            removeListeners();
+            run = ++generation;
+        }
+        writeExecutor.execute(() -> {
+            SyncState documents = loadState(userId, collection);
+            if (System.currentTimeMillis() - documents.getLastFullSync() >= FULL_SYNC_INTERVAL_MS) {
+                fullSync(run, userId);
+            } else {
+                attach(run, userId, documents.getWatermark(), loadState(userId, tombstoneKey).getWatermark());
+            }
+        });
+    }
+
+    private synchronized void stop() {
+        generation++;
+        removeListeners();
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Tombstones: deletes are recorded so other devices see them as a delta
+    // ──────────────────────────────────────────────────────────────────────────
+
+    static void addTombstone(RemoteStore.Batch batch, RemoteStore remote, String collection,
+                             String userId, String docId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("collection", collection);
+        data.put("docId", docId);
+        data.put(FIELD_LAST_UPDATED, remote.serverTimestamp());
+        batch.set(COLLECTION_TOMBSTONES, collection + "_" + docId, data);
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Sync passes
+    // ──────────────────────────────────────────────────────────────────────────
+
+    // Server-only: offline it fails and the pass is retried on the next start,
+    // instead of dropping every local row the cache happens not to hold
+    private void fullSync(int run, String userId) {
+        remote.query(RemoteQuery.on(collection).whereEqualTo("userId", userId).fromServer())
+                .addOnSuccessListener(documents -> writeExecutor.execute(() -> {
+                    if (!isCurrent(run)) return;
+                    Set<String> removed = sink.localIds(userId);
+                    for (RemoteDocument doc : documents) {
+                        removed.remove(doc.getId());
+                    }
+                    // Rows created locally but not flushed yet are missing remotely too
+                    applyWithoutEchoes(documents, removed);
+
+                    syncStateDao.advanceWatermark(userId, collection, newestLastUpdated(documents));
+                    syncStateDao.setLastFullSync(userId, collection, System.currentTimeMillis());
+                    Log.d(TAG, "Full sync of " + collection + ": " + documents.size()
+                            + " documents, " + removed.size() + " local rows dropped");
+
+                    pruneTombstones(userId);
+                    attach(run, userId, loadState(userId, collection).getWatermark(),
+                            loadState(userId, tombstoneKey).getWatermark());
+                }))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Full sync of " + collection + " failed, continuing with deltas", e);
+                    writeExecutor.execute(() -> attach(run, userId,
+                            loadState(userId, collection).getWatermark(),
+                            loadState(userId, tombstoneKey).getWatermark()));
+                });
+    }
+
+    private synchronized void attach(int run, String userId, long watermark, long tombstoneWatermark) {
+        if (run != generation) return;
+
+        RemoteQuery documentQuery = RemoteQuery.on(collection)
+                .whereEqualTo("userId", userId)
+                .whereAfter(FIELD_LAST_UPDATED, watermark);
+        documentsListener = remote.listen(documentQuery, (changes, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Firestore listen error: " + collection, error);
+                return;
+            }
+            if (changes.isEmpty()) return;
+
+            List<RemoteDocument> changed = new ArrayList<>();
+            Set<String> removed = new LinkedHashSet<>();
+            for (RemoteChange change : changes) {
+                // Latency-compensated echo of a local write; Room already has it
+                if (change.getDocument().hasPendingWrites()) continue;
+                if (change.getType() == RemoteChange.Type.REMOVED) {
+                    removed.add(change.getDocument().getId());
+                } else {
+                    changed.add(change.getDocument());
+                }
+            }
+            if (changed.isEmpty() && removed.isEmpty()) return;
+            writeExecutor.execute(() -> {
+                if (!isCurrent(run)) return;
+                applyWithoutEchoes(changed, removed);
+                syncStateDao.advanceWatermark(userId, collection, newestLastUpdated(changed));
+            });
+        });
+
+        RemoteQuery tombstoneQuery = RemoteQuery.on(COLLECTION_TOMBSTONES)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("collection", collection)
+                .whereAfter(FIELD_LAST_UPDATED, tombstoneWatermark);
+        tombstonesListener = remote.listen(tombstoneQuery, (changes, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Tombstone listen error: " + collection, error);
+                return;
+            }
+            if (changes.isEmpty()) return;
+
+            List<RemoteDocument> tombstones = new ArrayList<>();
+            Set<String> removed = new LinkedHashSet<>();
+            for (RemoteChange change : changes) {
+                if (change.getType() == RemoteChange.Type.REMOVED) continue;
+                String docId = change.getDocument().getString("docId");
+                if (docId != null) {
+                    removed.add(docId);
+                    tombstones.add(change.getDocument());
+                }
+            }
+            if (removed.isEmpty()) return;
+            writeExecutor.execute(() -> {
+                if (!isCurrent(run)) return;
+                applyWithoutEchoes(Collections.emptyList(), removed);
+                syncStateDao.advanceWatermark(userId, tombstoneKey, newestLastUpdated(tombstones));
+            });
+        });
+    }
+
+    // Leaves out documents with a queued local write (see Outbox.pendingIds),
+    // except for changes a field-merging Sink resolves itself
+    private void applyWithoutEchoes(List<RemoteDocument> changed, Set<String> removedIds) {
+        Set<String> ids = new HashSet<>(removedIds);
+        for (RemoteDocument doc : changed) {
+            ids.add(doc.getId());
+        }
+        Set<String> pending = outbox.pendingIds(collection, ids);
+        if (!pending.isEmpty()) {
+            if (!sink.mergesFields()) {
+                List<RemoteDocument> fresh = new ArrayList<>(changed.size());
+                for (RemoteDocument doc : changed) {
+                    if (!pending.contains(doc.getId())) fresh.add(doc);
+                }
+                changed = fresh;
+            }
+            Set<String> removed = new LinkedHashSet<>(removedIds);
+            removed.removeAll(pending);
+            removedIds = removed;
+        }
+        if (changed.isEmpty() && removedIds.isEmpty()) return;
+        sink.apply(changed, removedIds);
+    }
+
+    private void pruneTombstones(String userId) {
+        remote.query(RemoteQuery.on(COLLECTION_TOMBSTONES)
+                        .whereEqualTo("userId", userId)
+                        .whereEqualTo("collection", collection)
+                        .whereBefore(FIELD_LAST_UPDATED, System.currentTimeMillis() - TOMBSTONE_TTL_MS))
+                .addOnSuccessListener(this::deleteAll)
+                .addOnFailureListener(e -> Log.e(TAG, "Error pruning tombstones", e));
+    }
+
+    private void deleteAll(List<RemoteDocument> documents) {
+        for (int from = 0; from < documents.size(); from += FIRESTORE_BATCH_LIMIT) {
+            RemoteStore.Batch batch = remote.batch();
+            for (RemoteDocument doc : documents.subList(from, Math.min(from + FIRESTORE_BATCH_LIMIT, documents.size()))) {
+                batch.delete(COLLECTION_TOMBSTONES, doc.getId());
+            }
+            batch.commit().addOnFailureListener(e -> Log.e(TAG, "Error pruning tombstones", e));
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Helpers
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private SyncState loadState(String userId, String key) {
+        SyncState state = syncStateDao.get(userId, key);
+        if (state == null) {
+            state = new SyncState(userId, key);
+            syncStateDao.ensureRow(state);
+        }
+        return state;
+    }
+
+    private synchronized boolean isCurrent(int run) {
+        return run == generation;
+    }
+
+    private void removeListeners() {
+        if (documentsListener != null) {
+            documentsListener.remove();
+            documentsListener = null;
+        }
+        if (tombstonesListener != null) {
+            tombstonesListener.remove();
+            tombstonesListener = null;
+        }
+    }
+
+    // Newest server `lastUpdated` in millis; pending local writes have none yet
+    private static long newestLastUpdated(List<RemoteDocument> documents) {
+        long newest = 0;
+        for (RemoteDocument doc : documents) {
+            Long lastUpdated = doc.getMillis(FIELD_LAST_UPDATED);
+            if (lastUpdated != null) {
+                newest = Math.max(newest, lastUpdated);
+            }
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.rpghabittracker.data.repository;
+
+import com.example.rpghabittracker.data.local.dao.FieldClockDao;
+import com.example.rpghabittracker.data.model.FieldClock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local field_clocks table: the stamps this device knows per document field.
+ * Called on the writer thread, inside the transaction of the row write they
+ * belong to.
+ */
+final class FieldClocks {
+
+    // SQLite bound-variable limit is 999
+    private static final int SQL_VARIABLE_CHUNK = 900;
+
+    private final FieldClockDao dao;
+
+    FieldClocks(FieldClockDao dao) {
+        this.dao = dao;
+    }
+
+    Map<String, Long> load(String collection, String documentId) {
+        Map<String, Long> clocks = load(collection, Collections.singletonList(documentId)).get(documentId);
+        return clocks != null ? clocks : new HashMap<>();
+    }
+
+    // Document id -> field -> stamp; documents without clocks are left out
+    Map<String, Map<String, Long>> load(String collection, Collection<String> documentIds) {
+        Map<String, Map<String, Long>> result = new HashMap<>();
+        List<String> ids = new ArrayList<>(documentIds);
+        for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+            for (FieldClock clock : dao.getForDocuments(collection, ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size())))) {
+                Map<String, Long> clocks = result.get(clock.getDocumentId());
+                if (clocks == null) {
+                    clocks = new HashMap<>();
+                    result.put(clock.getDocumentId(), clocks);
+                }
+                clocks.put(clock.getField(), clock.getStamp());
+            }
+        }
+        return result;
+    }
+
+    // Stamps the fields of a local write with one new stamp and returns them
+    Map<String, Long> stamp(String collection, String documentId, Collection<String> fields) {
+        Map<String, Long> stamped = new HashMap<>();
+        if (fields.isEmpty()) return stamped;
+        if (!Hlc.isSeeded()) {
+            Long newest = dao.getMaxStamp();
+            Hlc.seed(newest != null ? newest : 0);
+        }
+        long stamp = Hlc.now();
+        for (String field : fields) {
+            stamped.put(field, stamp);
+        }
+        save(collection, documentId, stamped);
+        return stamped;
+    }
+
+    // Stores stamps taken from a merge; remote stamps also advance the clock
+    void save(String collection, String documentId, Map<String, Long> clocks) {
+        if (clocks.isEmpty()) return;
+        List<FieldClock> rows = new ArrayList<>(clocks.size());
+        for (Map.Entry<String, Long> entry : clocks.entrySet()) {
+            rows.add(new FieldClock(collection, documentId, entry.getKey(), entry.getValue()));
+            Hlc.observe(entry.getValue());
+        }
+        dao.upsertAll(rows);
+    }
+
+    void remove(String collection, Collection<String> documentIds) {
+        List<String> ids = new ArrayList<>(documentIds);
+        for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+            dao.deleteForDocuments(collection, ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size())));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.rpghabittracker.data.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Per-field last-writer-wins merge of synced documents.
+ *
+ * Every write to a task or user document stamps the fields it changes with a
+ * hybrid logical clock (Hlc) and carries the stamps in the document's `hlc`
+ * map. Two states of a document merge field by field: the higher stamp wins,
+ * a missing stamp counts as 0 and ties go to the incoming state, so unclocked
+ * (older app version) writes keep their old "newest arrival wins" behaviour
+ * among themselves but never beat a clocked value.
+ *
+ * The rule runs on read, when a remote document is applied over the local
+ * row (current = local row and clocks, incoming = remote document). Writes
+ * reach the server blind (Outbox batches), so the server copy can hold a
+ * value older than one some device has; when that device reads the document
+ * and a local field wins, it writes the merged state back. Every device and
+ * the server thus converge on the same document whatever order writes
+ * arrive in. Counters sent as increments are commutative and carry no stamp.
+ */
+final class FieldMerge {
+
+    static final String FIELD_CLOCKS = "hlc";
+
+    // Collections whose documents carry field clocks
+    static final Set<String> COLLECTIONS = new HashSet<>(Arrays.asList("tasks", "users"));
+
+    // Describe the document rather than hold data; taken from whichever side has them
+    private static final Set<String> BOOKKEEPING = new HashSet<>(Arrays.asList(
+            FIELD_CLOCKS, DeltaSync.FIELD_LAST_UPDATED, TaskWireFormat.FIELD_VERSION));
+
+    static final class Result {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        final Map<String, Long> clocks = new LinkedHashMap<>();
+        // Some field kept the current value over a different incoming one
+        boolean currentWon;
+        // Some field took an incoming value different from the current one
+        boolean incomingWon;
+    }
+
+    private FieldMerge() {
+    }
+
+    /**
+     * Merges incoming document state over the current one. A partial incoming
+     * state (a merge write) only competes for the fields it holds; a full one
+     * also clears fields it leaves out, if its stamp for them wins.
+     */
+    static Result merge(Map<String, Object> current, Map<String, Long> currentClocks,
+                        Map<String, Object> incoming, Map<String, Long> incomingClocks,
+                        boolean incomingPartial) {
+        if (current == null) current = Collections.emptyMap();
+        if (currentClocks == null) currentClocks = Collections.emptyMap();
+        if (incomingClocks == null) incomingClocks = Collections.emptyMap();
+
+        Set<String> fields = new LinkedHashSet<>(current.keySet());
+        fields.addAll(currentClocks.keySet());
+        fields.addAll(incoming.keySet());
+        fields.addAll(incomingClocks.keySet());
+
+        Result result = new Result();
+        for (String field : fields) {
+            if (BOOKKEEPING.contains(field)) {
+                if (FIELD_CLOCKS.equals(field)) continue;
+                result.values.put(field, incoming.containsKey(field) ? incoming.get(field) : current.get(field));
+                continue;
+            }
+            long currentStamp = stamp(currentClocks, field);
+            boolean competes = !incomingPartial
+                    || incoming.containsKey(field) || incomingClocks.containsKey(field);
+            boolean differs = !sameValue(current.get(field), incoming.get(field))
+                    || current.containsKey(field) != incoming.containsKey(field);
+
+            if (!competes || currentStamp > stamp(incomingClocks, field)) {
+                if (current.containsKey(field)) result.values.put(field, current.get(field));
+                if (currentStamp > 0) result.clocks.put(field, currentStamp);
+                if (competes && differs) result.currentWon = true;
+            } else {
+                if (incoming.containsKey(field)) result.values.put(field, incoming.get(field));
+                long incomingStamp = stamp(incomingClocks, field);
+                if (incomingStamp > 0) result.clocks.put(field, incomingStamp);
+                if (differs) result.incomingWon = true;
+            }
+        }
+        return result;
+    }
+
+    // Data fields whose value differs between two full states
+    static Set<String> changedFields(Map<String, Object> before, Map<String, Object> after) {
+        if (before == null) before = Collections.emptyMap();
+        Set<String> fields = new LinkedHashSet<>(before.keySet());
+        fields.addAll(after.keySet());
+        Set<String> changed = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (BOOKKEEPING.contains(field)) continue;
+            if (before.containsKey(field) != after.containsKey(field)
+                    || !sameValue(before.get(field), after.get(field))) {
+                changed.add(field);
+            }
+        }
+        return changed;
+    }
+
+    // Stamps stored in a document's `hlc` map
+    static Map<String, Long> clocksOf(Map<String, Object> data) {
+        Map<String, Long> clocks = new HashMap<>();
+        Object value = data != null ? data.get(FIELD_CLOCKS) : null;
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    clocks.put(String.valueOf(entry.getKey()), ((Number) entry.getValue()).longValue());
+                }
+            }
+        }
+        return clocks;
+    }
+
+    // Firestore returns every integer as Long, local maps hold Integers
+    static boolean sameValue(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                return ((Number) a).longValue() == ((Number) b).longValue();
+            }
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue()) == 0;
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static boolean isIntegral(Object n) {
+        return !(n instanceof Double || n instanceof Float);
+    }
+
+    private static long stamp(Map<String, Long> clocks, String field) {
+        Long stamp = clocks.get(field);
+        return stamp != null ? stamp : 0;
+    }
+}
@@ -6,15 +6,16 @@ import androidx.annotation.NonNull;
 
 import com.example.rpghabittracker.data.model.User;
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
@@ -22,8 +23,10 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Repository for Firebase operations (Authentication, Firestore, Realtime Database)
@@ -34,7 +37,7 @@ public class FirebaseRepository {
     
     // Firebase instances
     private final FirebaseAuth mAuth;
-    private final FirebaseFirestore db;
+    private final RemoteStore remote;
     private final DatabaseReference realtimeDb;
     
     // Firestore collections
@@ -46,7 +49,7 @@ public class FirebaseRepository {
     
     public FirebaseRepository() {
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        remote = RemoteStores.forCaller(TAG);
         realtimeDb = FirebaseDatabase.getInstance().getReference();
     }
     
@@ -171,8 +174,7 @@ public class FirebaseRepository {
         userProfile.put("defense", 5);
         userProfile.put("createdAt", System.currentTimeMillis());
         
-        db.collection(COLLECTION_USERS).document(userId)
-            .set(userProfile)
+        remote.set(COLLECTION_USERS, userId, userProfile)
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "User profile created successfully");
                 onSuccess.onSuccess(mAuth.getCurrentUser());
@@ -184,10 +186,9 @@ public class FirebaseRepository {
      * Get user profile from Firestore
      */
     public void getUserProfile(String userId, 
-                              OnSuccessListener<DocumentSnapshot> onSuccess,
+                              OnSuccessListener<RemoteDocument> onSuccess,
                               OnFailureListener onFailure) {
-        db.collection(COLLECTION_USERS).document(userId)
-            .get()
+        remote.get(COLLECTION_USERS, userId)
             .addOnSuccessListener(onSuccess)
             .addOnFailureListener(onFailure);
     }
@@ -198,8 +199,7 @@ public class FirebaseRepository {
     public void updateUserProfile(String userId, Map<String, Object> updates,
                                  OnSuccessListener<Void> onSuccess,
                                  OnFailureListener onFailure) {
-        db.collection(COLLECTION_USERS).document(userId)
-            .update(updates)
+        remote.merge(COLLECTION_USERS, userId, updates)
             .addOnSuccessListener(onSuccess)
             .addOnFailureListener(onFailure);
     }
@@ -215,10 +215,10 @@ public class FirebaseRepository {
         taskData.put("userId", userId);
         taskData.put("createdAt", System.currentTimeMillis());
         
-        db.collection(COLLECTION_TASKS)
-            .add(taskData)
-            .addOnSuccessListener(documentReference -> {
-                Log.d(TAG, "Task created with ID: " + documentReference.getId());
+        String taskId = UUID.randomUUID().toString();
+        remote.set(COLLECTION_TASKS, taskId, taskData)
+            .addOnSuccessListener(aVoid -> {
+                Log.d(TAG, "Task created with ID: " + taskId);
                 onSuccess.onSuccess(null);
             })
             .addOnFailureListener(onFailure);
@@ -228,11 +228,9 @@ public class FirebaseRepository {
      * Get all tasks for user
      */
     public void getUserTasks(String userId,
-                            OnSuccessListener<QuerySnapshot> onSuccess,
+                            OnSuccessListener<List<RemoteDocument>> onSuccess,
                             OnFailureListener onFailure) {
-        db.collection(COLLECTION_TASKS)
-            .whereEqualTo("userId", userId)
-            .get()
+        remote.query(RemoteQuery.on(COLLECTION_TASKS).whereEqualTo("userId", userId))
             .addOnSuccessListener(onSuccess)
             .addOnFailureListener(onFailure);
     }
@@ -243,8 +241,7 @@ public class FirebaseRepository {
     public void updateTask(String taskId, Map<String, Object> updates,
                           OnSuccessListener<Void> onSuccess,
                           OnFailureListener onFailure) {
-        db.collection(COLLECTION_TASKS).document(taskId)
-            .update(updates)
+        remote.merge(COLLECTION_TASKS, taskId, updates)
             .addOnSuccessListener(onSuccess)
             .addOnFailureListener(onFailure);
     }
@@ -255,8 +252,7 @@ public class FirebaseRepository {
     public void deleteTask(String taskId,
                           OnSuccessListener<Void> onSuccess,
                           OnFailureListener onFailure) {
-        db.collection(COLLECTION_TASKS).document(taskId)
-            .delete()
+        remote.delete(COLLECTION_TASKS, taskId)
             .addOnSuccessListener(onSuccess)
             .addOnFailureListener(onFailure);
     }
@@ -312,9 +308,8 @@ public class FirebaseRepository {
         request.put("status", "pending");
         request.put("timestamp", System.currentTimeMillis());
         
-        db.collection(COLLECTION_FRIENDS)
-            .add(request)
-            .addOnSuccessListener(documentReference -> onSuccess.onSuccess(null))
+        remote.set(COLLECTION_FRIENDS, UUID.randomUUID().toString(), request)
+            .addOnSuccessListener(aVoid -> onSuccess.onSuccess(null))
             .addOnFailureListener(onFailure);
     }
     
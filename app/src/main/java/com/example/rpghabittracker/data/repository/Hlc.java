@@ -0,0 +1,76 @@
+package com.example.rpghabittracker.data.repository;
+
+import java.security.SecureRandom;
+
+/**
+ * Hybrid logical clock for per-field last-writer-wins (see FieldMerge).
+ *
+ * A stamp is one positive long, so stamps compare with plain < / >:
+ *   43 bits wall clock millis | 8 bits counter | 12 bits node
+ * The counter orders events within the same millisecond and keeps stamps
+ * increasing when the wall clock stands still or goes back; observing remote
+ * stamps moves the clock past them, so an edit made after seeing another
+ * device's edit always wins over it. The node bits (random per process) break
+ * ties between devices deterministically.
+ *
+ * The clock lives in memory; after a restart it is seeded with the newest
+ * stamp stored in field_clocks (FieldClocks does this before the first local
+ * stamp), so a wall clock set back across a restart cannot issue stamps below
+ * ones already written.
+ */
+final class Hlc {
+
+    private static final int NODE_BITS = 12;
+    private static final int COUNTER_BITS = 8;
+    private static final int LOGICAL_BITS = NODE_BITS + COUNTER_BITS;
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    private static final long NODE = new SecureRandom().nextInt(1 << NODE_BITS);
+
+    // Guarded by Hlc.class; logical part (millis and counter) of the last stamp
+    private static long lastMillis;
+    private static long lastCounter;
+    private static boolean seeded;
+
+    private Hlc() {
+    }
+
+    // New stamp, greater than every stamp issued or observed before
+    static synchronized long now() {
+        long physical = System.currentTimeMillis();
+        if (physical > lastMillis) {
+            lastMillis = physical;
+            lastCounter = 0;
+        } else if (lastCounter < COUNTER_MAX) {
+            lastCounter++;
+        } else {
+            lastMillis++;
+            lastCounter = 0;
+        }
+        return (lastMillis << LOGICAL_BITS) | (lastCounter << NODE_BITS) | NODE;
+    }
+
+    static synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    // Moves the clock past the newest persisted stamp (0 when there is none)
+    static synchronized void seed(long newestStored) {
+        observe(newestStored);
+        seeded = true;
+    }
+
+    // Receive rule: the next local stamp sorts after the remote one
+    static synchronized void observe(long stamp) {
+        long millis = millis(stamp);
+        long counter = (stamp >>> NODE_BITS) & COUNTER_MAX;
+        if (millis > lastMillis || (millis == lastMillis && counter > lastCounter)) {
+            lastMillis = millis;
+            lastCounter = counter;
+        }
+    }
+
+    static long millis(long stamp) {
+        return stamp >>> LOGICAL_BITS;
+    }
+}
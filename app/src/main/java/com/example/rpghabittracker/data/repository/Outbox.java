@@ -0,0 +1,465 @@
+package com.example.rpghabittracker.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.rpghabittracker.data.local.AppDatabase;
+import com.example.rpghabittracker.data.local.DatabaseExecutors;
+import com.example.rpghabittracker.data.local.dao.PendingWriteDao;
+import com.example.rpghabittracker.data.model.PendingWrite;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
+import com.google.android.gms.tasks.Task;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable write-behind queue for Firestore (through RemoteStore).
+ *
+ * Repositories record remote mutations here (a Room row per document) in the
+ * same Room transaction as the local write instead of calling Firestore
+ * directly, so a killed process keeps both or neither. Writes to the same document are coalesced:
+ *  set     replaces the queued fields
+ *  merge   adds its fields to the queued ones (last value wins per field)
+ *  delete  replaces anything queued for the document
+ *  increment deltas are summed; a later absolute value for the field drops them
+ * A flush runs shortly after the first queued write and sends everything that
+ * is due in one WriteBatch; failures are retried with exponential backoff.
+ * Documents with field clocks (FieldMerge.COLLECTIONS) carry their stamps
+ * and are written blind like the rest, so a flush works offline (into the
+ * Firestore cache) and costs no reads. A write that overwrites a newer value
+ * is corrected by the device that holds it, when that device reads the
+ * document back and its clocks win (see FieldMerge).
+ *
+ * Enqueue methods write to Room and must be called off the main thread.
+ * A batch that Firestore acknowledged just before the process died is sent
+ * again on the next start; set/merge/delete are idempotent, increments are not.
+ */
+public final class Outbox {
+
+    private static final String TAG = "Outbox";
+
+    // Placeholder for RemoteStore.serverTimestamp() in queued fields
+    static final Object SERVER_TIMESTAMP = new Object();
+
+    // Short delay so a burst of writes (e.g. completing several tasks) leaves in one batch
+    private static final long FLUSH_DELAY_MS = 500;
+    private static final long RETRY_BASE_MS = 2_000;
+    private static final long RETRY_MAX_MS = 10L * 60 * 1000;
+    private static final int FIRESTORE_BATCH_LIMIT = 500;
+    // SQLite bound-variable limit is 999
+    private static final int SQL_VARIABLE_CHUNK = 900;
+
+    private static volatile Outbox INSTANCE;
+
+    private final AppDatabase db;
+    private final PendingWriteDao dao;
+    private final RemoteStore remote;
+    private final ExecutorService writeExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by this
+    private ScheduledFuture<?> scheduledFlush;
+    private long scheduledAt;
+    private boolean inFlight;
+    // After a rejected batch rows go one per batch until the queue drains,
+    // so one bad write cannot hold back the others
+    private boolean isolateRows;
+
+    private Outbox(Context context) {
+        db = AppDatabase.getInstance(context);
+        dao = db.pendingWriteDao();
+        remote = RemoteStores.forCaller(TAG);
+        writeExecutor = DatabaseExecutors.writer();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Outbox getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (Outbox.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new Outbox(context.getApplicationContext());
+                    // Writes left over from a previous process
+                    INSTANCE.scheduleFlush(0);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Enqueue (background thread)
+    // ──────────────────────────────────────────────────────────────────────────
+
+    void set(String collection, String documentId, Map<String, Object> fields) {
+        enqueue(collection, documentId, PendingWrite.OP_SET, fields, null, null);
+    }
+
+    void merge(String collection, String documentId, Map<String, Object> fields) {
+        enqueue(collection, documentId, PendingWrite.OP_MERGE, fields, null, null);
+    }
+
+    void increment(String collection, String documentId, String field, int delta) {
+        Map<String, Integer> increments = new HashMap<>();
+        increments.put(field, delta);
+        enqueue(collection, documentId, PendingWrite.OP_MERGE, null, increments, null);
+    }
+
+    // tombstoneUserId: owner of a delta-synced document, null for a plain delete
+    void delete(String collection, String documentId, String tombstoneUserId) {
+        enqueue(collection, documentId, PendingWrite.OP_DELETE, null, null, tombstoneUserId);
+    }
+
+    private void enqueue(String collection, String documentId, int op, Map<String, Object> fields,
+                         Map<String, Integer> increments, String tombstoneUserId) {
+        db.runInTransaction(() -> {
+            PendingWrite row = dao.get(collection, documentId);
+            if (row == null) {
+                row = new PendingWrite(collection, documentId);
+                row.setOp(op);
+                row.setNextAttemptAt(row.getCreatedAt());
+            }
+            coalesce(row, op, fields, increments, tombstoneUserId);
+            row.setRevision(row.getRevision() + 1);
+            dao.upsert(row);
+        });
+        scheduleFlush(FLUSH_DELAY_MS);
+    }
+
+    static void coalesce(PendingWrite row, int op, Map<String, Object> fields,
+                         Map<String, Integer> increments, String tombstoneUserId) {
+        if (op == PendingWrite.OP_DELETE) {
+            row.setOp(PendingWrite.OP_DELETE);
+            row.setFields(null);
+            row.getIncrements().clear();
+            row.setTombstoneUserId(tombstoneUserId);
+            return;
+        }
+        if (op == PendingWrite.OP_MERGE && row.getOp() == PendingWrite.OP_DELETE) {
+            // Nothing left to update once the document is gone
+            return;
+        }
+
+        if (fields != null) {
+            Map<String, Object> queued;
+            if (op == PendingWrite.OP_SET || row.getFields() == null) {
+                queued = new LinkedHashMap<>();
+            } else {
+                queued = decodeFields(row.getFields(), null);
+            }
+            putFields(queued, fields, op == PendingWrite.OP_MERGE);
+            row.setFields(encodeFields(queued));
+            // Absolute values come from the local row, which already counts the increment
+            row.getIncrements().keySet().removeAll(fields.keySet());
+        }
+        if (increments != null) {
+            for (Map.Entry<String, Integer> entry : increments.entrySet()) {
+                Integer queued = row.getIncrements().get(entry.getKey());
+                row.getIncrements().put(entry.getKey(), (queued != null ? queued : 0) + entry.getValue());
+            }
+        }
+        if (op == PendingWrite.OP_SET || row.getOp() == PendingWrite.OP_DELETE) {
+            row.setOp(op);
+            row.setTombstoneUserId(null);
+        }
+    }
+
+    // Nested maps (e.g. field clocks) of a merge combine with the queued ones, as in Firestore
+    @SuppressWarnings("unchecked")
+    private static void putFields(Map<String, Object> queued, Map<String, Object> fields, boolean merge) {
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            Object before = queued.get(entry.getKey());
+            if (merge && before instanceof Map && entry.getValue() instanceof Map) {
+                Map<String, Object> nested = new LinkedHashMap<>((Map<String, Object>) before);
+                nested.putAll((Map<String, Object>) entry.getValue());
+                queued.put(entry.getKey(), nested);
+            } else {
+                queued.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Ids among the given documents with a queued write. The local row of such a
+     * document is newer than anything the server has sent so far, so remote
+     * snapshots of it (including echoes of our own earlier writes) are stale.
+     */
+    Set<String> pendingIds(String collection, Collection<String> documentIds) {
+        Set<String> pending = new HashSet<>();
+        List<String> ids = new ArrayList<>(documentIds);
+        for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+            pending.addAll(dao.getPendingIds(collection, ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size()))));
+        }
+        return pending;
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Flush
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private synchronized void scheduleFlush(long delayMs) {
+        long target = System.currentTimeMillis() + delayMs;
+        if (scheduledFlush != null && !scheduledFlush.isDone() && scheduledAt <= target) {
+            return; // An earlier flush will pick this write up
+        }
+        if (scheduledFlush != null) scheduledFlush.cancel(false);
+        scheduledAt = target;
+        scheduledFlush = scheduler.schedule(() -> writeExecutor.execute(this::flush),
+                delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the writer thread
+    private void flush() {
+        boolean oneRow;
+        synchronized (this) {
+            if (inFlight) return; // The running flush reschedules when it completes
+            inFlight = true;
+            oneRow = isolateRows;
+        }
+
+        List<PendingWrite> due = dao.getDue(System.currentTimeMillis(), oneRow ? 1 : FIRESTORE_BATCH_LIMIT);
+        RemoteStore.Batch batch = remote.batch();
+        List<PendingWrite> sent = new ArrayList<>();
+        int writes = 0;
+        for (PendingWrite row : due) {
+            int cost = row.getOp() == PendingWrite.OP_DELETE && row.getTombstoneUserId() != null ? 2 : 1;
+            if (writes + cost > FIRESTORE_BATCH_LIMIT) break;
+            try {
+                addToBatch(batch, row);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Dropping unreadable outbox row " + row.getCollection() + "/" + row.getDocumentId(), e);
+                dao.delete(row.getCollection(), row.getDocumentId());
+                continue;
+            }
+            writes += cost;
+            sent.add(row);
+        }
+
+        if (sent.isEmpty()) {
+            synchronized (this) {
+                inFlight = false;
+            }
+            scheduleNext();
+            return;
+        }
+        batch.commit().addOnCompleteListener(writeExecutor, task -> onCommitted(sent, task));
+    }
+
+    private void onCommitted(List<PendingWrite> sent, Task<Void> task) {
+        if (task.isSuccessful()) {
+            db.runInTransaction(() -> {
+                for (PendingWrite row : sent) acknowledge(row);
+            });
+            Log.d(TAG, "Flushed " + sent.size() + " writes in one batch");
+        } else if (remote.isPermanentFailure(task.getException()) && sent.size() == 1) {
+            PendingWrite row = sent.get(0);
+            Log.e(TAG, "Dropping rejected write " + row.getCollection() + "/" + row.getDocumentId(),
+                    task.getException());
+            acknowledge(row);
+        } else if (remote.isPermanentFailure(task.getException())) {
+            Log.w(TAG, "Batch of " + sent.size() + " rejected, retrying writes one by one",
+                    task.getException());
+            synchronized (this) {
+                isolateRows = true;
+            }
+        } else {
+            Log.w(TAG, "Flush failed, retrying later", task.getException());
+            long now = System.currentTimeMillis();
+            db.runInTransaction(() -> {
+                for (PendingWrite row : sent) backOff(row, now);
+            });
+        }
+
+        synchronized (this) {
+            inFlight = false;
+        }
+        scheduleNext();
+    }
+
+    // Clears what was sent; writes coalesced while the batch was in flight stay queued
+    private void acknowledge(PendingWrite sent) {
+        PendingWrite current = dao.get(sent.getCollection(), sent.getDocumentId());
+        if (current == null) return;
+        if (current.getRevision() == sent.getRevision()) {
+            dao.delete(sent.getCollection(), sent.getDocumentId());
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : sent.getIncrements().entrySet()) {
+            Integer queued = current.getIncrements().get(entry.getKey());
+            if (queued == null) continue;
+            int remaining = queued - entry.getValue();
+            if (remaining == 0) {
+                current.getIncrements().remove(entry.getKey());
+            } else {
+                current.getIncrements().put(entry.getKey(), remaining);
+            }
+        }
+        dao.upsert(current);
+    }
+
+    private void backOff(PendingWrite sent, long now) {
+        PendingWrite current = dao.get(sent.getCollection(), sent.getDocumentId());
+        if (current == null) return;
+        int attempts = current.getAttempts() + 1;
+        long delay = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempts - 1, 20));
+        current.setAttempts(attempts);
+        current.setNextAttemptAt(now + delay);
+        dao.upsert(current);
+    }
+
+    private void scheduleNext() {
+        Long next = dao.getNextAttemptAt();
+        if (next == null) {
+            synchronized (this) {
+                isolateRows = false;
+            }
+            return;
+        }
+        scheduleFlush(Math.max(0, next - System.currentTimeMillis()));
+    }
+
+    private void addToBatch(RemoteStore.Batch batch, PendingWrite row) {
+        if (row.getOp() == PendingWrite.OP_DELETE) {
+            batch.delete(row.getCollection(), row.getDocumentId());
+            if (row.getTombstoneUserId() != null) {
+                DeltaSync.addTombstone(batch, remote, row.getCollection(),
+                        row.getTombstoneUserId(), row.getDocumentId());
+            }
+            return;
+        }
+
+        Map<String, Object> data = row.getFields() != null
+                ? decodeFields(row.getFields(), remote)
+                : new HashMap<>();
+        for (Map.Entry<String, Integer> entry : row.getIncrements().entrySet()) {
+            Object absolute = data.get(entry.getKey());
+            if (absolute instanceof Number) {
+                data.put(entry.getKey(), ((Number) absolute).longValue() + entry.getValue());
+            } else {
+                data.put(entry.getKey(), remote.increment(entry.getValue()));
+            }
+        }
+        if (row.getOp() == PendingWrite.OP_SET) {
+            batch.set(row.getCollection(), row.getDocumentId(), data);
+        } else {
+            batch.merge(row.getCollection(), row.getDocumentId(), data);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Typed JSON for queued fields: every value is stored as [type, value]
+    // so numbers keep their kind (plain JSON would turn every long into a double)
+    //   s string, l integer, d floating point, b boolean, n null,
+    //   ts server timestamp, m map, a list
+    // ──────────────────────────────────────────────────────────────────────────
+
+    static String encodeFields(@NonNull Map<String, Object> fields) {
+        JsonObject json = new JsonObject();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            json.add(entry.getKey(), encodeValue(entry.getValue()));
+        }
+        return json.toString();
+    }
+
+    // target: resolve SERVER_TIMESTAMP to the store's own value, null to keep the placeholder
+    static Map<String, Object> decodeFields(@NonNull String encoded, RemoteStore target) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : JsonParser.parseString(encoded).getAsJsonObject().entrySet()) {
+            fields.put(entry.getKey(), decodeValue(entry.getValue(), target));
+        }
+        return fields;
+    }
+
+    private static JsonElement encodeValue(Object value) {
+        if (value == null) return tagged("n", JsonNull.INSTANCE);
+        if (value == SERVER_TIMESTAMP) return tagged("ts", JsonNull.INSTANCE);
+        if (value instanceof String) return tagged("s", new JsonPrimitive((String) value));
+        if (value instanceof Boolean) return tagged("b", new JsonPrimitive((Boolean) value));
+        if (value instanceof Double || value instanceof Float) {
+            return tagged("d", new JsonPrimitive(((Number) value).doubleValue()));
+        }
+        if (value instanceof Number) return tagged("l", new JsonPrimitive(((Number) value).longValue()));
+        if (value instanceof Map) {
+            JsonObject map = new JsonObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.add(String.valueOf(entry.getKey()), encodeValue(entry.getValue()));
+            }
+            return tagged("m", map);
+        }
+        if (value instanceof List) {
+            JsonArray list = new JsonArray();
+            for (Object item : (List<?>) value) {
+                list.add(encodeValue(item));
+            }
+            return tagged("a", list);
+        }
+        throw new IllegalArgumentException("Unsupported outbox value: " + value.getClass().getName());
+    }
+
+    private static Object decodeValue(JsonElement element, RemoteStore target) {
+        JsonArray pair = element.getAsJsonArray();
+        String type = pair.get(0).getAsString();
+        JsonElement value = pair.get(1);
+        switch (type) {
+            case "n":
+                return null;
+            case "ts":
+                return target != null ? target.serverTimestamp() : SERVER_TIMESTAMP;
+            case "s":
+                return value.getAsString();
+            case "b":
+                return value.getAsBoolean();
+            case "d":
+                return value.getAsDouble();
+            case "l":
+                return value.getAsLong();
+            case "m": {
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (Map.Entry<String, JsonElement> entry : value.getAsJsonObject().entrySet()) {
+                    map.put(entry.getKey(), decodeValue(entry.getValue(), target));
+                }
+                return map;
+            }
+            case "a": {
+                List<Object> list = new ArrayList<>();
+                for (JsonElement item : value.getAsJsonArray()) {
+                    list.add(decodeValue(item, target));
+                }
+                return list;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown outbox value type: " + type);
+        }
+    }
+
+    private static JsonArray tagged(String type, JsonElement value) {
+        JsonArray pair = new JsonArray();
+        pair.add(type);
+        pair.add(value);
+        return pair;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.rpghabittracker.data.repository;
+
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.utils.DayClock;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory quota counters of one user: completed tasks that count toward
+ * the quota (countsTowardQuota) in the current day, week and month, per
+ * difficulty and per importance, by completedDate.
+ *
+ * Hydrated once from Room on the writer thread, then kept exact by the same
+ * calls that maintain task_day_stats (replace/add/remove around every task
+ * write, also on the writer thread). Counters of a period start again from
+ * zero when the period rolls over. Reads are synchronized and never touch
+ * the database.
+ */
+final class QuotaLedger {
+
+    enum Period { DAY, WEEK, MONTH }
+
+    private static final int PERIODS = Period.values().length;
+
+    private final LongSupplier clock;
+    private String userId; // Hydrated user, null until the first hydrate()
+    // Current period of each counter row: [start, end) in epoch days
+    private final long[] periodStart = new long[PERIODS];
+    private final long[] periodEnd = new long[PERIODS];
+    private final int[][] byDifficulty = new int[PERIODS][TaskDifficulty.values().length];
+    private final int[][] byImportance = new int[PERIODS][TaskImportance.values().length];
+
+    QuotaLedger() {
+        this(System::currentTimeMillis);
+    }
+
+    // clock: current time in millis; periods roll over by it
+    QuotaLedger(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    synchronized boolean isHydrated(String userId) {
+        return userId != null && userId.equals(this.userId);
+    }
+
+    // First day whose completions hydrate() needs (start of this week or month)
+    static long hydrateFromDay() {
+        long today = DayClock.epochDay(System.currentTimeMillis());
+        return Math.min(DayClock.weekStartDay(today), DayClock.monthStartDay(today));
+    }
+
+    // Replaces the counters with the user's completions since hydrateFromDay()
+    synchronized void hydrate(String userId, List<Task.QuotaCompletion> completions) {
+        this.userId = userId;
+        // An empty period so roll() clears every counter, also on a second hydrate
+        for (int p = 0; p < PERIODS; p++) {
+            periodStart[p] = Long.MIN_VALUE;
+            periodEnd[p] = Long.MIN_VALUE;
+        }
+        roll();
+        for (Task.QuotaCompletion completion : completions) {
+            count(completion.difficulty, completion.importance, completion.completedDate, 1);
+        }
+    }
+
+    // Replace the contribution of 'before' with the contribution of 'after' (either may be null)
+    synchronized void replace(Task before, Task after) {
+        if (before != null) apply(before, -1);
+        if (after != null) apply(after, 1);
+    }
+
+    synchronized void add(Task task) {
+        apply(task, 1);
+    }
+
+    synchronized void remove(Task task) {
+        apply(task, -1);
+    }
+
+    synchronized int count(Period period, TaskDifficulty difficulty) {
+        roll();
+        return byDifficulty[period.ordinal()][difficulty.ordinal()];
+    }
+
+    synchronized int count(Period period, TaskImportance importance) {
+        roll();
+        return byImportance[period.ordinal()][importance.ordinal()];
+    }
+
+    private void apply(Task task, int sign) {
+        if (userId == null || !userId.equals(task.getUserId())) return;
+        if (task.getTaskStatus() != TaskStatus.COMPLETED || !task.isCountsTowardQuota()) return;
+        roll();
+        count(task.getTaskDifficulty(), task.getTaskImportance(), task.getCompletedDate(), sign);
+    }
+
+    private void count(TaskDifficulty difficulty, TaskImportance importance, long completedDate, int sign) {
+        if (completedDate <= 0) return;
+        long day = DayClock.epochDay(completedDate);
+        for (int p = 0; p < PERIODS; p++) {
+            if (day < periodStart[p] || day >= periodEnd[p]) continue;
+            if (difficulty != null) {
+                byDifficulty[p][difficulty.ordinal()] = Math.max(0, byDifficulty[p][difficulty.ordinal()] + sign);
+            }
+            if (importance != null) {
+                byImportance[p][importance.ordinal()] = Math.max(0, byImportance[p][importance.ordinal()] + sign);
+            }
+        }
+    }
+
+    // Moves every period to the one containing today, clearing its counters if it changed
+    private void roll() {
+        long today = DayClock.epochDay(clock.getAsLong());
+        int day = Period.DAY.ordinal();
+        if (today >= periodStart[day] && today < periodEnd[day]) return; // Same day: same week and month
+
+        long weekStart = DayClock.weekStartDay(today);
+        long monthStart = DayClock.monthStartDay(today);
+        rollTo(Period.DAY, today, today + 1);
+        rollTo(Period.WEEK, weekStart, weekStart + 7);
+        rollTo(Period.MONTH, monthStart, DayClock.nextMonthStartDay(today));
+    }
+
+    private void rollTo(Period period, long start, long end) {
+        int p = period.ordinal();
+        if (periodStart[p] == start) return;
+        periodStart[p] = start;
+        periodEnd[p] = end;
+        Arrays.fill(byDifficulty[p], 0);
+        Arrays.fill(byImportance[p], 0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.rpghabittracker.data.repository;
+
+import com.example.rpghabittracker.data.model.RepeatUnit;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.utils.DayClock;
+
+/**
+ * Closed-form schedule of a recurring template, in local epoch days
+ * (DayClock). A template repeats every repeatInterval days
+ * (DAY) or weeks (WEEK), anchored at its start day (or creation day), until
+ * its end day. Templates store the next scheduled day in nextOccurrenceDay
+ * so generation only reads the templates that are due.
+ */
+final class RecurrenceCalculator {
+
+    // nextOccurrenceDay of a paused or finished series: never due
+    static final long NEVER = Long.MAX_VALUE;
+
+    private RecurrenceCalculator() {
+    }
+
+    static boolean isTemplate(Task task) {
+        return task.isRecurring() && (task.getParentTaskId() == null || task.getParentTaskId().isEmpty());
+    }
+
+    // First scheduled day on or after fromDay, or NEVER
+    static long firstOnOrAfter(Task template, long fromDay) {
+        if (template.getTaskStatus() != TaskStatus.ACTIVE) return NEVER;
+        long anchor = anchorDay(template);
+        long period = periodDays(template);
+        long day = fromDay <= anchor
+                ? anchor
+                : anchor + Math.floorDiv(fromDay - anchor + period - 1, period) * period;
+        if (template.getEndDate() > 0 && day > DayClock.epochDay(template.getEndDate())) return NEVER;
+        return day;
+    }
+
+    // Scheduled day following a scheduled day, or NEVER
+    static long after(Task template, long scheduledDay) {
+        return firstOnOrAfter(template, scheduledDay + 1);
+    }
+
+    // Same schedule: the stored nextOccurrenceDay stays valid
+    static boolean sameSchedule(Task a, Task b) {
+        return a.getTaskStatus() == b.getTaskStatus()
+                && a.getTaskRepeatUnit() == b.getTaskRepeatUnit()
+                && periodDays(a) == periodDays(b)
+                && anchorDay(a) == anchorDay(b)
+                && a.getEndDate() == b.getEndDate();
+    }
+
+    // Due date of the template's occurrence on the day starting at dayStart
+    static long dueDateOn(Task template, long dayStart) {
+        // Preserve original (local) time-of-day from the template's dueDate
+        long timeOfDay = template.getDueDate() > 0
+                ? template.getDueDate() - DayClock.dayStart(template.getDueDate())
+                : (9L * 60 * 60 * 1000); // Default 09:00
+        return dayStart + timeOfDay;
+    }
+
+    private static long anchorDay(Task template) {
+        return DayClock.epochDay(template.getStartDate() > 0 ? template.getStartDate() : template.getCreatedAt());
+    }
+
+    private static long periodDays(Task template) {
+        int interval = Math.max(1, template.getRepeatInterval());
+        return template.getTaskRepeatUnit() == RepeatUnit.WEEK ? 7L * interval : interval;
+    }
+}
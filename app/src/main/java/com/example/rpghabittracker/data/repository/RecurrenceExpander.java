@@ -0,0 +1,114 @@
+package com.example.rpghabittracker.data.repository;
+
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.utils.DayClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Projects the future occurrences of recurring templates onto calendar days
+ * in memory, so the calendar can show a series without storing months of
+ * rows. Only days after today are projected (today and the past have real
+ * rows from occurrence generation), and days that already have a stored
+ * occurrence are skipped. Results are cached per month until the templates
+ * or the stored occurrences change; no I/O.
+ *
+ * Virtual items carry an id "virtual:<templateId>:<epochDay>"; the calendar
+ * stores them through TaskRepository.materializeOccurrence() as soon as the
+ * user completes, edits or fails one.
+ */
+public final class RecurrenceExpander {
+
+    private static final String VIRTUAL_PREFIX = "virtual:";
+
+    private List<Task> templates = Collections.emptyList();
+    // "<templateId>:<epochDay>" of every stored occurrence
+    private final Set<String> storedSlots = new HashSet<>();
+    // year * 12 + month -> virtual items per day of month
+    private final Map<Integer, Map<Integer, List<TaskListItem>>> months = new HashMap<>();
+    private long cachedToday;
+
+    public void setTemplates(List<Task> templates) {
+        this.templates = templates != null ? templates : Collections.emptyList();
+        months.clear();
+    }
+
+    public void setStoredOccurrences(List<TaskListItem> items) {
+        storedSlots.clear();
+        for (TaskListItem item : items) {
+            if (!item.isOccurrence() || item.getDueDate() <= 0) continue;
+            storedSlots.add(item.getParentTaskId() + ":" + DayClock.epochDay(item.getDueDate()));
+        }
+        months.clear();
+    }
+
+    /**
+     * Virtual occurrences of one month (month as in Calendar.MONTH, 0-based),
+     * keyed by day of month. Days without any are absent.
+     */
+    public Map<Integer, List<TaskListItem>> month(int year, int month) {
+        long today = DayClock.epochDay(System.currentTimeMillis());
+        if (today != cachedToday) {
+            months.clear();
+            cachedToday = today;
+        }
+        int key = year * 12 + month;
+        Map<Integer, List<TaskListItem>> days = months.get(key);
+        if (days == null) {
+            days = expand(year, month, today);
+            months.put(key, days);
+        }
+        return days;
+    }
+
+    public static boolean isVirtual(String taskId) {
+        return taskId != null && taskId.startsWith(VIRTUAL_PREFIX);
+    }
+
+    public static String templateIdOf(String virtualId) {
+        return virtualId.substring(VIRTUAL_PREFIX.length(), virtualId.lastIndexOf(':'));
+    }
+
+    public static long epochDayOf(String virtualId) {
+        return Long.parseLong(virtualId.substring(virtualId.lastIndexOf(':') + 1));
+    }
+
+    // O(templates x days in the month)
+    private Map<Integer, List<TaskListItem>> expand(int year, int month, long today) {
+        long firstDay = DayClock.epochDay(year, month + 1, 1);
+        long endDay = firstDay + DayClock.lengthOfMonth(year, month + 1);
+        long fromDay = Math.max(firstDay, today + 1);
+        if (fromDay >= endDay) return Collections.emptyMap();
+
+        Map<Integer, List<TaskListItem>> days = new HashMap<>();
+        for (Task template : templates) {
+            for (long day = RecurrenceCalculator.firstOnOrAfter(template, fromDay);
+                 day < endDay; day = RecurrenceCalculator.after(template, day)) {
+                if (storedSlots.contains(template.getId() + ":" + day)) continue;
+
+                int dayOfMonth = (int) (day - firstDay) + 1;
+                List<TaskListItem> items = days.get(dayOfMonth);
+                if (items == null) {
+                    items = new ArrayList<>();
+                    days.put(dayOfMonth, items);
+                }
+                items.add(virtualItem(template, day));
+            }
+        }
+        return days;
+    }
+
+    private static TaskListItem virtualItem(Task template, long epochDay) {
+        return TaskListItem.of(template).asOccurrence(
+                VIRTUAL_PREFIX + template.getId() + ":" + epochDay,
+                template.getId(),
+                RecurrenceCalculator.dueDateOn(template, DayClock.startOfDay(epochDay)));
+    }
+}
@@ -1,25 +1,46 @@
 package com.example.rpghabittracker.data.repository;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
 import com.example.rpghabittracker.data.local.AppDatabase;
+import com.example.rpghabittracker.data.local.DatabaseExecutors;
+import com.example.rpghabittracker.data.local.TaskStatsWriter;
 import com.example.rpghabittracker.data.local.dao.TaskDao;
+import com.example.rpghabittracker.data.local.dao.TaskDayStatsDao;
+import com.example.rpghabittracker.data.local.dao.UserDao;
 import com.example.rpghabittracker.data.model.Task;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-
-import java.util.Calendar;
+import com.example.rpghabittracker.data.model.TaskDayStats;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskFts;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
+import com.example.rpghabittracker.utils.DayClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Repository for Task data operations
@@ -29,11 +50,25 @@ public class TaskRepository {
 
     private static final String TAG = "TaskRepository";
     private static final String COLLECTION_TASKS = "tasks";
+    private static final String COLLECTION_USERS = "users";
+
+    // SQLite bound-variable limit is 999
+    private static final int SQL_VARIABLE_CHUNK = 900;
 
+    private final AppDatabase db;
     private final TaskDao taskDao;
-    private final FirebaseFirestore firestore;
-    private final ExecutorService executor;
-    private ListenerRegistration tasksListener;
+    private final UserDao userDao;
+    private final TaskDayStatsDao statsDao;
+    private final TaskStatsWriter statsWriter;
+    // Kept next to statsWriter on every task write; answers checkQuota without queries
+    private final QuotaLedger quotaLedger = new QuotaLedger();
+    private final RemoteStore remote;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService readExecutor;
+    private final DeltaSync taskSync;
+    private final Outbox outbox;
+    private final FieldClocks clocks;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     // Quota limits per day
     public static final int QUOTA_VERY_EASY_NORMAL = 5;
@@ -42,45 +77,143 @@ public class TaskRepository {
     public static final int QUOTA_EXTREME_PER_WEEK = 1;
     public static final int QUOTA_SPECIAL_PER_MONTH = 1;
 
-    public TaskRepository(Application application) {
-        AppDatabase db = AppDatabase.getInstance(application);
-        taskDao = db.taskDao();
-        firestore = FirebaseFirestore.getInstance();
-        executor = Executors.newSingleThreadExecutor();
-    }
+    private static volatile TaskRepository INSTANCE;
 
-    // Start listening to Firestore changes for a user
-    public void startListeningToTasks(String userId) {
-        if (tasksListener != null) {
-            tasksListener.remove();
+    // One instance per process, shared by every ViewModel
+    public static TaskRepository getInstance(Application application) {
+        if (INSTANCE == null) {
+            synchronized (TaskRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TaskRepository(application);
+                }
+            }
         }
+        return INSTANCE;
+    }
+
+    private TaskRepository(Application application) {
+        db = AppDatabase.getInstance(application);
+        taskDao = db.taskDao();
+        userDao = db.userDao();
+        statsDao = db.taskDayStatsDao();
+        statsWriter = new TaskStatsWriter(statsDao);
+        remote = RemoteStores.forCaller(TAG);
+        writeExecutor = DatabaseExecutors.writer();
+        readExecutor = DatabaseExecutors.reader();
+        outbox = Outbox.getInstance(application);
+        clocks = new FieldClocks(db.fieldClockDao());
+        taskSync = new DeltaSync(remote, db.syncStateDao(), outbox, writeExecutor, COLLECTION_TASKS,
+                new DeltaSync.Sink() {
+                    @Override
+                    public Set<String> localIds(String userId) {
+                        return new HashSet<>(taskDao.getUserTaskIdsSync(userId));
+                    }
 
-        tasksListener = firestore.collection(COLLECTION_TASKS)
-                .whereEqualTo("userId", userId)
-                .addSnapshotListener((snapshots, error) -> {
-                    if (error != null) {
-                        Log.e(TAG, "Firestore listen error", error);
-                        return;
+                    @Override
+                    public void apply(List<RemoteDocument> changed, Set<String> removedIds) {
+                        applyRemoteChanges(changed, removedIds);
                     }
 
-                    if (snapshots != null) {
-                        executor.execute(() -> {
-                            for (QueryDocumentSnapshot doc : snapshots) {
-                                Task task = documentToTask(doc);
-                                if (task != null) {
-                                    taskDao.insert(task);
-                                }
-                            }
-                        });
+                    @Override
+                    public boolean mergesFields() {
+                        return true;
                     }
                 });
     }
 
-    public void stopListening() {
-        if (tasksListener != null) {
-            tasksListener.remove();
-            tasksListener = null;
+    // Start listening to Firestore changes for a user (only documents changed
+    // since the stored watermark, see DeltaSync). The listener is shared and
+    // reference counted: balance every call with stopListening()
+    public void startListeningToTasks(String userId) {
+        hydrateQuotaLedger(userId);
+        taskSync.acquire(userId);
+    }
+
+    // Applies only the documents that changed since the previous snapshot, in one
+    // transaction. Each document is merged per field with the local row (fields
+    // written here later than the remote copy are kept, see FieldMerge), and
+    // rows whose merged content already matches (first attach, echoes of our
+    // own writes) are skipped without touching the table. A document that lost
+    // fields to the local row is older than what this device knows: the merged
+    // state is queued back to the server.
+    private void applyRemoteChanges(List<RemoteDocument> changed, Set<String> removedIds) {
+        Map<String, Task> upserts = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> remoteClocks = new HashMap<>();
+        for (RemoteDocument doc : changed) {
+            Task task = documentToTask(doc);
+            if (task == null) continue;
+            upserts.put(task.getId(), task);
+            remoteClocks.put(task.getId(), FieldMerge.clocksOf(doc.getData()));
         }
+        Set<String> removed = new LinkedHashSet<>(removedIds);
+        removed.removeAll(upserts.keySet());
+        if (upserts.isEmpty() && removed.isEmpty()) return;
+
+        List<String> changedIds = db.runInTransaction(() -> {
+            List<String> ids = new ArrayList<>(upserts.keySet());
+            ids.addAll(removed);
+            Map<String, Task> local = new HashMap<>();
+            for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+                for (Task task : taskDao.getTasksByIdsSync(ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size())))) {
+                    local.put(task.getId(), task);
+                }
+            }
+            Map<String, Map<String, Long>> localClocks = clocks.load(COLLECTION_TASKS, upserts.keySet());
+
+            List<String> applied = new ArrayList<>();
+            List<Task> toWrite = new ArrayList<>();
+            List<Task> toRepair = new ArrayList<>();
+            for (Task incoming : upserts.values()) {
+                Task before = local.get(incoming.getId());
+                Map<String, Object> beforeData = before != null ? taskToMap(before) : null;
+                FieldMerge.Result merged = FieldMerge.merge(beforeData, localClocks.get(incoming.getId()),
+                        taskToMap(incoming), remoteClocks.get(incoming.getId()), false);
+                clocks.save(COLLECTION_TASKS, incoming.getId(), merged.clocks);
+                if (before != null && !merged.incomingWon) {
+                    // Nothing new here, but the server copy may be behind the local row
+                    if (merged.currentWon) toRepair.add(before);
+                    continue;
+                }
+
+                Task remote = merged.currentWon
+                        ? TaskWireFormat.decode(new RemoteDocument(incoming.getId(), merged.values, false))
+                        : incoming;
+                inheritRecurrence(remote, before, upserts);
+                scheduleNextOccurrence(remote, before);
+                statsWriter.replace(before, remote);
+                quotaLedger.replace(before, remote);
+                toWrite.add(remote);
+                applied.add(remote.getId());
+                if (merged.currentWon) toRepair.add(remote);
+            }
+            if (!toWrite.isEmpty()) taskDao.insertAll(toWrite);
+            for (Task task : toRepair) {
+                enqueueTaskDocument(task);
+            }
+
+            List<String> toDelete = new ArrayList<>();
+            for (String taskId : removed) {
+                Task before = local.get(taskId);
+                if (before == null) continue;
+                statsWriter.remove(before);
+                quotaLedger.remove(before);
+                toDelete.add(taskId);
+            }
+            for (int from = 0; from < toDelete.size(); from += SQL_VARIABLE_CHUNK) {
+                taskDao.deleteByIds(toDelete.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, toDelete.size())));
+            }
+            clocks.remove(COLLECTION_TASKS, toDelete);
+            applied.addAll(toDelete);
+            return applied;
+        });
+
+        if (changedIds.isEmpty()) return;
+        Log.d(TAG, "Applied " + changedIds.size() + " of " + (upserts.size() + removed.size()) + " remote task changes");
+        TaskSnapshotStore.onTasksChanged(changedIds);
+    }
+
+    public void stopListening() {
+        taskSync.release();
     }
 
     // Basic CRUD with Firebase sync
@@ -89,291 +222,434 @@ public class TaskRepository {
             task.setId(UUID.randomUUID().toString());
         }
 
-        executor.execute(() -> {
-            taskDao.insert(task);
-            syncTaskToFirestore(task);
+        writeExecutor.execute(() -> {
+            db.runInTransaction(() -> {
+                Task before = putTaskLocal(task);
+                syncTaskToFirestore(before, task);
+            });
+            TaskSnapshotStore.onTaskChanged(task.getId());
         });
     }
 
     public void update(Task task) {
-        executor.execute(() -> {
-            taskDao.update(task);
-            syncTaskToFirestore(task);
+        writeExecutor.execute(() -> {
+            db.runInTransaction(() -> {
+                Task before = taskDao.getTaskByIdSync(task.getId());
+                scheduleNextOccurrence(task, before);
+                if (before != null) {
+                    statsWriter.replace(before, task);
+                    quotaLedger.replace(before, task);
+                }
+                taskDao.update(task);
+                syncTaskToFirestore(before, task);
+            });
+            TaskSnapshotStore.onTaskChanged(task.getId());
         });
     }
 
     public void delete(Task task) {
-        executor.execute(() -> {
-            taskDao.delete(task);
-            deleteFromFirestore(task.getId());
-        });
+        deleteById(task.getId());
     }
 
-    // Sync task to Firestore
-    private void syncTaskToFirestore(Task task) {
-        Map<String, Object> taskData = taskToMap(task);
-
-        firestore.collection(COLLECTION_TASKS)
-                .document(task.getId())
-                .set(taskData)
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Task synced to Firestore: " + task.getId()))
-                .addOnFailureListener(e -> Log.e(TAG, "Error syncing task to Firestore", e));
+    public void deleteById(String taskId) {
+        writeExecutor.execute(() -> {
+            db.runInTransaction(() -> {
+                Task deleted = deleteTaskLocal(taskId);
+                deleteFromFirestore(taskId, deleted != null ? deleted.getUserId() : null);
+            });
+            TaskSnapshotStore.onTaskChanged(taskId);
+        });
     }
 
-    private void deleteFromFirestore(String taskId) {
-        firestore.collection(COLLECTION_TASKS)
-                .document(taskId)
-                .delete()
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Task deleted from Firestore: " + taskId))
-                .addOnFailureListener(e -> Log.e(TAG, "Error deleting task from Firestore", e));
+    // ──────────────────────────────────────────────────────────────────────────
+    // Local writes: every tasks row change also updates task_day_stats.
+    // Callers run them in one Room transaction with the matching outbox
+    // entry, so a killed process keeps both or neither, and report the ids
+    // to the in-memory TaskSnapshotStore once it has committed.
+    // ──────────────────────────────────────────────────────────────────────────
+    // Returns the replaced row, or null for a new task
+    private Task putTaskLocal(Task task) {
+        Task before = taskDao.getTaskByIdSync(task.getId());
+        scheduleNextOccurrence(task, before);
+        statsWriter.replace(before, task);
+        quotaLedger.replace(before, task);
+        taskDao.insert(task);
+        return before;
+    }
+
+    // A template written as a whole row keeps its nextOccurrenceDay; a new
+    // template or a changed schedule starts again from today (no backfill)
+    private void scheduleNextOccurrence(Task task, Task before) {
+        if (!RecurrenceCalculator.isTemplate(task)) {
+            task.setNextOccurrenceDay(null);
+        } else if (before != null && before.getNextOccurrenceDay() != null
+                && RecurrenceCalculator.sameSchedule(before, task)) {
+            task.setNextOccurrenceDay(before.getNextOccurrenceDay());
+        } else {
+            long today = DayClock.epochDay(System.currentTimeMillis());
+            task.setNextOccurrenceDay(RecurrenceCalculator.firstOnOrAfter(task, today));
+        }
     }
 
-    // Convert Task to Map for Firestore
-    private Map<String, Object> taskToMap(Task task) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", task.getId());
-        map.put("userId", task.getUserId());
-        map.put("name", task.getName());
-        map.put("description", task.getDescription());
-        map.put("categoryId", task.getCategoryId());
-        map.put("difficulty", task.getDifficulty());
-        map.put("importance", task.getImportance());
-        map.put("difficultyXp", task.getDifficultyXp());
-        map.put("importanceXp", task.getImportanceXp());
-        map.put("totalXp", task.getTotalXp());
-        map.put("status", task.getStatus());
-        map.put("isRecurring", task.isRecurring());
-        map.put("parentTaskId", task.getParentTaskId());
-        map.put("repeatInterval", task.getRepeatInterval());
-        map.put("repeatUnit", task.getRepeatUnit());
-        map.put("startDate", task.getStartDate());
-        map.put("dueDate", task.getDueDate());
-        map.put("endDate", task.getEndDate());
-        map.put("createdAt", task.getCreatedAt());
-        map.put("completedDate", task.getCompletedDate());
-        map.put("userLevelAtCreation", task.getUserLevelAtCreation());
-        return map;
-    }
-
-    // Convert Firestore document to Task
-    private Task documentToTask(DocumentSnapshot doc) {
-        try {
-            Task task = new Task();
-            String taskId = doc.getString("id");
-            if (taskId == null || taskId.trim().isEmpty()) {
-                taskId = doc.getId();
-            }
-            task.setId(taskId);
-            task.setUserId(doc.getString("userId"));
-            task.setName(doc.getString("name"));
-            task.setDescription(doc.getString("description"));
-            task.setCategoryId(doc.getString("categoryId"));
-
-            Long userLevel = doc.getLong("userLevelAtCreation");
-            task.setUserLevelAtCreation(userLevel != null ? userLevel.intValue() : 1);
-
-            task.setDifficulty(doc.getString("difficulty"));
-            task.setImportance(doc.getString("importance"));
-
-            Long diffXp = doc.getLong("difficultyXp");
-            if (diffXp != null) task.setDifficultyXp(diffXp.intValue());
-
-            Long impXp = doc.getLong("importanceXp");
-            if (impXp != null) task.setImportanceXp(impXp.intValue());
-
-            Long totalXp = doc.getLong("totalXp");
-            if (totalXp != null) {
-                task.setTotalXp(totalXp.intValue());
-            } else {
-                task.setTotalXp(task.getDifficultyXp() + task.getImportanceXp());
-            }
-
-            task.setStatus(doc.getString("status"));
-
-            Boolean isRecurring = doc.getBoolean("isRecurring");
-            task.setRecurring(isRecurring != null && isRecurring);
+    // Returns the deleted row, or null if it was not stored locally
+    private Task deleteTaskLocal(String taskId) {
+        Task before = taskDao.getTaskByIdSync(taskId);
+        taskDao.deleteById(taskId);
+        clocks.remove(COLLECTION_TASKS, Collections.singletonList(taskId));
+        if (before != null) {
+            statsWriter.remove(before);
+            quotaLedger.remove(before);
+        }
+        return before;
+    }
+
+    private void updateStatusLocal(String taskId, TaskStatus status) {
+        Task before = taskDao.getTaskByIdSync(taskId);
+        taskDao.updateStatus(taskId, status);
+        if (before == null) return;
+        Task after = taskDao.getTaskByIdSync(taskId);
+        statsWriter.replace(before, after);
+        quotaLedger.replace(before, after);
+        if (RecurrenceCalculator.isTemplate(after)) {
+            // Pausing parks the series, resuming restarts it from today
+            scheduleNextOccurrence(after, before);
+            taskDao.setNextOccurrenceDay(taskId, after.getNextOccurrenceDay());
+        }
+    }
 
-            task.setParentTaskId(doc.getString("parentTaskId"));
+    private void markCompleteLocal(String taskId, long completedAt) {
+        Task before = taskDao.getTaskByIdSync(taskId);
+        taskDao.markComplete(taskId, TaskStatus.COMPLETED, completedAt);
+        if (before == null) return;
+        Task after = taskDao.getTaskByIdSync(taskId);
+        statsWriter.replace(before, after);
+        quotaLedger.replace(before, after);
+    }
 
-            Long repeatInterval = doc.getLong("repeatInterval");
-            if (repeatInterval != null) task.setRepeatInterval(repeatInterval.intValue());
+    // Status change with its outbox entry (writer thread)
+    private void setStatus(String taskId, TaskStatus status) {
+        db.runInTransaction(() -> {
+            updateStatusLocal(taskId, status);
+            updateStatusInFirestore(taskId, status);
+        });
+        TaskSnapshotStore.onTaskChanged(taskId);
+    }
 
-            task.setRepeatUnit(doc.getString("repeatUnit"));
+    // Remote writes go through the outbox (writer thread); it batches and retries them.
+    // Fields that differ from the replaced row get a new clock stamp; the
+    // document carries every stamp known for it
+    private void syncTaskToFirestore(Task before, Task task) {
+        Set<String> changed = FieldMerge.changedFields(before != null ? taskToMap(before) : null, taskToMap(task));
+        db.runInTransaction(() -> {
+            clocks.stamp(COLLECTION_TASKS, task.getId(), changed);
+            enqueueTaskDocument(task);
+        });
+    }
 
-            Long startDate = doc.getLong("startDate");
-            if (startDate != null) task.setStartDate(startDate);
+    // Whole document with every stamp known for it (inside the caller's transaction)
+    private void enqueueTaskDocument(Task task) {
+        Map<String, Object> taskData = taskToMap(task);
+        taskData.put(FieldMerge.FIELD_CLOCKS, clocks.load(COLLECTION_TASKS, task.getId()));
+        taskData.put(DeltaSync.FIELD_LAST_UPDATED, Outbox.SERVER_TIMESTAMP);
+        outbox.set(COLLECTION_TASKS, task.getId(), taskData);
+    }
 
-            Long dueDate = doc.getLong("dueDate");
-            if (dueDate != null) task.setDueDate(dueDate);
+    // Partial update: every given field is stamped
+    private void updateTaskInFirestore(String taskId, Map<String, Object> updates) {
+        db.runInTransaction(() -> {
+            updates.put(FieldMerge.FIELD_CLOCKS, clocks.stamp(COLLECTION_TASKS, taskId, updates.keySet()));
+            updates.put(DeltaSync.FIELD_LAST_UPDATED, Outbox.SERVER_TIMESTAMP);
+            outbox.merge(COLLECTION_TASKS, taskId, updates);
+        });
+    }
 
-            Long endDate = doc.getLong("endDate");
-            if (endDate != null) task.setEndDate(endDate);
+    private void updateStatusInFirestore(String taskId, TaskStatus status) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(TaskWireFormat.FIELD_STATUS, status.name());
+        updateTaskInFirestore(taskId, updates);
+    }
 
-            Long createdAt = doc.getLong("createdAt");
-            if (createdAt != null) task.setCreatedAt(createdAt);
+    // Deletes the document and leaves a tombstone for delta sync on other devices
+    private void deleteFromFirestore(String taskId, String userId) {
+        outbox.delete(COLLECTION_TASKS, taskId, userId);
+    }
 
-            Long completedDate = doc.getLong("completedDate");
-            if (completedDate != null) task.setCompletedDate(completedDate);
+    // Compact v2 document; see TaskWireFormat
+    private Map<String, Object> taskToMap(Task task) {
+        return TaskWireFormat.encode(task);
+    }
 
-            return task;
+    // Convert Firestore document to Task (v1 and v2 documents)
+    private Task documentToTask(RemoteDocument doc) {
+        try {
+            return TaskWireFormat.decode(doc);
         } catch (Exception e) {
             Log.e(TAG, "Error converting document to Task", e);
             return null;
         }
     }
 
+    // v2 occurrence documents carry no recurrence: keep the local row's, or
+    // take the template's. Runs inside the apply transaction.
+    private void inheritRecurrence(Task remote, Task before, Map<String, Task> upserts) {
+        String parentId = remote.getParentTaskId();
+        if (parentId == null || parentId.isEmpty() || remote.getTaskRepeatUnit() != null) return;
+        Task source = before;
+        if (source == null || source.getTaskRepeatUnit() == null) {
+            source = upserts.containsKey(parentId) ? upserts.get(parentId) : taskDao.getTaskByIdSync(parentId);
+        }
+        if (source != null) TaskWireFormat.inheritRecurrence(remote, source);
+    }
+
     // Get tasks
     public LiveData<Task> getTaskById(String taskId) {
         return taskDao.getTaskById(taskId);
     }
 
     public void getTaskByIdSync(String taskId, TaskCallback callback) {
-        executor.execute(() -> callback.onResult(taskDao.getTaskByIdSync(taskId)));
-    }
-
-    public LiveData<List<Task>> getUserTasks(String userId) {
-        return taskDao.getUserTasks(userId);
+        readExecutor.execute(() -> callback.onResult(taskDao.getTaskByIdSync(taskId)));
     }
 
-    public LiveData<List<Task>> getTasksByStatus(String userId, String status) {
-        return taskDao.getTasksByStatus(userId, status);
+    // List views are derived from the shared in-memory snapshot, not separate Room queries
+    public LiveData<List<TaskListItem>> getUserTaskListItems(String userId) {
+        return snapshotStore(userId).getAllItems();
     }
 
-    public LiveData<List<Task>> getTodayTasks(String userId) {
-        long[] dayBounds = getDayBounds(System.currentTimeMillis());
-        return taskDao.getTodayTasks(userId, dayBounds[0], dayBounds[1]);
+    public LiveData<List<Task>> getRecurringTemplates(String userId) {
+        return snapshotStore(userId).getRecurringTemplates();
     }
 
-    public LiveData<List<Task>> getOneTimeTasks(String userId) {
-        return taskDao.getOneTimeTasks(userId);
+    public LiveData<List<Task>> getTasksByCategory(String userId, String categoryId) {
+        return taskDao.getTasksByCategory(userId, categoryId);
     }
 
-    public LiveData<List<Task>> getRecurringTemplates(String userId) {
-        return taskDao.getRecurringTemplates(userId);
+    private TaskSnapshotStore snapshotStore(String userId) {
+        return TaskSnapshotStore.forUser(taskDao, userId);
     }
 
-    public LiveData<List<Task>> getRecurringOccurrences(String userId) {
-        return taskDao.getRecurringOccurrences(userId);
+    // Pre-aggregated statistics
+    public LiveData<List<TaskDayStats.DayTotals>> getDayStats(String userId) {
+        return statsDao.getDayTotals(userId);
     }
 
-    public LiveData<List<Task>> getTasksByCategory(String userId, String categoryId) {
-        return taskDao.getTasksByCategory(userId, categoryId);
+    public LiveData<List<TaskDayStats.CategoryTotals>> getCategoryStats(String userId) {
+        return statsDao.getCategoryTotals(userId);
     }
 
-    public LiveData<List<Task>> getCompletedTasks(String userId) {
-        return taskDao.getCompletedTasks(userId);
+    // Full-text search: ids of matching tasks, best match first (null for an empty query)
+    public LiveData<List<String>> searchTaskIds(String userId, String query) {
+        String matchQuery = TaskFts.toMatchQuery(query);
+        if (matchQuery == null) return new MutableLiveData<>(null);
+        return Transformations.map(taskDao.search(userId, matchQuery), hits -> {
+            List<TaskFts.SearchHit> ranked = new ArrayList<>(hits);
+            Map<String, Double> scores = new HashMap<>();
+            for (TaskFts.SearchHit hit : ranked) {
+                scores.put(hit.id, hit.score());
+            }
+            Collections.sort(ranked, (a, b) -> Double.compare(scores.get(b.id), scores.get(a.id)));
+            List<String> ids = new ArrayList<>(ranked.size());
+            for (TaskFts.SearchHit hit : ranked) {
+                ids.add(hit.id);
+            }
+            return ids;
+        });
     }
 
     // Mark task complete
     public void markTaskComplete(String taskId, Runnable onSuccess) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             long completedAt = System.currentTimeMillis();
-            taskDao.markComplete(taskId, Task.STATUS_COMPLETED, completedAt);
-
             Map<String, Object> updates = new HashMap<>();
-            updates.put("status", Task.STATUS_COMPLETED);
-            updates.put("completedDate", completedAt);
-
-            firestore.collection(COLLECTION_TASKS)
-                    .document(taskId)
-                    .update(updates)
-                    .addOnSuccessListener(aVoid -> {
-                        if (onSuccess != null) onSuccess.run();
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error updating task status in Firestore", e);
-                        if (onSuccess != null) onSuccess.run();
-                    });
+            updates.put(TaskWireFormat.FIELD_STATUS, Task.STATUS_COMPLETED);
+            updates.put(TaskWireFormat.FIELD_COMPLETED_DATE, completedAt);
+            db.runInTransaction(() -> {
+                markCompleteLocal(taskId, completedAt);
+                updateTaskInFirestore(taskId, updates);
+            });
+            TaskSnapshotStore.onTaskChanged(taskId);
+
+            // Local write is done and the remote one is queued
+            if (onSuccess != null) mainHandler.post(onSuccess);
         });
     }
 
     // Update status
     public void updateTaskStatus(String taskId, String status) {
-        executor.execute(() -> {
-            taskDao.updateStatus(taskId, status);
-
-            firestore.collection(COLLECTION_TASKS)
-                    .document(taskId)
-                    .update("status", status)
-                    .addOnFailureListener(e -> Log.e(TAG, "Error updating status in Firestore", e));
-        });
+        TaskStatus value = TaskStatus.fromName(status);
+        writeExecutor.execute(() -> setStatus(taskId, value));
     }
 
     // Pause all future active occurrences for a series AND the template
     public void pauseRecurringSeries(String templateId) {
-        executor.execute(() -> {
-            taskDao.updateStatus(templateId, Task.STATUS_PAUSED);
-            firestore.collection(COLLECTION_TASKS)
-                    .document(templateId)
-                    .update("status", Task.STATUS_PAUSED)
-                    .addOnFailureListener(e -> Log.e(TAG, "Error pausing series in Firestore", e));
-        });
+        writeExecutor.execute(() -> setStatus(templateId, TaskStatus.PAUSED));
     }
 
     // Resume a paused series template
     public void resumeRecurringSeries(String templateId) {
-        executor.execute(() -> {
-            taskDao.updateStatus(templateId, Task.STATUS_ACTIVE);
-            firestore.collection(COLLECTION_TASKS)
-                    .document(templateId)
-                    .update("status", Task.STATUS_ACTIVE)
-                    .addOnFailureListener(e -> Log.e(TAG, "Error resuming series in Firestore", e));
-        });
+        writeExecutor.execute(() -> setStatus(templateId, TaskStatus.ACTIVE));
     }
 
     // Delete entire series: template + all future active occurrences
     public void deleteRecurringSeries(String templateId) {
-        executor.execute(() -> {
-            taskDao.deleteFutureOccurrences(templateId);
-            taskDao.deleteById(templateId);
-            // Delete from Firestore
-            deleteFromFirestore(templateId);
-            firestore.collection(COLLECTION_TASKS)
-                    .whereEqualTo("parentTaskId", templateId)
-                    .whereEqualTo("status", Task.STATUS_ACTIVE)
-                    .get()
-                    .addOnSuccessListener(snapshots -> {
-                        for (QueryDocumentSnapshot doc : snapshots) {
-                            doc.getReference().delete();
+        writeExecutor.execute(() -> {
+            List<String> occurrenceIds = db.runInTransaction(() -> {
+                List<String> ids = new ArrayList<>();
+                for (Task occurrence : taskDao.getFutureOccurrencesSync(templateId)) {
+                    statsWriter.remove(occurrence);
+                    quotaLedger.remove(occurrence);
+                    ids.add(occurrence.getId());
+                }
+                taskDao.deleteFutureOccurrences(templateId);
+                clocks.remove(COLLECTION_TASKS, ids);
+                Task template = deleteTaskLocal(templateId);
+                // Delete from Firestore
+                String userId = template != null ? template.getUserId() : null;
+                deleteFromFirestore(templateId, userId);
+                for (String occurrenceId : ids) {
+                    deleteFromFirestore(occurrenceId, userId);
+                }
+                return ids;
+            });
+            TaskSnapshotStore.onTasksChanged(occurrenceIds);
+            TaskSnapshotStore.onTaskChanged(templateId);
+            // Occurrences created on another device and not synced here yet
+            remote.query(RemoteQuery.on(COLLECTION_TASKS)
+                            .whereEqualTo("parentTaskId", templateId)
+                            .whereEqualTo("status", Task.STATUS_ACTIVE))
+                    .addOnSuccessListener(documents -> writeExecutor.execute(() -> {
+                        for (RemoteDocument doc : documents) {
+                            if (!occurrenceIds.contains(doc.getId())) {
+                                deleteFromFirestore(doc.getId(), doc.getString("userId"));
+                            }
                         }
-                    });
+                    }));
         });
     }
 
     // ──────────────────────────────────────────────────────────────────────────
-    // Generate today's occurrence for every active recurring template
+    // Occurrence generation: every template stores its next scheduled day
+    // (nextOccurrenceDay, see RecurrenceCalculator), so a run only reads the
+    // templates that are due and generates every scheduled day up to today,
+    // including days the app was not opened. Afterwards the template points
+    // at its first day after today.
     // ──────────────────────────────────────────────────────────────────────────
-    public void generateTodayOccurrences(String userId) {
-        executor.execute(() -> {
-            long[] dayBounds = getDayBounds(System.currentTimeMillis());
-            long dayStart = dayBounds[0];
-            long dayEnd = dayBounds[1];
 
-            List<Task> templates = taskDao.getRecurringTemplatesSync(userId);
+    // Occurrences and one-time tasks fail this long after their due date
+    // (processExpiredTasks); missed days older than that are not backfilled,
+    // they would only be failed on the spot
+    private static final long EXPIRY_WINDOW_MS = 3L * 24 * 60 * 60 * 1000;
 
-            for (Task template : templates) {
-                // Only generate for active templates
-                if (!Task.STATUS_ACTIVE.equals(template.getStatus())) continue;
-
-                // Check overall date range
-                if (template.getStartDate() > 0) {
-                    long[] startDay = getDayBounds(template.getStartDate());
-                    if (dayStart < startDay[0]) continue; // Not started yet
-                }
-                if (template.getEndDate() > 0 && dayStart > template.getEndDate()) continue;
+    /**
+     * Generates the occurrences of all due templates, up to today, in one Room
+     * transaction with one existence query for the whole range. The Firestore
+     * writes go through the outbox, which sends them in chunked batches. The
+     * future completes once everything is stored and queued.
+     */
+    public Future<?> generateMissedOccurrences(String userId) {
+        return writeExecutor.submit(() -> {
+            List<String> generatedIds = db.runInTransaction(() -> generateMissedOccurrencesLocked(userId));
+            if (generatedIds.isEmpty()) return;
+            TaskSnapshotStore.onTasksChanged(generatedIds);
+            Log.d(TAG, "Generated " + generatedIds.size() + " occurrences");
+        });
+    }
 
-                // Check if today falls on the recurrence schedule
-                if (!shouldHaveOccurrenceToday(template, dayStart)) continue;
+    // Runs inside the Room transaction
+    private List<String> generateMissedOccurrencesLocked(String userId) {
+        long now = System.currentTimeMillis();
+        long today = DayClock.epochDay(now);
+        long expiryCutoff = now - EXPIRY_WINDOW_MS;
+        long windowStart = DayClock.epochDay(expiryCutoff);
+
+        // Scheduled days (local epoch days) of each due template
+        List<Task> templates = new ArrayList<>();
+        List<List<Long>> scheduledDays = new ArrayList<>();
+        long rangeStart = today;
+        for (Task template : taskDao.getDueTemplatesSync(userId, today)) {
+            long stored = template.getNextOccurrenceDay();
+            // 0: migrated without a generation cursor, start from today
+            long fromDay = stored == 0 ? today : Math.max(stored, windowStart);
+            List<Long> days = new ArrayList<>();
+            long day = RecurrenceCalculator.firstOnOrAfter(template, fromDay);
+            for (; day <= today; day = RecurrenceCalculator.after(template, day)) {
+                days.add(day);
+            }
+            taskDao.setNextOccurrenceDay(template.getId(), day);
+            if (days.isEmpty()) continue;
+            templates.add(template);
+            scheduledDays.add(days);
+            rangeStart = Math.min(rangeStart, days.get(0));
+        }
+        if (templates.isEmpty()) return Collections.emptyList();
+
+        // One existence query for the whole range: due dates per template
+        Map<String, TreeSet<Long>> existing = new HashMap<>();
+        long rangeFrom = DayClock.startOfDay(rangeStart);
+        long rangeTo = DayClock.startOfDay(today + 1);
+        for (Task.OccurrenceSlot slot : taskDao.getOccurrenceSlotsSync(userId, rangeFrom, rangeTo)) {
+            TreeSet<Long> dueDates = existing.get(slot.parentTaskId);
+            if (dueDates == null) {
+                dueDates = new TreeSet<>();
+                existing.put(slot.parentTaskId, dueDates);
+            }
+            dueDates.add(slot.dueDate);
+        }
 
-                // Skip if an occurrence already exists today
-                if (taskDao.getTodayOccurrenceSync(template.getId(), dayStart, dayEnd) != null) continue;
+        List<Task> occurrences = new ArrayList<>();
+        for (int i = 0; i < templates.size(); i++) {
+            Task template = templates.get(i);
+            TreeSet<Long> dueDates = existing.get(template.getId());
+            for (long day : scheduledDays.get(i)) {
+                long dayStart = DayClock.startOfDay(day);
+                long dayEnd = DayClock.startOfDay(day + 1);
+                Long due = dueDates != null ? dueDates.ceiling(dayStart) : null;
+                if (due != null && due < dayEnd) continue; // Already exists that day
 
-                // Create and persist the occurrence
                 Task occurrence = buildOccurrence(template, dayStart);
-                taskDao.insert(occurrence);
-                syncTaskToFirestore(occurrence);
-                Log.d(TAG, "Generated occurrence for template " + template.getId() + " on day " + dayStart);
+                if (occurrence.getDueDate() < expiryCutoff) continue; // Already expired
+                occurrences.add(occurrence);
+            }
+        }
+
+        List<String> generatedIds = new ArrayList<>(occurrences.size());
+        if (!occurrences.isEmpty()) {
+            for (Task occurrence : occurrences) {
+                statsWriter.add(occurrence);
             }
+            taskDao.insertAll(occurrences);
+            for (Task occurrence : occurrences) {
+                syncTaskToFirestore(null, occurrence);
+                generatedIds.add(occurrence.getId());
+            }
+        }
+        return generatedIds;
+    }
+
+    /**
+     * Stores a template's occurrence for one local epoch day, as soon as the
+     * user acts on a virtual calendar occurrence (see RecurrenceExpander).
+     * A row already stored for that day is reused; generation skips the day
+     * later on. The callback runs on the main thread, with null if the
+     * template no longer exists.
+     */
+    public void materializeOccurrence(String templateId, long epochDay, TaskCallback callback) {
+        writeExecutor.execute(() -> {
+            long dayStart = DayClock.startOfDay(epochDay);
+            long dayEnd = DayClock.startOfDay(epochDay + 1);
+            Task occurrence = db.runInTransaction(() -> {
+                Task existing = taskDao.getOccurrenceSync(templateId, dayStart, dayEnd);
+                if (existing != null) return existing;
+                Task template = taskDao.getTaskByIdSync(templateId);
+                if (template == null) return null;
+
+                Task occ = buildOccurrence(template, dayStart);
+                statsWriter.add(occ);
+                taskDao.insert(occ);
+                syncTaskToFirestore(null, occ);
+                return occ;
+            });
+            if (occurrence != null) TaskSnapshotStore.onTaskChanged(occurrence.getId());
+            mainHandler.post(() -> callback.onResult(occurrence));
         });
     }
 
@@ -383,8 +659,8 @@ public class TaskRepository {
         occ.setName(template.getName());
         occ.setDescription(template.getDescription());
         occ.setCategoryId(template.getCategoryId());
-        occ.setDifficulty(template.getDifficulty());
-        occ.setImportance(template.getImportance());
+        occ.setTaskDifficulty(template.getTaskDifficulty());
+        occ.setTaskImportance(template.getTaskImportance());
         occ.setDifficultyXp(template.getDifficultyXp());
         occ.setImportanceXp(template.getImportanceXp());
         occ.setTotalXp(template.getTotalXp());
@@ -397,39 +673,11 @@ public class TaskRepository {
         occ.setUserLevelAtCreation(template.getUserLevelAtCreation());
         occ.setCountsTowardQuota(template.isCountsTowardQuota());
 
-        // Preserve original time-of-day from the template's dueDate
-        long timeOfDay = template.getDueDate() > 0
-                ? (template.getDueDate() % (24L * 60 * 60 * 1000))
-                : (9L * 60 * 60 * 1000); // Default 09:00
-        occ.setDueDate(dayStart + timeOfDay);
+        occ.setDueDate(RecurrenceCalculator.dueDateOn(template, dayStart));
 
         return occ;
     }
 
-    /**
-     * Returns true if the given dayStart (midnight epoch) is a scheduled day
-     * for this recurring template.
-     */
-    private boolean shouldHaveOccurrenceToday(Task template, long dayStart) {
-        // Anchor to the start date (or creation date)
-        long anchor = template.getStartDate() > 0
-                ? getDayBounds(template.getStartDate())[0]
-                : getDayBounds(template.getCreatedAt())[0];
-
-        if (dayStart < anchor) return false;
-
-        int interval = Math.max(1, template.getRepeatInterval());
-        long daysDiff = (dayStart - anchor) / (24L * 60 * 60 * 1000);
-
-        if ("WEEK".equals(template.getRepeatUnit())) {
-            // Must land on the same weekday as anchor AND every N weeks
-            return (daysDiff % 7 == 0) && ((daysDiff / 7) % interval == 0);
-        } else {
-            // DAY unit: every N days
-            return daysDiff % interval == 0;
-        }
-    }
-
     // Quota checking
     public interface QuotaCallback {
         void onResult(boolean canCreate, String message);
@@ -439,58 +687,79 @@ public class TaskRepository {
         void onResult(Task task);
     }
 
+    // Answers on the calling thread once the ledger holds the user's counters;
+    // before that (first check after startup) from the writer thread after hydrating it
     public void checkQuota(String userId, String difficulty, String importance, QuotaCallback callback) {
-        executor.execute(() -> {
-            long[] dayBounds = getDayBounds(System.currentTimeMillis());
-            long dayStart = dayBounds[0];
-            long dayEnd = dayBounds[1];
+        if (quotaLedger.isHydrated(userId)) {
+            answerQuota(difficulty, importance, callback);
+            return;
+        }
+        writeExecutor.execute(() -> {
+            if (!quotaLedger.isHydrated(userId)) loadQuotaLedger(userId);
+            answerQuota(difficulty, importance, callback);
+        });
+    }
 
-            boolean canCreate = true;
-            String message = "";
+    private void answerQuota(String difficulty, String importance, QuotaCallback callback) {
+        boolean canCreate = true;
+        String message = "";
+        TaskDifficulty difficultyValue = TaskDifficulty.fromName(difficulty);
+        TaskImportance importanceValue = TaskImportance.fromName(importance);
 
-            if (Task.DIFFICULTY_VERY_EASY.equals(difficulty)) {
-                int count = taskDao.countCompletedByDifficultyToday(userId, difficulty, dayStart, dayEnd);
-                if (count >= QUOTA_VERY_EASY_NORMAL) {
-                    canCreate = false;
-                    message = "Dnevni limit za veoma lake zadatke je dostignut (max " + QUOTA_VERY_EASY_NORMAL + ")";
-                }
-            } else if (Task.DIFFICULTY_EASY.equals(difficulty)) {
-                int count = taskDao.countCompletedByDifficultyToday(userId, difficulty, dayStart, dayEnd);
-                if (count >= QUOTA_EASY_IMPORTANT) {
-                    canCreate = false;
-                    message = "Dnevni limit za lake zadatke je dostignut (max " + QUOTA_EASY_IMPORTANT + ")";
-                }
-            } else if (Task.DIFFICULTY_HARD.equals(difficulty)) {
-                int count = taskDao.countCompletedByDifficultyToday(userId, difficulty, dayStart, dayEnd);
-                if (count >= QUOTA_HARD_VERY_IMPORTANT) {
-                    canCreate = false;
-                    message = "Dnevni limit za teške zadatke je dostignut (max " + QUOTA_HARD_VERY_IMPORTANT + ")";
-                }
-            } else if (Task.DIFFICULTY_EXTREME.equals(difficulty)) {
-                long[] weekBounds = getWeekBounds(System.currentTimeMillis());
-                int count = taskDao.countCompletedByDifficultyToday(userId, difficulty, weekBounds[0], weekBounds[1]);
-                if (count >= QUOTA_EXTREME_PER_WEEK) {
-                    canCreate = false;
-                    message = "Nedeljni limit za ekstremno teške zadatke je dostignut (max " + QUOTA_EXTREME_PER_WEEK + ")";
-                }
+        if (difficultyValue == TaskDifficulty.VERY_EASY) {
+            int count = quotaLedger.count(QuotaLedger.Period.DAY, difficultyValue);
+            if (count >= QUOTA_VERY_EASY_NORMAL) {
+                canCreate = false;
+                message = "Dnevni limit za veoma lake zadatke je dostignut (max " + QUOTA_VERY_EASY_NORMAL + ")";
+            }
+        } else if (difficultyValue == TaskDifficulty.EASY) {
+            int count = quotaLedger.count(QuotaLedger.Period.DAY, difficultyValue);
+            if (count >= QUOTA_EASY_IMPORTANT) {
+                canCreate = false;
+                message = "Dnevni limit za lake zadatke je dostignut (max " + QUOTA_EASY_IMPORTANT + ")";
+            }
+        } else if (difficultyValue == TaskDifficulty.HARD) {
+            int count = quotaLedger.count(QuotaLedger.Period.DAY, difficultyValue);
+            if (count >= QUOTA_HARD_VERY_IMPORTANT) {
+                canCreate = false;
+                message = "Dnevni limit za teške zadatke je dostignut (max " + QUOTA_HARD_VERY_IMPORTANT + ")";
             }
+        } else if (difficultyValue == TaskDifficulty.EXTREME) {
+            int count = quotaLedger.count(QuotaLedger.Period.WEEK, difficultyValue);
+            if (count >= QUOTA_EXTREME_PER_WEEK) {
+                canCreate = false;
+                message = "Nedeljni limit za ekstremno teške zadatke je dostignut (max " + QUOTA_EXTREME_PER_WEEK + ")";
+            }
+        }
 
-            if (canCreate && Task.IMPORTANCE_SPECIAL.equals(importance)) {
-                long[] monthBounds = getMonthBounds(System.currentTimeMillis());
-                int count = taskDao.countCompletedByImportanceToday(userId, importance, monthBounds[0], monthBounds[1]);
-                if (count >= QUOTA_SPECIAL_PER_MONTH) {
-                    canCreate = false;
-                    message = "Mesečni limit za specijalne zadatke je dostignut (max " + QUOTA_SPECIAL_PER_MONTH + ")";
-                }
+        if (canCreate && importanceValue == TaskImportance.SPECIAL) {
+            int count = quotaLedger.count(QuotaLedger.Period.MONTH, importanceValue);
+            if (count >= QUOTA_SPECIAL_PER_MONTH) {
+                canCreate = false;
+                message = "Mesečni limit za specijalne zadatke je dostignut (max " + QUOTA_SPECIAL_PER_MONTH + ")";
             }
+        }
+
+        callback.onResult(canCreate, message);
+    }
 
-            callback.onResult(canCreate, message);
+    // On the writer thread, so no task write lands between the query and the ledger swap
+    private void hydrateQuotaLedger(String userId) {
+        if (quotaLedger.isHydrated(userId)) return;
+        writeExecutor.execute(() -> {
+            if (!quotaLedger.isHydrated(userId)) loadQuotaLedger(userId);
         });
     }
 
+    // Writer thread only
+    private void loadQuotaLedger(String userId) {
+        long from = DayClock.startOfDay(QuotaLedger.hydrateFromDay());
+        quotaLedger.hydrate(userId, taskDao.getQuotaCompletionsSync(userId, from));
+    }
+
     // Statistics
     public void countCompletedToday(String userId, CountCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             long[] dayBounds = getDayBounds(System.currentTimeMillis());
             int count = taskDao.countCompletedTasksForDate(userId, dayBounds[0], dayBounds[1]);
             callback.onResult(count);
@@ -502,75 +771,48 @@ public class TaskRepository {
     }
 
     // Mark expired tasks (occurrences + one-time) as FAILED
-    public void processExpiredTasks(String userId) {
-        executor.execute(() -> {
-            long threeDaysAgo = System.currentTimeMillis() - (3L * 24 * 60 * 60 * 1000);
-
-            // Expire recurring occurrences
-            List<Task> expiredOcc = taskDao.getExpiredOccurrences(userId, threeDaysAgo);
-            for (Task task : expiredOcc) {
-                taskDao.updateStatus(task.getId(), Task.STATUS_FAILED);
-                firestore.collection(COLLECTION_TASKS)
-                        .document(task.getId())
-                        .update("status", Task.STATUS_FAILED);
-            }
+    public Future<?> processExpiredTasks(String userId) {
+        return writeExecutor.submit(() -> {
+            long cutoff = System.currentTimeMillis() - EXPIRY_WINDOW_MS;
+
+            // One transaction for the whole set: status flip, stats, the user's
+            // counter and the outbox entries
+            List<String> expiredIds = db.runInTransaction(() -> {
+                List<Task> expired = taskDao.getExpiredTasksSync(userId, cutoff);
+                List<String> ids = new ArrayList<>(expired.size());
+                for (Task task : expired) {
+                    ids.add(task.getId());
+                }
+                for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+                    List<String> chunk = ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size()));
+                    taskDao.updateStatusForIds(chunk, TaskStatus.ACTIVE, TaskStatus.FAILED);
+                }
+                for (Task task : expired) {
+                    statsWriter.remove(task);
+                    task.setTaskStatus(TaskStatus.FAILED);
+                    statsWriter.add(task);
+                }
+                if (ids.isEmpty()) return ids;
+                userDao.incrementTasksFailedBy(userId, ids.size());
 
-            // Expire one-time tasks
-            List<Task> expiredOne = taskDao.getExpiredOneTimeTasks(userId, threeDaysAgo);
-            for (Task task : expiredOne) {
-                taskDao.updateStatus(task.getId(), Task.STATUS_FAILED);
-                firestore.collection(COLLECTION_TASKS)
-                        .document(task.getId())
-                        .update("status", Task.STATUS_FAILED);
-            }
+                // Queued together, so the outbox sends them in one batch
+                for (String taskId : ids) {
+                    updateStatusInFirestore(taskId, TaskStatus.FAILED);
+                }
+                outbox.increment(COLLECTION_USERS, userId, "totalTasksFailed", ids.size());
+                return ids;
+            });
+
+            if (expiredIds.isEmpty()) return;
+            UserFieldDiff.recordIncrement(userId, "totalTasksFailed", expiredIds.size());
+            TaskSnapshotStore.onTasksChanged(expiredIds);
+            Log.d(TAG, "Expired " + expiredIds.size() + " tasks");
         });
     }
 
-    // Helper methods for date ranges
+    // Helper for date ranges: {start, end) in millis (see DayClock)
     private long[] getDayBounds(long timestamp) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(timestamp);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long dayStart = calendar.getTimeInMillis();
-
-        calendar.add(Calendar.DAY_OF_MONTH, 1);
-        long dayEnd = calendar.getTimeInMillis();
-
-        return new long[]{dayStart, dayEnd};
-    }
-
-    private long[] getWeekBounds(long timestamp) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(timestamp);
-        calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long weekStart = calendar.getTimeInMillis();
-
-        calendar.add(Calendar.WEEK_OF_YEAR, 1);
-        long weekEnd = calendar.getTimeInMillis();
-
-        return new long[]{weekStart, weekEnd};
-    }
-
-    private long[] getMonthBounds(long timestamp) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(timestamp);
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long monthStart = calendar.getTimeInMillis();
-
-        calendar.add(Calendar.MONTH, 1);
-        long monthEnd = calendar.getTimeInMillis();
-
-        return new long[]{monthStart, monthEnd};
+        long day = DayClock.epochDay(timestamp);
+        return new long[]{DayClock.startOfDay(day), DayClock.startOfDay(day + 1)};
     }
 }
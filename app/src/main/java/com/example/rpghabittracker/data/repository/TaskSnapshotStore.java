@@ -0,0 +1,239 @@
+package com.example.rpghabittracker.data.repository;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+
+import com.example.rpghabittracker.data.local.DatabaseExecutors;
+import com.example.rpghabittracker.data.local.dao.TaskDao;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskListItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory copy of the signed-in user's task list, shared by every task screen.
+ *
+ * The slim list rows (TaskListItem) are loaded from Room once; after that
+ * TaskRepository reports the ids it touched (after the transaction commits)
+ * and only those rows are re-read and patched into a new Snapshot, so one
+ * write costs one small query instead of a full re-query per observed list.
+ * Full entities are kept only for recurring templates, which the calendar
+ * needs to project future occurrences.
+ *
+ * List rows are immutable and shared; templates are handed out as copies.
+ */
+public final class TaskSnapshotStore {
+
+    private static final String TAG = "TaskSnapshotStore";
+
+    // SQLite bound-variable limit is 999
+    private static final int SQL_VARIABLE_CHUNK = 900;
+
+    private static final Comparator<TaskListItem> BY_DUE_DATE = (a, b) -> {
+        int byDate = Long.compare(a.getDueDate(), b.getDueDate());
+        return byDate != 0 ? byDate : a.getId().compareTo(b.getId());
+    };
+
+    private static final Comparator<Task> BY_START_DATE = (a, b) -> Long.compare(a.getStartDate(), b.getStartDate());
+
+    // Only the signed-in user's store is kept
+    private static TaskSnapshotStore current;
+
+    private final TaskDao taskDao;
+    private final String userId;
+    private final MutableLiveData<Snapshot> snapshot = new MutableLiveData<>();
+
+    // Guarded by this
+    private Map<String, TaskListItem> rows;
+    private Map<String, Task> templates;
+    private boolean loading;
+    private final Set<String> missedWhileLoading = new HashSet<>();
+
+    // Created once and shared by every observer
+    private LiveData<List<TaskListItem>> allItems;
+
+    private TaskSnapshotStore(TaskDao taskDao, String userId) {
+        this.taskDao = taskDao;
+        this.userId = userId;
+    }
+
+    static synchronized TaskSnapshotStore forUser(TaskDao taskDao, String userId) {
+        if (current == null || !current.userId.equals(userId)) {
+            current = new TaskSnapshotStore(taskDao, userId);
+        }
+        return current;
+    }
+
+    /**
+     * Called by TaskRepository on the writer thread after a committed change to
+     * the given task rows (inserted, updated or deleted).
+     */
+    static void onTasksChanged(Collection<String> taskIds) {
+        TaskSnapshotStore store;
+        synchronized (TaskSnapshotStore.class) {
+            store = current;
+        }
+        if (store != null && !taskIds.isEmpty()) {
+            store.applyChanges(taskIds);
+        }
+    }
+
+    static void onTaskChanged(String taskId) {
+        onTasksChanged(Collections.singletonList(taskId));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Views
+    // ──────────────────────────────────────────────────────────────────────────
+
+    public LiveData<Snapshot> getSnapshot() {
+        ensureLoaded();
+        return snapshot;
+    }
+
+    public synchronized LiveData<List<TaskListItem>> getAllItems() {
+        if (allItems == null) allItems = Transformations.map(getSnapshot(), Snapshot::getItems);
+        return allItems;
+    }
+
+    // A view per caller: every caller gets its own template copies
+    public LiveData<List<Task>> getRecurringTemplates() {
+        return Transformations.map(getSnapshot(), Snapshot::copyTemplates);
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Loading and deltas
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private void ensureLoaded() {
+        synchronized (this) {
+            if (rows != null || loading) return;
+            loading = true;
+        }
+        DatabaseExecutors.reader().execute(this::load);
+    }
+
+    private void load() {
+        List<TaskListItem> all = taskDao.getUserTaskListItemsSync(userId);
+        Map<String, TaskListItem> loaded = new HashMap<>(Math.max(16, all.size() * 2));
+        for (TaskListItem item : all) {
+            loaded.put(item.getId(), item);
+        }
+        Map<String, Task> loadedTemplates = new HashMap<>();
+        for (Task template : taskDao.getRecurringTemplatesSync(userId)) {
+            loadedTemplates.put(template.getId(), template);
+        }
+
+        List<String> missed;
+        synchronized (this) {
+            rows = loaded;
+            templates = loadedTemplates;
+            loading = false;
+            missed = new ArrayList<>(missedWhileLoading);
+            missedWhileLoading.clear();
+            publishLocked();
+        }
+        Log.d(TAG, "Loaded " + all.size() + " tasks for " + userId);
+
+        // Writes that committed while the full load was running; re-read them
+        // on the writer thread so they stay ordered with later deltas
+        if (!missed.isEmpty()) {
+            DatabaseExecutors.writer().execute(() -> applyChanges(missed));
+        }
+    }
+
+    private void applyChanges(Collection<String> taskIds) {
+        Set<String> wereTemplates = new HashSet<>();
+        synchronized (this) {
+            if (rows == null) {
+                if (loading) missedWhileLoading.addAll(taskIds);
+                return;
+            }
+            for (String id : taskIds) {
+                if (templates.containsKey(id)) wereTemplates.add(id);
+            }
+        }
+
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(taskIds));
+        List<TaskListItem> fresh = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += SQL_VARIABLE_CHUNK) {
+            fresh.addAll(taskDao.getTaskListItemsByIdsSync(userId, ids.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, ids.size()))));
+        }
+
+        // Full rows only for templates (new, changed or no longer a template)
+        List<String> templateIds = new ArrayList<>(wereTemplates);
+        for (TaskListItem item : fresh) {
+            if (isTemplate(item) && !wereTemplates.contains(item.getId())) templateIds.add(item.getId());
+        }
+        List<Task> freshTemplates = new ArrayList<>(templateIds.size());
+        for (int from = 0; from < templateIds.size(); from += SQL_VARIABLE_CHUNK) {
+            freshTemplates.addAll(taskDao.getTasksByIdsSync(templateIds.subList(from, Math.min(from + SQL_VARIABLE_CHUNK, templateIds.size()))));
+        }
+
+        synchronized (this) {
+            for (String id : ids) {
+                rows.remove(id);
+                templates.remove(id);
+            }
+            for (TaskListItem item : fresh) {
+                rows.put(item.getId(), item);
+            }
+            for (Task template : freshTemplates) {
+                if (userId.equals(template.getUserId()) && RecurrenceCalculator.isTemplate(template)) {
+                    templates.put(template.getId(), template);
+                }
+            }
+            publishLocked();
+        }
+    }
+
+    private void publishLocked() {
+        List<TaskListItem> items = new ArrayList<>(rows.values());
+        Collections.sort(items, BY_DUE_DATE);
+        List<Task> sortedTemplates = new ArrayList<>(templates.values());
+        Collections.sort(sortedTemplates, BY_START_DATE);
+        snapshot.postValue(new Snapshot(Collections.unmodifiableList(items), sortedTemplates));
+    }
+
+    private static boolean isTemplate(TaskListItem item) {
+        return item.isRecurring() && (item.getParentTaskId() == null || item.getParentTaskId().isEmpty());
+    }
+
+    /**
+     * Immutable list rows (ordered by due date) and the recurring templates
+     * (ordered by start date), which never leave the snapshot uncopied
+     */
+    public static final class Snapshot {
+        private final List<TaskListItem> items;
+        private final List<Task> templates;
+
+        Snapshot(List<TaskListItem> items, List<Task> templates) {
+            this.items = items;
+            this.templates = templates;
+        }
+
+        public List<TaskListItem> getItems() {
+            return items;
+        }
+
+        public List<Task> copyTemplates() {
+            List<Task> copies = new ArrayList<>(templates.size());
+            for (Task template : templates) {
+                copies.add(new Task(template));
+            }
+            return copies;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.rpghabittracker.data.repository;
+
+import com.example.rpghabittracker.data.model.RepeatUnit;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Firestore encoding of a task document.
+ *
+ * Version 2 (current) is compact:
+ *  - short keys, enums as their integer codes
+ *  - defaults are left out (null / 0 / false, creation level 1)
+ *  - XP is left out when it equals what difficulty, importance and creation
+ *    level give (only hand-adjusted values are stored)
+ *  - recurrence (interval, unit, start, end) is stored on templates only;
+ *    occurrences take it from their template when decoded
+ * userId, status and parentTaskId keep their names and string values because
+ * they are queried on.
+ *
+ * Version 1 (no "v" field) used the full field names and sent every field.
+ * decode reads both, and documents mixing the two (a v1 document updated by a
+ * v2 partial write) too: each field is looked up under its v2 key first.
+ */
+final class TaskWireFormat {
+
+    static final int VERSION = 2;
+
+    // Queried / partially updated fields
+    static final String FIELD_USER_ID = "userId";
+    static final String FIELD_STATUS = "status";
+    static final String FIELD_PARENT_TASK_ID = "parentTaskId";
+    static final String FIELD_COMPLETED_DATE = "cd";
+
+    static final String FIELD_VERSION = "v";
+
+    private TaskWireFormat() {
+    }
+
+    static Map<String, Object> encode(Task task) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(FIELD_VERSION, VERSION);
+        map.put(FIELD_USER_ID, task.getUserId());
+        map.put(FIELD_STATUS, task.getStatus());
+        putIfSet(map, "n", task.getName());
+        putIfSet(map, "d", task.getDescription());
+        putIfSet(map, "c", task.getCategoryId());
+
+        TaskDifficulty difficulty = task.getTaskDifficulty();
+        TaskImportance importance = task.getTaskImportance();
+        if (difficulty != null) map.put("df", difficulty.code);
+        if (importance != null) map.put("im", importance.code);
+        int level = task.getUserLevelAtCreation();
+        if (level != 1) map.put("lv", level);
+
+        int difficultyXp = difficulty != null ? difficulty.xpForLevel(level) : 0;
+        int importanceXp = importance != null ? importance.xpForLevel(level) : 0;
+        if (task.getDifficultyXp() != difficultyXp) map.put("dx", task.getDifficultyXp());
+        if (task.getImportanceXp() != importanceXp) map.put("ix", task.getImportanceXp());
+        if (task.getTotalXp() != task.getDifficultyXp() + task.getImportanceXp()) map.put("tx", task.getTotalXp());
+
+        String parentTaskId = task.getParentTaskId();
+        if (parentTaskId != null && !parentTaskId.isEmpty()) {
+            map.put(FIELD_PARENT_TASK_ID, parentTaskId);
+        } else if (task.isRecurring()) {
+            // Template: the only place recurrence is stored
+            map.put("r", true);
+            putIfSet(map, "ri", task.getRepeatInterval());
+            if (task.getTaskRepeatUnit() != null) map.put("ru", task.getTaskRepeatUnit().code);
+            putIfSet(map, "sd", task.getStartDate());
+            putIfSet(map, "ed", task.getEndDate());
+        }
+
+        putIfSet(map, "du", task.getDueDate());
+        putIfSet(map, "ca", task.getCreatedAt());
+        putIfSet(map, FIELD_COMPLETED_DATE, task.getCompletedDate());
+        return map;
+    }
+
+    // Throws on malformed documents; callers log and skip them
+    static Task decode(RemoteDocument doc) {
+        Task task = new Task();
+        String id = doc.getString("id");
+        task.setId(id != null && !id.trim().isEmpty() ? id : doc.getId());
+        task.setUserId(doc.getString(FIELD_USER_ID));
+        task.setName(string(doc, "n", "name"));
+        task.setDescription(string(doc, "d", "description"));
+        task.setCategoryId(string(doc, "c", "categoryId"));
+
+        Long level = number(doc, "lv", "userLevelAtCreation");
+        Long difficultyCode = doc.getLong("df");
+        task.setTaskDifficulty(difficultyCode != null
+                ? TaskDifficulty.fromCode(difficultyCode.intValue())
+                : TaskDifficulty.fromName(doc.getString("difficulty")));
+        Long importanceCode = doc.getLong("im");
+        task.setTaskImportance(importanceCode != null
+                ? TaskImportance.fromCode(importanceCode.intValue())
+                : TaskImportance.fromName(doc.getString("importance")));
+        // Also derives the XP values from difficulty and importance
+        task.setUserLevelAtCreation(level != null ? level.intValue() : 1);
+
+        Long difficultyXp = number(doc, "dx", "difficultyXp");
+        Long importanceXp = number(doc, "ix", "importanceXp");
+        Long totalXp = number(doc, "tx", "totalXp");
+        if (difficultyXp != null) task.setDifficultyXp(difficultyXp.intValue());
+        if (importanceXp != null) task.setImportanceXp(importanceXp.intValue());
+        task.setTotalXp(totalXp != null
+                ? totalXp.intValue()
+                : task.getDifficultyXp() + task.getImportanceXp());
+
+        task.setStatus(doc.getString(FIELD_STATUS));
+
+        String parentTaskId = doc.getString(FIELD_PARENT_TASK_ID);
+        task.setParentTaskId(parentTaskId);
+        Boolean recurring = doc.getBoolean("r");
+        if (recurring == null) recurring = doc.getBoolean("isRecurring");
+        task.setRecurring((recurring != null && recurring)
+                || (parentTaskId != null && !parentTaskId.isEmpty()));
+
+        Long repeatInterval = number(doc, "ri", "repeatInterval");
+        if (repeatInterval != null) task.setRepeatInterval(repeatInterval.intValue());
+        Long repeatUnitCode = doc.getLong("ru");
+        if (repeatUnitCode != null) {
+            task.setTaskRepeatUnit(RepeatUnit.fromCode(repeatUnitCode.intValue()));
+        } else {
+            task.setRepeatUnit(doc.getString("repeatUnit"));
+        }
+
+        Long startDate = number(doc, "sd", "startDate");
+        if (startDate != null) task.setStartDate(startDate);
+        Long endDate = number(doc, "ed", "endDate");
+        if (endDate != null) task.setEndDate(endDate);
+        Long dueDate = number(doc, "du", "dueDate");
+        if (dueDate != null) task.setDueDate(dueDate);
+        Long createdAt = number(doc, "ca", "createdAt");
+        if (createdAt != null) task.setCreatedAt(createdAt);
+        Long completedDate = number(doc, FIELD_COMPLETED_DATE, "completedDate");
+        if (completedDate != null) task.setCompletedDate(completedDate);
+        return task;
+    }
+
+    // Fills the recurrence an occurrence document does not carry
+    static void inheritRecurrence(Task occurrence, Task template) {
+        occurrence.setRepeatInterval(template.getRepeatInterval());
+        occurrence.setTaskRepeatUnit(template.getTaskRepeatUnit());
+        occurrence.setStartDate(template.getStartDate());
+        occurrence.setEndDate(template.getEndDate());
+    }
+
+    private static void putIfSet(Map<String, Object> map, String key, String value) {
+        if (value != null) map.put(key, value);
+    }
+
+    private static void putIfSet(Map<String, Object> map, String key, long value) {
+        if (value != 0) map.put(key, value);
+    }
+
+    private static String string(RemoteDocument doc, String key, String legacyKey) {
+        String value = doc.getString(key);
+        return value != null ? value : doc.getString(legacyKey);
+    }
+
+    private static Long number(RemoteDocument doc, String key, String legacyKey) {
+        Long value = doc.getLong(key);
+        return value != null ? value : doc.getLong(legacyKey);
+    }
+}
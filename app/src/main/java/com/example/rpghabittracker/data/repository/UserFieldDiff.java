@@ -0,0 +1,116 @@
+package com.example.rpghabittracker.data.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Last user document state sent to Firestore, per user, so a profile sync only
+ * queues the fields that changed since.
+ *
+ * Additive counters are only ever sent as increments (their delta against the
+ * last sent value; a counter the document lacks counts as 0), everything else
+ * as absolute values. An absolute counter would overwrite increments other
+ * devices made meanwhile, so counters are left out while the sent state is
+ * unknown; callers seed it (seed / reset) before the first diff. Counters
+ * incremented remotely without a full sync (e.g. expired tasks) must be
+ * reported with recordIncrement so the next diff does not send them twice.
+ * Only used from the writer thread; synchronized for safety.
+ */
+final class UserFieldDiff {
+
+    // Counters that only ever move by deltas (never reset by a level up)
+    static final Set<String> COUNTERS = new HashSet<>(Arrays.asList(
+            "coins", "totalTasksCompleted", "totalTasksCreated", "totalTasksFailed"));
+
+    // Bookkeeping field, sent along with a change but never a change on its own
+    private static final String FIELD_LAST_UPDATED = "lastUpdated";
+
+    private static final Map<String, Map<String, Object>> lastSent = new HashMap<>();
+
+    /**
+     * Fields to send for the given full user state
+     */
+    static final class Delta {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        final Map<String, Integer> increments = new LinkedHashMap<>();
+
+        boolean isEmpty() {
+            return fields.isEmpty() && increments.isEmpty();
+        }
+    }
+
+    private UserFieldDiff() {
+    }
+
+    /**
+     * Diffs the full user map against the last sent state and records it as sent.
+     * Without a known state (nothing seeded in this process) every field but the
+     * counters is sent absolute; the counters are then taken as sent.
+     */
+    static synchronized Delta diff(String userId, Map<String, Object> current) {
+        Delta delta = new Delta();
+        Map<String, Object> previous = lastSent.get(userId);
+        if (previous == null) {
+            delta.fields.putAll(current);
+            delta.fields.keySet().removeAll(COUNTERS);
+        } else {
+            for (Map.Entry<String, Object> entry : current.entrySet()) {
+                String field = entry.getKey();
+                if (FIELD_LAST_UPDATED.equals(field)) continue;
+                Object before = previous.get(field);
+                Object after = entry.getValue();
+                if (FieldMerge.sameValue(before, after)) continue;
+
+                if (COUNTERS.contains(field)) {
+                    if (!(after instanceof Number)) continue;
+                    long base = before instanceof Number ? ((Number) before).longValue() : 0;
+                    delta.increments.put(field, (int) (((Number) after).longValue() - base));
+                } else {
+                    delta.fields.put(field, after);
+                }
+            }
+            if (!delta.isEmpty() && current.containsKey(FIELD_LAST_UPDATED)) {
+                delta.fields.put(FIELD_LAST_UPDATED, current.get(FIELD_LAST_UPDATED));
+            }
+        }
+        lastSent.put(userId, new HashMap<>(current));
+        return delta;
+    }
+
+    /**
+     * Known sent state for a user without one yet (e.g. the stored row before a
+     * write, which the previous sync queued); a recorded state is kept
+     */
+    static synchronized void seed(String userId, Map<String, Object> sentState) {
+        if (!lastSent.containsKey(userId)) {
+            lastSent.put(userId, new HashMap<>(sentState));
+        }
+    }
+
+    /**
+     * Replaces the known state with what the server returned (document data)
+     */
+    static synchronized void reset(String userId, Map<String, Object> serverState) {
+        if (serverState == null) {
+            lastSent.remove(userId);
+        } else {
+            lastSent.put(userId, new HashMap<>(serverState));
+        }
+    }
+
+    /**
+     * A counter increment queued outside of a profile sync
+     */
+    static synchronized void recordIncrement(String userId, String field, int delta) {
+        Map<String, Object> previous = lastSent.get(userId);
+        if (previous == null) return;
+        Object before = previous.get(field);
+        if (before instanceof Number) {
+            previous.put(field, ((Number) before).longValue() + delta);
+        }
+    }
+}
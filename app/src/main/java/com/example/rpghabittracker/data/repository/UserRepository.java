@@ -5,16 +5,21 @@ import android.app.Application;
 import androidx.lifecycle.LiveData;
 
 import com.example.rpghabittracker.data.local.AppDatabase;
+import com.example.rpghabittracker.data.local.DatabaseExecutors;
 import com.example.rpghabittracker.data.local.dao.UserDao;
 import com.example.rpghabittracker.data.model.User;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Repository for User data operations
@@ -22,9 +27,15 @@ import java.util.concurrent.Executors;
  */
 public class UserRepository {
     
+    private final AppDatabase db;
     private final UserDao userDao;
-    private final FirebaseFirestore firestore;
-    private final ExecutorService executor;
+    private final RemoteStore remote;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService readExecutor;
+    private final Outbox outbox;
+    private final FieldClocks clocks;
+
+    private static final String COLLECTION_USERS = "users";
     
     // Titles for levels (Serbian)
     private static final String[] TITLES = {
@@ -40,30 +51,46 @@ public class UserRepository {
         "Legenda"         // Level 10+
     };
     
-    public UserRepository(Application application) {
-        AppDatabase db = AppDatabase.getInstance(application);
+    private static volatile UserRepository INSTANCE;
+    
+    // One instance per process, shared by every ViewModel
+    public static UserRepository getInstance(Application application) {
+        if (INSTANCE == null) {
+            synchronized (UserRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new UserRepository(application);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+    
+    private UserRepository(Application application) {
+        db = AppDatabase.getInstance(application);
         userDao = db.userDao();
-        firestore = FirebaseFirestore.getInstance();
-        executor = Executors.newSingleThreadExecutor();
+        remote = RemoteStores.forCaller("UserRepository");
+        writeExecutor = DatabaseExecutors.writer();
+        readExecutor = DatabaseExecutors.reader();
+        outbox = Outbox.getInstance(application);
+        clocks = new FieldClocks(db.fieldClockDao());
     }
     
     // Basic CRUD
     public void insert(User user) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> db.runInTransaction(() -> {
+            User before = userDao.getUserByIdSync(user.getId());
+            keepProvisional(before, user);
             userDao.insert(user);
-            syncToFirestore(user);
-        });
+            syncChange(before, user);
+        }));
     }
     
     public void update(User user) {
-        executor.execute(() -> {
-            userDao.update(user);
-            syncToFirestore(user);
-        });
+        writeExecutor.execute(() -> updateAndSync(user));
     }
     
     public void delete(User user) {
-        executor.execute(() -> userDao.delete(user));
+        writeExecutor.execute(() -> userDao.delete(user));
     }
     
     // Get user
@@ -72,7 +99,7 @@ public class UserRepository {
     }
     
     public void getUserByIdSync(String userId, UserCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             callback.onResult(user);
         });
@@ -86,7 +113,7 @@ public class UserRepository {
     public void addXp(String userId, int xpAmount, XpCallback callback) {
         android.util.Log.d("UserRepository", "addXp called: userId=" + userId + ", xpAmount=" + xpAmount);
         
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user == null) {
                 android.util.Log.e("UserRepository", "addXp: User not found in local DB: " + userId);
@@ -105,8 +132,7 @@ public class UserRepository {
             android.util.Log.d("UserRepository", "addXp: After update - XP=" + user.getExperiencePoints() + ", level=" + user.getLevel());
             
             // Save changes
-            userDao.update(user);
-            syncToFirestore(user);
+            updateAndSync(user);
             
             callback.onResult(true, xpAmount, leveledUp, leveledUp ? user : null);
         });
@@ -114,18 +140,17 @@ public class UserRepository {
     
     // Update coins
     public void addCoins(String userId, int amount) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user != null) {
                 user.setCoins(user.getCoins() + amount);
-                userDao.update(user);
-                syncToFirestore(user);
+                updateAndSync(user);
             }
         });
     }
     
     public void subtractCoins(String userId, int amount, CoinsCallback callback) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user == null) {
                 callback.onResult(false, "User not found");
@@ -138,30 +163,28 @@ public class UserRepository {
             }
             
             user.setCoins(user.getCoins() - amount);
-            userDao.update(user);
-            syncToFirestore(user);
+            updateAndSync(user);
             callback.onResult(true, null);
         });
     }
     
     // Update streak
     public void updateStreak(String userId, int newStreak) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user != null) {
                 user.setCurrentStreak(newStreak);
                 if (newStreak > user.getLongestStreak()) {
                     user.setLongestStreak(newStreak);
                 }
-                userDao.update(user);
-                syncToFirestore(user);
+                updateAndSync(user);
             }
         });
     }
     
     // Increment task created
     public void incrementTaskCreated(String userId) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             userDao.incrementTasksCreated(userId);
             User user = userDao.getUserByIdSync(userId);
             if (user != null) {
@@ -173,17 +196,17 @@ public class UserRepository {
     
     // Increment task failed
     public void incrementTaskFailed(String userId) {
-        executor.execute(() -> userDao.incrementTasksFailed(userId));
+        writeExecutor.execute(() -> userDao.incrementTasksFailed(userId));
     }
     
     // Update last login
     public void updateLastLogin(String userId) {
-        executor.execute(() -> userDao.updateLastLogin(userId, System.currentTimeMillis()));
+        writeExecutor.execute(() -> userDao.updateLastLogin(userId, System.currentTimeMillis()));
     }
     
     // Calculate success rate for boss battles
     public void getSuccessRate(String userId, SuccessRateCallback callback) {
-        executor.execute(() -> {
+        readExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user == null) {
                 callback.onResult(0.0);
@@ -210,16 +233,80 @@ public class UserRepository {
         return TITLES[level - 1];
     }
     
-    // Sync user data to Firestore
-    private void syncToFirestore(User user) {
+    // Local row update plus its outbox entries in one transaction (writer thread)
+    private void updateAndSync(User user) {
+        db.runInTransaction(() -> {
+            User before = userDao.getUserByIdSync(user.getId());
+            keepProvisional(before, user);
+            userDao.update(user);
+            syncChange(before, user);
+        });
+    }
+
+    // The stored row decides whether a user is still provisional; copies held
+    // by the UI may predate the reconcile that cleared the flag
+    private void keepProvisional(User before, User after) {
+        if (before != null) after.setProvisional(before.isProvisional());
+    }
+
+    private Set<String> changedFields(User before, User after) {
+        return FieldMerge.changedFields(before != null ? userToMap(before) : null, userToMap(after));
+    }
+
+    // Syncs a local write; after a restart nothing is recorded as sent yet, and
+    // the stored row before the write is what the previous sync queued
+    private void syncChange(User before, User after) {
+        if (before != null && !before.isProvisional()) {
+            UserFieldDiff.seed(after.getId(), userToMap(before));
+        }
+        syncToFirestore(after, changedFields(before, after));
+    }
+
+    // Sync user data to Firestore: only the fields changed since the last sync are
+    // queued (counters as increments); the outbox merges writes made within its
+    // flush window, so e.g. a battle victory leaves as one update.
+    // changedFields (local edits) get a new clock stamp; every absolute field
+    // sent carries the stamp known for it, see FieldMerge
+    private void syncToFirestore(User user, Set<String> changedFields) {
         if (user == null || user.getId() == null || user.getId().isEmpty()) {
             android.util.Log.e("UserRepository", "Cannot sync null user to Firestore");
             return;
         }
+        if (user.isProvisional()) {
+            // Its fields would overwrite a remote profile the failed fetch did not see
+            android.util.Log.d("UserRepository", "Provisional user, not synced: " + user.getId());
+            return;
+        }
         
         android.util.Log.d("UserRepository", "Syncing user to Firestore: " + user.getId() + 
                            ", xp=" + user.getExperiencePoints() + ", coins=" + user.getCoins());
         
+        Map<String, Object> userData = userToMap(user);
+        userData.put("lastUpdated", System.currentTimeMillis());
+        
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(user.getId(), userData);
+        if (delta.isEmpty()) return;
+        
+        // Merge to create or update
+        db.runInTransaction(() -> {
+            if (!delta.fields.isEmpty()) {
+                // Counters sent as increments commute and are not stamped
+                Set<String> stamped = new HashSet<>(changedFields);
+                stamped.retainAll(delta.fields.keySet());
+                clocks.stamp(COLLECTION_USERS, user.getId(), stamped);
+                Map<String, Long> known = clocks.load(COLLECTION_USERS, user.getId());
+                known.keySet().retainAll(delta.fields.keySet());
+                if (!known.isEmpty()) delta.fields.put(FieldMerge.FIELD_CLOCKS, known);
+                outbox.merge(COLLECTION_USERS, user.getId(), delta.fields);
+            }
+            for (Map.Entry<String, Integer> entry : delta.increments.entrySet()) {
+                outbox.increment(COLLECTION_USERS, user.getId(), entry.getKey(), entry.getValue());
+            }
+        });
+    }
+    
+    // Synced fields of the user document
+    private Map<String, Object> userToMap(User user) {
         Map<String, Object> userData = new HashMap<>();
         userData.put("username", user.getUsername());
         userData.put("usernameLower", user.getUsername() != null
@@ -244,95 +331,107 @@ public class UserRepository {
         userData.put("currentStreak", user.getCurrentStreak());
         userData.put("longestStreak", user.getLongestStreak());
         userData.put("badges", user.getBadges());
-        userData.put("lastUpdated", System.currentTimeMillis());
-        
-        // Use set with merge to create or update
-        firestore.collection("users")
-                .document(user.getId())
-                .set(userData, com.google.firebase.firestore.SetOptions.merge())
-                .addOnSuccessListener(aVoid -> {
-                    android.util.Log.d("UserRepository", "User synced to Firestore successfully");
-                })
-                .addOnFailureListener(e -> {
-                    android.util.Log.e("UserRepository", "Failed to sync user to Firestore", e);
-                });
+        return userData;
     }
     
-    // Create or update user from Firebase Auth
-    // First checks Firestore for existing data, then falls back to local
+    // Create or update user from Firebase Auth.
+    // Local-first: the callback fires as soon as a local row exists (an existing one,
+    // or a fresh provisional one on first run), so startup never waits on the network.
+    // Firestore is then fetched in the background and, when it has the user, its
+    // data replaces the local row; the LiveData observers pick the change up.
+    // A provisional row is not synced until the fetch succeeds, so a failed fetch
+    // cannot let the level-1 placeholder overwrite the real profile.
     public void createOrUpdateFromFirebase(String firebaseUid, String email, String username, 
                                            String avatar, UserCallback callback) {
         android.util.Log.d("UserRepository", "createOrUpdateFromFirebase: uid=" + firebaseUid);
         
-        // First try to load from Firestore
-        firestore.collection("users")
-                .document(firebaseUid)
-                .get()
+        writeExecutor.execute(() -> {
+            User existing = userDao.getUserByIdSync(firebaseUid);
+            
+            if (existing != null) {
+                android.util.Log.d("UserRepository", "User exists in local DB");
+                existing.setLastLoginAt(System.currentTimeMillis());
+                userDao.update(existing);
+                callback.onResult(existing);
+            } else {
+                // Not pushed to Firestore until we know no remote user exists
+                android.util.Log.d("UserRepository", "Creating provisional local user");
+                User newUser = new User(email, "", username, avatar);
+                newUser.setId(firebaseUid);
+                newUser.setActive(true);
+                newUser.setProvisional(true);
+                int initialPp = newUser.getPpForCurrentLevel();
+                newUser.setPowerPoints(initialPp);
+                newUser.setBasePowerPoints(initialPp);
+                userDao.insert(newUser);
+                callback.onResult(newUser);
+            }
+            
+            reconcileWithFirestore(firebaseUid, email, username, avatar);
+        });
+    }
+    
+    private void reconcileWithFirestore(String firebaseUid, String email, String username,
+                                        String avatar) {
+        remote.get(COLLECTION_USERS, firebaseUid)
                 .addOnSuccessListener(document -> {
                     android.util.Log.d("UserRepository", "Firestore fetch success, exists=" + document.exists());
                     
-                    executor.execute(() -> {
+                    writeExecutor.execute(() -> {
+                        User local = userDao.getUserByIdSync(firebaseUid);
                         if (document.exists()) {
-                            // User exists in Firestore - load and sync to local
-                            User user = documentToUser(document, firebaseUid, email, username, avatar);
+                            // User exists in Firestore - merge per field into the local row
+                            RemoteDocument merged = mergeWithLocal(document, local);
+                            User user = documentToUser(merged, firebaseUid, email, username, avatar);
                             android.util.Log.d("UserRepository", "User from Firestore: xp=" + user.getExperiencePoints() + 
                                               ", coins=" + user.getCoins() + ", level=" + user.getLevel());
-                            userDao.insert(user); // Insert or replace
-                            // Keep searchable fields consistent across old/new schema
-                            syncToFirestore(user);
-                            callback.onResult(user);
-                        } else {
-                            // Check local database
-                            User existing = userDao.getUserByIdSync(firebaseUid);
-                            
-                            if (existing != null) {
-                                android.util.Log.d("UserRepository", "User exists in local DB");
-                                existing.setLastLoginAt(System.currentTimeMillis());
-                                userDao.update(existing);
-                                syncToFirestore(existing);
-                                callback.onResult(existing);
-                            } else {
-                                // Create new user
-                                android.util.Log.d("UserRepository", "Creating new user");
-                                User newUser = new User(email, "", username, avatar);
-                                newUser.setId(firebaseUid);
-                                newUser.setActive(true);
-                                int initialPp = newUser.getPpForCurrentLevel();
-                                newUser.setPowerPoints(initialPp);
-                                newUser.setBasePowerPoints(initialPp);
-                                userDao.insert(newUser);
-                                syncToFirestore(newUser);
-                                callback.onResult(newUser);
-                            }
+                            // Keep searchable fields consistent across old/new schema;
+                            // only what differs from the fetched document is sent
+                            // (including local fields newer than it)
+                            UserFieldDiff.reset(firebaseUid, document.getData());
+                            db.runInTransaction(() -> {
+                                userDao.insert(user); // Insert or replace
+                                syncToFirestore(user, Collections.emptySet());
+                            });
+                        } else if (local != null) {
+                            // No remote user yet - publish the local one
+                            // (counters as increments over the missing fields)
+                            local.setProvisional(false);
+                            UserFieldDiff.reset(firebaseUid, Collections.emptyMap());
+                            db.runInTransaction(() -> {
+                                userDao.update(local);
+                                syncToFirestore(local, userToMap(local).keySet());
+                            });
                         }
                     });
                 })
                 .addOnFailureListener(e -> {
+                    // Offline: keep working on the local row, the next login reconciles;
+                    // a provisional row stays local-only until then
                     android.util.Log.e("UserRepository", "Firestore fetch failed", e);
-                    // Firestore failed, fall back to local
-                    executor.execute(() -> {
-                        User existing = userDao.getUserByIdSync(firebaseUid);
-                        
-                        if (existing != null) {
-                            existing.setLastLoginAt(System.currentTimeMillis());
-                            userDao.update(existing);
-                            callback.onResult(existing);
-                        } else {
-                            User newUser = new User(email, "", username, avatar);
-                            newUser.setId(firebaseUid);
-                            newUser.setActive(true);
-                            int initialPp = newUser.getPpForCurrentLevel();
-                            newUser.setPowerPoints(initialPp);
-                            newUser.setBasePowerPoints(initialPp);
-                            userDao.insert(newUser);
-                            callback.onResult(newUser);
-                        }
-                    });
                 });
     }
     
+    // Fields written here later than the fetched document keep their local value;
+    // counters too while increments for them are still queued
+    private RemoteDocument mergeWithLocal(RemoteDocument document, User local) {
+        Map<String, Object> server = document.getData();
+        Map<String, Object> localData = local != null ? userToMap(local) : null;
+        FieldMerge.Result merged = FieldMerge.merge(localData,
+                clocks.load(COLLECTION_USERS, document.getId()),
+                server, FieldMerge.clocksOf(server), false);
+        clocks.save(COLLECTION_USERS, document.getId(), merged.clocks);
+        if (localData != null && !outbox.pendingIds(COLLECTION_USERS,
+                Collections.singleton(document.getId())).isEmpty()) {
+            for (String counter : UserFieldDiff.COUNTERS) {
+                merged.values.put(counter, localData.get(counter));
+            }
+        }
+        return new RemoteDocument(document.getId(), merged.values, false);
+    }
+    
     // Convert Firestore document to User
-    private User documentToUser(com.google.firebase.firestore.DocumentSnapshot doc, 
+    private User documentToUser(RemoteDocument doc, 
                                 String firebaseUid, String email, String username, String avatar) {
         String remoteUsername = doc.getString("username");
         String resolvedUsername = (remoteUsername != null && !remoteUsername.trim().isEmpty())
@@ -409,6 +508,9 @@ public class UserRepository {
         Long totalCreated = doc.getLong("totalTasksCreated");
         if (totalCreated != null) user.setTotalTasksCreated(totalCreated.intValue());
         
+        Long totalFailed = doc.getLong("totalTasksFailed");
+        if (totalFailed != null) user.setTotalTasksFailed(totalFailed.intValue());
+        
         Long currentStreak = doc.getLong("currentStreak");
         if (currentStreak != null) user.setCurrentStreak(currentStreak.intValue());
         
@@ -457,7 +559,7 @@ public class UserRepository {
     public void awardBattleRewards(String userId, int xpReward, int coinsReward, BattleRewardsCallback callback) {
         android.util.Log.d("UserRepository", "awardBattleRewards called: userId=" + userId + ", xp=" + xpReward + ", coins=" + coinsReward);
         
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user == null) {
                 android.util.Log.e("UserRepository", "User not found for battle rewards: " + userId);
@@ -476,8 +578,7 @@ public class UserRepository {
             android.util.Log.d("UserRepository", "User after update: coins=" + user.getCoins() + ", xp=" + user.getExperiencePoints() + ", level=" + user.getLevel());
             
             // Update database
-            userDao.update(user);
-            syncToFirestore(user);
+            updateAndSync(user);
             
             android.util.Log.d("UserRepository", "Battle rewards saved successfully");
             
@@ -553,7 +654,7 @@ public class UserRepository {
     
     // Get user power points
     public void getUserPowerPoints(String userId, PowerPointsCallback callback) {
-        executor.execute(() -> {
+        writeExecutor.execute(() -> {
             User user = userDao.getUserByIdSync(userId);
             if (user != null) {
                 int expectedBasePp = user.getPpForCurrentLevel();
@@ -566,8 +667,7 @@ public class UserRepository {
                 if (pp != user.getPowerPoints() || basePp != user.getBasePowerPoints()) {
                     user.setPowerPoints(pp);
                     user.setBasePowerPoints(basePp);
-                    userDao.update(user);
-                    syncToFirestore(user);
+                    updateAndSync(user);
                 }
                 callback.onResult(pp);
             } else {
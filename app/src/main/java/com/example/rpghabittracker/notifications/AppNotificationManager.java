@@ -16,19 +16,19 @@ import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.RemoteChange;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.alliance.AllianceActivity;
 import com.example.rpghabittracker.ui.alliance.AllianceChatActivity;
 import com.example.rpghabittracker.ui.friends.FriendsActivity;
 import com.example.rpghabittracker.ui.home.MainActivity;
-import com.google.firebase.firestore.DocumentChange;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.SetOptions;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * In-app notification utilities:
@@ -40,6 +40,11 @@ public final class AppNotificationManager {
 
     private AppNotificationManager() {}
 
+    // Created on first use, so a store installed with RemoteStores.install() is picked up
+    private static final class Remote {
+        static final RemoteStore STORE = RemoteStores.forCaller("AppNotificationManager");
+    }
+
     public static final String CHANNEL_ID = "rpg_notifications";
     private static final String CHANNEL_NAME = "RPG Habit Tracker Notifications";
 
@@ -84,28 +89,26 @@ public final class AppNotificationManager {
     }
 
     @Nullable
-    public static ListenerRegistration listenForUserNotifications(
+    public static RemoteStore.Registration listenForUserNotifications(
             @NonNull Context context,
-            @NonNull FirebaseFirestore firestore,
             @NonNull String userId
     ) {
         ensureNotificationChannel(context);
 
-        return firestore.collection(COLLECTION_USER_NOTIFICATIONS)
+        return Remote.STORE.listen(RemoteQuery.on(COLLECTION_USER_NOTIFICATIONS)
                 .whereEqualTo("userId", userId)
-                .whereEqualTo("state", STATE_NEW)
-                .addSnapshotListener((snapshot, error) -> {
-                    if (error != null || snapshot == null) return;
+                .whereEqualTo("state", STATE_NEW),
+                (changes, error) -> {
+                    if (error != null || changes == null) return;
 
-                    for (DocumentChange change : snapshot.getDocumentChanges()) {
-                        if (change.getType() != DocumentChange.Type.ADDED) continue;
-                        showNotificationFromDoc(context, firestore, change.getDocument());
+                    for (RemoteChange change : changes) {
+                        if (change.getType() != RemoteChange.Type.ADDED) continue;
+                        showNotificationFromDoc(context, change.getDocument());
                     }
                 });
     }
 
     public static void createFriendRequestNotification(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String receiverId,
             @NonNull String senderId,
             @NonNull String senderName,
@@ -125,15 +128,12 @@ public final class AppNotificationManager {
         payload.put("friendshipId", friendshipId);
         payload.put("actionRequired", true);
         payload.put("state", STATE_NEW);
-        payload.put("createdAt", FieldValue.serverTimestamp());
+        payload.put("createdAt", Remote.STORE.serverTimestamp());
 
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS)
-                .document(docId)
-                .set(payload, SetOptions.merge());
+        Remote.STORE.merge(COLLECTION_USER_NOTIFICATIONS, docId, payload);
     }
 
     public static void createFriendRequestAcceptedNotification(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String receiverId,
             @NonNull String acceptorId,
             @NonNull String acceptorName
@@ -149,13 +149,12 @@ public final class AppNotificationManager {
         payload.put("acceptorName", safeName);
         payload.put("actionRequired", false);
         payload.put("state", STATE_NEW);
-        payload.put("createdAt", FieldValue.serverTimestamp());
+        payload.put("createdAt", Remote.STORE.serverTimestamp());
 
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS).add(payload);
+        Remote.STORE.set(COLLECTION_USER_NOTIFICATIONS, UUID.randomUUID().toString(), payload);
     }
 
     public static void createAllianceMessageNotification(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String receiverId,
             @NonNull String allianceId,
             @NonNull String messageId,
@@ -182,15 +181,12 @@ public final class AppNotificationManager {
         payload.put("messageId", messageId);
         payload.put("actionRequired", false);
         payload.put("state", STATE_NEW);
-        payload.put("createdAt", FieldValue.serverTimestamp());
+        payload.put("createdAt", Remote.STORE.serverTimestamp());
 
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS)
-                .document(docId)
-                .set(payload, SetOptions.merge());
+        Remote.STORE.merge(COLLECTION_USER_NOTIFICATIONS, docId, payload);
     }
 
     public static void createAllianceMemberJoinedNotification(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String receiverId,
             @NonNull String allianceId,
             @NonNull String joinedMemberId,
@@ -209,28 +205,24 @@ public final class AppNotificationManager {
         payload.put("joinedMemberName", safeName);
         payload.put("actionRequired", false);
         payload.put("state", STATE_NEW);
-        payload.put("createdAt", FieldValue.serverTimestamp());
+        payload.put("createdAt", Remote.STORE.serverTimestamp());
 
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS)
-                .document(docId)
-                .set(payload, SetOptions.merge());
+        Remote.STORE.merge(COLLECTION_USER_NOTIFICATIONS, docId, payload);
     }
 
     public static void resolveFriendRequestNotification(
-            @NonNull FirebaseFirestore firestore,
             @Nullable Context context,
             @NonNull String userId,
             @NonNull String friendshipId,
             @NonNull String resolvedAction
     ) {
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS)
-                .whereEqualTo("userId", userId)
-                .whereEqualTo("type", TYPE_FRIEND_REQUEST)
-                .whereEqualTo("friendshipId", friendshipId)
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
-                        resolveNotificationById(firestore, doc.getId(), resolvedAction);
+        Remote.STORE.query(RemoteQuery.on(COLLECTION_USER_NOTIFICATIONS)
+                        .whereEqualTo("userId", userId)
+                        .whereEqualTo("type", TYPE_FRIEND_REQUEST)
+                        .whereEqualTo("friendshipId", friendshipId))
+                .addOnSuccessListener(documents -> {
+                    for (RemoteDocument doc : documents) {
+                        resolveNotificationById(doc.getId(), resolvedAction);
                         if (context != null) {
                             cancelNotification(context, doc.getId());
                         }
@@ -239,7 +231,6 @@ public final class AppNotificationManager {
     }
 
     public static void resolveNotificationById(
-            @NonNull FirebaseFirestore firestore,
             @Nullable String notificationDocId,
             @NonNull String resolvedAction
     ) {
@@ -248,11 +239,9 @@ public final class AppNotificationManager {
         Map<String, Object> updates = new HashMap<>();
         updates.put("state", STATE_RESOLVED);
         updates.put("resolvedAction", resolvedAction);
-        updates.put("resolvedAt", FieldValue.serverTimestamp());
+        updates.put("resolvedAt", Remote.STORE.serverTimestamp());
 
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS)
-                .document(notificationDocId)
-                .set(updates, SetOptions.merge());
+        Remote.STORE.merge(COLLECTION_USER_NOTIFICATIONS, notificationDocId, updates);
     }
 
     public static void cancelNotification(@NonNull Context context, @Nullable String notificationDocId) {
@@ -263,8 +252,7 @@ public final class AppNotificationManager {
 
     private static void showNotificationFromDoc(
             @NonNull Context context,
-            @NonNull FirebaseFirestore firestore,
-            @NonNull DocumentSnapshot doc
+            @NonNull RemoteDocument doc
     ) {
         if (!canPostNotifications(context)) return;
 
@@ -308,17 +296,15 @@ public final class AppNotificationManager {
 
         Map<String, Object> updates = new HashMap<>();
         updates.put("state", STATE_SHOWN);
-        updates.put("shownAt", FieldValue.serverTimestamp());
-        firestore.collection(COLLECTION_USER_NOTIFICATIONS)
-                .document(doc.getId())
-                .set(updates, SetOptions.merge());
+        updates.put("shownAt", Remote.STORE.serverTimestamp());
+        Remote.STORE.merge(COLLECTION_USER_NOTIFICATIONS, doc.getId(), updates);
     }
 
     @NonNull
     private static PendingIntent buildContentIntent(
             @NonNull Context context,
             @Nullable String type,
-            @NonNull DocumentSnapshot doc,
+            @NonNull RemoteDocument doc,
             int requestCode
     ) {
         Intent intent;
@@ -350,7 +336,7 @@ public final class AppNotificationManager {
     private static PendingIntent buildFriendRequestActionIntent(
             @NonNull Context context,
             @NonNull String action,
-            @NonNull DocumentSnapshot doc,
+            @NonNull RemoteDocument doc,
             int requestCode
     ) {
         Intent intent = new Intent(context, NotificationActionReceiver.class);
@@ -7,9 +7,8 @@ import android.content.Intent;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.SetOptions;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -37,22 +36,20 @@ public class NotificationActionReceiver extends BroadcastReceiver {
         if (friendshipId == null || friendshipId.trim().isEmpty()) return;
 
         PendingResult pendingResult = goAsync();
-        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        RemoteStore remote = RemoteStores.forCaller("NotificationActionReceiver");
         String newStatus = acceptAction ? "ACCEPTED" : "REJECTED";
 
         Map<String, Object> friendshipUpdates = new HashMap<>();
         friendshipUpdates.put("status", newStatus);
-        friendshipUpdates.put("respondedAt", FieldValue.serverTimestamp());
+        friendshipUpdates.put("respondedAt", remote.serverTimestamp());
 
-        firestore.collection("friendships")
-                .document(friendshipId)
-                .set(friendshipUpdates, SetOptions.merge())
+        remote.merge("friendships", friendshipId, friendshipUpdates)
                 .addOnSuccessListener(unused -> {
-                    AppNotificationManager.resolveNotificationById(firestore, notificationDocId, newStatus);
+                    AppNotificationManager.resolveNotificationById(notificationDocId, newStatus);
                     AppNotificationManager.cancelNotification(context, notificationDocId);
 
                     if (acceptAction && senderId != null && !senderId.trim().isEmpty()) {
-                        sendAcceptedNotification(firestore, senderId, receiverId, pendingResult);
+                        sendAcceptedNotification(remote, senderId, receiverId, pendingResult);
                     } else {
                         pendingResult.finish();
                     }
@@ -61,14 +58,13 @@ public class NotificationActionReceiver extends BroadcastReceiver {
     }
 
     private void sendAcceptedNotification(
-            @NonNull FirebaseFirestore firestore,
+            @NonNull RemoteStore remote,
             @NonNull String senderId,
             @Nullable String receiverId,
             @NonNull PendingResult pendingResult
     ) {
         if (receiverId == null || receiverId.trim().isEmpty()) {
             AppNotificationManager.createFriendRequestAcceptedNotification(
-                    firestore,
                     senderId,
                     "",
                     "Korisnik"
@@ -77,8 +73,7 @@ public class NotificationActionReceiver extends BroadcastReceiver {
             return;
         }
 
-        firestore.collection("users").document(receiverId)
-                .get()
+        remote.get("users", receiverId)
                 .addOnSuccessListener(doc -> {
                     String acceptorName = doc.getString("username");
                     if (acceptorName == null || acceptorName.trim().isEmpty()) {
@@ -86,7 +81,6 @@ public class NotificationActionReceiver extends BroadcastReceiver {
                     }
 
                     AppNotificationManager.createFriendRequestAcceptedNotification(
-                            firestore,
                             senderId,
                             receiverId,
                             acceptorName
@@ -95,7 +89,6 @@ public class NotificationActionReceiver extends BroadcastReceiver {
                 })
                 .addOnFailureListener(e -> {
                     AppNotificationManager.createFriendRequestAcceptedNotification(
-                            firestore,
                             senderId,
                             receiverId,
                             "Korisnik"
@@ -0,0 +1,63 @@
+package com.example.rpghabittracker.services;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.rpghabittracker.data.repository.TaskRepository;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic background job that generates the recurring occurrences missed
+ * since the last run and then fails the expired ones, so the task list is
+ * up to date even when the app has not been opened for days.
+ */
+public class OccurrenceCatchUpWorker extends Worker {
+
+    private static final String TAG = "OccurrenceCatchUp";
+    private static final String WORK_NAME = "occurrence-catch-up";
+    private static final long INTERVAL_HOURS = 6;
+
+    public OccurrenceCatchUpWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Idempotent: keeps the already scheduled job
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                OccurrenceCatchUpWorker.class, INTERVAL_HOURS, TimeUnit.HOURS).build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return Result.success();
+
+        TaskRepository repository = TaskRepository.getInstance((Application) getApplicationContext());
+        try {
+            repository.generateMissedOccurrences(user.getUid()).get();
+            repository.processExpiredTasks(user.getUid()).get();
+            return Result.success();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Catch-up failed", e);
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+    }
+}
@@ -17,7 +17,9 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
-import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.data.model.TaskStatus;
 import com.google.android.material.card.MaterialCardView;
 
 import java.text.SimpleDateFormat;
@@ -25,18 +27,18 @@ import java.util.Date;
 import java.util.Locale;
 
 /**
- * RecyclerView Adapter for Task items
+ * RecyclerView Adapter for Task items (bound to the slim TaskListItem projection)
  */
-public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
+public class TaskAdapter extends ListAdapter<TaskListItem, TaskAdapter.TaskViewHolder> {
     
     private final TaskClickListener listener;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM d, h:mm a", Locale.getDefault());
     private final SimpleDateFormat todayFormat = new SimpleDateFormat("'Today,' h:mm a", Locale.getDefault());
     
     public interface TaskClickListener {
-        void onTaskClick(Task task);
-        void onTaskComplete(Task task, boolean isChecked);
-        void onTaskLongClick(Task task);
+        void onTaskClick(TaskListItem task);
+        void onTaskComplete(TaskListItem task, boolean isChecked);
+        void onTaskLongClick(TaskListItem task);
     }
     
     public TaskAdapter(TaskClickListener listener) {
@@ -44,16 +46,16 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
         this.listener = listener;
     }
     
-    private static final DiffUtil.ItemCallback<Task> DIFF_CALLBACK = new DiffUtil.ItemCallback<Task>() {
+    private static final DiffUtil.ItemCallback<TaskListItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<TaskListItem>() {
         @Override
-        public boolean areItemsTheSame(@NonNull Task oldItem, @NonNull Task newItem) {
+        public boolean areItemsTheSame(@NonNull TaskListItem oldItem, @NonNull TaskListItem newItem) {
             return oldItem.getId().equals(newItem.getId());
         }
         
         @Override
-        public boolean areContentsTheSame(@NonNull Task oldItem, @NonNull Task newItem) {
+        public boolean areContentsTheSame(@NonNull TaskListItem oldItem, @NonNull TaskListItem newItem) {
             return oldItem.getName().equals(newItem.getName())
-                && oldItem.getStatus().equals(newItem.getStatus())
+                && oldItem.getStatus() == newItem.getStatus()
                 && oldItem.getTotalXp() == newItem.getTotalXp()
                 && oldItem.getDueDate() == newItem.getDueDate();
         }
@@ -69,7 +71,7 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
     
     @Override
     public void onBindViewHolder(@NonNull TaskViewHolder holder, int position) {
-        Task task = getItem(position);
+        TaskListItem task = getItem(position);
         holder.bind(task);
     }
     
@@ -105,7 +107,7 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
             textStatus = itemView.findViewById(R.id.textStatus);
         }
         
-        void bind(Task task) {
+        void bind(TaskListItem task) {
             Context context = itemView.getContext();
             
             // Task name
@@ -156,9 +158,10 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
             iconRecurring.setVisibility(task.isRecurring() ? View.VISIBLE : View.GONE);
             
             // Status handling
-            boolean isActive = Task.STATUS_ACTIVE.equals(task.getStatus());
-            boolean isCompleted = Task.STATUS_COMPLETED.equals(task.getStatus());
-            boolean isFailed = Task.STATUS_FAILED.equals(task.getStatus());
+            TaskStatus status = task.getStatus();
+            boolean isActive = status == TaskStatus.ACTIVE;
+            boolean isCompleted = status == TaskStatus.COMPLETED;
+            boolean isFailed = status == TaskStatus.FAILED;
             
             if (isActive) {
                 checkboxComplete.setVisibility(View.VISIBLE);
@@ -182,7 +185,7 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
             } else {
                 checkboxComplete.setVisibility(View.GONE);
                 textStatus.setVisibility(View.VISIBLE);
-                textStatus.setText(task.getStatus());
+                textStatus.setText(status != null ? status.name() : "");
                 cardTask.setAlpha(0.7f);
             }
             
@@ -204,7 +207,7 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
             });
         }
         
-        private void bindDifficulty(String difficulty, Context context) {
+        private void bindDifficulty(TaskDifficulty difficulty, Context context) {
             if (difficulty == null) {
                 textDifficulty.setText("Normal");
                 iconDifficulty.setColorFilter(ContextCompat.getColor(context, R.color.difficulty_2));
@@ -212,19 +215,19 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
             }
             
             switch (difficulty) {
-                case Task.DIFFICULTY_VERY_EASY:
+                case VERY_EASY:
                     textDifficulty.setText("Very Easy");
                     iconDifficulty.setColorFilter(ContextCompat.getColor(context, R.color.difficulty_1));
                     break;
-                case Task.DIFFICULTY_EASY:
+                case EASY:
                     textDifficulty.setText("Easy");
                     iconDifficulty.setColorFilter(ContextCompat.getColor(context, R.color.difficulty_2));
                     break;
-                case Task.DIFFICULTY_HARD:
+                case HARD:
                     textDifficulty.setText("Hard");
                     iconDifficulty.setColorFilter(ContextCompat.getColor(context, R.color.difficulty_4));
                     break;
-                case Task.DIFFICULTY_EXTREME:
+                case EXTREME:
                     textDifficulty.setText("Extreme");
                     iconDifficulty.setColorFilter(ContextCompat.getColor(context, R.color.difficulty_5));
                     break;
@@ -234,15 +237,15 @@ public class TaskAdapter extends ListAdapter<Task, TaskAdapter.TaskViewHolder> {
             }
         }
         
-        private void setCategoryColor(Task task, Context context) {
+        private void setCategoryColor(TaskListItem task, Context context) {
             // Default colors based on difficulty for now
-            String difficulty = task.getDifficulty();
+            TaskDifficulty difficulty = task.getDifficulty();
             int color;
-            if (Task.DIFFICULTY_EXTREME.equals(difficulty)) {
+            if (difficulty == TaskDifficulty.EXTREME) {
                 color = ContextCompat.getColor(context, R.color.difficulty_5);
-            } else if (Task.DIFFICULTY_HARD.equals(difficulty)) {
+            } else if (difficulty == TaskDifficulty.HARD) {
                 color = ContextCompat.getColor(context, R.color.difficulty_4);
-            } else if (Task.DIFFICULTY_EASY.equals(difficulty)) {
+            } else if (difficulty == TaskDifficulty.EASY) {
                 color = ContextCompat.getColor(context, R.color.difficulty_2);
             } else {
                 color = ContextCompat.getColor(context, R.color.primary);
@@ -15,6 +15,10 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.notifications.AppNotificationManager;
 import com.example.rpghabittracker.utils.AllianceMissionManager;
 import com.google.android.material.appbar.MaterialToolbar;
@@ -22,10 +26,6 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.Timestamp;
 
 import java.util.ArrayList;
@@ -59,7 +59,7 @@ public class AllianceActivity extends AppCompatActivity {
     private MaterialButton buttonStartMission;
     private MaterialButton buttonLeaveAlliance;
 
-    private FirebaseFirestore firestore;
+    private final RemoteStore remote = RemoteStores.forCaller("AllianceActivity");
     private String currentUserId;
     private String currentAllianceId;
     private boolean isLeader = false;
@@ -69,7 +69,6 @@ public class AllianceActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_alliance);
 
-        firestore = FirebaseFirestore.getInstance();
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user == null) {
             finish();
@@ -115,8 +114,7 @@ public class AllianceActivity extends AppCompatActivity {
     }
 
     private void checkUserAlliance() {
-        firestore.collection("users").document(currentUserId)
-                .get()
+        remote.get("users", currentUserId)
                 .addOnSuccessListener(doc -> {
                     if (doc.exists()) {
                         String allianceId = doc.getString("allianceId");
@@ -153,8 +151,7 @@ public class AllianceActivity extends AppCompatActivity {
             return;
         }
         
-        firestore.collection("alliances").document(currentAllianceId)
-                .get()
+        remote.get("alliances", currentAllianceId)
                 .addOnSuccessListener(doc -> {
                     if (!doc.exists()) {
                         showNoAllianceView();
@@ -163,7 +160,6 @@ public class AllianceActivity extends AppCompatActivity {
 
                     if (shouldFinalizeExpiredMission(doc)) {
                         AllianceMissionManager.finalizeMissionIfExpired(
-                                firestore,
                                 currentAllianceId,
                                 (finalized, won, message) -> loadAllianceData()
                         );
@@ -177,7 +173,7 @@ public class AllianceActivity extends AppCompatActivity {
                 });
     }
 
-    private void displayAllianceData(DocumentSnapshot doc) {
+    private void displayAllianceData(RemoteDocument doc) {
         if (!doc.exists()) {
             showNoAllianceView();
             return;
@@ -251,12 +247,10 @@ public class AllianceActivity extends AppCompatActivity {
             return;
         }
 
-        firestore.collection("alliances").document(currentAllianceId)
-                .collection("missionProgress")
-                .get()
-                .addOnSuccessListener(snapshot -> {
+        remote.query(RemoteQuery.on(missionProgressCollection()))
+                .addOnSuccessListener(documents -> {
                     Map<String, Integer> missionDamageByUser = new HashMap<>();
-                    for (DocumentSnapshot progressDoc : snapshot.getDocuments()) {
+                    for (RemoteDocument progressDoc : documents) {
                         missionDamageByUser.put(progressDoc.getId(), getInt(progressDoc.get("damageDealt"), 0));
                     }
                     loadMemberProfiles(memberIds, missionDamageByUser);
@@ -269,8 +263,7 @@ public class AllianceActivity extends AppCompatActivity {
         AtomicInteger pending = new AtomicInteger(memberIds.size());
 
         for (String memberId : memberIds) {
-            firestore.collection("users").document(memberId)
-                    .get()
+            remote.get("users", memberId)
                     .addOnSuccessListener(doc -> {
                         MemberItem item = new MemberItem();
                         item.id = memberId;
@@ -342,7 +335,7 @@ public class AllianceActivity extends AppCompatActivity {
         alliance.put("name", name);
         alliance.put("leaderId", currentUserId);
         alliance.put("memberIds", memberIds);
-        alliance.put("createdAt", FieldValue.serverTimestamp());
+        alliance.put("createdAt", remote.serverTimestamp());
         alliance.put("missionActive", false);
         alliance.put("missionBossHp", 0);
         alliance.put("missionBossCurrentHp", 0);
@@ -353,12 +346,10 @@ public class AllianceActivity extends AppCompatActivity {
         alliance.put("missionWon", false);
         alliance.put("status", "ACTIVE");
 
-        firestore.collection("alliances").document(allianceId)
-                .set(alliance)
+        remote.set("alliances", allianceId, alliance)
                 .addOnSuccessListener(aVoid -> {
                     // Update user's alliance ID
-                    firestore.collection("users").document(currentUserId)
-                            .update("allianceId", allianceId)
+                    remote.merge("users", currentUserId, allianceIdUpdate(allianceId))
                             .addOnSuccessListener(aVoid2 -> {
                                 currentAllianceId = allianceId;
                                 Toast.makeText(this, "Savez kreiran!", Toast.LENGTH_SHORT).show();
@@ -373,14 +364,12 @@ public class AllianceActivity extends AppCompatActivity {
 
     private void showJoinAllianceDialog() {
         // Show list of available alliances
-        firestore.collection("alliances")
-                .limit(20)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on("alliances").limit(20))
+                .addOnSuccessListener(documents -> {
                     List<String> names = new ArrayList<>();
                     List<String> ids = new ArrayList<>();
                     
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         if (isMissionLocked(doc)) continue;
                         String allianceName = doc.getString("name");
                         names.add((allianceName == null || allianceName.trim().isEmpty()) ? "Savez" : allianceName);
@@ -405,8 +394,7 @@ public class AllianceActivity extends AppCompatActivity {
     }
 
     private void requestJoinAlliance(String allianceId) {
-        firestore.collection("alliances").document(allianceId)
-                .get()
+        remote.get("alliances", allianceId)
                 .addOnSuccessListener(allianceDoc -> {
                     if (!allianceDoc.exists()) {
                         Toast.makeText(this, "Savez ne postoji", Toast.LENGTH_SHORT).show();
@@ -417,11 +405,11 @@ public class AllianceActivity extends AppCompatActivity {
                         return;
                     }
 
-                    firestore.collection("alliances").document(allianceId)
-                            .update("memberIds", FieldValue.arrayUnion(currentUserId))
+                    Map<String, Object> join = new HashMap<>();
+                    join.put("memberIds", remote.arrayUnion(currentUserId));
+                    remote.merge("alliances", allianceId, join)
                             .addOnSuccessListener(aVoid -> {
-                                firestore.collection("users").document(currentUserId)
-                                        .update("allianceId", allianceId)
+                                remote.merge("users", currentUserId, allianceIdUpdate(allianceId))
                                         .addOnSuccessListener(aVoid2 -> {
                                             String leaderId = allianceDoc.getString("leaderId");
                                             if (leaderId != null && !leaderId.equals(currentUserId)) {
@@ -444,8 +432,7 @@ public class AllianceActivity extends AppCompatActivity {
     }
 
     private void notifyLeaderAboutJoin(@NonNull String leaderId, @NonNull String allianceId) {
-        firestore.collection("users").document(currentUserId)
-                .get()
+        remote.get("users", currentUserId)
                 .addOnSuccessListener(userDoc -> {
                     String username = userDoc.getString("username");
                     if (username == null || username.trim().isEmpty()) {
@@ -453,7 +440,6 @@ public class AllianceActivity extends AppCompatActivity {
                     }
 
                     AppNotificationManager.createAllianceMemberJoinedNotification(
-                            firestore,
                             leaderId,
                             allianceId,
                             currentUserId,
@@ -478,7 +464,6 @@ public class AllianceActivity extends AppCompatActivity {
         if (!isLeader) return;
 
         AllianceMissionManager.startMission(
-                firestore,
                 currentAllianceId,
                 currentUserId,
                 (success, message, bossHp) -> {
@@ -513,18 +498,16 @@ public class AllianceActivity extends AppCompatActivity {
 
     private void leaveAllianceInternal() {
         if (isLeader) {
-            firestore.collection("alliances").document(currentAllianceId)
-                    .get()
+            remote.get("alliances", currentAllianceId)
                     .addOnSuccessListener(doc -> {
                         List<String> memberIds = getStringList(doc.get("memberIds"));
 
+                        RemoteStore.Batch batch = remote.batch();
                         for (String memberId : memberIds) {
-                            firestore.collection("users").document(memberId)
-                                    .update("allianceId", null);
+                            batch.merge("users", memberId, allianceIdUpdate(null));
                         }
-
-                        firestore.collection("alliances").document(currentAllianceId)
-                                .delete()
+                        batch.delete("alliances", currentAllianceId)
+                                .commit()
                                 .addOnSuccessListener(aVoid -> {
                                     currentAllianceId = null;
                                     Toast.makeText(this, "Savez je uništen", Toast.LENGTH_SHORT).show();
@@ -532,11 +515,11 @@ public class AllianceActivity extends AppCompatActivity {
                                 });
                     });
         } else {
-            firestore.collection("alliances").document(currentAllianceId)
-                    .update("memberIds", FieldValue.arrayRemove(currentUserId))
+            Map<String, Object> leave = new HashMap<>();
+            leave.put("memberIds", remote.arrayRemove(currentUserId));
+            remote.merge("alliances", currentAllianceId, leave)
                     .addOnSuccessListener(aVoid -> {
-                        firestore.collection("users").document(currentUserId)
-                                .update("allianceId", null)
+                        remote.merge("users", currentUserId, allianceIdUpdate(null))
                                 .addOnSuccessListener(aVoid2 -> {
                                     currentAllianceId = null;
                                     Toast.makeText(this, "Napustili ste savez", Toast.LENGTH_SHORT).show();
@@ -549,8 +532,7 @@ public class AllianceActivity extends AppCompatActivity {
     private void runWhenMissionUnlocked(@NonNull Runnable action) {
         if (currentAllianceId == null || currentAllianceId.trim().isEmpty()) return;
 
-        firestore.collection("alliances").document(currentAllianceId)
-                .get()
+        remote.get("alliances", currentAllianceId)
                 .addOnSuccessListener(doc -> {
                     if (!doc.exists()) {
                         showNoAllianceView();
@@ -558,7 +540,6 @@ public class AllianceActivity extends AppCompatActivity {
                     }
                     if (shouldFinalizeExpiredMission(doc)) {
                         AllianceMissionManager.finalizeMissionIfExpired(
-                                firestore,
                                 currentAllianceId,
                                 (finalized, won, message) -> {
                                     if (finalized) {
@@ -587,10 +568,7 @@ public class AllianceActivity extends AppCompatActivity {
             return;
         }
 
-        firestore.collection("alliances").document(currentAllianceId)
-                .collection("missionProgress")
-                .document(currentUserId)
-                .get()
+        remote.get(missionProgressCollection(), currentUserId)
                 .addOnSuccessListener(progressDoc -> {
                     int myDamage = getInt(progressDoc.get("damageDealt"), 0);
                     textMyMissionProgress.setText("Moj doprinos: " + myDamage + " HP");
@@ -599,16 +577,26 @@ public class AllianceActivity extends AppCompatActivity {
                 .addOnFailureListener(e -> textMyMissionProgress.setVisibility(View.GONE));
     }
 
-    private boolean shouldFinalizeExpiredMission(DocumentSnapshot doc) {
+    private boolean shouldFinalizeExpiredMission(RemoteDocument doc) {
         boolean missionActive = Boolean.TRUE.equals(doc.getBoolean("missionActive"));
         long missionEnd = getMillis(doc.get("missionEndTime"), 0L);
         return missionActive && missionEnd > 0L && System.currentTimeMillis() > missionEnd;
     }
 
-    private boolean isMissionLocked(DocumentSnapshot doc) {
+    private boolean isMissionLocked(RemoteDocument doc) {
         return Boolean.TRUE.equals(doc.getBoolean("missionActive"));
     }
 
+    private String missionProgressCollection() {
+        return "alliances/" + currentAllianceId + "/missionProgress";
+    }
+
+    private static Map<String, Object> allianceIdUpdate(String allianceId) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("allianceId", allianceId);
+        return update;
+    }
+
     private String formatTimeLeft(long millisLeft) {
         if (millisLeft <= 0) return "Preostalo: 0 min";
 
@@ -11,19 +11,22 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.RemoteChange;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.notifications.AppNotificationManager;
 import com.example.rpghabittracker.utils.AllianceMissionManager;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
-import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -37,12 +40,13 @@ public class AllianceChatActivity extends AppCompatActivity {
     private EditText editMessage;
     private ImageButton buttonSend;
 
-    private FirebaseFirestore firestore;
+    private final RemoteStore remote = RemoteStores.forCaller("AllianceChatActivity");
     private String currentUserId;
     private String currentUsername;
     private String allianceId;
-    private ListenerRegistration messageListener;
+    private RemoteStore.Registration messageListener;
 
+    private final Map<String, ChatMessage> messagesById = new LinkedHashMap<>();
     private List<ChatMessage> messages = new ArrayList<>();
     private ChatAdapter adapter;
 
@@ -58,7 +62,6 @@ public class AllianceChatActivity extends AppCompatActivity {
             return;
         }
 
-        firestore = FirebaseFirestore.getInstance();
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user == null) {
             finish();
@@ -93,8 +96,7 @@ public class AllianceChatActivity extends AppCompatActivity {
     }
 
     private void loadUserData() {
-        firestore.collection("users").document(currentUserId)
-                .get()
+        remote.get("users", currentUserId)
                 .addOnSuccessListener(doc -> {
                     if (doc.exists()) {
                         currentUsername = doc.getString("username");
@@ -103,28 +105,35 @@ public class AllianceChatActivity extends AppCompatActivity {
     }
 
     private void setupMessageListener() {
-        messageListener = firestore.collection("alliances")
-                .document(allianceId)
-                .collection("messages")
-                .orderBy("timestamp", Query.Direction.ASCENDING)
-                .addSnapshotListener((snapshot, error) -> {
+        // Only changes arrive, so the full list is kept here and re-sorted on each batch
+        messageListener = remote.listen(RemoteQuery.on(messagesCollection()).orderBy("timestamp"),
+                (changes, error) -> {
                     if (error != null) {
                         Toast.makeText(this, getFirestoreErrorMessage(error, "učitavanju poruka"), Toast.LENGTH_LONG).show();
                         return;
                     }
-                    if (snapshot == null) return;
-
-                    messages.clear();
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : snapshot.getDocuments()) {
+                    if (changes == null) return;
+
+                    for (RemoteChange change : changes) {
+                        RemoteDocument doc = change.getDocument();
+                        if (change.getType() == RemoteChange.Type.REMOVED) {
+                            messagesById.remove(doc.getId());
+                            continue;
+                        }
                         ChatMessage message = new ChatMessage();
                         message.id = doc.getId();
                         message.senderId = doc.getString("senderId");
                         message.senderName = doc.getString("senderName");
                         message.text = doc.getString("text");
-                        message.timestamp = doc.getTimestamp("timestamp");
-                        messages.add(message);
+                        message.timestamp = doc.getMillis("timestamp");
+                        message.timestampClient = doc.getMillis("timestampClient");
+                        messagesById.put(message.id, message);
                     }
 
+                    messages.clear();
+                    messages.addAll(messagesById.values());
+                    Collections.sort(messages, (a, b) -> Long.compare(sortKey(a), sortKey(b)));
+
                     adapter.notifyDataSetChanged();
                     if (!messages.isEmpty()) {
                         recyclerMessages.scrollToPosition(messages.size() - 1);
@@ -132,6 +141,16 @@ public class AllianceChatActivity extends AppCompatActivity {
                 });
     }
 
+    // A just-sent message has no server timestamp yet and belongs at the end
+    private static long sortKey(ChatMessage message) {
+        if (message.timestamp != null) return message.timestamp;
+        return message.timestampClient != null ? message.timestampClient : Long.MAX_VALUE;
+    }
+
+    private String messagesCollection() {
+        return "alliances/" + allianceId + "/messages";
+    }
+
     private void sendMessage() {
         String text = editMessage.getText().toString().trim();
         if (TextUtils.isEmpty(text)) return;
@@ -145,18 +164,14 @@ public class AllianceChatActivity extends AppCompatActivity {
         message.put("senderName", currentUsername != null ? currentUsername : "Unknown");
         message.put("text", text);
         message.put("timestampClient", System.currentTimeMillis());
-        message.put("timestamp", FieldValue.serverTimestamp());
+        message.put("timestamp", remote.serverTimestamp());
 
-        firestore.collection("alliances")
-                .document(allianceId)
-                .collection("messages")
-                .document(messageId)
-                .set(message)
+        remote.set(messagesCollection(), messageId, message)
                 .addOnSuccessListener(aVoid -> {
                     editMessage.setText("");
 
                     // Special mission rule: one message contribution per day (+4 HP damage).
-                    AllianceMissionManager.recordMessageDay(firestore, allianceId, currentUserId, null);
+                    AllianceMissionManager.recordMessageDay(allianceId, currentUserId, null);
                     notifyAllianceMembers(messageId, text);
                 })
                 .addOnFailureListener(e ->
@@ -166,9 +181,7 @@ public class AllianceChatActivity extends AppCompatActivity {
 
     @SuppressWarnings("unchecked")
     private void notifyAllianceMembers(String messageId, String messageText) {
-        firestore.collection("alliances")
-                .document(allianceId)
-                .get()
+        remote.get("alliances", allianceId)
                 .addOnSuccessListener(allianceDoc -> {
                     if (!allianceDoc.exists()) return;
 
@@ -186,7 +199,6 @@ public class AllianceChatActivity extends AppCompatActivity {
                         if (memberId.equals(currentUserId)) continue;
 
                         AppNotificationManager.createAllianceMessageNotification(
-                                firestore,
                                 memberId,
                                 allianceId,
                                 messageId,
@@ -229,6 +241,7 @@ public class AllianceChatActivity extends AppCompatActivity {
         String senderId;
         String senderName;
         String text;
-        com.google.firebase.Timestamp timestamp;
+        Long timestamp; // server time, null while the send is pending
+        Long timestampClient;
     }
 }
@@ -54,7 +54,7 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {
 
         // Format timestamp
         if (message.timestamp != null) {
-            Date date = message.timestamp.toDate();
+            Date date = new Date(message.timestamp);
             holder.textTime.setText(timeFormat.format(date));
         } else {
             holder.textTime.setText("");
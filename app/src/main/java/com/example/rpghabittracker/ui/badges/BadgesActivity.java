@@ -10,13 +10,16 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Badge;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Activity for displaying user badges/achievements
@@ -26,7 +29,7 @@ public class BadgesActivity extends AppCompatActivity {
     private RecyclerView recyclerBadges;
     private TextView textUnlockedCount;
     private BadgeAdapter adapter;
-    private FirebaseFirestore db;
+    private final RemoteStore remote = RemoteStores.forCaller("BadgesActivity");
     private String userId;
     
     // User stats for badge checking
@@ -51,7 +54,6 @@ public class BadgesActivity extends AppCompatActivity {
             return;
         }
         userId = currentUser.getUid();
-        db = FirebaseFirestore.getInstance();
         
         initViews();
         loadUserStats();
@@ -73,8 +75,7 @@ public class BadgesActivity extends AppCompatActivity {
     }
     
     private void loadUserStats() {
-        db.collection("users").document(userId)
-                .get()
+        remote.get("users", userId)
                 .addOnSuccessListener(document -> {
                     if (document.exists()) {
                         Long tc = document.getLong("totalTasksCompleted");
@@ -104,7 +105,7 @@ public class BadgesActivity extends AppCompatActivity {
                         @SuppressWarnings("unchecked")
                         List<String> badges = (List<String>) document.get("badges");
                         if (badges != null) {
-                            unlockedBadgeIds = badges;
+                            unlockedBadgeIds = new ArrayList<>(badges);
                         }
                         
                         updateBadges();
@@ -164,8 +165,9 @@ public class BadgesActivity extends AppCompatActivity {
         if (!unlockedBadgeIds.contains(badgeId)) {
             unlockedBadgeIds.add(badgeId);
             
-            db.collection("users").document(userId)
-                    .update("badges", unlockedBadgeIds)
+            Map<String, Object> update = new HashMap<>();
+            update.put("badges", new ArrayList<>(unlockedBadgeIds));
+            remote.merge("users", userId, update)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(this, "🎉 Nova značka otključana!", Toast.LENGTH_SHORT).show();
                     });
@@ -26,6 +26,10 @@ import com.airbnb.lottie.LottieAnimationView;
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Boss;
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.viewmodel.UserViewModel;
 import com.example.rpghabittracker.utils.AllianceMissionManager;
 import com.google.android.material.appbar.MaterialToolbar;
@@ -34,10 +38,6 @@ import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.SetOptions;
 import com.google.android.material.snackbar.Snackbar;
 
 import java.util.HashMap;
@@ -117,6 +117,7 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
     private boolean bossLevelProgressed = false;
     
     private final Handler handler = new Handler(Looper.getMainLooper());
+    private final RemoteStore remote = RemoteStores.forCaller("BattleActivity");
     private final Random random = new Random();
     
     @Override
@@ -272,19 +273,17 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
      * Tasks that exceed the daily/weekly quota (countsTowardQuota=false) are excluded.
      */
     private void loadHitChanceFromSuccessRate(String userId, long currentLevelStartTime) {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-
-        db.collection("tasks")
-                .whereEqualTo("userId", userId)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on("tasks").whereEqualTo("userId", userId))
+                .addOnSuccessListener(documents -> {
                     int eligibleTasks = 0;
                     int completedTasks = 0;
 
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         // Skip recurring templates — they are never directly completed;
                         // only their daily occurrence copies count toward success rate.
-                        Boolean isRecurring = doc.getBoolean("isRecurring");
+                        // Compact (v2) task documents use short keys, see TaskWireFormat
+                        Boolean isRecurring = doc.contains("r")
+                                ? doc.getBoolean("r") : doc.getBoolean("isRecurring");
                         String parentTaskId = doc.getString("parentTaskId");
                         boolean isTemplate = Boolean.TRUE.equals(isRecurring)
                                 && (parentTaskId == null || parentTaskId.isEmpty());
@@ -338,18 +337,9 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
                 });
     }
 
-    private Long resolveCreatedAtMillis(QueryDocumentSnapshot doc) {
-        Number createdAtNumber = (Number) doc.get("createdAt");
-        if (createdAtNumber != null) {
-            return createdAtNumber.longValue();
-        }
-
-        Timestamp createdAtTimestamp = doc.getTimestamp("createdAt");
-        if (createdAtTimestamp != null) {
-            return createdAtTimestamp.toDate().getTime();
-        }
-
-        return null;
+    private Long resolveCreatedAtMillis(RemoteDocument doc) {
+        // Plain millis, or a Timestamp on old documents
+        return doc.getMillis(doc.contains("ca") ? "ca" : "createdAt");
     }
 
     private String normalizeTaskStatus(String rawStatus) {
@@ -365,20 +355,15 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
     }
     
     private void loadEquipmentBonuses(String userId) {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        
-        db.collection("users").document(userId)
-                .collection("equipment")
-                .whereEqualTo("active", true)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on(equipmentCollection(userId)).whereEqualTo("active", true))
+                .addOnSuccessListener(documents -> {
                     int ppBonus = 0;
                     float damageBonus = 1.0f;
                     float critBonus = 0.0f;
                     float hitChanceBonus = 0.0f;
                     int extraAttacks = BASE_MAX_ATTACKS; // start fresh each load
 
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         Number bonus = (Number) doc.get("bonus");
                         String effect = doc.getString("effect");
                         double bonusValue = bonus != null ? bonus.doubleValue() : 0d;
@@ -479,10 +464,7 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
             return;
         }
 
-        FirebaseFirestore.getInstance()
-                .collection("users")
-                .document(userIdForBattle)
-                .get()
+        remote.get("users", userIdForBattle)
                 .addOnSuccessListener(doc -> {
                     Long level = doc.getLong("bossLevel");
                     int resolvedLevel = (level != null && level > 0) ? level.intValue() : 1;
@@ -490,10 +472,7 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
                     if (level == null) {
                         Map<String, Object> init = new HashMap<>();
                         init.put("bossLevel", resolvedLevel);
-                        FirebaseFirestore.getInstance()
-                                .collection("users")
-                                .document(userIdForBattle)
-                                .set(init, SetOptions.merge());
+                        remote.merge("users", userIdForBattle, init);
                     }
 
                     applyBossLevel(resolvedLevel);
@@ -639,7 +618,7 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
 
         // Special mission rule: successful regular-boss hit contributes to alliance mission.
         if (userIdForBattle != null && !userIdForBattle.trim().isEmpty()) {
-            AllianceMissionManager.recordBattleHit(FirebaseFirestore.getInstance(), userIdForBattle, null);
+            AllianceMissionManager.recordBattleHit(userIdForBattle, null);
         }
         
         // Per project spec: successful hit removes PP value from boss HP.
@@ -874,23 +853,26 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
      */
     private void decrementClothingDurability() {
         if (userIdForBattle == null) return;
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("users").document(userIdForBattle)
-                .collection("equipment")
-                .whereEqualTo("type", "CLOTHING")
-                .whereEqualTo("active", true)
-                .get()
-                .addOnSuccessListener(snapshots -> {
-                    for (QueryDocumentSnapshot doc : snapshots) {
+        String collection = equipmentCollection(userIdForBattle);
+        remote.query(RemoteQuery.on(collection)
+                        .whereEqualTo("type", "CLOTHING")
+                        .whereEqualTo("active", true))
+                .addOnSuccessListener(documents -> {
+                    if (documents.isEmpty()) return;
+                    RemoteStore.Batch batch = remote.batch();
+                    for (RemoteDocument doc : documents) {
                         Long remaining = doc.getLong("battlesRemaining");
                         int left = remaining != null ? remaining.intValue() : 0;
                         if (left <= 1) {
                             // Last battle — deactivate and delete (spec: removed after 2 battles)
-                            doc.getReference().delete();
+                            batch.delete(collection, doc.getId());
                         } else {
-                            doc.getReference().update("battlesRemaining", left - 1);
+                            Map<String, Object> update = new HashMap<>();
+                            update.put("battlesRemaining", left - 1);
+                            batch.merge(collection, doc.getId(), update);
                         }
                     }
+                    batch.commit();
                 });
     }
 
@@ -903,7 +885,6 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
         if (userIdForBattle == null) return;
         if (random.nextFloat() > 0.20f) return; // 80% no drop
 
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
         String[] clothingTypes = {
             com.example.rpghabittracker.data.model.Equipment.CLOTHING_GLOVES,
             com.example.rpghabittracker.data.model.Equipment.CLOTHING_SHIELD,
@@ -954,28 +935,28 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
 
         // Check if weapon already owned — if so, add 0.02% upgrade bonus (spec §6)
         if (isWeaponDrop) {
-            db.collection("users").document(userIdForBattle)
-                    .collection("equipment").document(finalSubType)
-                    .get()
+            remote.get(equipmentCollection(userIdForBattle), finalSubType)
                     .addOnSuccessListener(doc -> {
                         if (doc.exists()) {
                             // Duplicate weapon → +0.02% to bonus
                             Number existing = (Number) doc.get("bonus");
                             double newBonus = (existing != null ? existing.doubleValue() : finalBonus) + 0.0002;
-                            doc.getReference().update("bonus", newBonus);
+                            Map<String, Object> update = new HashMap<>();
+                            update.put("bonus", newBonus);
+                            remote.merge(equipmentCollection(userIdForBattle), finalSubType, update);
                             runOnUiThread(() -> Toast.makeText(this,
                                     "Duplikat oružja! +" + finalName + " ojačan za 0.02%", Toast.LENGTH_SHORT).show());
                         } else {
-                            saveDroppedEquipment(db, finalSubType, finalName, finalType, finalEffect, finalBonus);
+                            saveDroppedEquipment(finalSubType, finalName, finalType, finalEffect, finalBonus);
                         }
                     });
         } else {
             // Clothing: always add/stack (same type stacks, spec §6)
-            saveDroppedEquipment(db, finalSubType, finalName, finalType, finalEffect, finalBonus);
+            saveDroppedEquipment(finalSubType, finalName, finalType, finalEffect, finalBonus);
         }
     }
 
-    private void saveDroppedEquipment(FirebaseFirestore db, String subType, String name,
+    private void saveDroppedEquipment(String subType, String name,
                                       String type, String effect, double bonus) {
         Map<String, Object> data = new HashMap<>();
         data.put("name", name);
@@ -991,13 +972,15 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
 
         // Use a unique doc ID so multiple clothing drops of same type stack as separate entries
         String docId = subType + "_" + System.currentTimeMillis();
-        db.collection("users").document(userIdForBattle)
-                .collection("equipment").document(docId)
-                .set(data)
+        remote.set(equipmentCollection(userIdForBattle), docId, data)
                 .addOnSuccessListener(aVoid -> runOnUiThread(() ->
                         Toast.makeText(this, "🎁 Dobili ste opremu: " + name + "!", Toast.LENGTH_LONG).show()));
     }
 
+    private static String equipmentCollection(String userId) {
+        return "users/" + userId + "/equipment";
+    }
+
     private void progressBossLevel() {
         if (bossLevelProgressed) return;
         bossLevelProgressed = true;
@@ -1012,10 +995,7 @@ public class BattleActivity extends AppCompatActivity implements SensorEventList
         updates.put("bossLevel", nextBossLevel);
         updates.put("lastBossDefeatedAt", System.currentTimeMillis());
 
-        FirebaseFirestore.getInstance()
-                .collection("users")
-                .document(userIdForBattle)
-                .set(updates, SetOptions.merge())
+        remote.merge("users", userIdForBattle, updates)
                 .addOnSuccessListener(aVoid -> {
                     bossLevel = nextBossLevel;
                     Toast.makeText(this, "Sledeci boss: LVL " + nextBossLevel, Toast.LENGTH_SHORT).show();
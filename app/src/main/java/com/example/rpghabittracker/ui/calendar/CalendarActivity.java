@@ -15,16 +15,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
-import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.data.repository.RecurrenceExpander;
 import com.example.rpghabittracker.ui.adapters.CalendarAdapter;
 import com.example.rpghabittracker.ui.adapters.TaskAdapter;
 import com.example.rpghabittracker.ui.tasks.TaskDetailsActivity;
 import com.example.rpghabittracker.ui.viewmodel.TaskViewModel;
 import com.example.rpghabittracker.utils.AllianceMissionManager;
+import com.example.rpghabittracker.utils.DayClock;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -54,7 +56,9 @@ public class CalendarActivity extends AppCompatActivity implements
     
     private Calendar currentCalendar;
     private Calendar selectedDate;
-    private List<Task> allTasks = new ArrayList<>();
+    private List<TaskListItem> allTasks = new ArrayList<>();
+    // Future occurrences of recurring series, projected from the templates
+    private final RecurrenceExpander recurrenceExpander = new RecurrenceExpander();
     
     private final SimpleDateFormat monthYearFormat = new SimpleDateFormat("LLLL yyyy", new Locale("sr"));
     private final SimpleDateFormat dayFormat = new SimpleDateFormat("EEEE, d. LLLL", new Locale("sr"));
@@ -113,13 +117,20 @@ public class CalendarActivity extends AppCompatActivity implements
         taskViewModel.setUserId(userId);
         
         // Observe all tasks
-        taskViewModel.getAllTasks().observe(this, tasks -> {
+        taskViewModel.getAllTaskItems().observe(this, tasks -> {
             if (tasks != null) {
                 allTasks = tasks;
+                recurrenceExpander.setStoredOccurrences(tasks);
                 updateCalendar();
                 loadTasksForSelectedDate();
             }
         });
+        
+        taskViewModel.getRecurringTemplates().observe(this, templates -> {
+            recurrenceExpander.setTemplates(templates);
+            updateCalendar();
+            loadTasksForSelectedDate();
+        });
     }
     
     private void navigateMonth(int direction) {
@@ -199,17 +210,17 @@ public class CalendarActivity extends AppCompatActivity implements
         
         int currentMonth = currentCalendar.get(Calendar.MONTH);
         int currentYear = currentCalendar.get(Calendar.YEAR);
+        // Epoch days of the shown month, [monthStart, monthEnd)
+        long monthStart = DayClock.epochDay(currentYear, currentMonth + 1, 1);
+        long monthEnd = monthStart + DayClock.lengthOfMonth(currentYear, currentMonth + 1);
         
-        for (Task task : allTasks) {
+        for (TaskListItem task : allTasks) {
             if (task.getDueDate() <= 0) continue;
             
-            Calendar taskCal = Calendar.getInstance();
-            taskCal.setTimeInMillis(task.getDueDate());
-            
-            if (taskCal.get(Calendar.MONTH) == currentMonth && 
-                taskCal.get(Calendar.YEAR) == currentYear) {
+            long taskDay = DayClock.epochDay(task.getDueDate());
+            if (taskDay >= monthStart && taskDay < monthEnd) {
                 
-                int day = taskCal.get(Calendar.DAY_OF_MONTH);
+                int day = (int) (taskDay - monthStart) + 1;
                 List<Integer> colors = indicators.get(day);
                 if (colors == null) {
                     colors = new ArrayList<>();
@@ -219,9 +230,9 @@ public class CalendarActivity extends AppCompatActivity implements
                 // Add color based on task status (max 3 indicators)
                 if (colors.size() < 3) {
                     int color;
-                    if (Task.STATUS_COMPLETED.equals(task.getStatus())) {
+                    if (task.getStatus() == TaskStatus.COMPLETED) {
                         color = ContextCompat.getColor(this, R.color.status_completed);
-                    } else if (Task.STATUS_FAILED.equals(task.getStatus())) {
+                    } else if (task.getStatus() == TaskStatus.FAILED) {
                         color = ContextCompat.getColor(this, R.color.status_failed);
                     } else {
                         color = ContextCompat.getColor(this, R.color.status_active);
@@ -231,29 +242,42 @@ public class CalendarActivity extends AppCompatActivity implements
             }
         }
         
+        // Virtual occurrences (always active)
+        int activeColor = ContextCompat.getColor(this, R.color.status_active);
+        for (Map.Entry<Integer, List<TaskListItem>> entry
+                : recurrenceExpander.month(currentYear, currentMonth).entrySet()) {
+            List<Integer> colors = indicators.get(entry.getKey());
+            if (colors == null) {
+                colors = new ArrayList<>();
+                indicators.put(entry.getKey(), colors);
+            }
+            for (int i = 0; i < entry.getValue().size() && colors.size() < 3; i++) {
+                colors.add(activeColor);
+            }
+        }
+        
         calendarAdapter.setTaskIndicators(indicators);
     }
     
     private void loadTasksForSelectedDate() {
-        List<Task> tasksForDay = new ArrayList<>();
+        List<TaskListItem> tasksForDay = new ArrayList<>();
         
         int selectedDay = selectedDate.get(Calendar.DAY_OF_MONTH);
         int selectedMonth = selectedDate.get(Calendar.MONTH);
         int selectedYear = selectedDate.get(Calendar.YEAR);
+        long selectedEpochDay = DayClock.epochDay(selectedYear, selectedMonth + 1, selectedDay);
         
-        for (Task task : allTasks) {
+        for (TaskListItem task : allTasks) {
             if (task.getDueDate() <= 0) continue;
             
-            Calendar taskCal = Calendar.getInstance();
-            taskCal.setTimeInMillis(task.getDueDate());
-            
-            if (taskCal.get(Calendar.DAY_OF_MONTH) == selectedDay &&
-                taskCal.get(Calendar.MONTH) == selectedMonth &&
-                taskCal.get(Calendar.YEAR) == selectedYear) {
+            if (DayClock.epochDay(task.getDueDate()) == selectedEpochDay) {
                 tasksForDay.add(task);
             }
         }
         
+        List<TaskListItem> virtualForDay = recurrenceExpander.month(selectedYear, selectedMonth).get(selectedDay);
+        if (virtualForDay != null) tasksForDay.addAll(virtualForDay);
+        
         if (tasksForDay.isEmpty()) {
             tasksRecyclerView.setVisibility(View.GONE);
             emptyState.setVisibility(View.VISIBLE);
@@ -296,29 +320,49 @@ public class CalendarActivity extends AppCompatActivity implements
     
     // TaskAdapter.TaskClickListener
     @Override
-    public void onTaskClick(Task task) {
+    public void onTaskClick(TaskListItem task) {
+        if (RecurrenceExpander.isVirtual(task.getId())) {
+            // Details can edit or fail it: store it first
+            taskViewModel.materializeOccurrence(task, occurrence -> {
+                if (occurrence != null) openTaskDetails(occurrence.getId());
+            });
+            return;
+        }
+        openTaskDetails(task.getId());
+    }
+    
+    private void openTaskDetails(String taskId) {
         Intent intent = new Intent(this, TaskDetailsActivity.class);
-        intent.putExtra(TaskDetailsActivity.EXTRA_TASK_ID, task.getId());
+        intent.putExtra(TaskDetailsActivity.EXTRA_TASK_ID, taskId);
         startActivity(intent);
     }
     
     @Override
-    public void onTaskComplete(Task task, boolean isChecked) {
-        if (isChecked) {
-            taskViewModel.completeTask(task, () -> {
-                AllianceMissionManager.recordTaskCompletion(
-                        FirebaseFirestore.getInstance(),
-                        userId,
-                        task,
-                        null
-                );
-                runOnUiThread(() -> loadTasksForSelectedDate());
+    public void onTaskComplete(TaskListItem task, boolean isChecked) {
+        if (!isChecked) return;
+        if (RecurrenceExpander.isVirtual(task.getId())) {
+            taskViewModel.materializeOccurrence(task, occurrence -> {
+                if (occurrence != null) completeTask(occurrence.getId(), task);
             });
+        } else {
+            completeTask(task.getId(), task);
         }
     }
     
+    private void completeTask(String taskId, TaskListItem task) {
+        taskViewModel.completeTask(taskId, () -> {
+            AllianceMissionManager.recordTaskCompletion(
+                    userId,
+                    task.getDifficulty(),
+                    task.getImportance(),
+                    null
+            );
+            runOnUiThread(() -> loadTasksForSelectedDate());
+        });
+    }
+    
     @Override
-    public void onTaskLongClick(Task task) {
+    public void onTaskLongClick(TaskListItem task) {
         // Open task details on long click
         onTaskClick(task);
     }
@@ -0,0 +1,68 @@
+package com.example.rpghabittracker.ui.debug;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.SyncMetrics;
+import com.google.android.material.appbar.MaterialToolbar;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Debug screen with the Firestore traffic counted by SyncMetrics:
+ * reads, writes, listeners and latency per screen and collection.
+ * "Sačuvaj" writes the report to the app's external files directory
+ * (adb pull /sdcard/Android/data/<package>/files/).
+ */
+public class SyncMetricsActivity extends AppCompatActivity {
+
+    private static final String TAG = "SyncMetricsActivity";
+
+    private TextView textMetrics;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_sync_metrics);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        toolbar.setNavigationOnClickListener(v -> finish());
+
+        textMetrics = findViewById(R.id.textMetrics);
+
+        findViewById(R.id.buttonRefresh).setOnClickListener(v -> refresh());
+        findViewById(R.id.buttonDump).setOnClickListener(v -> dumpToFile());
+        findViewById(R.id.buttonReset).setOnClickListener(v -> {
+            SyncMetrics.reset();
+            refresh();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        textMetrics.setText(SyncMetrics.dump());
+    }
+
+    private void dumpToFile() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) directory = getFilesDir();
+        try {
+            File file = SyncMetrics.dumpToFile(directory);
+            Toast.makeText(this, "Sačuvano: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write sync metrics", e);
+            Toast.makeText(this, "Greška pri čuvanju", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -12,17 +12,19 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Equipment;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,7 +38,7 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
     private LinearLayout layoutEmpty;
     private TextView textActiveBonus;
 
-    private FirebaseFirestore firestore;
+    private final RemoteStore remote = RemoteStores.forCaller("EquipmentActivity");
     private String currentUserId;
     private EquipmentAdapter adapter;
     private List<EquipmentItem> allItems = new ArrayList<>();
@@ -47,7 +49,6 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_equipment);
 
-        firestore = FirebaseFirestore.getInstance();
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user == null) {
             finish();
@@ -95,13 +96,11 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
     }
 
     private void loadEquipment() {
-        firestore.collection("users").document(currentUserId)
-                .collection("equipment")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on(equipmentCollection()))
+                .addOnSuccessListener(documents -> {
                     allItems.clear();
                     
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         EquipmentItem item = new EquipmentItem();
                         item.id = doc.getId();
                         item.name = doc.getString("name");
@@ -220,24 +219,22 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
                     // Apply potion effect to user
                     if (item.bonus > 0) {
                         // Add PP to user
-                        firestore.collection("users").document(currentUserId)
-                                .get()
+                        remote.get("users", currentUserId)
                                 .addOnSuccessListener(doc -> {
                                     Long currentPp = doc.getLong("powerPoints");
                                     int newPp = (currentPp != null ? currentPp.intValue() : 0) + item.bonus;
                                     
-                                    firestore.collection("users").document(currentUserId)
-                                            .update("powerPoints", newPp)
+                                    Map<String, Object> ppUpdate = new HashMap<>();
+                                    ppUpdate.put("powerPoints", newPp);
+                                    remote.merge("users", currentUserId, ppUpdate)
                                             .addOnSuccessListener(aVoid -> {
                                                 // Decrease quantity or delete item
                                                 if (item.quantity > 1) {
-                                                    firestore.collection("users").document(currentUserId)
-                                                            .collection("equipment").document(item.id)
-                                                            .update("quantity", item.quantity - 1);
+                                                    Map<String, Object> quantityUpdate = new HashMap<>();
+                                                    quantityUpdate.put("quantity", item.quantity - 1);
+                                                    remote.merge(equipmentCollection(), item.id, quantityUpdate);
                                                 } else {
-                                                    firestore.collection("users").document(currentUserId)
-                                                            .collection("equipment").document(item.id)
-                                                            .delete();
+                                                    remote.delete(equipmentCollection(), item.id);
                                                 }
                                                 
                                                 Toast.makeText(this, "Dobili ste +" + item.bonus + " PP!", Toast.LENGTH_SHORT).show();
@@ -253,9 +250,9 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
     private void activateEquipment(EquipmentItem item) {
         if (item.active) {
             // Deactivate
-            firestore.collection("users").document(currentUserId)
-                    .collection("equipment").document(item.id)
-                    .update("active", false)
+            Map<String, Object> update = new HashMap<>();
+            update.put("active", false);
+            remote.merge(equipmentCollection(), item.id, update)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(this, item.name + " deaktivirano", Toast.LENGTH_SHORT).show();
                         loadEquipment();
@@ -264,9 +261,10 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
             // Activate
             int battlesRemaining = "clothing".equals(item.type) ? 2 : 0;
             
-            firestore.collection("users").document(currentUserId)
-                    .collection("equipment").document(item.id)
-                    .update("active", true, "battlesRemaining", battlesRemaining)
+            Map<String, Object> update = new HashMap<>();
+            update.put("active", true);
+            update.put("battlesRemaining", battlesRemaining);
+            remote.merge(equipmentCollection(), item.id, update)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(this, item.name + " aktivirano!", Toast.LENGTH_SHORT).show();
                         loadEquipment();
@@ -280,7 +278,7 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
      */
     private void upgradeWeapon(EquipmentItem item) {
         // Load user level to calculate upgrade cost
-        firestore.collection("users").document(currentUserId).get()
+        remote.get("users", currentUserId)
                 .addOnSuccessListener(doc -> {
                     Long levelLong = doc.getLong("level");
                     int userLevel = levelLong != null ? levelLong.intValue() : 1;
@@ -307,9 +305,7 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
                                 // Deduct coins and increase weapon bonus by 0.0001 (= 0.01%)
                                 Number existingBonus = null;
                                 // Re-read to get latest bonus value
-                                firestore.collection("users").document(currentUserId)
-                                        .collection("equipment").document(item.id)
-                                        .get()
+                                remote.get(equipmentCollection(), item.id)
                                         .addOnSuccessListener(eqDoc -> {
                                             Number eb = (Number) eqDoc.get("bonus");
                                             double currentBonus = eb != null ? eb.doubleValue() : 0.05;
@@ -317,14 +313,17 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
                                             int newUpgradeLevel = item.upgradeLevel + 1;
                                             int newCoins = userCoins - upgradeCost;
 
-                                            // Update weapon
-                                            eqDoc.getReference().update(
-                                                    "bonus", newBonus,
-                                                    "upgradeLevel", newUpgradeLevel);
-
-                                            // Deduct coins
-                                            firestore.collection("users").document(currentUserId)
-                                                    .update("coins", newCoins)
+                                            Map<String, Object> weaponUpdate = new HashMap<>();
+                                            weaponUpdate.put("bonus", newBonus);
+                                            weaponUpdate.put("upgradeLevel", newUpgradeLevel);
+                                            Map<String, Object> coinsUpdate = new HashMap<>();
+                                            coinsUpdate.put("coins", newCoins);
+
+                                            // Update weapon and deduct coins together
+                                            remote.batch()
+                                                    .merge(equipmentCollection(), item.id, weaponUpdate)
+                                                    .merge("users", currentUserId, coinsUpdate)
+                                                    .commit()
                                                     .addOnSuccessListener(aVoid -> {
                                                         Toast.makeText(this, item.name + " unapređen!",
                                                                 Toast.LENGTH_SHORT).show();
@@ -337,6 +336,10 @@ public class EquipmentActivity extends AppCompatActivity implements EquipmentAda
                 });
     }
 
+    private String equipmentCollection() {
+        return "users/" + currentUserId + "/equipment";
+    }
+
     // Equipment item model
     public static class EquipmentItem {
         public String id;
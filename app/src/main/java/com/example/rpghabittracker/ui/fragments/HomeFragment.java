@@ -15,24 +15,20 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Boss;
-import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDayStats;
 import com.example.rpghabittracker.data.model.User;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.battle.BattleActivity;
+import com.example.rpghabittracker.ui.viewmodel.TaskViewModel;
 import com.example.rpghabittracker.ui.viewmodel.UserViewModel;
+import com.example.rpghabittracker.utils.DayClock;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * HomeFragment - Main dashboard with core player and boss information.
@@ -48,9 +44,9 @@ public class HomeFragment extends Fragment {
     private MaterialCardView bossCard;
     
     private UserViewModel userViewModel;
-    private FirebaseFirestore db;
-    private ListenerRegistration userListener;
-    private ListenerRegistration tasksListener;
+    private TaskViewModel taskViewModel;
+    private final RemoteStore remote = RemoteStores.forCaller("HomeFragment");
+    private RemoteStore.Registration userListener;
     
     // User data
     private int currentLevel = 1;
@@ -76,18 +72,20 @@ public class HomeFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         
-        db = FirebaseFirestore.getInstance();
         userViewModel = new ViewModelProvider(requireActivity()).get(UserViewModel.class);
+        taskViewModel = new ViewModelProvider(this).get(TaskViewModel.class);
         
         // Set user ID in ViewModel
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
         if (currentUser != null) {
             userViewModel.setUserId(currentUser.getUid());
+            taskViewModel.setUserId(currentUser.getUid());
         }
         
         initializeViews(view);
         setupClickListeners();
         setupUserObserver();
+        setupStreakObserver();
         loadUserDataRealtime();
         updateUI();
     }
@@ -107,10 +105,6 @@ public class HomeFragment extends Fragment {
             userListener.remove();
             userListener = null;
         }
-        if (tasksListener != null) {
-            tasksListener.remove();
-            tasksListener = null;
-        }
     }
     
     private void initializeViews(View view) {
@@ -171,42 +165,39 @@ public class HomeFragment extends Fragment {
                 userListener.remove();
             }
             
-            userListener = db.collection("users").document(currentUser.getUid())
-                .addSnapshotListener((documentSnapshot, error) -> {
-                    if (error != null || documentSnapshot == null || !documentSnapshot.exists()) {
-                        usernameText.setText("Heroj");
-                        return;
-                    }
-                    
-                    String username = documentSnapshot.getString("username");
-                    if (username != null) {
-                        usernameText.setText(username);
-                    }
-                    
-                    Long level = documentSnapshot.getLong("level");
-                    if (level != null) currentLevel = level.intValue();
-                    
-                    Long xp = documentSnapshot.getLong("xp");
-                    if (xp != null) currentXp = xp.intValue();
-                    
-                    Long coinsVal = documentSnapshot.getLong("coins");
-                    if (coinsVal != null) coins = coinsVal.intValue();
-
-                    Long currentBossLevel = documentSnapshot.getLong("bossLevel");
-                    bossLevel = (currentBossLevel != null && currentBossLevel > 0)
-                            ? currentBossLevel.intValue()
-                            : 1;
-                    bossName = Boss.getBossNameForLevel(bossLevel);
-                    bossMaxHp = Boss.getBossHpForLevel(bossLevel);
-                    bossHp = bossMaxHp;
-                    
-                    // XP required to complete the current level (stage model from spec)
-                    xpForNextLevel = User.getXpForLevel(Math.max(1, currentLevel));
-                    
-                    updateUI();
-                });
-
-            startTaskStreakListener(currentUser.getUid());
+            userListener = remote.listen("users", currentUser.getUid(), (document, error) -> {
+                if (error != null || document == null || !document.exists()) {
+                    usernameText.setText("Heroj");
+                    return;
+                }
+                
+                String username = document.getString("username");
+                if (username != null) {
+                    usernameText.setText(username);
+                }
+                
+                Long level = document.getLong("level");
+                if (level != null) currentLevel = level.intValue();
+                
+                Long xp = document.getLong("xp");
+                if (xp != null) currentXp = xp.intValue();
+                
+                Long coinsVal = document.getLong("coins");
+                if (coinsVal != null) coins = coinsVal.intValue();
+
+                Long currentBossLevel = document.getLong("bossLevel");
+                bossLevel = (currentBossLevel != null && currentBossLevel > 0)
+                        ? currentBossLevel.intValue()
+                        : 1;
+                bossName = Boss.getBossNameForLevel(bossLevel);
+                bossMaxHp = Boss.getBossHpForLevel(bossLevel);
+                bossHp = bossMaxHp;
+                
+                // XP required to complete the current level (stage model from spec)
+                xpForNextLevel = User.getXpForLevel(Math.max(1, currentLevel));
+                
+                updateUI();
+            });
         }
     }
     
@@ -262,109 +253,45 @@ public class HomeFragment extends Fragment {
         updateProgressBar(bossHpBar, hpProgress);
     }
 
-    private void startTaskStreakListener(String userId) {
-        if (tasksListener != null) {
-            tasksListener.remove();
-        }
-
-        tasksListener = db.collection("tasks")
-                .whereEqualTo("userId", userId)
-                .addSnapshotListener((snapshots, error) -> {
-                    if (error != null || snapshots == null) return;
-
-                    streak = calculateCurrentStreakFromTasks(snapshots.getDocuments());
-                    streakText.setText(String.valueOf(streak));
-                });
+    // Streak comes from the local task_day_stats rollup (kept current by the task
+    // sync) instead of a second listener over the whole tasks collection
+    private void setupStreakObserver() {
+        taskViewModel.getDayStats().observe(getViewLifecycleOwner(), days -> {
+            streak = calculateCurrentStreak(days);
+            streakText.setText(String.valueOf(streak));
+        });
     }
 
-    private int calculateCurrentStreakFromTasks(List<DocumentSnapshot> docs) {
-        if (docs == null || docs.isEmpty()) return 0;
-
-        Map<Long, DayOutcome> outcomesByDay = new TreeMap<>();
-        for (DocumentSnapshot doc : docs) {
-            String status = doc.getString("status");
-            if (!Task.STATUS_COMPLETED.equals(status) && !Task.STATUS_FAILED.equals(status)) {
-                continue;
-            }
-
-            long taskDay = getTaskDay(doc);
-            if (taskDay <= 0) continue;
+    // Consecutive days (newest first, up to today) with a completed task and no
+    // failed one; a day is the task's dueDate, else completedDate, else createdAt
+    private int calculateCurrentStreak(List<TaskDayStats.DayTotals> days) {
+        if (days == null || days.isEmpty()) return 0;
 
-            DayOutcome outcome = outcomesByDay.get(taskDay);
-            if (outcome == null) outcome = new DayOutcome();
-
-            if (Task.STATUS_FAILED.equals(status)) {
-                outcome.failed = true;
-            } else if (Task.STATUS_COMPLETED.equals(status)) {
-                outcome.completed = true;
-            }
-            outcomesByDay.put(taskDay, outcome);
-        }
-
-        if (outcomesByDay.isEmpty()) return 0;
-
-        List<Long> days = new ArrayList<>(outcomesByDay.keySet());
-        Collections.sort(days, Collections.reverseOrder());
-
-        long today = getDayStart(System.currentTimeMillis());
+        long today = DayClock.epochDay(System.currentTimeMillis());
         int currentStreak = 0;
         boolean started = false;
 
-        for (Long day : days) {
-            if (day == null || day > today) continue;
+        for (int i = days.size() - 1; i >= 0; i--) {
+            TaskDayStats.DayTotals day = days.get(i);
+            if (day.epochDay > today) continue;
 
-            DayOutcome outcome = outcomesByDay.get(day);
-            if (outcome == null) continue;
+            boolean failed = day.failedCount > 0;
+            boolean completed = day.completedCount > 0;
+            if (!failed && !completed) continue;
 
             if (!started) {
                 started = true;
-                if (outcome.failed) return 0;
-                if (outcome.completed) currentStreak++;
+                if (failed) return 0;
+                currentStreak++;
                 continue;
             }
 
-            if (outcome.failed) break;
-            if (outcome.completed) currentStreak++;
+            if (failed) break;
+            currentStreak++;
         }
 
         return currentStreak;
     }
-
-    private long getTaskDay(DocumentSnapshot doc) {
-        long dueDate = getLongValue(doc, "dueDate");
-        if (dueDate > 0) return getDayStart(dueDate);
-
-        long completedDate = getLongValue(doc, "completedDate");
-        if (completedDate > 0) return getDayStart(completedDate);
-
-        long createdAt = getLongValue(doc, "createdAt");
-        if (createdAt > 0) return getDayStart(createdAt);
-
-        return -1L;
-    }
-
-    private long getLongValue(DocumentSnapshot doc, String field) {
-        Object value = doc.get(field);
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        return 0L;
-    }
-
-    private long getDayStart(long millis) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(millis);
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        return cal.getTimeInMillis();
-    }
-
-    private static final class DayOutcome {
-        boolean completed;
-        boolean failed;
-    }
     
     private void updateProgressBar(View progressBar, float progress) {
         if (progressBar == null) return;
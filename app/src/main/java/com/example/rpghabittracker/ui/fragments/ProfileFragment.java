@@ -17,6 +17,9 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.User;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.auth.LoginActivity;
 import com.example.rpghabittracker.ui.categories.CategoriesActivity;
 import com.example.rpghabittracker.ui.equipment.EquipmentActivity;
@@ -28,8 +31,6 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 
 /**
  * Fragment for displaying user profile
@@ -47,9 +48,9 @@ public class ProfileFragment extends Fragment {
     private MaterialButton buttonLogout;
     
     private FirebaseAuth auth;
-    private FirebaseFirestore db;
+    private final RemoteStore remote = RemoteStores.forCaller("ProfileFragment");
     private UserViewModel userViewModel;
-    private ListenerRegistration userListener;
+    private RemoteStore.Registration userListener;
     
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -61,7 +62,6 @@ public class ProfileFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         
         auth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
         userViewModel = new ViewModelProvider(requireActivity()).get(UserViewModel.class);
         
         // Set user ID in ViewModel
@@ -176,18 +176,17 @@ public class ProfileFragment extends Fragment {
             userListener.remove();
         }
         
-        userListener = db.collection("users").document(currentUser.getUid())
-                .addSnapshotListener((documentSnapshot, error) -> {
-                    if (error != null || documentSnapshot == null || !documentSnapshot.exists()) {
-                        setDefaultUserData();
-                        return;
-                    }
-                    
-                    updateUIFromDocument(documentSnapshot);
-                });
+        userListener = remote.listen("users", currentUser.getUid(), (document, error) -> {
+            if (error != null || document == null || !document.exists()) {
+                setDefaultUserData();
+                return;
+            }
+            
+            updateUIFromDocument(document);
+        });
     }
     
-    private void updateUIFromDocument(com.google.firebase.firestore.DocumentSnapshot doc) {
+    private void updateUIFromDocument(RemoteDocument doc) {
         String username = doc.getString("username");
         if (username != null && !username.isEmpty()) {
             textUsername.setText(username);
@@ -16,6 +16,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Equipment;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.adapters.ShopItemAdapter;
 import com.example.rpghabittracker.ui.viewmodel.UserViewModel;
 import com.example.rpghabittracker.utils.AllianceMissionManager;
@@ -23,9 +25,6 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FieldValue;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -50,6 +49,7 @@ public class ShopFragment extends Fragment implements ShopItemAdapter.OnItemClic
     private int userCoins = 0;
     private int userLevel = 1;
     private String userId;
+    private final RemoteStore remote = RemoteStores.forCaller("ShopFragment");
     
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -120,26 +120,25 @@ public class ShopFragment extends Fragment implements ShopItemAdapter.OnItemClic
     private void loadCoinsFromFirestore() {
         if (userId == null) return;
         
-        FirebaseFirestore.getInstance().collection("users").document(userId)
-                .addSnapshotListener((doc, error) -> {
-                    if (error != null || doc == null || !doc.exists()) return;
-                    
-                    Long coins = doc.getLong("coins");
-                    Long level = doc.getLong("level");
-                    
-                    if (coins != null) {
-                        userCoins = coins.intValue();
-                        textCoins.setText(String.valueOf(userCoins));
-                        
-                        if (potionsAdapter != null) potionsAdapter.setUserCoins(userCoins);
-                        if (clothingAdapter != null) clothingAdapter.setUserCoins(userCoins);
-                        if (weaponsAdapter != null) weaponsAdapter.setUserCoins(userCoins);
-                    }
-                    if (level != null && level.intValue() != userLevel) {
-                        userLevel = level.intValue();
-                        loadShopItems();
-                    }
-                });
+        remote.listen("users", userId, (doc, error) -> {
+            if (error != null || doc == null || !doc.exists()) return;
+            
+            Long coins = doc.getLong("coins");
+            Long level = doc.getLong("level");
+            
+            if (coins != null) {
+                userCoins = coins.intValue();
+                textCoins.setText(String.valueOf(userCoins));
+                
+                if (potionsAdapter != null) potionsAdapter.setUserCoins(userCoins);
+                if (clothingAdapter != null) clothingAdapter.setUserCoins(userCoins);
+                if (weaponsAdapter != null) weaponsAdapter.setUserCoins(userCoins);
+            }
+            if (level != null && level.intValue() != userLevel) {
+                userLevel = level.intValue();
+                loadShopItems();
+            }
+        });
     }
     
     private void setupAdapters() {
@@ -316,7 +315,7 @@ public class ShopFragment extends Fragment implements ShopItemAdapter.OnItemClic
 
                     // Special mission rule: any shop purchase can damage alliance mission boss.
                     if (userId != null && !userId.trim().isEmpty()) {
-                        AllianceMissionManager.recordShopPurchase(FirebaseFirestore.getInstance(), userId, null);
+                        AllianceMissionManager.recordShopPurchase(userId, null);
                     }
                     
                     // TODO: Save item to user's inventory in Firestore
@@ -330,18 +329,16 @@ public class ShopFragment extends Fragment implements ShopItemAdapter.OnItemClic
     
     private void saveItemToInventory(ShopItemAdapter.ShopItem item) {
         // Save to user's equipment collection in Firestore
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        
+        String equipmentCollection = "users/" + userId + "/equipment";
+
         // Check if item already exists
-        db.collection("users").document(userId)
-                .collection("equipment").document(item.id)
-                .get()
+        remote.get(equipmentCollection, item.id)
                 .addOnSuccessListener(doc -> {
                     if (doc.exists()) {
                         // Increase quantity
-                        db.collection("users").document(userId)
-                                .collection("equipment").document(item.id)
-                                .update("quantity", FieldValue.increment(1))
+                        Map<String, Object> update = new HashMap<>();
+                        update.put("quantity", remote.increment(1));
+                        remote.merge(equipmentCollection, item.id, update)
                                 .addOnSuccessListener(aVoid -> updateAdapters());
                     } else {
                         // Create new item
@@ -358,9 +355,7 @@ public class ShopFragment extends Fragment implements ShopItemAdapter.OnItemClic
                                 Equipment.TYPE_CLOTHING.equals(item.type) ? 2 : 0);
                         equipmentData.put("effect", item.effect);
                         
-                        db.collection("users").document(userId)
-                                .collection("equipment").document(item.id)
-                                .set(equipmentData)
+                        remote.set(equipmentCollection, item.id, equipmentData)
                                 .addOnSuccessListener(aVoid -> updateAdapters());
                     }
                 });
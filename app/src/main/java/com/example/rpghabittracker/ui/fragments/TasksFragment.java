@@ -2,9 +2,12 @@ package com.example.rpghabittracker.ui.fragments;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.Toast;
@@ -18,6 +21,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.data.model.TaskStatus;
 import com.example.rpghabittracker.ui.adapters.TaskAdapter;
 import com.example.rpghabittracker.ui.tasks.AddTaskActivity;
 import com.example.rpghabittracker.ui.tasks.TaskDetailsActivity;
@@ -31,10 +36,11 @@ import com.google.android.material.snackbar.Snackbar;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -53,14 +59,18 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
     private ChipGroup filterChipGroup;
     private Chip chipAll, chipActive, chipCompleted, chipFailed;
     private ExtendedFloatingActionButton fabAddTask;
+    private EditText editSearch;
 
     private TaskAdapter adapter;
     private TaskViewModel viewModel;
     private UserViewModel userViewModel;
 
     private boolean showRecurring = false;
-    private String currentFilter = "ALL";
-    private List<Task> allTasks = new ArrayList<>();
+    // Status chip filter; null shows all statuses
+    private TaskStatus currentFilter = null;
+    private List<TaskListItem> allTasks = new ArrayList<>();
+    // Search rank by task id; null when the search box is empty
+    private Map<String, Integer> searchRanks;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -76,6 +86,7 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
         setupRecyclerView();
         setupTabs();
         setupFilters();
+        setupSearch();
         setupFab();
     }
 
@@ -90,6 +101,7 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
         chipCompleted = view.findViewById(R.id.chipCompleted);
         chipFailed = view.findViewById(R.id.chipFailed);
         fabAddTask = view.findViewById(R.id.fabAddTask);
+        editSearch = view.findViewById(R.id.editSearch);
 
         view.findViewById(R.id.btnCalendar).setOnClickListener(v ->
                 startActivity(new Intent(requireContext(),
@@ -106,17 +118,29 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
             userViewModel.setUserId(user.getUid());
         }
 
-        // Generate today's recurring occurrences as soon as we have a userId
-        viewModel.generateTodayOccurrences();
+        // Catch up on recurring occurrences as soon as we have a userId
+        viewModel.generateMissedOccurrences();
         viewModel.processExpiredTasks();
 
-        // Observe all tasks (one-time + templates + occurrences)
-        viewModel.getAllTasks().observe(getViewLifecycleOwner(), tasks -> {
+        // Observe all tasks (one-time + templates + occurrences) as slim list rows
+        viewModel.getAllTaskItems().observe(getViewLifecycleOwner(), tasks -> {
             allTasks = tasks != null ? tasks : new ArrayList<>();
             applyFilters();
             progressBar.setVisibility(View.GONE);
         });
 
+        viewModel.getSearchResults().observe(getViewLifecycleOwner(), ids -> {
+            if (ids == null) {
+                searchRanks = null;
+            } else {
+                searchRanks = new HashMap<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    searchRanks.put(ids.get(i), i);
+                }
+            }
+            applyFilters();
+        });
+
         userViewModel.getXpGainEvent().observe(getViewLifecycleOwner(), event -> {
             if (event != null) userViewModel.clearXpGainEvent();
         });
@@ -174,21 +198,36 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
 
         filterChipGroup.setOnCheckedStateChangeListener((group, checkedIds) -> {
             if (checkedIds.contains(R.id.chipAll)) {
-                currentFilter = "ALL";
+                currentFilter = null;
             } else if (checkedIds.contains(R.id.chipActive)) {
-                currentFilter = Task.STATUS_ACTIVE;
+                currentFilter = TaskStatus.ACTIVE;
             } else if (checkedIds.contains(R.id.chipCompleted)) {
-                currentFilter = Task.STATUS_COMPLETED;
+                currentFilter = TaskStatus.COMPLETED;
             } else if (checkedIds.contains(R.id.chipFailed)) {
-                currentFilter = Task.STATUS_FAILED;
+                currentFilter = TaskStatus.FAILED;
             } else {
-                currentFilter = "ALL";
+                currentFilter = null;
                 chipAll.setChecked(true);
             }
             applyFilters();
         });
     }
 
+    private void setupSearch() {
+        editSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                viewModel.setSearchQuery(s.toString().trim());
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {}
+        });
+    }
+
     private void setupFab() {
         fabAddTask.setOnClickListener(v -> {
             Intent intent = new Intent(requireContext(), AddTaskActivity.class);
@@ -198,25 +237,33 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
     }
 
     private void applyFilters() {
-        List<Task> filtered = allTasks.stream()
+        List<TaskListItem> filtered = allTasks.stream()
                 .filter(task -> {
                     boolean typeMatch;
                     if (showRecurring) {
                         // Show only daily occurrences (have a parent), not the template row
-                        String pid = task.getParentTaskId();
-                        typeMatch = task.isRecurring() && pid != null && !pid.isEmpty();
+                        typeMatch = task.isOccurrence();
                     } else {
                         // Show only one-time tasks
                         typeMatch = !task.isRecurring();
                     }
 
-                    boolean statusMatch = "ALL".equals(currentFilter)
-                            || currentFilter.equals(task.getStatus());
+                    boolean statusMatch = currentFilter == null
+                            || currentFilter == task.getStatus();
+
+                    boolean searchMatch = searchRanks == null
+                            || searchRanks.containsKey(task.getId());
 
-                    return typeMatch && statusMatch;
+                    return typeMatch && statusMatch && searchMatch;
                 })
                 .collect(Collectors.toList());
 
+        if (searchRanks != null) {
+            // Best search match first
+            filtered.sort((a, b) -> Integer.compare(
+                    searchRanks.get(a.getId()), searchRanks.get(b.getId())));
+        }
+
         adapter.submitList(filtered);
 
         emptyState.setVisibility(filtered.isEmpty() ? View.VISIBLE : View.GONE);
@@ -224,31 +271,31 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
     }
 
     @Override
-    public void onTaskClick(Task task) {
+    public void onTaskClick(TaskListItem task) {
         Intent intent = new Intent(requireContext(), TaskDetailsActivity.class);
         intent.putExtra(TaskDetailsActivity.EXTRA_TASK_ID, task.getId());
         startActivity(intent);
     }
 
     @Override
-    public void onTaskComplete(Task task, boolean isChecked) {
+    public void onTaskComplete(TaskListItem task, boolean isChecked) {
         if (!isChecked) return;
-        if (!Task.STATUS_ACTIVE.equals(task.getStatus())) {
+        if (task.getStatus() != TaskStatus.ACTIVE) {
             Toast.makeText(requireContext(), "Zadatak nije aktivan", Toast.LENGTH_SHORT).show();
             return;
         }
 
         int xpGained = task.getTotalXp();
 
-        viewModel.completeTask(task, () -> requireActivity().runOnUiThread(() -> {
+        viewModel.completeTask(task.getId(), () -> requireActivity().runOnUiThread(() -> {
             userViewModel.addXpFromTask(xpGained);
 
             FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
             if (currentUser != null) {
                 AllianceMissionManager.recordTaskCompletion(
-                        FirebaseFirestore.getInstance(),
                         currentUser.getUid(),
-                        task,
+                        task.getDifficulty(),
+                        task.getImportance(),
                         null
                 );
             }
@@ -262,16 +309,14 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
     }
 
     @Override
-    public void onTaskLongClick(Task task) {
+    public void onTaskLongClick(TaskListItem task) {
         showTaskOptionsDialog(task);
     }
 
-    private void showTaskOptionsDialog(Task task) {
-        boolean isOccurrence = task.isRecurring()
-                && task.getParentTaskId() != null
-                && !task.getParentTaskId().isEmpty();
+    private void showTaskOptionsDialog(TaskListItem task) {
+        boolean isOccurrence = task.isOccurrence();
 
-        if (Task.STATUS_ACTIVE.equals(task.getStatus())) {
+        if (task.getStatus() == TaskStatus.ACTIVE) {
             if (isOccurrence) {
                 // For an occurrence: cancel this instance OR pause/delete the whole series
                 new com.google.android.material.dialog.MaterialAlertDialogBuilder(requireContext())
@@ -308,7 +353,7 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
                                     Toast.makeText(requireContext(), "Zadatak otkazan", Toast.LENGTH_SHORT).show();
                                     break;
                                 case 1:
-                                    viewModel.delete(task);
+                                    viewModel.deleteById(task.getId());
                                     Toast.makeText(requireContext(), "Zadatak obrisan", Toast.LENGTH_SHORT).show();
                                     break;
                             }
@@ -329,7 +374,7 @@ public class TasksFragment extends Fragment implements TaskAdapter.TaskClickList
     public void onResume() {
         super.onResume();
         // Regenerate occurrences and expire stale tasks every time user returns
-        viewModel.generateTodayOccurrences();
+        viewModel.generateMissedOccurrences();
         viewModel.processExpiredTasks();
     }
 }
@@ -18,6 +18,10 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.notifications.AppNotificationManager;
 import com.example.rpghabittracker.ui.adapters.FriendAdapter;
 import com.google.android.material.appbar.MaterialToolbar;
@@ -26,11 +30,7 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
@@ -60,7 +60,7 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
     private FloatingActionButton fabShowQr;
 
     private FriendAdapter adapter;
-    private FirebaseFirestore firestore;
+    private final RemoteStore remote = RemoteStores.forCaller("FriendsActivity");
     private String currentUserId;
     private String currentUsername;
 
@@ -82,7 +82,6 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_friends);
 
-        firestore = FirebaseFirestore.getInstance();
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user == null) {
             finish();
@@ -174,8 +173,7 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
     }
 
     private void loadCurrentUserData() {
-        firestore.collection("users").document(currentUserId)
-                .get()
+        remote.get("users", currentUserId)
                 .addOnSuccessListener(doc -> {
                     if (doc.exists()) {
                         currentUsername = doc.getString("username");
@@ -185,12 +183,10 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
 
     private void loadFriendships() {
         // Load friend IDs
-        firestore.collection("friendships")
-                .whereEqualTo("status", "ACCEPTED")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on("friendships").whereEqualTo("status", "ACCEPTED"))
+                .addOnSuccessListener(documents -> {
                     friendIds.clear();
-                    for (DocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         String senderId = doc.getString("senderId");
                         String receiverId = doc.getString("receiverId");
                         if (currentUserId.equals(senderId)) {
@@ -204,26 +200,24 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
                 .addOnFailureListener(e -> showFirestoreError(e, "učitavanju prijatelja"));
 
         // Load sent requests
-        firestore.collection("friendships")
-                .whereEqualTo("senderId", currentUserId)
-                .whereEqualTo("status", "PENDING")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on("friendships")
+                        .whereEqualTo("senderId", currentUserId)
+                        .whereEqualTo("status", "PENDING"))
+                .addOnSuccessListener(documents -> {
                     sentRequestIds.clear();
-                    for (DocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         sentRequestIds.add(doc.getString("receiverId"));
                     }
                 })
                 .addOnFailureListener(e -> showFirestoreError(e, "učitavanju poslatih zahteva"));
 
         // Load received requests
-        firestore.collection("friendships")
-                .whereEqualTo("receiverId", currentUserId)
-                .whereEqualTo("status", "PENDING")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
+        remote.query(RemoteQuery.on("friendships")
+                        .whereEqualTo("receiverId", currentUserId)
+                        .whereEqualTo("status", "PENDING"))
+                .addOnSuccessListener(documents -> {
                     receivedRequestIds.clear();
-                    for (DocumentSnapshot doc : querySnapshot) {
+                    for (RemoteDocument doc : documents) {
                         receivedRequestIds.add(doc.getString("senderId"));
                     }
                 })
@@ -241,8 +235,7 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
         List<FriendAdapter.UserItem> friends = new ArrayList<>();
         
         for (String friendId : friendIds) {
-            firestore.collection("users").document(friendId)
-                    .get()
+            remote.get("users", friendId)
                     .addOnSuccessListener(doc -> {
                         if (doc.exists()) {
                             FriendAdapter.UserItem item = documentToUserItem(doc);
@@ -269,8 +262,7 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
         List<FriendAdapter.UserItem> requests = new ArrayList<>();
         
         for (String senderId : receivedRequestIds) {
-            firestore.collection("users").document(senderId)
-                    .get()
+            remote.get("users", senderId)
                     .addOnSuccessListener(doc -> {
                         if (doc.exists()) {
                             FriendAdapter.UserItem item = documentToUserItem(doc);
@@ -296,14 +288,12 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
         }
 
         // Primary query for case-insensitive search (new schema)
-        firestore.collection("users")
-                .orderBy("usernameLower")
-                .startAt(normalizedQuery)
-                .endAt(normalizedQuery + "\uf8ff")
-                .limit(20)
-                .get()
-                .addOnSuccessListener(lowerSnapshot -> {
-                    List<FriendAdapter.UserItem> lowerResults = mapSearchResults(lowerSnapshot);
+        remote.query(RemoteQuery.on("users")
+                        .whereStartsWith("usernameLower", normalizedQuery)
+                        .orderBy("usernameLower")
+                        .limit(20))
+                .addOnSuccessListener(lowerDocuments -> {
+                    List<FriendAdapter.UserItem> lowerResults = mapSearchResults(lowerDocuments);
                     if (!lowerResults.isEmpty()) {
                         showSearchResults(lowerResults);
                         return;
@@ -319,14 +309,12 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
     }
 
     private void searchUsersLegacy(String query) {
-        firestore.collection("users")
-                .orderBy("username")
-                .startAt(query)
-                .endAt(query + "\uf8ff")
-                .limit(20)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<FriendAdapter.UserItem> results = mapSearchResults(querySnapshot);
+        remote.query(RemoteQuery.on("users")
+                        .whereStartsWith("username", query)
+                        .orderBy("username")
+                        .limit(20))
+                .addOnSuccessListener(documents -> {
+                    List<FriendAdapter.UserItem> results = mapSearchResults(documents);
                     showSearchResults(results);
                 })
                 .addOnFailureListener(e -> {
@@ -335,11 +323,11 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
                 });
     }
 
-    private List<FriendAdapter.UserItem> mapSearchResults(com.google.firebase.firestore.QuerySnapshot snapshot) {
+    private List<FriendAdapter.UserItem> mapSearchResults(List<RemoteDocument> documents) {
         List<FriendAdapter.UserItem> results = new ArrayList<>();
         Set<String> seenIds = new HashSet<>();
 
-        for (QueryDocumentSnapshot doc : snapshot) {
+        for (RemoteDocument doc : documents) {
             String id = doc.getId();
             if (id.equals(currentUserId) || seenIds.contains(id)) continue;
 
@@ -363,7 +351,7 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
         }
     }
 
-    private FriendAdapter.UserItem documentToUserItem(DocumentSnapshot doc) {
+    private FriendAdapter.UserItem documentToUserItem(RemoteDocument doc) {
         String id = doc.getId();
         String username = doc.getString("username");
         if (username == null || username.trim().isEmpty()) {
@@ -483,10 +471,9 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
         friendship.put("senderId", currentUserId);
         friendship.put("receiverId", receiverId);
         friendship.put("status", "PENDING");
-        friendship.put("createdAt", FieldValue.serverTimestamp());
+        friendship.put("createdAt", remote.serverTimestamp());
         
-        firestore.collection("friendships").document(friendshipId)
-                .set(friendship)
+        remote.set("friendships", friendshipId, friendship)
                 .addOnSuccessListener(aVoid -> {
                     sentRequestIds.add(receiverId);
 
@@ -494,7 +481,6 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
                             ? currentUsername
                             : "Korisnik";
                     AppNotificationManager.createFriendRequestNotification(
-                            firestore,
                             receiverId,
                             currentUserId,
                             senderName,
@@ -525,20 +511,17 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
     public void onAcceptRequest(FriendAdapter.UserItem user) {
         String friendshipId = user.id + "_" + currentUserId;
         
-        firestore.collection("friendships").document(friendshipId)
-                .update("status", "ACCEPTED")
+        remote.merge("friendships", friendshipId, statusUpdate("ACCEPTED"))
                 .addOnSuccessListener(aVoid -> {
                     String acceptorName = currentUsername != null && !currentUsername.trim().isEmpty()
                             ? currentUsername
                             : "Korisnik";
                     AppNotificationManager.createFriendRequestAcceptedNotification(
-                            firestore,
                             user.id,
                             currentUserId,
                             acceptorName
                     );
                     AppNotificationManager.resolveFriendRequestNotification(
-                            firestore,
                             this,
                             currentUserId,
                             friendshipId,
@@ -559,11 +542,9 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
     public void onRejectRequest(FriendAdapter.UserItem user) {
         String friendshipId = user.id + "_" + currentUserId;
         
-        firestore.collection("friendships").document(friendshipId)
-                .update("status", "REJECTED")
+        remote.merge("friendships", friendshipId, statusUpdate("REJECTED"))
                 .addOnSuccessListener(aVoid -> {
                     AppNotificationManager.resolveFriendRequestNotification(
-                            firestore,
                             this,
                             currentUserId,
                             friendshipId,
@@ -575,6 +556,12 @@ public class FriendsActivity extends AppCompatActivity implements FriendAdapter.
                 });
     }
 
+    private static Map<String, Object> statusUpdate(String status) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("status", status);
+        return update;
+    }
+
     @Override
     public void onViewProfile(FriendAdapter.UserItem user) {
         Intent intent = new Intent(this, UserProfileActivity.class);
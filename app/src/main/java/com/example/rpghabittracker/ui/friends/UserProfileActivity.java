@@ -12,10 +12,13 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.model.Task;
 import com.example.rpghabittracker.data.model.User;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.google.android.material.appbar.MaterialToolbar;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 /**
  * Activity for viewing another user's profile
@@ -36,7 +39,7 @@ public class UserProfileActivity extends AppCompatActivity {
     private LinearLayout layoutBadges;
     private RecyclerView recyclerBadges;
 
-    private FirebaseFirestore firestore;
+    private final RemoteStore remote = RemoteStores.forCaller("UserProfileActivity");
     private String userId;
 
     @Override
@@ -50,8 +53,6 @@ public class UserProfileActivity extends AppCompatActivity {
             return;
         }
 
-        firestore = FirebaseFirestore.getInstance();
-
         initViews();
         setupToolbar();
         loadUserProfile();
@@ -82,13 +83,12 @@ public class UserProfileActivity extends AppCompatActivity {
     }
 
     private void loadUserProfile() {
-        firestore.collection("users").document(userId)
-                .get()
+        remote.get("users", userId)
                 .addOnSuccessListener(this::displayUserProfile)
                 .addOnFailureListener(e -> finish());
     }
 
-    private void displayUserProfile(DocumentSnapshot doc) {
+    private void displayUserProfile(RemoteDocument doc) {
         if (!doc.exists()) {
             finish();
             return;
@@ -142,8 +142,7 @@ public class UserProfileActivity extends AppCompatActivity {
     }
 
     private void loadAllianceName(String allianceId) {
-        firestore.collection("alliances").document(allianceId)
-                .get()
+        remote.get("alliances", allianceId)
                 .addOnSuccessListener(doc -> {
                     if (doc.exists()) {
                         String name = doc.getString("name");
@@ -154,21 +153,19 @@ public class UserProfileActivity extends AppCompatActivity {
 
     private void loadUserStats() {
         // Load completed tasks count
-        firestore.collection("tasks")
-                .whereEqualTo("userId", userId)
-                .whereEqualTo("completed", true)
-                .get()
-                .addOnSuccessListener(querySnapshot -> 
-                    textTasksCompleted.setText(String.valueOf(querySnapshot.size()))
+        remote.query(RemoteQuery.on("tasks")
+                        .whereEqualTo("userId", userId)
+                        .whereEqualTo("status", Task.STATUS_COMPLETED))
+                .addOnSuccessListener(documents ->
+                    textTasksCompleted.setText(String.valueOf(documents.size()))
                 );
 
         // Load bosses defeated (this would require a battles collection)
-        firestore.collection("battles")
-                .whereEqualTo("userId", userId)
-                .whereEqualTo("won", true)
-                .get()
-                .addOnSuccessListener(querySnapshot ->
-                    textBossesDefeated.setText(String.valueOf(querySnapshot.size()))
+        remote.query(RemoteQuery.on("battles")
+                        .whereEqualTo("userId", userId)
+                        .whereEqualTo("won", true))
+                .addOnSuccessListener(documents ->
+                    textBossesDefeated.setText(String.valueOf(documents.size()))
                 )
                 .addOnFailureListener(e -> textBossesDefeated.setText("0"));
     }
@@ -9,7 +9,9 @@ import androidx.fragment.app.FragmentTransaction;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.RemoteStore;
 import com.example.rpghabittracker.notifications.AppNotificationManager;
+import com.example.rpghabittracker.services.OccurrenceCatchUpWorker;
 import com.example.rpghabittracker.ui.auth.LoginActivity;
 import com.example.rpghabittracker.ui.battle.BattleActivity;
 import com.example.rpghabittracker.ui.fragments.HomeFragment;
@@ -22,8 +24,6 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 
 public class MainActivity extends AppCompatActivity {
     
@@ -39,7 +39,7 @@ public class MainActivity extends AppCompatActivity {
     private ProfileFragment profileFragment;
     
     private Fragment activeFragment;
-    private ListenerRegistration notificationListenerRegistration;
+    private RemoteStore.Registration notificationListenerRegistration;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -54,6 +54,7 @@ public class MainActivity extends AppCompatActivity {
         
         setContentView(R.layout.activity_main);
         AppNotificationManager.ensureNotificationChannel(this);
+        OccurrenceCatchUpWorker.schedule(this);
         
         // Initialize ViewModel and sync user first, then load fragments
         userViewModel = new ViewModelProvider(this).get(UserViewModel.class);
@@ -118,7 +119,6 @@ public class MainActivity extends AppCompatActivity {
 
         notificationListenerRegistration = AppNotificationManager.listenForUserNotifications(
                 this,
-                FirebaseFirestore.getInstance(),
                 user.getUid()
         );
     }
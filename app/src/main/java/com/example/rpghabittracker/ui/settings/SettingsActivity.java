@@ -1,7 +1,9 @@
 package com.example.rpghabittracker.ui.settings;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -9,7 +11,12 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.rpghabittracker.R;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.auth.LoginActivity;
+import com.example.rpghabittracker.ui.debug.SyncMetricsActivity;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.textfield.TextInputEditText;
@@ -17,7 +24,6 @@ import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.EmailAuthProvider;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 /**
  * Settings screen for managing account and app preferences
@@ -25,7 +31,7 @@ import com.google.firebase.firestore.FirebaseFirestore;
 public class SettingsActivity extends AppCompatActivity {
 
     private FirebaseAuth auth;
-    private FirebaseFirestore firestore;
+    private final RemoteStore remote = RemoteStores.forCaller("SettingsActivity");
 
     private TextView textEmail;
     private LinearLayout layoutChangePassword, layoutLogout, layoutDeleteAccount;
@@ -36,7 +42,6 @@ public class SettingsActivity extends AppCompatActivity {
         setContentView(R.layout.activity_settings);
         
         auth = FirebaseAuth.getInstance();
-        firestore = FirebaseFirestore.getInstance();
         
         initViews();
         loadSettings();
@@ -56,6 +61,14 @@ public class SettingsActivity extends AppCompatActivity {
         layoutChangePassword.setOnClickListener(v -> showChangePasswordDialog());
         layoutLogout.setOnClickListener(v -> confirmLogout());
         layoutDeleteAccount.setOnClickListener(v -> confirmDeleteAccount());
+
+        // Sync diagnostics only in debuggable builds
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            findViewById(R.id.textDebugHeader).setVisibility(View.VISIBLE);
+            findViewById(R.id.cardDebug).setVisibility(View.VISIBLE);
+            findViewById(R.id.layoutSyncMetrics).setOnClickListener(v ->
+                    startActivity(new Intent(this, SyncMetricsActivity.class)));
+        }
     }
     
     private void loadSettings() {
@@ -214,26 +227,21 @@ public class SettingsActivity extends AppCompatActivity {
     
     private void deleteUserData(String userId, Runnable onComplete) {
         // Delete user tasks
-        firestore.collection("tasks")
-                .whereEqualTo("userId", userId)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : querySnapshot) {
-                        doc.getReference().delete();
+        remote.query(RemoteQuery.on("tasks").whereEqualTo("userId", userId))
+                .addOnSuccessListener(tasks -> {
+                    for (RemoteDocument doc : tasks) {
+                        remote.delete("tasks", doc.getId());
                     }
                     
                     // Delete user categories
-                    firestore.collection("categories")
-                            .whereEqualTo("userId", userId)
-                            .get()
-                            .addOnSuccessListener(catSnapshot -> {
-                                for (com.google.firebase.firestore.DocumentSnapshot doc : catSnapshot) {
-                                    doc.getReference().delete();
+                    remote.query(RemoteQuery.on("categories").whereEqualTo("userId", userId))
+                            .addOnSuccessListener(categories -> {
+                                for (RemoteDocument doc : categories) {
+                                    remote.delete("categories", doc.getId());
                                 }
                                 
                                 // Delete user document
-                                firestore.collection("users").document(userId)
-                                        .delete()
+                                remote.delete("users", userId)
                                         .addOnCompleteListener(task -> onComplete.run());
                             })
                             .addOnFailureListener(e -> onComplete.run());
@@ -13,11 +13,14 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.example.rpghabittracker.R;
 import com.example.rpghabittracker.data.model.Category;
-import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDayStats;
 import com.example.rpghabittracker.data.model.User;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
 import com.example.rpghabittracker.ui.viewmodel.CategoryViewModel;
 import com.example.rpghabittracker.ui.viewmodel.TaskViewModel;
 import com.example.rpghabittracker.ui.viewmodel.UserViewModel;
+import com.example.rpghabittracker.utils.DayClock;
 import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.charts.PieChart;
@@ -37,11 +40,8 @@ import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -60,8 +60,8 @@ public class StatisticsActivity extends AppCompatActivity {
     private CategoryViewModel categoryViewModel;
     private String userId;
     
-    private FirebaseFirestore db;
-    private ListenerRegistration userListener;
+    private final RemoteStore remote = RemoteStores.forCaller("StatisticsActivity");
+    private RemoteStore.Registration userListener;
     
     // Overview stats
     private TextView textTotalTasks, textCompletedTasks, textFailedTasks;
@@ -89,10 +89,10 @@ public class StatisticsActivity extends AppCompatActivity {
     private LineChart chartDifficultyTrend;
     private LineChart chartXpLast7Days;
 
-    private static final long DAY_MS = 24L * 60 * 60 * 1000;
     private final Map<String, String> categoryNameById = new HashMap<>();
     private final Map<String, String> fallbackCategoryNames = new HashMap<>();
-    private List<Task> cachedTasks = new ArrayList<>();
+    private List<TaskDayStats.DayTotals> cachedDayTotals = Collections.emptyList();
+    private List<TaskDayStats.CategoryTotals> cachedCategoryTotals = Collections.emptyList();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -105,7 +105,6 @@ public class StatisticsActivity extends AppCompatActivity {
             return;
         }
         userId = currentUser.getUid();
-        db = FirebaseFirestore.getInstance();
         
         initViews();
         setupCharts();
@@ -236,22 +235,21 @@ public class StatisticsActivity extends AppCompatActivity {
     
     private void loadUserDataRealtime() {
         // Listen to user data from Firestore
-        userListener = db.collection("users").document(userId)
-                .addSnapshotListener((documentSnapshot, error) -> {
-                    if (error != null || documentSnapshot == null || !documentSnapshot.exists()) {
-                        return;
-                    }
-                    
-                    Long xp = documentSnapshot.getLong("xp");
-                    Long level = documentSnapshot.getLong("level");
-                    Long started = documentSnapshot.getLong("specialMissionsStarted");
-                    Long completed = documentSnapshot.getLong("specialMissionsCompleted");
-                    
-                    textTotalXp.setText((xp != null ? xp : 0) + " XP");
-                    textCurrentLevel.setText("Level " + (level != null ? level : 1));
-                    textSpecialMissionsStarted.setText(String.valueOf(started != null ? started : 0));
-                    textSpecialMissionsCompleted.setText(String.valueOf(completed != null ? completed : 0));
-                });
+        userListener = remote.listen("users", userId, (document, error) -> {
+            if (error != null || document == null || !document.exists()) {
+                return;
+            }
+
+            Long xp = document.getLong("xp");
+            Long level = document.getLong("level");
+            Long started = document.getLong("specialMissionsStarted");
+            Long completed = document.getLong("specialMissionsCompleted");
+
+            textTotalXp.setText((xp != null ? xp : 0) + " XP");
+            textCurrentLevel.setText("Level " + (level != null ? level : 1));
+            textSpecialMissionsStarted.setText(String.valueOf(started != null ? started : 0));
+            textSpecialMissionsCompleted.setText(String.valueOf(completed != null ? completed : 0));
+        });
     }
     
     private void setupViewModels() {
@@ -263,8 +261,15 @@ public class StatisticsActivity extends AppCompatActivity {
         userViewModel.setUserId(userId);
         categoryViewModel.setUserId(userId);
         
-        // Observe tasks for statistics
-        taskViewModel.getAllTasks().observe(this, this::updateTaskStats);
+        // Observe pre-aggregated task statistics
+        taskViewModel.getDayStats().observe(this, totals -> {
+            cachedDayTotals = totals != null ? totals : Collections.emptyList();
+            updateTaskStats();
+        });
+        taskViewModel.getCategoryStats().observe(this, totals -> {
+            cachedCategoryTotals = totals != null ? totals : Collections.emptyList();
+            updateCategoryStats();
+        });
         
         // Observe user for XP and level
         userViewModel.getCurrentUser().observe(this, this::updateUserStats);
@@ -279,103 +284,60 @@ public class StatisticsActivity extends AppCompatActivity {
                     }
                 }
             }
-            updateTaskStats(cachedTasks);
+            updateCategoryStats();
         });
     }
     
-    private void updateTaskStats(List<Task> tasks) {
-        if (tasks == null) {
-            tasks = Collections.emptyList();
-        }
-        cachedTasks = tasks;
-        
-        int total = tasks.size();
+    private void updateTaskStats() {
+        List<TaskDayStats.DayTotals> days = cachedDayTotals;
+
         int completed = 0;
         int failed = 0;
         int cancelled = 0;
         int createdOpen = 0;
-        
-        // Count by category (completed only)
-        Map<String, Integer> categoryCount = new HashMap<>();
+
         int[] completedPerDayThisWeek = new int[7];
         int[] xpPerLast7Days = new int[7];
         float[] difficultyXpSumPerLast7Days = new float[7];
         int[] difficultyXpCountPerLast7Days = new int[7];
         String[] last7Labels = buildLast7DayLabels();
-        Map<Long, Integer> last7IndexByDay = buildLast7IndexMap();
         Set<Long> activeUsageDays = new HashSet<>();
         Map<Long, DayOutcome> dayOutcomes = new TreeMap<>();
-        
-        // Get start of current week (Monday)
-        Calendar weekStart = Calendar.getInstance();
-        weekStart.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY);
-        weekStart.set(Calendar.HOUR_OF_DAY, 0);
-        weekStart.set(Calendar.MINUTE, 0);
-        weekStart.set(Calendar.SECOND, 0);
-        weekStart.set(Calendar.MILLISECOND, 0);
-        long weekStartMillis = weekStart.getTimeInMillis();
-        long weekEndMillis = weekStartMillis + (7 * DAY_MS);
-        
-        for (Task task : tasks) {
-            if (task.getCreatedAt() > 0) {
-                activeUsageDays.add(getDayStart(task.getCreatedAt()));
+
+        long today = DayClock.epochDay(System.currentTimeMillis());
+        long firstOfLast7 = today - 6;
+        // Start of current week (Monday)
+        long weekStart = today - (DayClock.isoDayOfWeek(today) - 1);
+
+        for (TaskDayStats.DayTotals day : days) {
+            createdOpen += day.openCount;
+            completed += day.completedCount;
+            failed += day.failedCount;
+            cancelled += day.cancelledCount;
+
+            if (day.createdCount > 0 || day.doneCount > 0) {
+                activeUsageDays.add(day.epochDay);
             }
 
-            String status = task.getStatus();
-            // Count status
-            if (Task.STATUS_COMPLETED.equals(status)) {
-                completed++;
-                
-                // Count by category
-                String categoryName = resolveCategoryName(task.getCategoryId());
-                categoryCount.put(categoryName, categoryCount.getOrDefault(categoryName, 0) + 1);
-                
-                // Count by day of week
-                long completedDate = task.getCompletedDate();
-                if (completedDate > 0) {
-                    long completedDay = getDayStart(completedDate);
-                    activeUsageDays.add(completedDay);
-
-                    Integer last7Index = last7IndexByDay.get(completedDay);
-                    if (last7Index != null) {
-                        xpPerLast7Days[last7Index] += Math.max(0, task.getTotalXp());
-                        difficultyXpSumPerLast7Days[last7Index] += Math.max(0, task.getDifficultyXp());
-                        difficultyXpCountPerLast7Days[last7Index]++;
-                    }
-                }
+            if (day.epochDay >= firstOfLast7 && day.epochDay <= today) {
+                int index = (int) (day.epochDay - firstOfLast7);
+                xpPerLast7Days[index] += day.doneXp;
+                difficultyXpSumPerLast7Days[index] += day.doneDifficultyXp;
+                difficultyXpCountPerLast7Days[index] += day.doneCount;
+            }
 
-                if (completedDate > 0 && completedDate >= weekStartMillis && completedDate < weekEndMillis) {
-                    Calendar taskCal = Calendar.getInstance();
-                    taskCal.setTimeInMillis(completedDate);
-                    int dayOfWeek = taskCal.get(Calendar.DAY_OF_WEEK);
-                    int dayIndex = (dayOfWeek + 5) % 7; // Convert to Monday=0 index
-                    if (dayIndex >= 0 && dayIndex < 7) {
-                        completedPerDayThisWeek[dayIndex]++;
-                    }
-                }
+            if (day.epochDay >= weekStart && day.epochDay < weekStart + 7) {
+                completedPerDayThisWeek[(int) (day.epochDay - weekStart)] += day.doneCount;
+            }
 
-                long streakDay = getTaskEffectiveDay(task);
-                if (streakDay > 0) {
-                    DayOutcome outcome = dayOutcomes.get(streakDay);
-                    if (outcome == null) outcome = new DayOutcome();
-                    outcome.completed = true;
-                    dayOutcomes.put(streakDay, outcome);
-                }
-            } else if (Task.STATUS_FAILED.equals(status)) {
-                failed++;
-                long streakDay = getTaskEffectiveDay(task);
-                if (streakDay > 0) {
-                    DayOutcome outcome = dayOutcomes.get(streakDay);
-                    if (outcome == null) outcome = new DayOutcome();
-                    outcome.failed = true;
-                    dayOutcomes.put(streakDay, outcome);
-                }
-            } else if (Task.STATUS_CANCELLED.equals(status)) {
-                cancelled++;
-            } else if (Task.STATUS_ACTIVE.equals(status) || Task.STATUS_PAUSED.equals(status)) {
-                createdOpen++;
+            if (day.completedCount > 0 || day.failedCount > 0) {
+                DayOutcome outcome = new DayOutcome();
+                outcome.completed = day.completedCount > 0;
+                outcome.failed = day.failedCount > 0;
+                dayOutcomes.put(day.epochDay, outcome);
             }
         }
+        int total = createdOpen + completed + failed + cancelled;
         
         // Update overview
         textTotalTasks.setText(String.valueOf(total));
@@ -415,9 +377,6 @@ public class StatisticsActivity extends AppCompatActivity {
         // Update weekly activity
         updateWeeklyActivity(completedPerDayThisWeek);
         
-        // Update category bar chart
-        updateCategoryBarChart(categoryCount);
-        
         // Update task status donut chart
         updateStatusDonutChart(createdOpen, completed, failed, cancelled);
 
@@ -426,6 +385,15 @@ public class StatisticsActivity extends AppCompatActivity {
         updateXpLast7DaysLineChart(last7Labels, xpPerLast7Days);
     }
     
+    private void updateCategoryStats() {
+        Map<String, Integer> categoryCount = new HashMap<>();
+        for (TaskDayStats.CategoryTotals totals : cachedCategoryTotals) {
+            String categoryName = resolveCategoryName(totals.categoryId);
+            categoryCount.put(categoryName, categoryCount.getOrDefault(categoryName, 0) + totals.completedCount);
+        }
+        updateCategoryBarChart(categoryCount);
+    }
+
     private void updateCategoryBarChart(Map<String, Integer> categoryCount) {
         if (categoryCount.isEmpty()) {
             chartTaskCompletion.clear();
@@ -589,39 +557,22 @@ public class StatisticsActivity extends AppCompatActivity {
 
     private String[] buildLast7DayLabels() {
         String[] labels = new String[7];
-        long todayStart = getDayStart(System.currentTimeMillis());
-        long firstDay = todayStart - (6 * DAY_MS);
-
-        Calendar calendar = Calendar.getInstance();
+        long firstDay = DayClock.epochDay(System.currentTimeMillis()) - 6;
         for (int i = 0; i < 7; i++) {
-            long day = firstDay + (i * DAY_MS);
-            calendar.setTimeInMillis(day);
-            int d = calendar.get(Calendar.DAY_OF_MONTH);
-            int m = calendar.get(Calendar.MONTH) + 1;
-            labels[i] = d + "." + m + ".";
+            long day = firstDay + i;
+            labels[i] = DayClock.dayOfMonth(day) + "." + DayClock.month(day) + ".";
         }
         return labels;
     }
 
-    private Map<Long, Integer> buildLast7IndexMap() {
-        Map<Long, Integer> indexMap = new HashMap<>();
-        long todayStart = getDayStart(System.currentTimeMillis());
-        long firstDay = todayStart - (6 * DAY_MS);
-        for (int i = 0; i < 7; i++) {
-            long day = firstDay + (i * DAY_MS);
-            indexMap.put(day, i);
-        }
-        return indexMap;
-    }
-
     private int getConsecutiveUsageStreak(Set<Long> activeDays) {
         if (activeDays.isEmpty()) return 0;
 
         int streak = 0;
-        long day = getDayStart(System.currentTimeMillis());
+        long day = DayClock.epochDay(System.currentTimeMillis());
         while (activeDays.contains(day)) {
             streak++;
-            day -= DAY_MS;
+            day--;
         }
         return streak;
     }
@@ -647,23 +598,6 @@ public class StatisticsActivity extends AppCompatActivity {
         return new StreakStats(current, longest);
     }
 
-    private long getTaskEffectiveDay(Task task) {
-        if (task.getDueDate() > 0) return getDayStart(task.getDueDate());
-        if (task.getCompletedDate() > 0) return getDayStart(task.getCompletedDate());
-        if (task.getCreatedAt() > 0) return getDayStart(task.getCreatedAt());
-        return -1L;
-    }
-
-    private long getDayStart(long millis) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(millis);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return calendar.getTimeInMillis();
-    }
-
     private static final class DayOutcome {
         boolean completed;
         boolean failed;
@@ -689,7 +623,7 @@ public class StatisticsActivity extends AppCompatActivity {
 
     private void updateWeeklyActivity(int[] completedPerDay) {
         View[] dayViews = {dayMon, dayTue, dayWed, dayThu, dayFri, daySat, daySun};
-        int today = (Calendar.getInstance().get(Calendar.DAY_OF_WEEK) + 5) % 7;
+        int today = DayClock.isoDayOfWeek(DayClock.epochDay(System.currentTimeMillis())) - 1;
         
         for (int i = 0; i < 7; i++) {
             updateDayIndicator(dayViews[i], completedPerDay[i], i == today);
@@ -23,7 +23,6 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -262,7 +261,6 @@ public class TaskDetailsActivity extends AppCompatActivity {
         taskViewModel.completeTask(taskId, () -> {
             int xp = currentTask.getTotalXp();
             AllianceMissionManager.recordTaskCompletion(
-                    FirebaseFirestore.getInstance(),
                     userId,
                     currentTask,
                     null
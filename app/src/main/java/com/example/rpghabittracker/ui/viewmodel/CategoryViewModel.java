@@ -24,9 +24,12 @@ public class CategoryViewModel extends AndroidViewModel {
     
     private LiveData<List<Category>> userCategories;
     
+    // User whose shared Firestore listener this ViewModel holds
+    private String listeningUserId;
+    
     public CategoryViewModel(@NonNull Application application) {
         super(application);
-        repository = new CategoryRepository(application);
+        repository = CategoryRepository.getInstance(application);
     }
     
     public void setUserId(String userId) {
@@ -34,24 +37,34 @@ public class CategoryViewModel extends AndroidViewModel {
         // Create default categories for new users
         repository.createDefaultCategories(userId);
         // Start listening to Firestore for real-time sync
-        repository.startListeningToCategories(userId);
+        listen(userId);
     }
     
     // Start listening without creating defaults (for existing users)
     public void startListening(String userId) {
         currentUserId.setValue(userId);
-        repository.startListeningToCategories(userId);
+        listen(userId);
     }
     
-    // Stop Firestore listener
+    // Release this screen's hold on the shared Firestore listener
     public void stopListening() {
-        repository.stopListening();
+        if (listeningUserId != null) {
+            repository.stopListening();
+            listeningUserId = null;
+        }
     }
     
     @Override
     protected void onCleared() {
         super.onCleared();
-        repository.stopListening();
+        stopListening();
+    }
+    
+    private void listen(String userId) {
+        if (userId == null || userId.equals(listeningUserId)) return;
+        stopListening();
+        repository.startListeningToCategories(userId);
+        listeningUserId = userId;
     }
     
     // Get all categories for current user
@@ -9,6 +9,9 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDayStats;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.data.repository.RecurrenceExpander;
 import com.example.rpghabittracker.data.repository.TaskRepository;
 
 import java.util.List;
@@ -22,70 +25,98 @@ public class TaskViewModel extends AndroidViewModel {
     private final MutableLiveData<String> currentUserId = new MutableLiveData<>();
     private final MutableLiveData<String> filterStatus = new MutableLiveData<>("ALL");
     private final MutableLiveData<Boolean> showRecurring = new MutableLiveData<>(false);
+    private final MutableLiveData<String> searchQuery = new MutableLiveData<>("");
 
-    private LiveData<List<Task>> allTasks;
-    private LiveData<List<Task>> oneTimeTasks;
-    private LiveData<List<Task>> recurringOccurrences;
+    private LiveData<List<TaskListItem>> allTaskItems;
     private LiveData<List<Task>> recurringTemplates;
+    private LiveData<List<TaskDayStats.DayTotals>> dayStats;
+    private LiveData<List<TaskDayStats.CategoryTotals>> categoryStats;
+    private LiveData<List<String>> searchResults;
+
+    // User whose shared Firestore listener this ViewModel holds
+    private String listeningUserId;
 
     public TaskViewModel(@NonNull Application application) {
         super(application);
-        repository = new TaskRepository(application);
+        repository = TaskRepository.getInstance(application);
     }
 
     public void setUserId(String userId) {
         currentUserId.setValue(userId);
-        repository.startListeningToTasks(userId);
+        if (userId != null && !userId.equals(listeningUserId)) {
+            if (listeningUserId != null) repository.stopListening();
+            repository.startListeningToTasks(userId);
+            listeningUserId = userId;
+        }
     }
 
     @Override
     protected void onCleared() {
         super.onCleared();
-        repository.stopListening();
+        if (listeningUserId != null) {
+            repository.stopListening();
+            listeningUserId = null;
+        }
     }
 
-    // Get all tasks for user (templates + occurrences + one-time)
-    public LiveData<List<Task>> getAllTasks() {
-        if (allTasks == null) {
-            allTasks = Transformations.switchMap(currentUserId, userId -> {
+    // Slim list rows for all tasks of the user (task list and calendar screens)
+    public LiveData<List<TaskListItem>> getAllTaskItems() {
+        if (allTaskItems == null) {
+            allTaskItems = Transformations.switchMap(currentUserId, userId -> {
                 if (userId == null) return new MutableLiveData<>();
-                return repository.getUserTasks(userId);
+                return repository.getUserTaskListItems(userId);
             });
         }
-        return allTasks;
+        return allTaskItems;
     }
 
-    // Get one-time tasks only
-    public LiveData<List<Task>> getOneTimeTasks() {
-        if (oneTimeTasks == null) {
-            oneTimeTasks = Transformations.switchMap(currentUserId, userId -> {
+    // Get recurring TEMPLATES (the parent definition rows)
+    public LiveData<List<Task>> getRecurringTemplates() {
+        if (recurringTemplates == null) {
+            recurringTemplates = Transformations.switchMap(currentUserId, userId -> {
                 if (userId == null) return new MutableLiveData<>();
-                return repository.getOneTimeTasks(userId);
+                return repository.getRecurringTemplates(userId);
             });
         }
-        return oneTimeTasks;
+        return recurringTemplates;
     }
 
-    // Get recurring OCCURRENCES (the daily instances users interact with)
-    public LiveData<List<Task>> getRecurringOccurrences() {
-        if (recurringOccurrences == null) {
-            recurringOccurrences = Transformations.switchMap(currentUserId, userId -> {
+    // Pre-aggregated per-day statistics (statistics screen)
+    public LiveData<List<TaskDayStats.DayTotals>> getDayStats() {
+        if (dayStats == null) {
+            dayStats = Transformations.switchMap(currentUserId, userId -> {
                 if (userId == null) return new MutableLiveData<>();
-                return repository.getRecurringOccurrences(userId);
+                return repository.getDayStats(userId);
             });
         }
-        return recurringOccurrences;
+        return dayStats;
     }
 
-    // Get recurring TEMPLATES (the parent definition rows)
-    public LiveData<List<Task>> getRecurringTemplates() {
-        if (recurringTemplates == null) {
-            recurringTemplates = Transformations.switchMap(currentUserId, userId -> {
+    // Completed tasks per category (statistics screen)
+    public LiveData<List<TaskDayStats.CategoryTotals>> getCategoryStats() {
+        if (categoryStats == null) {
+            categoryStats = Transformations.switchMap(currentUserId, userId -> {
                 if (userId == null) return new MutableLiveData<>();
-                return repository.getRecurringTemplates(userId);
+                return repository.getCategoryStats(userId);
             });
         }
-        return recurringTemplates;
+        return categoryStats;
+    }
+
+    // Ranked ids matching the current search query; null while no search is active
+    public LiveData<List<String>> getSearchResults() {
+        if (searchResults == null) {
+            searchResults = Transformations.switchMap(searchQuery, query -> {
+                String userId = currentUserId.getValue();
+                if (userId == null) return new MutableLiveData<>(null);
+                return repository.searchTaskIds(userId, query);
+            });
+        }
+        return searchResults;
+    }
+
+    public void setSearchQuery(String query) {
+        searchQuery.setValue(query);
     }
 
     // Get single task by ID
@@ -112,30 +143,6 @@ public class TaskViewModel extends AndroidViewModel {
         repository.markTaskComplete(taskId, onSuccess);
     }
 
-    // Get tasks by status
-    public LiveData<List<Task>> getTasksByStatus(String status) {
-        return Transformations.switchMap(currentUserId, userId -> {
-            if (userId == null) return new MutableLiveData<>();
-            return repository.getTasksByStatus(userId, status);
-        });
-    }
-
-    // Get today's tasks
-    public LiveData<List<Task>> getTodayTasks() {
-        return Transformations.switchMap(currentUserId, userId -> {
-            if (userId == null) return new MutableLiveData<>();
-            return repository.getTodayTasks(userId);
-        });
-    }
-
-    // Get completed tasks
-    public LiveData<List<Task>> getCompletedTasks() {
-        return Transformations.switchMap(currentUserId, userId -> {
-            if (userId == null) return new MutableLiveData<>();
-            return repository.getCompletedTasks(userId);
-        });
-    }
-
     // Insert new task
     public void insert(Task task) {
         repository.insert(task);
@@ -151,9 +158,8 @@ public class TaskViewModel extends AndroidViewModel {
         repository.delete(task);
     }
 
-    // Mark task as complete
-    public void completeTask(Task task, Runnable onSuccess) {
-        repository.markTaskComplete(task.getId(), onSuccess);
+    public void deleteById(String taskId) {
+        repository.deleteById(taskId);
     }
 
     // Update task status
@@ -171,11 +177,17 @@ public class TaskViewModel extends AndroidViewModel {
         repository.resumeRecurringSeries(templateId);
     }
 
-    // Generate today's occurrences for all active recurring templates
-    public void generateTodayOccurrences() {
+    // Store a virtual calendar occurrence before acting on it (callback on the main thread)
+    public void materializeOccurrence(TaskListItem item, TaskRepository.TaskCallback callback) {
+        repository.materializeOccurrence(RecurrenceExpander.templateIdOf(item.getId()),
+                RecurrenceExpander.epochDayOf(item.getId()), callback);
+    }
+
+    // Generate occurrences missed since the last run (up to today) for all active recurring templates
+    public void generateMissedOccurrences() {
         String userId = currentUserId.getValue();
         if (userId != null) {
-            repository.generateTodayOccurrences(userId);
+            repository.generateMissedOccurrences(userId);
         }
     }
 
@@ -28,7 +28,7 @@ public class UserViewModel extends AndroidViewModel {
     
     public UserViewModel(@NonNull Application application) {
         super(application);
-        repository = new UserRepository(application);
+        repository = UserRepository.getInstance(application);
     }
     
     // Set current user ID
@@ -2,19 +2,23 @@ package com.example.rpghabittracker.utils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.example.rpghabittracker.data.model.Boss;
 import com.example.rpghabittracker.data.model.Equipment;
 import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
+import com.google.android.gms.tasks.TaskExecutors;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.SetOptions;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -22,10 +26,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Centralized manager for alliance special mission rules and progress updates.
+ * Talks to the backend through RemoteStore, so mission traffic is counted in
+ * SyncMetrics and can run against the in-memory store.
  */
 public final class AllianceMissionManager {
 
@@ -43,6 +50,23 @@ public final class AllianceMissionManager {
         void onResult(boolean finalized, boolean won, String message);
     }
 
+    // Created on first use, so a store installed with RemoteStores.install() is picked up
+    private static final class Remote {
+        static final RemoteStore STORE = RemoteStores.forCaller("AllianceMissionManager");
+    }
+
+    // Store results (and so the callbacks) are handled on the main thread;
+    // JVM tests have no main looper and swap in a direct executor
+    private static volatile Executor callbackExecutor = TaskExecutors.MAIN_THREAD;
+
+    @VisibleForTesting
+    public static void setCallbackExecutor(@NonNull Executor executor) {
+        callbackExecutor = executor;
+    }
+
+    private static final String COLLECTION_ALLIANCES = "alliances";
+    private static final String COLLECTION_USERS = "users";
+
     private static final long TWO_WEEKS_MS = 14L * 24 * 60 * 60 * 1000;
 
     private static final int MAX_SHOP_PURCHASES = 5;
@@ -58,16 +82,15 @@ public final class AllianceMissionManager {
     private static final int DAMAGE_DAILY_MESSAGE = 4;
 
     public static void startMission(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String allianceId,
             @NonNull String leaderId,
             @Nullable MissionStartCallback callback
     ) {
-        DocumentReference allianceRef = firestore.collection("alliances").document(allianceId);
+        String progressCollection = progressCollection(allianceId);
         long now = System.currentTimeMillis();
 
-        firestore.runTransaction(transaction -> {
-                    DocumentSnapshot allianceDoc = transaction.get(allianceRef);
+        Remote.STORE.runTransaction(transaction -> {
+                    RemoteDocument allianceDoc = transaction.get(COLLECTION_ALLIANCES, allianceId);
                     if (!allianceDoc.exists()) {
                         throw new IllegalStateException("Savez ne postoji.");
                     }
@@ -104,29 +127,27 @@ public final class AllianceMissionManager {
                     updates.put("missionWon", false);
                     updates.put("status", "IN_MISSION");
 
-                    transaction.update(allianceRef, updates);
+                    transaction.merge(COLLECTION_ALLIANCES, allianceId, updates);
 
                     for (String memberId : memberIds) {
-                        DocumentReference progressRef = allianceRef.collection("missionProgress").document(memberId);
                         Map<String, Object> progress = defaultProgress(memberId, missionId, now);
-                        transaction.set(progressRef, progress, SetOptions.merge());
+                        transaction.merge(progressCollection, memberId, progress);
 
                         // Track how many special missions each user has started/participated in.
-                        DocumentReference userRef = firestore.collection("users").document(memberId);
                         Map<String, Object> userStartUpdates = new HashMap<>();
-                        userStartUpdates.put("specialMissionsStarted", FieldValue.increment(1));
+                        userStartUpdates.put("specialMissionsStarted", Remote.STORE.increment(1));
                         userStartUpdates.put("lastUpdated", now);
-                        transaction.set(userRef, userStartUpdates, SetOptions.merge());
+                        transaction.merge(COLLECTION_USERS, memberId, userStartUpdates);
                     }
 
                     return bossHp;
                 })
-                .addOnSuccessListener(bossHp -> {
+                .addOnSuccessListener(callbackExecutor, bossHp -> {
                     if (callback != null) {
                         callback.onResult(true, "Specijalna misija je pokrenuta.", bossHp);
                     }
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(callbackExecutor, e -> {
                     if (callback != null) {
                         callback.onResult(false, e.getMessage() != null ? e.getMessage() : "Greška pri pokretanju misije.", 0);
                     }
@@ -134,17 +155,15 @@ public final class AllianceMissionManager {
     }
 
     public static void recordShopPurchase(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String userId,
             @Nullable MissionEventCallback callback
     ) {
-        resolveAllianceForUser(firestore, userId, (allianceId, error) -> {
+        resolveAllianceForUser(userId, (allianceId, error) -> {
             if (allianceId == null) {
                 if (callback != null) callback.onResult(false, 0, error != null ? error : "Korisnik nije u savezu.");
                 return;
             }
             applyCounterDamageEvent(
-                    firestore,
                     allianceId,
                     userId,
                     "shopPurchasesCount",
@@ -157,17 +176,15 @@ public final class AllianceMissionManager {
     }
 
     public static void recordBattleHit(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String userId,
             @Nullable MissionEventCallback callback
     ) {
-        resolveAllianceForUser(firestore, userId, (allianceId, error) -> {
+        resolveAllianceForUser(userId, (allianceId, error) -> {
             if (allianceId == null) {
                 if (callback != null) callback.onResult(false, 0, error != null ? error : "Korisnik nije u savezu.");
                 return;
             }
             applyCounterDamageEvent(
-                    firestore,
                     allianceId,
                     userId,
                     "battleHitsCount",
@@ -180,23 +197,31 @@ public final class AllianceMissionManager {
     }
 
     public static void recordTaskCompletion(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String userId,
             @NonNull Task task,
             @Nullable MissionEventCallback callback
     ) {
-        resolveAllianceForUser(firestore, userId, (allianceId, error) -> {
+        recordTaskCompletion(userId, task.getTaskDifficulty(), task.getTaskImportance(), callback);
+    }
+
+    // Only difficulty and importance matter, so list screens can pass a TaskListItem's fields
+    public static void recordTaskCompletion(
+            @NonNull String userId,
+            @Nullable TaskDifficulty difficulty,
+            @Nullable TaskImportance importance,
+            @Nullable MissionEventCallback callback
+    ) {
+        resolveAllianceForUser(userId, (allianceId, error) -> {
             if (allianceId == null) {
                 if (callback != null) callback.onResult(false, 0, error != null ? error : "Korisnik nije u savezu.");
                 return;
             }
 
-            final boolean simpleTask = isSimpleMissionTask(task);
-            final int units = simpleTask && isEasyAndNormal(task) ? 2 : 1;
+            final boolean simpleTask = isSimpleMissionTask(difficulty, importance);
+            final int units = simpleTask && isEasyAndNormal(difficulty, importance) ? 2 : 1;
 
             if (simpleTask) {
                 applyCounterDamageEvent(
-                        firestore,
                         allianceId,
                         userId,
                         "simpleTasksCount",
@@ -205,13 +230,12 @@ public final class AllianceMissionManager {
                         DAMAGE_SIMPLE_TASK_UNIT,
                         (success, appliedDamage, message) -> {
                             // Bonus check after task completion.
-                            tryApplyNoUnresolvedBonus(firestore, allianceId, userId);
+                            tryApplyNoUnresolvedBonus(allianceId, userId);
                             if (callback != null) callback.onResult(success, appliedDamage, message);
                         }
                 );
             } else {
                 applyCounterDamageEvent(
-                        firestore,
                         allianceId,
                         userId,
                         "otherTasksCount",
@@ -220,7 +244,7 @@ public final class AllianceMissionManager {
                         DAMAGE_OTHER_TASK,
                         (success, appliedDamage, message) -> {
                             // Bonus check after task completion.
-                            tryApplyNoUnresolvedBonus(firestore, allianceId, userId);
+                            tryApplyNoUnresolvedBonus(allianceId, userId);
                             if (callback != null) callback.onResult(success, appliedDamage, message);
                         }
                 );
@@ -229,16 +253,15 @@ public final class AllianceMissionManager {
     }
 
     public static void recordMessageDay(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String allianceId,
             @NonNull String userId,
             @Nullable MissionEventCallback callback
     ) {
-        DocumentReference allianceRef = firestore.collection("alliances").document(allianceId);
+        String progressCollection = progressCollection(allianceId);
         String todayKey = dayKeyUtc(System.currentTimeMillis());
 
-        firestore.runTransaction(transaction -> {
-                    DocumentSnapshot allianceDoc = transaction.get(allianceRef);
+        Remote.STORE.runTransaction(transaction -> {
+                    RemoteDocument allianceDoc = transaction.get(COLLECTION_ALLIANCES, allianceId);
                     if (!allianceDoc.exists()) {
                         return EventResult.error("Savez ne postoji.");
                     }
@@ -259,9 +282,7 @@ public final class AllianceMissionManager {
 
                     int bossHp = getInt(allianceDoc.get("missionBossHp"), 0);
                     int currentDamage = getInt(allianceDoc.get("missionCurrentDamage"), 0);
-
-                    DocumentReference progressRef = allianceRef.collection("missionProgress").document(userId);
-                    DocumentSnapshot progressDoc = transaction.get(progressRef);
+                    RemoteDocument progressDoc = transaction.get(progressCollection, userId);
                     Map<String, Object> progress = progressDoc.exists()
                             ? new HashMap<>(progressDoc.getData() != null ? progressDoc.getData() : new HashMap<>())
                             : defaultProgress(userId, missionId, now);
@@ -285,25 +306,25 @@ public final class AllianceMissionManager {
                     progress.put("messageDays", days);
                     progress.put("damageDealt", dealt);
                     progress.put("lastUpdated", now);
-                    transaction.set(progressRef, progress, SetOptions.merge());
+                    transaction.merge(progressCollection, userId, progress);
 
                     Map<String, Object> allianceUpdates = new HashMap<>();
                     allianceUpdates.put("missionCurrentDamage", newDamage);
                     allianceUpdates.put("missionBossCurrentHp", Math.max(0, bossHp - newDamage));
                     allianceUpdates.put("missionLastUpdated", now);
-                    transaction.update(allianceRef, allianceUpdates);
+                    transaction.merge(COLLECTION_ALLIANCES, allianceId, allianceUpdates);
 
                     return EventResult.success(appliedDamage, "Dnevni chat doprinos je obračunat.");
                 })
-                .addOnSuccessListener(result -> {
+                .addOnSuccessListener(callbackExecutor, result -> {
                     if (result.expired) {
-                        finalizeMissionIfExpired(firestore, allianceId, null);
+                        finalizeMissionIfExpired(allianceId, null);
                     }
                     if (callback != null) {
                         callback.onResult(result.success, result.appliedDamage, result.message);
                     }
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(callbackExecutor, e -> {
                     if (callback != null) {
                         callback.onResult(false, 0, e.getMessage() != null ? e.getMessage() : "Greška pri obračunu chat doprinosa.");
                     }
@@ -311,15 +332,13 @@ public final class AllianceMissionManager {
     }
 
     public static void finalizeMissionIfExpired(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String allianceId,
             @Nullable MissionFinalizeCallback callback
     ) {
-        DocumentReference allianceRef = firestore.collection("alliances").document(allianceId);
         long now = System.currentTimeMillis();
 
-        firestore.runTransaction(transaction -> {
-                    DocumentSnapshot allianceDoc = transaction.get(allianceRef);
+        Remote.STORE.runTransaction(transaction -> {
+                    RemoteDocument allianceDoc = transaction.get(COLLECTION_ALLIANCES, allianceId);
                     if (!allianceDoc.exists()) {
                         return FinalizeResult.notFinalized("Savez ne postoji.");
                     }
@@ -353,18 +372,18 @@ public final class AllianceMissionManager {
                     if (shouldReward) {
                         updates.put("missionRewardDistributed", true);
                     }
-                    transaction.update(allianceRef, updates);
+                    transaction.merge(COLLECTION_ALLIANCES, allianceId, updates);
 
                     return FinalizeResult.finalized(won, shouldReward, memberIds, missionId);
                 })
-                .addOnSuccessListener(result -> {
+                .addOnSuccessListener(callbackExecutor, result -> {
                     if (!result.finalized) {
                         if (callback != null) callback.onResult(false, false, result.message);
                         return;
                     }
 
                     if (result.shouldReward) {
-                        distributeMissionRewards(firestore, result.memberIds, () -> {
+                        distributeMissionRewards(result.memberIds, () -> {
                             if (callback != null) {
                                 callback.onResult(true, true, "Misija je završena uspešno. Nagrade su dodeljene.");
                             }
@@ -378,7 +397,7 @@ public final class AllianceMissionManager {
                         }
                     }
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(callbackExecutor, e -> {
                     if (callback != null) {
                         callback.onResult(false, false, e.getMessage() != null ? e.getMessage() : "Greška pri završetku misije.");
                     }
@@ -386,7 +405,6 @@ public final class AllianceMissionManager {
     }
 
     private static void applyCounterDamageEvent(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String allianceId,
             @NonNull String userId,
             @NonNull String counterField,
@@ -395,10 +413,10 @@ public final class AllianceMissionManager {
             int damagePerUnit,
             @Nullable MissionEventCallback callback
     ) {
-        DocumentReference allianceRef = firestore.collection("alliances").document(allianceId);
+        String progressCollection = progressCollection(allianceId);
 
-        firestore.runTransaction(transaction -> {
-                    DocumentSnapshot allianceDoc = transaction.get(allianceRef);
+        Remote.STORE.runTransaction(transaction -> {
+                    RemoteDocument allianceDoc = transaction.get(COLLECTION_ALLIANCES, allianceId);
                     if (!allianceDoc.exists()) {
                         return EventResult.error("Savez ne postoji.");
                     }
@@ -419,9 +437,7 @@ public final class AllianceMissionManager {
 
                     int bossHp = getInt(allianceDoc.get("missionBossHp"), 0);
                     int currentDamage = getInt(allianceDoc.get("missionCurrentDamage"), 0);
-
-                    DocumentReference progressRef = allianceRef.collection("missionProgress").document(userId);
-                    DocumentSnapshot progressDoc = transaction.get(progressRef);
+                    RemoteDocument progressDoc = transaction.get(progressCollection, userId);
                     Map<String, Object> progress = progressDoc.exists()
                             ? new HashMap<>(progressDoc.getData() != null ? progressDoc.getData() : new HashMap<>())
                             : defaultProgress(userId, missionId, now);
@@ -441,25 +457,25 @@ public final class AllianceMissionManager {
                     progress.put(counterField, currentCount + applicableUnits);
                     progress.put("damageDealt", getInt(progress.get("damageDealt"), 0) + appliedDamage);
                     progress.put("lastUpdated", now);
-                    transaction.set(progressRef, progress, SetOptions.merge());
+                    transaction.merge(progressCollection, userId, progress);
 
                     Map<String, Object> allianceUpdates = new HashMap<>();
                     allianceUpdates.put("missionCurrentDamage", newDamage);
                     allianceUpdates.put("missionBossCurrentHp", Math.max(0, bossHp - newDamage));
                     allianceUpdates.put("missionLastUpdated", now);
-                    transaction.update(allianceRef, allianceUpdates);
+                    transaction.merge(COLLECTION_ALLIANCES, allianceId, allianceUpdates);
 
                     return EventResult.success(appliedDamage, "Napredak misije je ažuriran.");
                 })
-                .addOnSuccessListener(result -> {
+                .addOnSuccessListener(callbackExecutor, result -> {
                     if (result.expired) {
-                        finalizeMissionIfExpired(firestore, allianceId, null);
+                        finalizeMissionIfExpired(allianceId, null);
                     }
                     if (callback != null) {
                         callback.onResult(result.success, result.appliedDamage, result.message);
                     }
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(callbackExecutor, e -> {
                     if (callback != null) {
                         callback.onResult(false, 0, e.getMessage() != null ? e.getMessage() : "Greška pri ažuriranju misije.");
                     }
@@ -467,52 +483,51 @@ public final class AllianceMissionManager {
     }
 
     private static void tryApplyNoUnresolvedBonus(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String allianceId,
             @NonNull String userId
     ) {
-        DocumentReference allianceRef = firestore.collection("alliances").document(allianceId);
-        allianceRef.get().addOnSuccessListener(allianceDoc -> {
+        Remote.STORE.get(COLLECTION_ALLIANCES, allianceId).addOnSuccessListener(callbackExecutor, allianceDoc -> {
             if (!allianceDoc.exists()) return;
             if (!Boolean.TRUE.equals(allianceDoc.getBoolean("missionActive"))) return;
 
             long now = System.currentTimeMillis();
             long missionEnd = getMillis(allianceDoc.get("missionEndTime"), 0L);
             if (missionEnd > 0 && now > missionEnd) {
-                finalizeMissionIfExpired(firestore, allianceId, null);
+                finalizeMissionIfExpired(allianceId, null);
                 return;
             }
 
             long missionStart = getMillis(allianceDoc.get("missionStartTime"), 0L);
-            firestore.collection("tasks")
+            RemoteQuery unresolved = RemoteQuery.on("tasks")
                     .whereEqualTo("userId", userId)
-                    .whereIn("status", java.util.Arrays.asList(Task.STATUS_ACTIVE, Task.STATUS_FAILED))
-                    .get()
-                    .addOnSuccessListener(tasks -> {
+                    .whereIn("status", Arrays.asList(Task.STATUS_ACTIVE, Task.STATUS_FAILED));
+            Remote.STORE.query(unresolved)
+                    .addOnSuccessListener(callbackExecutor, tasks -> {
                         boolean hasUnresolved = false;
-                        for (DocumentSnapshot taskDoc : tasks.getDocuments()) {
-                            long createdAt = getMillis(taskDoc.get("createdAt"), 0L);
+                        for (RemoteDocument taskDoc : tasks) {
+                            // Compact (v2) task documents use short keys, see TaskWireFormat
+                            Object created = taskDoc.get("ca") != null ? taskDoc.get("ca") : taskDoc.get("createdAt");
+                            long createdAt = getMillis(created, 0L);
                             if (createdAt >= missionStart) {
                                 hasUnresolved = true;
                                 break;
                             }
                         }
                         if (!hasUnresolved) {
-                            applyNoUnresolvedBonusTransaction(firestore, allianceId, userId);
+                            applyNoUnresolvedBonusTransaction(allianceId, userId);
                         }
                     });
         });
     }
 
     private static void applyNoUnresolvedBonusTransaction(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String allianceId,
             @NonNull String userId
     ) {
-        DocumentReference allianceRef = firestore.collection("alliances").document(allianceId);
+        String progressCollection = progressCollection(allianceId);
 
-        firestore.runTransaction(transaction -> {
-            DocumentSnapshot allianceDoc = transaction.get(allianceRef);
+        Remote.STORE.runTransaction(transaction -> {
+            RemoteDocument allianceDoc = transaction.get(COLLECTION_ALLIANCES, allianceId);
             if (!allianceDoc.exists()) return EventResult.noop("Savez ne postoji.");
             if (!Boolean.TRUE.equals(allianceDoc.getBoolean("missionActive"))) return EventResult.noop("Nema aktivne misije.");
 
@@ -524,9 +539,7 @@ public final class AllianceMissionManager {
             if (missionId == null) missionId = "";
             int bossHp = getInt(allianceDoc.get("missionBossHp"), 0);
             int currentDamage = getInt(allianceDoc.get("missionCurrentDamage"), 0);
-
-            DocumentReference progressRef = allianceRef.collection("missionProgress").document(userId);
-            DocumentSnapshot progressDoc = transaction.get(progressRef);
+            RemoteDocument progressDoc = transaction.get(progressCollection, userId);
             Map<String, Object> progress = progressDoc.exists()
                     ? new HashMap<>(progressDoc.getData() != null ? progressDoc.getData() : new HashMap<>())
                     : defaultProgress(userId, missionId, now);
@@ -543,24 +556,23 @@ public final class AllianceMissionManager {
             progress.put("noUnresolvedAwarded", true);
             progress.put("damageDealt", getInt(progress.get("damageDealt"), 0) + appliedDamage);
             progress.put("lastUpdated", now);
-            transaction.set(progressRef, progress, SetOptions.merge());
+            transaction.merge(progressCollection, userId, progress);
 
             Map<String, Object> allianceUpdates = new HashMap<>();
             allianceUpdates.put("missionCurrentDamage", newDamage);
             allianceUpdates.put("missionBossCurrentHp", Math.max(0, bossHp - newDamage));
             allianceUpdates.put("missionLastUpdated", now);
-            transaction.update(allianceRef, allianceUpdates);
+            transaction.merge(COLLECTION_ALLIANCES, allianceId, allianceUpdates);
 
             return EventResult.success(appliedDamage, "Bonus za nerešene zadatke je dodeljen.");
-        }).addOnSuccessListener(result -> {
+        }).addOnSuccessListener(callbackExecutor, result -> {
             if (result.expired) {
-                finalizeMissionIfExpired(firestore, allianceId, null);
+                finalizeMissionIfExpired(allianceId, null);
             }
         });
     }
 
     private static void distributeMissionRewards(
-            @NonNull FirebaseFirestore firestore,
             @NonNull List<String> memberIds,
             @Nullable Runnable onDone
     ) {
@@ -571,7 +583,7 @@ public final class AllianceMissionManager {
 
         AtomicInteger pending = new AtomicInteger(memberIds.size());
         for (String memberId : memberIds) {
-            rewardMember(firestore, memberId, () -> {
+            rewardMember(memberId, () -> {
                 if (pending.decrementAndGet() == 0 && onDone != null) {
                     onDone.run();
                 }
@@ -580,14 +592,11 @@ public final class AllianceMissionManager {
     }
 
     private static void rewardMember(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String userId,
             @NonNull Runnable onDone
     ) {
-        DocumentReference userRef = firestore.collection("users").document(userId);
-
-        firestore.runTransaction(transaction -> {
-                    DocumentSnapshot userDoc = transaction.get(userRef);
+        Remote.STORE.runTransaction(transaction -> {
+                    RemoteDocument userDoc = transaction.get(COLLECTION_USERS, userId);
                     if (!userDoc.exists()) return false;
 
                     int coins = getInt(userDoc.get("coins"), 0);
@@ -606,20 +615,20 @@ public final class AllianceMissionManager {
                     updates.put("specialMissionsCompleted", specialMissions);
                     updates.put("badges", badges);
                     updates.put("lastUpdated", System.currentTimeMillis());
-                    transaction.update(userRef, updates);
+                    transaction.merge(COLLECTION_USERS, userId, updates);
                     return true;
                 })
-                .addOnSuccessListener(success -> {
+                .addOnSuccessListener(callbackExecutor, success -> {
                     if (Boolean.TRUE.equals(success)) {
-                        grantRandomPotion(firestore, userId);
-                        grantRandomClothing(firestore, userId);
+                        grantRandomPotion(userId);
+                        grantRandomClothing(userId);
                     }
                     onDone.run();
                 })
-                .addOnFailureListener(e -> onDone.run());
+                .addOnFailureListener(callbackExecutor, e -> onDone.run());
     }
 
-    private static void grantRandomPotion(@NonNull FirebaseFirestore firestore, @NonNull String userId) {
+    private static void grantRandomPotion(@NonNull String userId) {
         String[] subTypes = new String[] {
                 Equipment.POTION_PP_20,
                 Equipment.POTION_PP_40,
@@ -660,14 +669,12 @@ public final class AllianceMissionManager {
                 break;
         }
 
-        DocumentReference equipmentRef = firestore.collection("users")
-                .document(userId)
-                .collection("equipment")
-                .document(subType);
-
-        equipmentRef.get().addOnSuccessListener(doc -> {
+        String equipmentCollection = equipmentCollection(userId);
+        Remote.STORE.get(equipmentCollection, subType).addOnSuccessListener(callbackExecutor, doc -> {
             if (doc.exists()) {
-                equipmentRef.update("quantity", com.google.firebase.firestore.FieldValue.increment(1));
+                Map<String, Object> update = new HashMap<>();
+                update.put("quantity", Remote.STORE.increment(1));
+                Remote.STORE.batch().merge(equipmentCollection, subType, update).commit();
             } else {
                 Map<String, Object> equipment = new HashMap<>();
                 equipment.put("name", name);
@@ -681,12 +688,12 @@ public final class AllianceMissionManager {
                 equipment.put("battlesRemaining", 0);
                 equipment.put("upgradeLevel", 1);
                 equipment.put("createdAt", System.currentTimeMillis());
-                equipmentRef.set(equipment);
+                Remote.STORE.batch().set(equipmentCollection, subType, equipment).commit();
             }
         });
     }
 
-    private static void grantRandomClothing(@NonNull FirebaseFirestore firestore, @NonNull String userId) {
+    private static void grantRandomClothing(@NonNull String userId) {
         String[] subTypes = new String[] {
                 Equipment.CLOTHING_GLOVES,
                 Equipment.CLOTHING_SHIELD,
@@ -734,25 +741,19 @@ public final class AllianceMissionManager {
         equipment.put("upgradeLevel", 1);
         equipment.put("createdAt", System.currentTimeMillis());
 
-        firestore.collection("users")
-                .document(userId)
-                .collection("equipment")
-                .document(docId)
-                .set(equipment);
+        Remote.STORE.batch().set(equipmentCollection(userId), docId, equipment).commit();
     }
 
-    private static boolean isSimpleMissionTask(@NonNull Task task) {
-        String difficulty = task.getDifficulty();
-        String importance = task.getImportance();
-        return Task.DIFFICULTY_VERY_EASY.equals(difficulty)
-                || Task.DIFFICULTY_EASY.equals(difficulty)
-                || Task.IMPORTANCE_NORMAL.equals(importance)
-                || Task.IMPORTANCE_IMPORTANT.equals(importance);
+    private static boolean isSimpleMissionTask(TaskDifficulty difficulty, TaskImportance importance) {
+        return difficulty == TaskDifficulty.VERY_EASY
+                || difficulty == TaskDifficulty.EASY
+                || importance == TaskImportance.NORMAL
+                || importance == TaskImportance.IMPORTANT;
     }
 
-    private static boolean isEasyAndNormal(@NonNull Task task) {
-        return Task.DIFFICULTY_EASY.equals(task.getDifficulty())
-                && Task.IMPORTANCE_NORMAL.equals(task.getImportance());
+    private static boolean isEasyAndNormal(TaskDifficulty difficulty, TaskImportance importance) {
+        return difficulty == TaskDifficulty.EASY
+                && importance == TaskImportance.NORMAL;
     }
 
     private static Map<String, Object> defaultProgress(String userId, String missionId, long now) {
@@ -771,6 +772,15 @@ public final class AllianceMissionManager {
         return progress;
     }
 
+    // Subcollections are addressed by their path
+    private static String progressCollection(String allianceId) {
+        return COLLECTION_ALLIANCES + "/" + allianceId + "/missionProgress";
+    }
+
+    private static String equipmentCollection(String userId) {
+        return COLLECTION_USERS + "/" + userId + "/equipment";
+    }
+
     private static int getInt(@Nullable Object value, int fallback) {
         if (value instanceof Number) return ((Number) value).intValue();
         return fallback;
@@ -810,13 +820,11 @@ public final class AllianceMissionManager {
     }
 
     private static void resolveAllianceForUser(
-            @NonNull FirebaseFirestore firestore,
             @NonNull String userId,
             @NonNull AllianceResolverCallback callback
     ) {
-        firestore.collection("users").document(userId)
-                .get()
-                .addOnSuccessListener(userDoc -> {
+        Remote.STORE.get(COLLECTION_USERS, userId)
+                .addOnSuccessListener(callbackExecutor, userDoc -> {
                     if (!userDoc.exists()) {
                         callback.onResolved(null, "Korisnik ne postoji.");
                         return;
@@ -828,7 +836,7 @@ public final class AllianceMissionManager {
                     }
                     callback.onResolved(allianceId, null);
                 })
-                .addOnFailureListener(e -> callback.onResolved(null, e.getMessage()));
+                .addOnFailureListener(callbackExecutor, e -> callback.onResolved(null, e.getMessage()));
     }
 
     private static class EventResult {
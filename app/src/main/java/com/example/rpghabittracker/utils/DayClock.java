@@ -0,0 +1,218 @@
+package com.example.rpghabittracker.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+
+/**
+ * Local-day arithmetic on epoch millis without Calendar: epoch days (days
+ * since 1970-01-01 in the device's time zone), day/week/month bounds and
+ * civil dates. The zone offset is cached together with the span of instants
+ * it is valid for (between two DST transitions), so conversions inside that
+ * span allocate nothing; a miss (another span, a zone change) looks the
+ * offset up once in the zone rules.
+ *
+ * Same day boundaries as Calendar.getInstance(), including days that start
+ * at 01:00 because midnight was skipped by DST; where DST repeats midnight
+ * the day starts at the first one (like java.time, Calendar takes the
+ * second). Call onTimeZoneChanged() when the device zone or locale changes
+ * (TimeZoneReceiver does).
+ */
+public final class DayClock {
+
+    public static final long DAY_MS = 24L * 60 * 60 * 1000;
+    // Farther than any zone offset from UTC (+14h / -12h), with margin
+    private static final long OFFSET_REACH_MS = 18L * 60 * 60 * 1000;
+    // About four years of DST spans
+    private static final int CACHED_SPANS = 8;
+
+    // Offset in effect for instants in [start, end)
+    private static final class Span {
+        final long start;
+        final long end;
+        final int offsetMs;
+
+        Span(long start, long end, int offsetMs) {
+            this.start = start;
+            this.end = end;
+            this.offsetMs = offsetMs;
+        }
+    }
+
+    // Most recently loaded first; replaced as a whole on a miss, never written on a hit
+    private static volatile Span[] spans = new Span[0];
+    private static volatile ZoneRules rules;
+    private static volatile String zoneId;
+    private static volatile int firstDayOfWeek; // Calendar.SUNDAY..SATURDAY, 0 = not read yet
+
+    private DayClock() {
+    }
+
+    // Drops the cached offsets; the next call reads the current default zone and locale
+    public static void onTimeZoneChanged() {
+        rules = null;
+        zoneId = null;
+        spans = new Span[0];
+        firstDayOfWeek = 0;
+    }
+
+    // ── Instants and epoch days ─────────────────────────────────────────────
+
+    public static long epochDay(long millis) {
+        return Math.floorDiv(millis + offsetAt(millis), DAY_MS);
+    }
+
+    // Epoch day of millis in the given zone; allocates unless it is the device zone
+    public static long epochDay(long millis, String zone) {
+        if (zone == null || zone.equals(zoneId())) return epochDay(millis);
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.of(zone)).toLocalDate().toEpochDay();
+    }
+
+    // Id of the device zone the conversions use
+    public static String zoneId() {
+        String id = zoneId;
+        if (id == null) {
+            id = ZoneId.systemDefault().getId();
+            zoneId = id;
+        }
+        return id;
+    }
+
+    // First instant of a local day (midnight, or the DST transition if midnight was skipped)
+    public static long startOfDay(long epochDay) {
+        long local = epochDay * DAY_MS;
+        int before = offsetAt(local - OFFSET_REACH_MS);
+        int after = offsetAt(local + OFFSET_REACH_MS);
+        if (before == after) return local - before;
+
+        // A transition near this midnight: keep the candidates that really are local midnight
+        long early = local - before;
+        long late = local - after;
+        boolean earlyValid = offsetAt(early) == before;
+        boolean lateValid = offsetAt(late) == after;
+        if (earlyValid && lateValid) return Math.min(early, late); // Overlap: the earlier midnight
+        if (lateValid) return late;
+        return early; // Midnight skipped: the day starts at the transition
+    }
+
+    // Start of the local day containing millis
+    public static long dayStart(long millis) {
+        return startOfDay(epochDay(millis));
+    }
+
+    // ── Weeks and months (epoch days) ───────────────────────────────────────
+
+    // ISO day of week: 1 = Monday .. 7 = Sunday (1970-01-01 was a Thursday)
+    public static int isoDayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    // First day of the week containing epochDay, by the default locale's first day of week
+    public static long weekStartDay(long epochDay) {
+        int calendarDay = isoDayOfWeek(epochDay) % 7 + 1; // Calendar.SUNDAY = 1
+        return epochDay - Math.floorMod(calendarDay - firstDayOfWeek(), 7);
+    }
+
+    public static long monthStartDay(long epochDay) {
+        return epochDay - dayOfMonth(epochDay) + 1;
+    }
+
+    // First day of the following month
+    public static long nextMonthStartDay(long epochDay) {
+        int date = civil(epochDay);
+        int year = date / 10000;
+        int month = date / 100 % 100;
+        return epochDay - date % 100 + 1 + lengthOfMonth(year, month);
+    }
+
+    // ── Civil dates (proleptic Gregorian) ───────────────────────────────────
+
+    // month is 1..12
+    public static long epochDay(int year, int month, int dayOfMonth) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    public static int year(long epochDay) {
+        return civil(epochDay) / 10000;
+    }
+
+    // 1..12
+    public static int month(long epochDay) {
+        return civil(epochDay) / 100 % 100;
+    }
+
+    public static int dayOfMonth(long epochDay) {
+        return civil(epochDay) % 100;
+    }
+
+    public static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // year * 10000 + month * 100 + day, for years 0..9999 (days_from_civil inverse)
+    private static int civil(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return year * 10000 + month * 100 + day;
+    }
+
+    // ── Offset cache ────────────────────────────────────────────────────────
+
+    static int offsetAt(long millis) {
+        Span[] cached = spans;
+        for (Span span : cached) {
+            if (millis >= span.start && millis < span.end) return span.offsetMs;
+        }
+        Span loaded = loadSpan(millis);
+        Span[] next = new Span[Math.min(cached.length + 1, CACHED_SPANS)];
+        next[0] = loaded;
+        System.arraycopy(cached, 0, next, 1, next.length - 1);
+        spans = next;
+        return loaded.offsetMs;
+    }
+
+    private static Span loadSpan(long millis) {
+        ZoneRules zoneRules = rules;
+        if (zoneRules == null) {
+            zoneRules = ZoneId.systemDefault().getRules();
+            rules = zoneRules;
+        }
+        Instant instant = Instant.ofEpochMilli(millis);
+        int offsetMs = zoneRules.getOffset(instant).getTotalSeconds() * 1000;
+        if (zoneRules.isFixedOffset()) return new Span(Long.MIN_VALUE, Long.MAX_VALUE, offsetMs);
+
+        // previousTransition is strictly before the instant: step past it for an exact hit
+        ZoneOffsetTransition before = zoneRules.previousTransition(instant.plusMillis(1));
+        ZoneOffsetTransition after = zoneRules.nextTransition(instant);
+        long start = before != null ? before.toEpochSecond() * 1000 : Long.MIN_VALUE;
+        long end = after != null ? after.toEpochSecond() * 1000 : Long.MAX_VALUE;
+        return new Span(start, end, offsetMs);
+    }
+
+    private static int firstDayOfWeek() {
+        int day = firstDayOfWeek;
+        if (day == 0) {
+            day = Calendar.getInstance().getFirstDayOfWeek();
+            firstDayOfWeek = day;
+        }
+        return day;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.rpghabittracker.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Drops DayClock's cached zone offsets and first day of week when the
+ * device time zone or locale changes.
+ */
+public class TimeZoneReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        DayClock.onTimeZoneChanged();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.rpghabittracker.data.local;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Microbenchmark of the compact column codecs against the Gson path they
+ * replaced (toJson / fromJson with a TypeToken resolved per call), on column
+ * values shaped like the app's: a user's badges, recurring days, equipment
+ * counts and weapon upgrades. Prints ns per call and characters per value;
+ * ConvertersTest checks that both paths decode the same values. Only runs on
+ * request: ./gradlew testDebugUnitTest -Pbenchmarks
+ */
+public class ConvertersBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    private static final Gson gson = new Gson();
+
+    // Defeats dead-code elimination of the measured calls
+    private static int sink;
+
+    @BeforeClass
+    public static void onlyOnRequest() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void compareWithGson() {
+        List<String> badges = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            badges.add("badge_" + i + "_" + (i % 3 == 0 ? "special_mission" : "level"));
+        }
+        List<Integer> days = Arrays.asList(1, 3, 5, 7);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("PP_20_SINGLE", 3);
+        counts.put("PP_40_SINGLE", 1);
+        counts.put("GLOVES", 2);
+        counts.put("SHIELD", 1);
+        counts.put("BOOTS", 4);
+        Map<String, Double> upgrades = new LinkedHashMap<>();
+        upgrades.put("SWORD", 0.05);
+        upgrades.put("BOW", 0.1);
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-22s %10s %10s %10s %10s %8s %8s%n",
+                "column", "enc ns", "gson enc", "dec ns", "gson dec", "chars", "json"));
+
+        out.append(row("List<String> badges", badges,
+                Converters::fromList, Converters::fromString,
+                v -> gson.toJson(v),
+                s -> gson.fromJson(s, new TypeToken<List<String>>() {}.getType())));
+        out.append(row("List<Integer> days", days,
+                Converters::fromIntList, Converters::fromIntListString,
+                v -> gson.toJson(v),
+                s -> gson.fromJson(s, new TypeToken<List<Integer>>() {}.getType())));
+        out.append(row("Map<String,Integer>", counts,
+                Converters::fromMap, Converters::fromMapString,
+                v -> gson.toJson(v),
+                s -> gson.fromJson(s, new TypeToken<Map<String, Integer>>() {}.getType())));
+        out.append(row("Map<String,Double>", upgrades,
+                Converters::fromDoubleMap, Converters::fromDoubleMapString,
+                v -> gson.toJson(v),
+                s -> gson.fromJson(s, new TypeToken<Map<String, Double>>() {}.getType())));
+
+        System.out.println(out);
+    }
+
+    private static <T> String row(String name, T value,
+                                  Function<T, String> encode, Function<String, T> decode,
+                                  Function<T, String> gsonEncode, Function<String, T> gsonDecode) {
+        String compact = encode.apply(value);
+        String json = gsonEncode.apply(value);
+
+        double encodeNs = time(() -> sink += encode.apply(value).length());
+        double gsonEncodeNs = time(() -> sink += gsonEncode.apply(value).length());
+        double decodeNs = time(() -> sink += decode.apply(compact).hashCode());
+        double gsonDecodeNs = time(() -> sink += gsonDecode.apply(json).hashCode());
+
+        return String.format(Locale.ROOT, "%-22s %10.0f %10.0f %10.0f %10.0f %8d %8d%n",
+                name, encodeNs, gsonEncodeNs, decodeNs, gsonDecodeNs,
+                compact.length(), json.length());
+    }
+
+    // Mean ns per call after a warm-up pass
+    private static double time(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.rpghabittracker.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ConvertersTest {
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Round trips
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void stringListRoundTrips() {
+        assertStringList(Collections.emptyList());
+        assertStringList(Arrays.asList("first_task", "level_5", "special_mission_1"));
+        assertStringList(Arrays.asList("", null, "a", null));
+        // Separators and digits inside values are covered by the length prefix
+        assertStringList(Arrays.asList("3:abc", "a;b,c", "~", "n", "12", ":", "::"));
+        assertStringList(Arrays.asList("čćžšđ", "Ђорђе", "😀", "line\nbreak"));
+    }
+
+    @Test
+    public void intListRoundTrips() {
+        assertIntList(Collections.emptyList());
+        assertIntList(Arrays.asList(1, 3, 5));
+        assertIntList(Arrays.asList(0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE));
+        assertIntList(Arrays.asList(null, 7, null));
+        assertIntList(Collections.singletonList(null));
+    }
+
+    @Test
+    public void intMapRoundTrips() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        assertIntMap(map);
+        map.put("PP_20_SINGLE", 2);
+        map.put("GLOVES", 0);
+        map.put("key;with:separators", -40);
+        map.put("", Integer.MIN_VALUE);
+        map.put("max", Integer.MAX_VALUE);
+        map.put("empty", null);
+        assertIntMap(map);
+    }
+
+    @Test
+    public void doubleMapRoundTrips() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        assertDoubleMap(map);
+        map.put("SWORD", 0.05);
+        map.put("BOW", 1.0 / 3);
+        map.put("tiny", Double.MIN_VALUE);
+        map.put("huge", 1e300);
+        map.put("negative", -0.0);
+        map.put("nan", Double.NaN);
+        map.put("empty", null);
+        assertDoubleMap(map);
+    }
+
+    @Test
+    public void nullKeysRoundTrip() {
+        Map<String, Integer> ints = new HashMap<>();
+        ints.put(null, 3);
+        ints.put("a", 1);
+        assertEquals(ints, Converters.fromMapString(Converters.fromMap(ints)));
+
+        Map<String, Double> doubles = new HashMap<>();
+        doubles.put(null, 2.5);
+        doubles.put("a", null);
+        assertEquals(doubles, Converters.fromDoubleMapString(Converters.fromDoubleMap(doubles)));
+    }
+
+    @Test
+    public void randomValuesRoundTrip() {
+        Random random = new Random(7);
+        for (int run = 0; run < 500; run++) {
+            List<String> strings = new ArrayList<>();
+            List<Integer> ints = new ArrayList<>();
+            Map<String, Integer> intMap = new LinkedHashMap<>();
+            Map<String, Double> doubleMap = new LinkedHashMap<>();
+            int size = random.nextInt(8);
+            for (int i = 0; i < size; i++) {
+                String text = randomString(random);
+                strings.add(random.nextInt(10) == 0 ? null : text);
+                ints.add(random.nextInt(10) == 0 ? null : random.nextInt());
+                intMap.put(text, random.nextInt());
+                doubleMap.put(text, random.nextDouble() * random.nextInt());
+            }
+            assertStringList(strings);
+            assertIntList(ints);
+            assertIntMap(intMap);
+            assertDoubleMap(doubleMap);
+        }
+    }
+
+    @Test
+    public void nullValuesStayNull() {
+        assertNull(Converters.fromList(null));
+        assertNull(Converters.fromIntList(null));
+        assertNull(Converters.fromMap(null));
+        assertNull(Converters.fromDoubleMap(null));
+
+        assertTrue(Converters.fromString(null).isEmpty());
+        assertTrue(Converters.fromIntListString(null).isEmpty());
+        assertTrue(Converters.fromMapString(null).isEmpty());
+        assertTrue(Converters.fromDoubleMapString(null).isEmpty());
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Legacy JSON values written by the Gson converters
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void legacyJsonArraysAreDecoded() {
+        assertEquals(Arrays.asList("first_task", "level_5"),
+                Converters.fromString("[\"first_task\",\"level_5\"]"));
+        assertEquals(Arrays.asList("a", null), Converters.fromString("[\"a\",null]"));
+        assertEquals(Arrays.asList(1, 3, 5), Converters.fromIntListString("[1,3,5]"));
+        assertTrue(Converters.fromString("[]").isEmpty());
+        assertTrue(Converters.fromIntListString("[]").isEmpty());
+    }
+
+    @Test
+    public void legacyJsonObjectsAreDecoded() {
+        Map<String, Integer> ints = new HashMap<>();
+        ints.put("PP_20_SINGLE", 2);
+        ints.put("GLOVES", 1);
+        assertEquals(ints, Converters.fromMapString("{\"PP_20_SINGLE\":2,\"GLOVES\":1}"));
+
+        Map<String, Double> doubles = new HashMap<>();
+        doubles.put("SWORD", 0.05);
+        assertEquals(doubles, Converters.fromDoubleMapString("{\"SWORD\":0.05}"));
+        assertTrue(Converters.fromMapString("{}").isEmpty());
+    }
+
+    @Test
+    public void legacyJsonNullDecodesAsBefore() {
+        // Gson wrote "null" for a null collection and read it back as null
+        assertNull(Converters.fromString("null"));
+        assertNull(Converters.fromIntListString("null"));
+        assertNull(Converters.fromMapString("null"));
+        assertNull(Converters.fromDoubleMapString("null"));
+    }
+
+    @Test
+    public void gsonWrittenColumnsDecodeAsGsonReadThem() {
+        // Column values shaped like the app's: badges, recurring days, equipment counts, upgrades
+        List<String> badges = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            badges.add("badge_" + i + "_" + (i % 3 == 0 ? "special_mission" : "level"));
+        }
+        List<Integer> days = Arrays.asList(1, 3, 5, 7);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("PP_20_SINGLE", 3);
+        counts.put("GLOVES", 2);
+        counts.put("BOOTS", 4);
+        Map<String, Double> upgrades = new LinkedHashMap<>();
+        upgrades.put("SWORD", 0.05);
+        upgrades.put("BOW", 0.1);
+
+        Gson gson = new Gson();
+        String badgesJson = gson.toJson(badges);
+        String daysJson = gson.toJson(days);
+        String countsJson = gson.toJson(counts);
+        String upgradesJson = gson.toJson(upgrades);
+
+        assertEquals(gson.fromJson(badgesJson, new TypeToken<List<String>>() {}.getType()),
+                Converters.fromString(badgesJson));
+        assertEquals(gson.fromJson(daysJson, new TypeToken<List<Integer>>() {}.getType()),
+                Converters.fromIntListString(daysJson));
+        assertEquals(gson.fromJson(countsJson, new TypeToken<Map<String, Integer>>() {}.getType()),
+                Converters.fromMapString(countsJson));
+        assertEquals(gson.fromJson(upgradesJson, new TypeToken<Map<String, Double>>() {}.getType()),
+                Converters.fromDoubleMapString(upgradesJson));
+
+        assertStringList(badges);
+        assertIntList(days);
+        assertIntMap(counts);
+        assertDoubleMap(upgrades);
+    }
+
+    @Test
+    public void compactValuesAreNeverTakenForJson() {
+        // Values whose text starts like JSON are still length-prefixed when encoded
+        List<String> jsonLooking = Arrays.asList("[\"a\"]", "{}", "null");
+        String encoded = Converters.fromList(jsonLooking);
+        assertEquals("5:[\"a\"]2:{}4:null", encoded);
+        assertEquals(jsonLooking, Converters.fromString(encoded));
+
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("{", 1);
+        map.put("[", 2);
+        assertEquals(map, Converters.fromMapString(Converters.fromMap(map)));
+
+        // A single null element is "n" / "~", not "null"
+        assertEquals("n", Converters.fromIntList(Collections.singletonList(null)));
+        assertEquals("~", Converters.fromList(Collections.singletonList(null)));
+    }
+
+    @Test
+    public void emptyStringIsAnEmptyCollection() {
+        assertTrue(Converters.fromString("").isEmpty());
+        assertTrue(Converters.fromIntListString("").isEmpty());
+        assertTrue(Converters.fromMapString("").isEmpty());
+        assertTrue(Converters.fromDoubleMapString("").isEmpty());
+    }
+
+    @Test
+    public void malformedValuesKeepWhatWasReadable() {
+        assertEquals(Collections.singletonList("ab"), Converters.fromString("2:ab9:x"));
+        assertEquals(Collections.singletonList(1), Converters.fromIntListString("1,x,3"));
+        assertTrue(Converters.fromMapString("3:abcx;").isEmpty());
+        assertEquals(Collections.singletonList(5), Converters.fromIntListString("5,99999999999"));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private static void assertStringList(List<String> list) {
+        assertEquals(list, Converters.fromString(Converters.fromList(list)));
+    }
+
+    private static void assertIntList(List<Integer> list) {
+        assertEquals(list, Converters.fromIntListString(Converters.fromIntList(list)));
+    }
+
+    private static void assertIntMap(Map<String, Integer> map) {
+        Map<String, Integer> decoded = Converters.fromMapString(Converters.fromMap(map));
+        assertEquals(map, decoded);
+        assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(decoded.keySet()));
+    }
+
+    private static void assertDoubleMap(Map<String, Double> map) {
+        Map<String, Double> decoded = Converters.fromDoubleMapString(Converters.fromDoubleMap(map));
+        assertEquals(map, decoded);
+        assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(decoded.keySet()));
+    }
+
+    private static String randomString(Random random) {
+        String alphabet = "ab:;,~n[{0123456789 čž\u0000";
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
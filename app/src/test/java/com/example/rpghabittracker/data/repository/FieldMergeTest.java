@@ -0,0 +1,197 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class FieldMergeTest {
+
+    @Test
+    public void higherStampWinsPerField() {
+        Map<String, Object> current = values("name", "local", "status", "ACTIVE");
+        Map<String, Long> currentClocks = clocks("name", 20, "status", 10);
+        Map<String, Object> incoming = values("name", "remote", "status", "COMPLETED");
+        Map<String, Long> incomingClocks = clocks("name", 15, "status", 30);
+
+        FieldMerge.Result result = FieldMerge.merge(current, currentClocks, incoming, incomingClocks, false);
+
+        assertEquals(values("name", "local", "status", "COMPLETED"), result.values);
+        assertEquals(clocks("name", 20, "status", 30), result.clocks);
+        assertTrue(result.currentWon);
+        assertTrue(result.incomingWon);
+    }
+
+    @Test
+    public void tiesAndUnclockedWritesGoToIncoming() {
+        FieldMerge.Result tie = FieldMerge.merge(values("name", "a"), clocks("name", 5),
+                values("name", "b"), clocks("name", 5), false);
+        assertEquals("b", tie.values.get("name"));
+        assertFalse(tie.currentWon);
+
+        // Older app versions write no clocks: newest arrival wins among them
+        FieldMerge.Result unclocked = FieldMerge.merge(values("name", "a"), null,
+                values("name", "b"), null, false);
+        assertEquals("b", unclocked.values.get("name"));
+        assertTrue(unclocked.clocks.isEmpty());
+    }
+
+    @Test
+    public void unclockedValueNeverBeatsAClockedOne() {
+        FieldMerge.Result result = FieldMerge.merge(values("name", "clocked"), clocks("name", 1),
+                values("name", "legacy"), null, false);
+        assertEquals("clocked", result.values.get("name"));
+        assertTrue(result.currentWon);
+        assertFalse(result.incomingWon);
+    }
+
+    @Test
+    public void partialIncomingOnlyCompetesForItsFields() {
+        Map<String, Object> current = values("name", "x", "description", "y");
+        Map<String, Long> currentClocks = clocks("name", 1, "description", 1);
+
+        FieldMerge.Result result = FieldMerge.merge(current, currentClocks,
+                values("name", "z"), clocks("name", 2), true);
+
+        assertEquals(values("name", "z", "description", "y"), result.values);
+        assertEquals(clocks("name", 2, "description", 1), result.clocks);
+        assertFalse(result.currentWon);
+    }
+
+    @Test
+    public void fullIncomingClearsFieldsItLeavesOutWhenItsStampWins() {
+        Map<String, Object> current = values("name", "x", "description", "y");
+
+        FieldMerge.Result newer = FieldMerge.merge(current, clocks("name", 1, "description", 1),
+                values("name", "x"), clocks("name", 1, "description", 2), false);
+        assertEquals(values("name", "x"), newer.values);
+        assertTrue(newer.incomingWon);
+
+        FieldMerge.Result older = FieldMerge.merge(current, clocks("name", 1, "description", 3),
+                values("name", "x"), clocks("name", 1, "description", 2), false);
+        assertEquals(current, older.values);
+        assertTrue(older.currentWon);
+    }
+
+    @Test
+    public void bookkeepingFieldsAreTakenNotMerged() {
+        Map<String, Object> current = values("lastUpdated", 100L, "v", 1L, "hlc", clocks("name", 9));
+        Map<String, Object> incoming = values("lastUpdated", 200L, "hlc", clocks("name", 1));
+
+        FieldMerge.Result result = FieldMerge.merge(current, null, incoming, null, false);
+
+        assertEquals(values("lastUpdated", 200L, "v", 1L), result.values);
+        assertFalse(result.currentWon);
+        assertFalse(result.incomingWon);
+    }
+
+    @Test
+    public void equalValuesAreNoWin() {
+        // Room maps hold Integers where Firestore returns Longs
+        FieldMerge.Result result = FieldMerge.merge(values("coins", 5), clocks("coins", 9),
+                values("coins", 5L), clocks("coins", 1), false);
+        assertFalse(result.currentWon);
+        assertFalse(result.incomingWon);
+    }
+
+    @Test
+    public void mergeConvergesWhateverTheOrder() {
+        // Three devices' states of one document; every order of applying them gives one result
+        Random random = new Random(11);
+        for (int run = 0; run < 200; run++) {
+            List<Map<String, Object>> states = Arrays.asList(
+                    randomState(random, 0), randomState(random, 1), randomState(random, 2));
+            Map<String, Object> expected = null;
+            for (int[] order : new int[][]{{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}}) {
+                Map<String, Object> merged = Collections.emptyMap();
+                Map<String, Long> mergedClocks = Collections.emptyMap();
+                for (int i : order) {
+                    Map<String, Object> state = states.get(i);
+                    FieldMerge.Result result = FieldMerge.merge(merged, mergedClocks,
+                            state, FieldMerge.clocksOf(state), false);
+                    merged = result.values;
+                    mergedClocks = result.clocks;
+                }
+                if (expected == null) {
+                    expected = merged;
+                } else {
+                    assertEquals(expected, merged);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void changedFieldsIgnoresBookkeeping() {
+        Map<String, Object> before = values("name", "x", "coins", 5, "lastUpdated", 1L, "hlc", clocks("name", 1));
+        Map<String, Object> after = values("name", "y", "coins", 5L, "lastUpdated", 2L, "level", 2);
+
+        assertEquals(new HashSet<>(Arrays.asList("name", "level")),
+                new HashSet<>(FieldMerge.changedFields(before, after)));
+        assertEquals(new HashSet<>(Arrays.asList("name", "coins", "level")),
+                new HashSet<>(FieldMerge.changedFields(null, after)));
+    }
+
+    @Test
+    public void clocksOfReadsNumericStamps() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("name", 7L);
+        nested.put("status", 8);
+        nested.put("broken", "x");
+
+        assertEquals(clocks("name", 7, "status", 8), FieldMerge.clocksOf(values("hlc", nested)));
+        assertTrue(FieldMerge.clocksOf(values("hlc", "x")).isEmpty());
+        assertTrue(FieldMerge.clocksOf(null).isEmpty());
+    }
+
+    @Test
+    public void sameValueComparesNumbersByValue() {
+        assertTrue(FieldMerge.sameValue(5, 5L));
+        assertTrue(FieldMerge.sameValue(0.5f, 0.5));
+        assertTrue(FieldMerge.sameValue(null, null));
+        assertFalse(FieldMerge.sameValue(5, 5.5));
+        assertFalse(FieldMerge.sameValue(null, 0));
+        assertFalse(FieldMerge.sameValue("5", 5));
+        assertTrue(FieldMerge.sameValue(Double.NaN, Double.NaN));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    // The low bits stand for the node, so stamps of different devices never tie (as with Hlc)
+    private static Map<String, Object> randomState(Random random, int node) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        Map<String, Object> stamps = new LinkedHashMap<>();
+        for (String field : new String[]{"name", "status", "dueDate"}) {
+            long stamp = random.nextInt(1000) * 4L + node;
+            if (random.nextBoolean()) state.put(field, field + random.nextInt(3));
+            stamps.put(field, stamp);
+        }
+        state.put(FieldMerge.FIELD_CLOCKS, stamps);
+        return state;
+    }
+
+    private static Map<String, Object> values(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static Map<String, Long> clocks(Object... keysAndStamps) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndStamps.length; i += 2) {
+            map.put((String) keysAndStamps[i], ((Number) keysAndStamps[i + 1]).longValue());
+        }
+        return map;
+    }
+}
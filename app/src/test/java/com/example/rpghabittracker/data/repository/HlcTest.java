@@ -0,0 +1,60 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HlcTest {
+
+    @Test
+    public void stampsStrictlyIncrease() {
+        long previous = Hlc.now();
+        for (int i = 0; i < 100_000; i++) {
+            long stamp = Hlc.now();
+            assertTrue(stamp > previous);
+            previous = stamp;
+        }
+    }
+
+    @Test
+    public void stampsCarryWallClockMillis() {
+        long before = System.currentTimeMillis();
+        long millis = Hlc.millis(Hlc.now());
+        // Earlier tests may have moved the clock a little ahead of the wall clock
+        assertTrue(millis >= before);
+        assertTrue(millis <= System.currentTimeMillis() + 60_000);
+    }
+
+    @Test
+    public void observedStampsAreOvertaken() {
+        long remote = (System.currentTimeMillis() + 5_000) << 20 | (3L << 12) | 7;
+        Hlc.observe(remote);
+        long next = Hlc.now();
+        assertTrue(next > remote);
+        assertEquals(Hlc.millis(remote), Hlc.millis(next));
+    }
+
+    @Test
+    public void counterOverflowMovesToTheNextMillisecond() {
+        long millis = System.currentTimeMillis() + 10_000;
+        Hlc.observe(millis << 20 | (255L << 12));
+        long next = Hlc.now();
+        assertEquals(millis + 1, Hlc.millis(next));
+    }
+
+    @Test
+    public void olderStampsDoNotMoveTheClockBack() {
+        long current = Hlc.now();
+        Hlc.observe(1L << 20);
+        assertTrue(Hlc.now() > current);
+    }
+
+    @Test
+    public void seedMarksTheClockSeeded() {
+        long stored = (System.currentTimeMillis() + 20_000) << 20;
+        Hlc.seed(stored);
+        assertTrue(Hlc.isSeeded());
+        assertTrue(Hlc.now() > stored);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.rpghabittracker.data.model.PendingWrite;
+import com.example.rpghabittracker.data.remote.InMemoryRemoteStore;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OutboxTest {
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Field encoding
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void everyValueTypeRoundTrips() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("name", 1_700_000_000_000L);
+        nested.put("deep", Collections.singletonMap("x", "y"));
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("string", "Zadatak čćž");
+        fields.put("empty", "");
+        fields.put("long", Long.MAX_VALUE);
+        fields.put("double", 0.1);
+        fields.put("true", true);
+        fields.put("null", null);
+        fields.put("map", nested);
+        fields.put("list", Arrays.asList("a", 2L, null, Collections.singletonList(false)));
+
+        assertEquals(fields, Outbox.decodeFields(Outbox.encodeFields(fields), null));
+    }
+
+    @Test
+    public void numbersKeepTheirKind() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("int", 3);
+        fields.put("wholeDouble", 3.0);
+        fields.put("float", 0.5f);
+
+        Map<String, Object> decoded = Outbox.decodeFields(Outbox.encodeFields(fields), null);
+        // Integral values come back as Long (like Firestore), fractional ones as Double
+        assertEquals(3L, decoded.get("int"));
+        assertEquals(3.0, decoded.get("wholeDouble"));
+        assertEquals(0.5, decoded.get("float"));
+    }
+
+    @Test
+    public void keyOrderIsKept() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("z", 1);
+        fields.put("a", 2);
+        fields.put("m", 3);
+
+        Map<String, Object> decoded = Outbox.decodeFields(Outbox.encodeFields(fields), null);
+        assertEquals(Arrays.asList("z", "a", "m"), new ArrayList<>(decoded.keySet()));
+    }
+
+    @Test
+    public void serverTimestampStaysAPlaceholderUntilSent() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("lastUpdated", Outbox.SERVER_TIMESTAMP);
+        fields.put("hlc", Collections.singletonMap("at", Outbox.SERVER_TIMESTAMP));
+        String encoded = Outbox.encodeFields(fields);
+
+        // Coalescing decodes without a target and must get the placeholder back
+        Map<String, Object> queued = Outbox.decodeFields(encoded, null);
+        assertSame(Outbox.SERVER_TIMESTAMP, queued.get("lastUpdated"));
+        assertSame(Outbox.SERVER_TIMESTAMP, ((Map<?, ?>) queued.get("hlc")).get("at"));
+
+        // Flushing resolves it to the target store's own value
+        InMemoryRemoteStore store = new InMemoryRemoteStore();
+        try {
+            Map<String, Object> sent = Outbox.decodeFields(encoded, store);
+            assertSame(store.serverTimestamp(), sent.get("lastUpdated"));
+            assertSame(store.serverTimestamp(), ((Map<?, ?>) sent.get("hlc")).get("at"));
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedValuesAreRejected() {
+        Outbox.encodeFields(Collections.singletonMap("date", new Date()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownTagsAreRejected() {
+        Outbox.decodeFields("{\"f\":[\"x\",1]}", null);
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Coalescing
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void setReplacesQueuedFields() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, fields("a", 1, "b", 2), null, null);
+        Outbox.coalesce(row, PendingWrite.OP_SET, fields("c", 3), null, null);
+
+        assertEquals(PendingWrite.OP_SET, row.getOp());
+        assertEquals(fields("c", 3L), queued(row));
+    }
+
+    @Test
+    public void mergeAddsToQueuedFields() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_SET, fields("a", 1, "b", 2), null, null);
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, fields("b", 20, "c", 30), null, null);
+
+        // A merge over a queued set keeps the set: the document is still replaced
+        assertEquals(PendingWrite.OP_SET, row.getOp());
+        assertEquals(fields("a", 1L, "b", 20L, "c", 30L), queued(row));
+    }
+
+    @Test
+    public void mergeCombinesNestedMaps() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_MERGE,
+                fields("hlc", fields("name", 5), "name", "x"), null, null);
+        Outbox.coalesce(row, PendingWrite.OP_MERGE,
+                fields("hlc", fields("status", 6), "status", "COMPLETED"), null, null);
+
+        assertEquals(fields("name", 5L, "status", 6L), queued(row).get("hlc"));
+
+        // A set replaces nested maps as a whole
+        Outbox.coalesce(row, PendingWrite.OP_SET, fields("hlc", fields("due", 7)), null, null);
+        assertEquals(fields("due", 7L), queued(row).get("hlc"));
+    }
+
+    @Test
+    public void deleteReplacesEverything() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_SET, fields("a", 1), increments("coins", 5), null);
+        Outbox.coalesce(row, PendingWrite.OP_DELETE, null, null, "user1");
+
+        assertEquals(PendingWrite.OP_DELETE, row.getOp());
+        assertNull(row.getFields());
+        assertTrue(row.getIncrements().isEmpty());
+        assertEquals("user1", row.getTombstoneUserId());
+    }
+
+    @Test
+    public void mergeAfterDeleteIsDropped() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_DELETE, null, null, "user1");
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, fields("a", 1), increments("coins", 5), null);
+
+        assertEquals(PendingWrite.OP_DELETE, row.getOp());
+        assertNull(row.getFields());
+        assertTrue(row.getIncrements().isEmpty());
+        assertEquals("user1", row.getTombstoneUserId());
+    }
+
+    @Test
+    public void setAfterDeleteRecreatesTheDocument() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_DELETE, null, null, "user1");
+        Outbox.coalesce(row, PendingWrite.OP_SET, fields("a", 1), null, null);
+
+        assertEquals(PendingWrite.OP_SET, row.getOp());
+        assertEquals(fields("a", 1L), queued(row));
+        assertNull(row.getTombstoneUserId());
+    }
+
+    @Test
+    public void incrementsAreSummed() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, null, increments("coins", 5, "totalTasksCompleted", 1), null);
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, null, increments("coins", -2), null);
+
+        assertEquals(PendingWrite.OP_MERGE, row.getOp());
+        assertNull(row.getFields());
+        assertEquals(increments("coins", 3, "totalTasksCompleted", 1), row.getIncrements());
+    }
+
+    @Test
+    public void absoluteValueDropsQueuedIncrement() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, null, increments("coins", 5, "totalTasksCreated", 1), null);
+        // The absolute value is read from the local row, which already counts the +5
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, fields("coins", 105), null, null);
+
+        assertEquals(fields("coins", 105L), queued(row));
+        assertEquals(increments("totalTasksCreated", 1), row.getIncrements());
+
+        // A later increment applies on top of the absolute value
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, null, increments("coins", 2), null);
+        assertEquals(increments("coins", 2, "totalTasksCreated", 1), row.getIncrements());
+    }
+
+    @Test
+    public void placeholdersSurviveCoalescing() {
+        PendingWrite row = row();
+        Outbox.coalesce(row, PendingWrite.OP_MERGE,
+                fields("lastUpdated", Outbox.SERVER_TIMESTAMP), null, null);
+        Outbox.coalesce(row, PendingWrite.OP_MERGE, fields("a", 1), null, null);
+
+        assertSame(Outbox.SERVER_TIMESTAMP, queued(row).get("lastUpdated"));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private static PendingWrite row() {
+        PendingWrite row = new PendingWrite("tasks", "task1");
+        row.setOp(PendingWrite.OP_MERGE);
+        return row;
+    }
+
+    private static Map<String, Object> queued(PendingWrite row) {
+        return Outbox.decodeFields(row.getFields(), null);
+    }
+
+    private static Map<String, Object> fields(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static Map<String, Integer> increments(Object... keysAndValues) {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], (Integer) keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.data.repository.QuotaLedger.Period;
+import com.example.rpghabittracker.utils.DayClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.TimeZone;
+
+public class QuotaLedgerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Belgrade");
+
+    private TimeZone defaultZone;
+    private Locale defaultLocale;
+    private long now;
+    private QuotaLedger ledger;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        defaultLocale = Locale.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZONE));
+        // Weeks start on Monday
+        Locale.setDefault(Locale.UK);
+        DayClock.onTimeZoneChanged();
+
+        // Wednesday
+        now = millis(2025, 3, 12, 10, 0);
+        ledger = new QuotaLedger(() -> now);
+        ledger.hydrate("user1", Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        Locale.setDefault(defaultLocale);
+        DayClock.onTimeZoneChanged();
+    }
+
+    @Test
+    public void hydrateCountsEachPeriod() {
+        ledger.hydrate("user1", Arrays.asList(
+                completion(TaskDifficulty.HARD, TaskImportance.NORMAL, millis(2025, 3, 12, 8, 0)),
+                completion(TaskDifficulty.HARD, TaskImportance.IMPORTANT, millis(2025, 3, 10, 8, 0)),
+                completion(TaskDifficulty.EASY, TaskImportance.NORMAL, millis(2025, 3, 2, 8, 0)),
+                // Last month: counted nowhere
+                completion(TaskDifficulty.HARD, TaskImportance.NORMAL, millis(2025, 2, 28, 8, 0))));
+
+        assertTrue(ledger.isHydrated("user1"));
+        assertFalse(ledger.isHydrated("user2"));
+        assertCounts(TaskDifficulty.HARD, 1, 2, 2);
+        assertCounts(TaskDifficulty.EASY, 0, 0, 1);
+        assertEquals(1, ledger.count(Period.DAY, TaskImportance.NORMAL));
+        assertEquals(1, ledger.count(Period.WEEK, TaskImportance.IMPORTANT));
+        assertEquals(2, ledger.count(Period.MONTH, TaskImportance.NORMAL));
+    }
+
+    @Test
+    public void onlyCompletedQuotaTasksOfTheUserCount() {
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0)));
+
+        Task active = completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0));
+        active.setTaskStatus(TaskStatus.ACTIVE);
+        ledger.add(active);
+        Task free = completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0));
+        free.setCountsTowardQuota(false);
+        ledger.add(free);
+        Task otherUser = completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0));
+        otherUser.setUserId("user2");
+        ledger.add(otherUser);
+
+        assertCounts(TaskDifficulty.HARD, 1, 1, 1);
+    }
+
+    @Test
+    public void replaceMovesACompletionBetweenDays() {
+        Task before = completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0));
+        ledger.add(before);
+
+        Task after = completed(TaskDifficulty.HARD, millis(2025, 3, 11, 9, 0));
+        ledger.replace(before, after);
+        assertCounts(TaskDifficulty.HARD, 0, 1, 1);
+
+        // Un-completing removes it everywhere
+        Task reopened = completed(TaskDifficulty.HARD, 0);
+        reopened.setTaskStatus(TaskStatus.ACTIVE);
+        ledger.replace(after, reopened);
+        assertCounts(TaskDifficulty.HARD, 0, 0, 0);
+    }
+
+    @Test
+    public void countersNeverGoNegative() {
+        ledger.remove(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0)));
+        assertCounts(TaskDifficulty.HARD, 0, 0, 0);
+
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0)));
+        assertCounts(TaskDifficulty.HARD, 1, 1, 1);
+    }
+
+    @Test
+    public void dayRollsOverAtLocalMidnight() {
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 23, 59)));
+
+        now = millis(2025, 3, 12, 23, 59);
+        assertCounts(TaskDifficulty.HARD, 1, 1, 1);
+        now = millis(2025, 3, 13, 0, 0);
+        assertCounts(TaskDifficulty.HARD, 0, 1, 1);
+
+        // A completion dated yesterday lands in the week and month only
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 20, 0)));
+        assertCounts(TaskDifficulty.HARD, 0, 2, 2);
+    }
+
+    @Test
+    public void weekRollsOverOnMonday() {
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0)));
+
+        now = millis(2025, 3, 16, 23, 0); // Sunday
+        assertCounts(TaskDifficulty.HARD, 0, 1, 1);
+        now = millis(2025, 3, 17, 0, 30); // Monday
+        assertCounts(TaskDifficulty.HARD, 0, 0, 1);
+    }
+
+    @Test
+    public void monthRollsOverOnTheFirst() {
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 31, 9, 0)));
+        now = millis(2025, 3, 31, 12, 0); // Monday
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 31, 11, 0)));
+        assertCounts(TaskDifficulty.HARD, 1, 1, 2);
+
+        // New month inside the same week: the week keeps counting
+        now = millis(2025, 4, 1, 9, 0);
+        assertCounts(TaskDifficulty.HARD, 0, 1, 0);
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 4, 1, 8, 0)));
+        assertCounts(TaskDifficulty.HARD, 1, 2, 1);
+    }
+
+    @Test
+    public void dayCounterRestartsWhenTheClockGoesBack() {
+        // A device clock set back a day: the day counter starts again, the week and month keep theirs
+        ledger.add(completed(TaskDifficulty.HARD, millis(2025, 3, 12, 9, 0)));
+        now = millis(2025, 3, 11, 9, 0);
+        assertCounts(TaskDifficulty.HARD, 0, 1, 1);
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private void assertCounts(TaskDifficulty difficulty, int day, int week, int month) {
+        assertEquals("day", day, ledger.count(Period.DAY, difficulty));
+        assertEquals("week", week, ledger.count(Period.WEEK, difficulty));
+        assertEquals("month", month, ledger.count(Period.MONTH, difficulty));
+    }
+
+    private static Task completed(TaskDifficulty difficulty, long completedDate) {
+        Task task = new Task();
+        task.setUserId("user1");
+        task.setTaskDifficulty(difficulty);
+        task.setTaskImportance(TaskImportance.NORMAL);
+        task.setTaskStatus(TaskStatus.COMPLETED);
+        task.setCompletedDate(completedDate);
+        return task;
+    }
+
+    private static Task.QuotaCompletion completion(TaskDifficulty difficulty, TaskImportance importance,
+                                                   long completedDate) {
+        Task.QuotaCompletion completion = new Task.QuotaCompletion();
+        completion.difficulty = difficulty;
+        completion.importance = importance;
+        completion.completedDate = completedDate;
+        return completion;
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.rpghabittracker.data.model.RepeatUnit;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.utils.DayClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
+
+public class RecurrenceCalculatorTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Belgrade");
+
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZONE));
+        DayClock.onTimeZoneChanged();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        DayClock.onTimeZoneChanged();
+    }
+
+    @Test
+    public void dailySeriesStartsAtItsAnchor() {
+        Task template = template(1, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        long anchor = DayClock.epochDay(2025, 3, 10);
+
+        assertEquals(anchor, RecurrenceCalculator.firstOnOrAfter(template, anchor - 30));
+        assertEquals(anchor, RecurrenceCalculator.firstOnOrAfter(template, anchor));
+        assertEquals(anchor + 5, RecurrenceCalculator.firstOnOrAfter(template, anchor + 5));
+        assertEquals(anchor + 1, RecurrenceCalculator.after(template, anchor));
+    }
+
+    @Test
+    public void intervalsSkipDays() {
+        Task template = template(3, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        long anchor = DayClock.epochDay(2025, 3, 10);
+
+        assertEquals(anchor + 3, RecurrenceCalculator.firstOnOrAfter(template, anchor + 1));
+        assertEquals(anchor + 3, RecurrenceCalculator.firstOnOrAfter(template, anchor + 3));
+        assertEquals(anchor + 6, RecurrenceCalculator.after(template, anchor + 3));
+    }
+
+    @Test
+    public void weeklySeriesKeepsItsWeekday() {
+        Task template = template(2, RepeatUnit.WEEK, millis(2025, 3, 10, 8, 0));
+        long anchor = DayClock.epochDay(2025, 3, 10);
+
+        // Across the March DST change the series stays on Mondays, two weeks apart
+        long day = RecurrenceCalculator.firstOnOrAfter(template, anchor + 1);
+        assertEquals(anchor + 14, day);
+        assertEquals(anchor + 28, RecurrenceCalculator.after(template, day));
+        assertEquals(DayClock.isoDayOfWeek(anchor), DayClock.isoDayOfWeek(day));
+    }
+
+    @Test
+    public void zeroIntervalMeansEveryDay() {
+        Task template = template(0, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        long anchor = DayClock.epochDay(2025, 3, 10);
+
+        assertEquals(anchor + 1, RecurrenceCalculator.after(template, anchor));
+    }
+
+    @Test
+    public void endDayIsTheLastOccurrence() {
+        Task template = template(1, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        template.setEndDate(millis(2025, 3, 12, 23, 59));
+        long end = DayClock.epochDay(2025, 3, 12);
+
+        assertEquals(end, RecurrenceCalculator.firstOnOrAfter(template, end));
+        assertEquals(RecurrenceCalculator.NEVER, RecurrenceCalculator.after(template, end));
+    }
+
+    @Test
+    public void inactiveSeriesIsNeverDue() {
+        Task template = template(1, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        long anchor = DayClock.epochDay(2025, 3, 10);
+
+        template.setTaskStatus(TaskStatus.PAUSED);
+        assertEquals(RecurrenceCalculator.NEVER, RecurrenceCalculator.firstOnOrAfter(template, anchor));
+        template.setTaskStatus(TaskStatus.COMPLETED);
+        assertEquals(RecurrenceCalculator.NEVER, RecurrenceCalculator.firstOnOrAfter(template, anchor));
+    }
+
+    @Test
+    public void creationDayAnchorsSeriesWithoutStartDate() {
+        Task template = template(2, RepeatUnit.DAY, 0);
+        template.setCreatedAt(millis(2025, 3, 11, 23, 30));
+        long created = DayClock.epochDay(2025, 3, 11);
+
+        assertEquals(created, RecurrenceCalculator.firstOnOrAfter(template, created - 1));
+        assertEquals(created + 2, RecurrenceCalculator.after(template, created));
+    }
+
+    @Test
+    public void dueDateKeepsLocalTimeOfDay() {
+        Task template = template(1, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        template.setDueDate(millis(2025, 3, 10, 21, 30));
+
+        // Winter and summer time: the occurrence is due at 21:30 local either way
+        long winter = DayClock.startOfDay(DayClock.epochDay(2025, 3, 20));
+        assertEquals(millis(2025, 3, 20, 21, 30), RecurrenceCalculator.dueDateOn(template, winter));
+        long summer = DayClock.startOfDay(DayClock.epochDay(2025, 7, 1));
+        assertEquals(millis(2025, 7, 1, 21, 30), RecurrenceCalculator.dueDateOn(template, summer));
+
+        template.setDueDate(0);
+        assertEquals(millis(2025, 7, 1, 9, 0), RecurrenceCalculator.dueDateOn(template, summer));
+    }
+
+    @Test
+    public void templatesHaveNoParent() {
+        Task template = template(1, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        assertTrue(RecurrenceCalculator.isTemplate(template));
+
+        Task occurrence = template(1, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        occurrence.setParentTaskId(template.getId());
+        assertFalse(RecurrenceCalculator.isTemplate(occurrence));
+
+        Task single = new Task();
+        assertFalse(RecurrenceCalculator.isTemplate(single));
+    }
+
+    @Test
+    public void sameScheduleComparesEveryScheduleField() {
+        Task a = template(2, RepeatUnit.DAY, millis(2025, 3, 10, 8, 0));
+        Task b = template(2, RepeatUnit.DAY, millis(2025, 3, 10, 20, 0));
+        // Same start day, other time of day
+        assertTrue(RecurrenceCalculator.sameSchedule(a, b));
+
+        b.setRepeatInterval(3);
+        assertFalse(RecurrenceCalculator.sameSchedule(a, b));
+        b.setRepeatInterval(2);
+        b.setTaskRepeatUnit(RepeatUnit.WEEK);
+        assertFalse(RecurrenceCalculator.sameSchedule(a, b));
+        b.setTaskRepeatUnit(RepeatUnit.DAY);
+        b.setEndDate(millis(2025, 4, 1, 0, 0));
+        assertFalse(RecurrenceCalculator.sameSchedule(a, b));
+        b.setEndDate(0);
+        b.setTaskStatus(TaskStatus.PAUSED);
+        assertFalse(RecurrenceCalculator.sameSchedule(a, b));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    static Task template(int interval, RepeatUnit unit, long startDate) {
+        Task template = new Task();
+        template.setUserId("user1");
+        template.setName("Trening");
+        template.setRecurring(true);
+        template.setRepeatInterval(interval);
+        template.setTaskRepeatUnit(unit);
+        template.setStartDate(startDate);
+        return template;
+    }
+
+    static long millis(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE).toInstant().toEpochMilli();
+    }
+}
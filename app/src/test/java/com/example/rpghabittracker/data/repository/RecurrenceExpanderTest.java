@@ -0,0 +1,134 @@
+package com.example.rpghabittracker.data.repository;
+
+import static com.example.rpghabittracker.data.repository.RecurrenceCalculatorTest.millis;
+import static com.example.rpghabittracker.data.repository.RecurrenceCalculatorTest.template;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.rpghabittracker.data.model.RepeatUnit;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskListItem;
+import com.example.rpghabittracker.utils.DayClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Expands months far in the future (or the past), so the result does not
+ * depend on the day the test runs.
+ */
+public class RecurrenceExpanderTest {
+
+    private TimeZone defaultZone;
+    private RecurrenceExpander expander;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Belgrade"));
+        DayClock.onTimeZoneChanged();
+        expander = new RecurrenceExpander();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        DayClock.onTimeZoneChanged();
+    }
+
+    @Test
+    public void seriesIsProjectedOntoItsDays() {
+        // Every other day from 30 Dec 2099: 1, 3, ..., 31 January 2100
+        Task template = template(2, RepeatUnit.DAY, millis(2099, 12, 30, 8, 0));
+        template.setDueDate(millis(2099, 12, 30, 18, 15));
+        expander.setTemplates(Collections.singletonList(template));
+
+        Map<Integer, List<TaskListItem>> days = expander.month(2100, 0);
+
+        assertEquals(16, days.size());
+        for (int day = 1; day <= 31; day += 2) {
+            List<TaskListItem> items = days.get(day);
+            assertEquals(1, items.size());
+            TaskListItem item = items.get(0);
+            long epochDay = DayClock.epochDay(2100, 1, day);
+
+            assertTrue(RecurrenceExpander.isVirtual(item.getId()));
+            assertEquals(template.getId(), RecurrenceExpander.templateIdOf(item.getId()));
+            assertEquals(epochDay, RecurrenceExpander.epochDayOf(item.getId()));
+            assertEquals(template.getId(), item.getParentTaskId());
+            assertEquals(millis(2100, 1, day, 18, 15), item.getDueDate());
+            assertEquals("Trening", item.getName());
+        }
+    }
+
+    @Test
+    public void storedOccurrencesAreSkipped() {
+        Task template = template(1, RepeatUnit.DAY, millis(2099, 12, 30, 8, 0));
+        expander.setTemplates(Collections.singletonList(template));
+        assertEquals(31, expander.month(2100, 0).size());
+
+        TaskListItem stored = TaskListItem.of(template)
+                .asOccurrence("occurrence1", template.getId(), millis(2100, 1, 10, 23, 0));
+        expander.setStoredOccurrences(Collections.singletonList(stored));
+
+        Map<Integer, List<TaskListItem>> days = expander.month(2100, 0);
+        assertEquals(30, days.size());
+        assertFalse(days.containsKey(10));
+    }
+
+    @Test
+    public void seriesEndsOnItsEndDay() {
+        Task daily = template(1, RepeatUnit.DAY, millis(2100, 2, 1, 8, 0));
+        daily.setEndDate(millis(2100, 2, 10, 8, 0));
+        Task weekly = template(1, RepeatUnit.WEEK, millis(2100, 1, 4, 8, 0));
+        expander.setTemplates(Arrays.asList(daily, weekly));
+
+        Map<Integer, List<TaskListItem>> days = expander.month(2100, 1);
+
+        for (int day = 1; day <= 28; day++) {
+            int expected = (day <= 10 ? 1 : 0) + ((day - 1) % 7 == 0 ? 1 : 0);
+            List<TaskListItem> items = days.get(day);
+            assertEquals(expected, items != null ? items.size() : 0);
+        }
+    }
+
+    @Test
+    public void pastMonthsHaveNoVirtualItems() {
+        expander.setTemplates(Collections.singletonList(
+                template(1, RepeatUnit.DAY, millis(1999, 12, 1, 8, 0))));
+
+        assertTrue(expander.month(2000, 0).isEmpty());
+    }
+
+    @Test
+    public void monthsAreCachedUntilInputsChange() {
+        expander.setTemplates(Collections.singletonList(
+                template(1, RepeatUnit.DAY, millis(2099, 12, 1, 8, 0))));
+
+        Map<Integer, List<TaskListItem>> first = expander.month(2100, 0);
+        assertSame(first, expander.month(2100, 0));
+
+        expander.setStoredOccurrences(Collections.emptyList());
+        assertNotSame(first, expander.month(2100, 0));
+    }
+
+    @Test
+    public void virtualIdsAreRecognized() {
+        assertFalse(RecurrenceExpander.isVirtual(null));
+        assertFalse(RecurrenceExpander.isVirtual("3f2a-task"));
+        assertTrue(RecurrenceExpander.isVirtual("virtual:t:1"));
+        // Template ids may contain colons themselves
+        assertEquals("a:b", RecurrenceExpander.templateIdOf("virtual:a:b:47000"));
+        assertEquals(47000L, RecurrenceExpander.epochDayOf("virtual:a:b:47000"));
+    }
+}
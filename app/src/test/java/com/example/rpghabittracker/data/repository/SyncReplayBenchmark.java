@@ -0,0 +1,476 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.example.rpghabittracker.data.model.Equipment;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.remote.InMemoryRemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+import com.example.rpghabittracker.data.remote.RemoteQuery;
+import com.example.rpghabittracker.data.remote.RemoteStore;
+import com.example.rpghabittracker.data.remote.RemoteStores;
+import com.example.rpghabittracker.data.remote.SyncMetrics;
+import com.example.rpghabittracker.utils.AllianceMissionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Replays a day of task, battle and alliance traffic for a small user base
+ * against InMemoryRemoteStore and prints writes, reads and latency percentiles.
+ *
+ * Task writes are issued the way Outbox flushes them (TaskWireFormat
+ * documents with field clocks and a server lastUpdated, a tombstone per
+ * delete); alliance events go through AllianceMissionManager itself. Every
+ * device keeps the listeners the app holds open: DeltaSync's task and
+ * tombstone queries, the user document (home/profile) and the alliance chat.
+ * The day is played in hourly waves; events of one wave run concurrently.
+ * Only runs on request: ./gradlew testDebugUnitTest -Pbenchmarks
+ */
+public class SyncReplayBenchmark {
+
+    private static final long LATENCY_MS = 5;
+    private static final int ALLIANCES = 3;
+    private static final int MEMBERS_PER_ALLIANCE = 4;
+    private static final int SOLO_USERS = 4;
+    private static final int HOURS = 16;
+    private static final int BATTLE_HOUR = 12;
+    private static final int BATTLE_HITS = 5;
+
+    private static final String[] DIFFICULTIES = {"VERY_EASY", "EASY", "HARD", "EXTREME"};
+    private static final String[] IMPORTANCES = {"NORMAL", "IMPORTANT", "VERY_IMPORTANT", "SPECIAL"};
+
+    private InMemoryRemoteStore store;
+    private RemoteStore tasks;
+    private RemoteStore users;
+    private RemoteStore battle;
+    private RemoteStore shop;
+    private RemoteStore chat;
+
+    private final Random random = new Random(42);
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private final List<RemoteStore.Registration> registrations = new CopyOnWriteArrayList<>();
+
+    private final List<String> userIds = new ArrayList<>();
+    private final Map<String, String> allianceOf = new HashMap<>();
+    private final Map<String, List<Task>> activeTasks = new HashMap<>();
+
+    @BeforeClass
+    public static void onlyOnRequest() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Before
+    public void setUp() {
+        store = new InMemoryRemoteStore(LATENCY_MS, System::currentTimeMillis);
+        RemoteStores.install(store);
+        AllianceMissionManager.setCallbackExecutor(Runnable::run);
+        SyncMetrics.reset();
+        if (!Hlc.isSeeded()) Hlc.seed(0);
+
+        tasks = RemoteStores.forCaller("TaskRepository");
+        users = RemoteStores.forCaller("UserRepository");
+        battle = RemoteStores.forCaller("BattleActivity");
+        shop = RemoteStores.forCaller("ShopFragment");
+        chat = RemoteStores.forCaller("AllianceChatActivity");
+    }
+
+    @After
+    public void tearDown() {
+        for (RemoteStore.Registration registration : registrations) {
+            registration.remove();
+        }
+        store.shutdown();
+    }
+
+    @Test
+    public void replayDay() throws InterruptedException {
+        seed();
+
+        List<Consumer<Runnable>> startMissions = new ArrayList<>();
+        for (int a = 0; a < ALLIANCES; a++) {
+            String allianceId = "alliance-" + a;
+            String leaderId = userIds.get(a * MEMBERS_PER_ALLIANCE);
+            startMissions.add(done -> AllianceMissionManager.startMission(allianceId, leaderId,
+                    (success, message, bossHp) -> done.run()));
+        }
+        runWave("mission.start", startMissions);
+
+        for (String userId : userIds) {
+            attachDevice(userId);
+        }
+        awaitQuiet();
+
+        int events = startMissions.size();
+        for (int hour = 0; hour < HOURS; hour++) {
+            events += playHour(hour);
+        }
+        awaitQuiet();
+
+        long writes = store.getDocumentWrites();
+        long reads = store.getDocumentReads();
+        System.out.println(report(events, writes, reads));
+        System.out.println(SyncMetrics.dump());
+
+        assertTrue(writes > 0);
+        for (int a = 0; a < ALLIANCES; a++) {
+            RemoteDocument alliance = get(store, "alliances", "alliance-" + a);
+            Long damage = alliance.getLong("missionCurrentDamage");
+            assertTrue("no mission damage for alliance-" + a, damage != null && damage > 0);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Day script
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private void seed() throws InterruptedException {
+        RemoteStore.Batch batch = store.batch();
+        for (int a = 0; a < ALLIANCES; a++) {
+            String allianceId = "alliance-" + a;
+            List<String> members = new ArrayList<>();
+            for (int m = 0; m < MEMBERS_PER_ALLIANCE; m++) {
+                String userId = "user-" + a + "-" + m;
+                members.add(userId);
+                userIds.add(userId);
+                allianceOf.put(userId, allianceId);
+                batch.set("users", userId, userDocument(userId, allianceId));
+            }
+            Map<String, Object> alliance = new HashMap<>();
+            alliance.put("name", "Savez " + a);
+            alliance.put("leaderId", members.get(0));
+            alliance.put("memberIds", members);
+            batch.set("alliances", allianceId, alliance);
+        }
+        for (int s = 0; s < SOLO_USERS; s++) {
+            String userId = "user-solo-" + s;
+            userIds.add(userId);
+            batch.set("users", userId, userDocument(userId, null));
+        }
+        for (String userId : userIds) {
+            activeTasks.put(userId, new ArrayList<>());
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        batch.commit().addOnCompleteListener(Runnable::run, t -> latch.countDown());
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    private static Map<String, Object> userDocument(String userId, String allianceId) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("userId", userId);
+        user.put("username", userId);
+        user.put("level", 1);
+        user.put("xp", 0);
+        user.put("coins", 200);
+        user.put("bossLevel", 1);
+        if (allianceId != null) user.put("allianceId", allianceId);
+        return user;
+    }
+
+    // The listeners a signed-in device keeps open all day
+    private void attachDevice(String userId) {
+        registrations.add(tasks.listen(RemoteQuery.on("tasks")
+                .whereEqualTo("userId", userId)
+                .whereAfter(DeltaSync.FIELD_LAST_UPDATED, 0L), (changes, error) -> { }));
+        registrations.add(tasks.listen(RemoteQuery.on(DeltaSync.COLLECTION_TOMBSTONES)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("collection", "tasks")
+                .whereAfter(DeltaSync.FIELD_LAST_UPDATED, 0L), (changes, error) -> { }));
+        registrations.add(users.listen("users", userId, (document, error) -> { }));
+        String allianceId = allianceOf.get(userId);
+        if (allianceId != null) {
+            registrations.add(chat.listen(RemoteQuery.on(messagesCollection(allianceId))
+                    .orderBy("timestamp"), (changes, error) -> { }));
+        }
+    }
+
+    private int playHour(int hour) throws InterruptedException {
+        Map<String, List<Consumer<Runnable>>> byKind = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            if (random.nextInt(100) < 60) add(byKind, "task.create", createTask(userId));
+            List<Task> active = activeTasks.get(userId);
+            if (!active.isEmpty() && random.nextInt(100) < 45) {
+                add(byKind, "task.complete", completeTask(userId, active.remove(random.nextInt(active.size()))));
+            }
+            if (!active.isEmpty() && random.nextInt(100) < 5) {
+                add(byKind, "task.delete", deleteTask(userId, active.remove(random.nextInt(active.size()))));
+            }
+            if (hour == BATTLE_HOUR) add(byKind, "battle", battle(userId));
+            if (random.nextInt(100) < 8) add(byKind, "shop.purchase", buyPotion(userId));
+            String allianceId = allianceOf.get(userId);
+            if (allianceId != null && random.nextInt(100) < 30) {
+                add(byKind, "chat.message", sendMessage(allianceId, userId));
+            }
+        }
+
+        List<Consumer<Runnable>> wave = new ArrayList<>();
+        List<String> kinds = new ArrayList<>();
+        for (Map.Entry<String, List<Consumer<Runnable>>> entry : byKind.entrySet()) {
+            for (Consumer<Runnable> event : entry.getValue()) {
+                wave.add(event);
+                kinds.add(entry.getKey());
+            }
+        }
+        runWave(kinds, wave);
+        return wave.size();
+    }
+
+    private static void add(Map<String, List<Consumer<Runnable>>> byKind, String kind, Consumer<Runnable> event) {
+        List<Consumer<Runnable>> events = byKind.get(kind);
+        if (events == null) {
+            events = new ArrayList<>();
+            byKind.put(kind, events);
+        }
+        events.add(event);
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Events; each calls done once its last round trip has finished
+    // ──────────────────────────────────────────────────────────────────────────
+
+    // TaskRepository.insert: the whole v2 document plus the user's counter, one flush
+    private Consumer<Runnable> createTask(String userId) {
+        Task task = new Task(userId, "Zadatak " + random.nextInt(1000),
+                DIFFICULTIES[random.nextInt(DIFFICULTIES.length)],
+                IMPORTANCES[random.nextInt(IMPORTANCES.length)], 1);
+        activeTasks.get(userId).add(task);
+        return done -> {
+            Map<String, Object> data = TaskWireFormat.encode(task);
+            data.put(FieldMerge.FIELD_CLOCKS, stamp(data.keySet()));
+            data.put(DeltaSync.FIELD_LAST_UPDATED, tasks.serverTimestamp());
+            Map<String, Object> user = new HashMap<>();
+            user.put("totalTasksCreated", tasks.increment(1));
+            tasks.batch()
+                    .set("tasks", task.getId(), data)
+                    .merge("users", userId, user)
+                    .commit()
+                    .addOnCompleteListener(Runnable::run, t -> done.run());
+        };
+    }
+
+    // TaskRepository.completeTask: status merge and XP in one flush, then the mission event
+    private Consumer<Runnable> completeTask(String userId, Task task) {
+        return done -> {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(TaskWireFormat.FIELD_STATUS, Task.STATUS_COMPLETED);
+            updates.put(TaskWireFormat.FIELD_COMPLETED_DATE, System.currentTimeMillis());
+            updates.put(FieldMerge.FIELD_CLOCKS, stamp(updates.keySet()));
+            updates.put(DeltaSync.FIELD_LAST_UPDATED, tasks.serverTimestamp());
+            Map<String, Object> user = new HashMap<>();
+            user.put("xp", tasks.increment(task.getTotalXp()));
+            user.put("totalTasksCompleted", tasks.increment(1));
+            tasks.batch()
+                    .merge("tasks", task.getId(), updates)
+                    .merge("users", userId, user)
+                    .commit()
+                    .addOnCompleteListener(Runnable::run, t ->
+                            AllianceMissionManager.recordTaskCompletion(userId, task,
+                                    (success, damage, message) -> done.run()));
+        };
+    }
+
+    // Outbox delete: the document and its tombstone
+    private Consumer<Runnable> deleteTask(String userId, Task task) {
+        return done -> {
+            RemoteStore.Batch batch = tasks.batch().delete("tasks", task.getId());
+            DeltaSync.addTombstone(batch, tasks, "tasks", userId, task.getId());
+            batch.commit().addOnCompleteListener(Runnable::run, t -> done.run());
+        };
+    }
+
+    // BattleActivity: boss level read, hits counted for the mission, reward and drop
+    private Consumer<Runnable> battle(String userId) {
+        return done -> battle.get("users", userId).addOnCompleteListener(Runnable::run, read -> {
+            Runnable reward = () -> {
+                Map<String, Object> user = new HashMap<>();
+                user.put("bossLevel", battle.increment(1));
+                user.put("coins", battle.increment(200));
+                Map<String, Object> drop = new HashMap<>();
+                drop.put("type", Equipment.TYPE_CLOTHING);
+                drop.put("subType", Equipment.CLOTHING_GLOVES);
+                drop.put("active", false);
+                battle.batch()
+                        .merge("users", userId, user)
+                        .set(equipmentCollection(userId), UUID.randomUUID().toString(), drop)
+                        .commit()
+                        .addOnCompleteListener(Runnable::run, t -> done.run());
+            };
+            hit(userId, BATTLE_HITS, reward);
+        });
+    }
+
+    private void hit(String userId, int remaining, Runnable then) {
+        if (remaining == 0) {
+            then.run();
+            return;
+        }
+        AllianceMissionManager.recordBattleHit(userId,
+                (success, damage, message) -> hit(userId, remaining - 1, then));
+    }
+
+    // ShopFragment: stack onto an owned potion or add it, pay, count the purchase
+    private Consumer<Runnable> buyPotion(String userId) {
+        String collection = equipmentCollection(userId);
+        String subType = Equipment.POTION_PP_20;
+        return done -> shop.get(collection, subType).addOnCompleteListener(Runnable::run, read -> {
+            Map<String, Object> coins = new HashMap<>();
+            coins.put("coins", shop.increment(-50));
+            RemoteStore.Batch batch = shop.batch().merge("users", userId, coins);
+            if (read.isSuccessful() && read.getResult().exists()) {
+                Map<String, Object> update = new HashMap<>();
+                update.put("quantity", shop.increment(1));
+                batch.merge(collection, subType, update);
+            } else {
+                Map<String, Object> potion = new HashMap<>();
+                potion.put("type", Equipment.TYPE_POTION);
+                potion.put("subType", subType);
+                potion.put("quantity", 1);
+                batch.set(collection, subType, potion);
+            }
+            batch.commit().addOnCompleteListener(Runnable::run, t ->
+                    AllianceMissionManager.recordShopPurchase(userId,
+                            (success, damage, message) -> done.run()));
+        });
+    }
+
+    // AllianceChatActivity: the message, then the daily chat contribution
+    private Consumer<Runnable> sendMessage(String allianceId, String userId) {
+        return done -> {
+            Map<String, Object> message = new HashMap<>();
+            message.put("senderId", userId);
+            message.put("text", "Poruka " + random.nextInt(1000));
+            message.put("timestamp", chat.serverTimestamp());
+            message.put("timestampClient", System.currentTimeMillis());
+            chat.set(messagesCollection(allianceId), UUID.randomUUID().toString(), message)
+                    .addOnCompleteListener(Runnable::run, t ->
+                            AllianceMissionManager.recordMessageDay(allianceId, userId,
+                                    (success, damage, text) -> done.run()));
+        };
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Plumbing
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private void runWave(String kind, List<Consumer<Runnable>> events) throws InterruptedException {
+        runWave(Collections.nCopies(events.size(), kind), events);
+    }
+
+    private void runWave(List<String> kinds, List<Consumer<Runnable>> events) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            String kind = kinds.get(i);
+            long started = System.nanoTime();
+            events.get(i).accept(() -> {
+                record(kind, System.nanoTime() - started);
+                latch.countDown();
+            });
+        }
+        assertTrue("wave did not finish", latch.await(30, TimeUnit.SECONDS));
+    }
+
+    private void record(String kind, long nanos) {
+        List<Long> samples = latencies.get(kind);
+        if (samples == null) {
+            latencies.putIfAbsent(kind, Collections.synchronizedList(new ArrayList<>()));
+            samples = latencies.get(kind);
+        }
+        samples.add(nanos);
+    }
+
+    // Mission follow-ups (bonus checks) keep running after the callbacks;
+    // waits until the store has been idle for a few round trips
+    private void awaitQuiet() throws InterruptedException {
+        long last = -1;
+        while (true) {
+            Thread.sleep(LATENCY_MS * 6);
+            long now = store.getDocumentReads() + store.getDocumentWrites() + store.getCommits();
+            if (now == last) return;
+            last = now;
+        }
+    }
+
+    private static Map<String, Long> stamp(Iterable<String> fields) {
+        Map<String, Long> clocks = new HashMap<>();
+        long stamp = Hlc.now();
+        for (String field : fields) {
+            clocks.put(field, stamp);
+        }
+        return clocks;
+    }
+
+    private static RemoteDocument get(RemoteStore remote, String collection, String id) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        RemoteDocument[] result = new RemoteDocument[1];
+        remote.get(collection, id).addOnCompleteListener(Runnable::run, t -> {
+            if (t.isSuccessful()) result[0] = t.getResult();
+            latch.countDown();
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    private static String equipmentCollection(String userId) {
+        return "users/" + userId + "/equipment";
+    }
+
+    private static String messagesCollection(String allianceId) {
+        return "alliances/" + allianceId + "/messages";
+    }
+
+    private String report(int events, long writes, long reads) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT,
+                "Replay: %d users (%d in %d alliances), %d hours, %d ms latency%n",
+                userIds.size(), ALLIANCES * MEMBERS_PER_ALLIANCE, ALLIANCES, HOURS, LATENCY_MS));
+        out.append(String.format(Locale.ROOT,
+                "%d events, %d document writes in %d commits, %d document reads (listeners included)%n",
+                events, writes, store.getCommits(), reads));
+        out.append(String.format(Locale.ROOT, "%-16s %6s %8s %8s %8s %8s%n",
+                "event", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        List<Long> all = new ArrayList<>();
+        List<String> kinds = new ArrayList<>(latencies.keySet());
+        Collections.sort(kinds);
+        for (String kind : kinds) {
+            List<Long> samples = new ArrayList<>(latencies.get(kind));
+            all.addAll(samples);
+            out.append(row(kind, samples));
+        }
+        out.append(row("all", all));
+        return out.toString();
+    }
+
+    private static String row(String kind, List<Long> samples) {
+        Collections.sort(samples);
+        return String.format(Locale.ROOT, "%-16s %6d %8.1f %8.1f %8.1f %8.1f%n",
+                kind, samples.size(),
+                percentile(samples, 50), percentile(samples, 90), percentile(samples, 99),
+                percentile(samples, 100));
+    }
+
+    // Nearest rank over sorted nanos, in milliseconds
+    private static double percentile(List<Long> sorted, int percent) {
+        if (sorted.isEmpty()) return 0;
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1)) / 1_000_000.0;
+    }
+}
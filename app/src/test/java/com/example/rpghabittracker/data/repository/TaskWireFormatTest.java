@@ -0,0 +1,255 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.rpghabittracker.data.model.RepeatUnit;
+import com.example.rpghabittracker.data.model.Task;
+import com.example.rpghabittracker.data.model.TaskDifficulty;
+import com.example.rpghabittracker.data.model.TaskImportance;
+import com.example.rpghabittracker.data.model.TaskStatus;
+import com.example.rpghabittracker.data.remote.RemoteDocument;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+public class TaskWireFormatTest {
+
+    private static final long CREATED = 1_700_000_000_000L;
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Version 2
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void plainTaskRoundTrips() {
+        Task task = task();
+        task.setDescription("Opis");
+        task.setCategoryId("cat1");
+        task.setDueDate(CREATED + 3_600_000);
+
+        assertSameTask(task, roundTrip(task));
+    }
+
+    @Test
+    public void completedTaskRoundTrips() {
+        Task task = task();
+        task.setTaskStatus(TaskStatus.COMPLETED);
+        task.setCompletedDate(CREATED + 60_000);
+
+        Task decoded = roundTrip(task);
+        assertEquals(TaskStatus.COMPLETED, decoded.getTaskStatus());
+        assertEquals(CREATED + 60_000, decoded.getCompletedDate());
+    }
+
+    @Test
+    public void defaultsAreLeftOut() {
+        Map<String, Object> map = TaskWireFormat.encode(task());
+
+        assertEquals(new HashSet<>(Arrays.asList("v", "userId", "status", "n", "df", "im", "ca")),
+                map.keySet());
+        assertEquals(TaskWireFormat.VERSION, map.get(TaskWireFormat.FIELD_VERSION));
+        assertEquals(TaskDifficulty.HARD.code, map.get("df"));
+        assertEquals("ACTIVE", map.get(TaskWireFormat.FIELD_STATUS));
+    }
+
+    @Test
+    public void derivedXpIsLeftOutButAdjustedXpIsKept() {
+        Task task = new Task("user1", "Trening", Task.DIFFICULTY_HARD, Task.IMPORTANCE_IMPORTANT, 4);
+        task.setCreatedAt(CREATED);
+        Map<String, Object> derived = TaskWireFormat.encode(task);
+        assertEquals(4, derived.get("lv"));
+        assertFalse(derived.containsKey("dx"));
+        assertFalse(derived.containsKey("tx"));
+        assertSameTask(task, roundTrip(task));
+
+        task.setDifficultyXp(1);
+        task.setTotalXp(50);
+        Map<String, Object> adjusted = TaskWireFormat.encode(task);
+        assertEquals(1, adjusted.get("dx"));
+        assertEquals(50, adjusted.get("tx"));
+        assertFalse(adjusted.containsKey("ix"));
+        assertSameTask(task, roundTrip(task));
+    }
+
+    @Test
+    public void recurrenceIsStoredOnTemplatesOnly() {
+        Task template = task();
+        template.setRecurring(true);
+        template.setRepeatInterval(2);
+        template.setTaskRepeatUnit(RepeatUnit.WEEK);
+        template.setStartDate(CREATED);
+        template.setEndDate(CREATED + 30L * 24 * 3_600_000);
+
+        Map<String, Object> templateMap = TaskWireFormat.encode(template);
+        assertEquals(true, templateMap.get("r"));
+        assertEquals(RepeatUnit.WEEK.code, templateMap.get("ru"));
+        assertSameTask(template, roundTrip(template));
+
+        Task occurrence = task();
+        occurrence.setRecurring(true);
+        occurrence.setParentTaskId(template.getId());
+        occurrence.setRepeatInterval(2);
+        occurrence.setTaskRepeatUnit(RepeatUnit.WEEK);
+        Map<String, Object> occurrenceMap = TaskWireFormat.encode(occurrence);
+        assertEquals(template.getId(), occurrenceMap.get(TaskWireFormat.FIELD_PARENT_TASK_ID));
+        assertFalse(occurrenceMap.containsKey("r"));
+        assertFalse(occurrenceMap.containsKey("ri"));
+        assertFalse(occurrenceMap.containsKey("ru"));
+
+        Task decoded = roundTrip(occurrence);
+        assertTrue(decoded.isRecurring());
+        assertNull(decoded.getTaskRepeatUnit());
+
+        TaskWireFormat.inheritRecurrence(decoded, template);
+        assertEquals(2, decoded.getRepeatInterval());
+        assertEquals(RepeatUnit.WEEK, decoded.getTaskRepeatUnit());
+        assertEquals(template.getStartDate(), decoded.getStartDate());
+        assertEquals(template.getEndDate(), decoded.getEndDate());
+    }
+
+    @Test
+    public void documentIdIsUsedWithoutAnIdField() {
+        Task task = task();
+        Map<String, Object> map = TaskWireFormat.encode(task);
+        assertEquals("doc1", TaskWireFormat.decode(new RemoteDocument("doc1", map, false)).getId());
+
+        map.put("id", "legacyId");
+        assertEquals("legacyId", TaskWireFormat.decode(new RemoteDocument("doc1", map, false)).getId());
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Version 1 and mixed documents
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void legacyDocumentIsDecoded() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", "t1");
+        map.put("userId", "user1");
+        map.put("name", "Stari zadatak");
+        map.put("description", "Opis");
+        map.put("categoryId", "cat1");
+        map.put("difficulty", "EXTREME");
+        map.put("importance", "SPECIAL");
+        map.put("userLevelAtCreation", 3L);
+        map.put("difficultyXp", 40L);
+        map.put("importanceXp", 200L);
+        map.put("totalXp", 240L);
+        map.put("status", "FAILED");
+        map.put("isRecurring", true);
+        map.put("repeatInterval", 3L);
+        map.put("repeatUnit", "DAY");
+        map.put("startDate", CREATED);
+        map.put("endDate", CREATED + 1);
+        map.put("dueDate", CREATED + 2);
+        map.put("createdAt", CREATED + 3);
+        map.put("completedDate", 0L);
+
+        Task task = TaskWireFormat.decode(new RemoteDocument("t1", map, false));
+
+        assertEquals("t1", task.getId());
+        assertEquals("Stari zadatak", task.getName());
+        assertEquals("Opis", task.getDescription());
+        assertEquals("cat1", task.getCategoryId());
+        assertEquals(TaskDifficulty.EXTREME, task.getTaskDifficulty());
+        assertEquals(TaskImportance.SPECIAL, task.getTaskImportance());
+        assertEquals(3, task.getUserLevelAtCreation());
+        assertEquals(40, task.getDifficultyXp());
+        assertEquals(200, task.getImportanceXp());
+        assertEquals(240, task.getTotalXp());
+        assertEquals(TaskStatus.FAILED, task.getTaskStatus());
+        assertTrue(task.isRecurring());
+        assertEquals(3, task.getRepeatInterval());
+        assertEquals(RepeatUnit.DAY, task.getTaskRepeatUnit());
+        assertEquals(CREATED, task.getStartDate());
+        assertEquals(CREATED + 1, task.getEndDate());
+        assertEquals(CREATED + 2, task.getDueDate());
+        assertEquals(CREATED + 3, task.getCreatedAt());
+    }
+
+    @Test
+    public void legacyDocumentWithoutXpDerivesIt() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("userId", "user1");
+        map.put("name", "Bez XP");
+        map.put("difficulty", "HARD");
+        map.put("importance", "NORMAL");
+        map.put("status", "ACTIVE");
+
+        Task task = TaskWireFormat.decode(new RemoteDocument("t1", map, false));
+
+        assertEquals(1, task.getUserLevelAtCreation());
+        assertEquals(TaskDifficulty.HARD.xpForLevel(1), task.getDifficultyXp());
+        assertEquals(TaskImportance.NORMAL.xpForLevel(1), task.getImportanceXp());
+        assertEquals(task.getDifficultyXp() + task.getImportanceXp(), task.getTotalXp());
+    }
+
+    @Test
+    public void v2KeysWinInMixedDocuments() {
+        // A v1 document later updated by v2 partial writes
+        Map<String, Object> map = new HashMap<>();
+        map.put("userId", "user1");
+        map.put("name", "Staro ime");
+        map.put("n", "Novo ime");
+        map.put("difficulty", "EASY");
+        map.put("df", (long) TaskDifficulty.EXTREME.code);
+        map.put("status", "COMPLETED");
+        map.put("completedDate", 1L);
+        map.put(TaskWireFormat.FIELD_COMPLETED_DATE, 2L);
+
+        Task task = TaskWireFormat.decode(new RemoteDocument("t1", map, false));
+
+        assertEquals("Novo ime", task.getName());
+        assertEquals(TaskDifficulty.EXTREME, task.getTaskDifficulty());
+        assertEquals(2L, task.getCompletedDate());
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private static Task task() {
+        Task task = new Task("user1", "Trening", Task.DIFFICULTY_HARD, Task.IMPORTANCE_NORMAL, 1);
+        task.setCreatedAt(CREATED);
+        return task;
+    }
+
+    // Through Firestore, which hands every integer back as a Long
+    private static Task roundTrip(Task task) {
+        Map<String, Object> map = new HashMap<>();
+        for (Map.Entry<String, Object> entry : TaskWireFormat.encode(task).entrySet()) {
+            Object value = entry.getValue();
+            map.put(entry.getKey(), value instanceof Integer ? (long) (Integer) value : value);
+        }
+        return TaskWireFormat.decode(new RemoteDocument(task.getId(), map, false));
+    }
+
+    private static void assertSameTask(Task expected, Task actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getCategoryId(), actual.getCategoryId());
+        assertEquals(expected.getTaskDifficulty(), actual.getTaskDifficulty());
+        assertEquals(expected.getTaskImportance(), actual.getTaskImportance());
+        assertEquals(expected.getUserLevelAtCreation(), actual.getUserLevelAtCreation());
+        assertEquals(expected.getDifficultyXp(), actual.getDifficultyXp());
+        assertEquals(expected.getImportanceXp(), actual.getImportanceXp());
+        assertEquals(expected.getTotalXp(), actual.getTotalXp());
+        assertEquals(expected.getTaskStatus(), actual.getTaskStatus());
+        assertEquals(expected.isRecurring(), actual.isRecurring());
+        assertEquals(expected.getParentTaskId(), actual.getParentTaskId());
+        assertEquals(expected.getRepeatInterval(), actual.getRepeatInterval());
+        assertEquals(expected.getTaskRepeatUnit(), actual.getTaskRepeatUnit());
+        assertEquals(expected.getStartDate(), actual.getStartDate());
+        assertEquals(expected.getEndDate(), actual.getEndDate());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getCompletedDate(), actual.getCompletedDate());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.rpghabittracker.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class UserFieldDiffTest {
+
+    // The sent state is per process; every test diffs its own user
+    private final String userId = UUID.randomUUID().toString();
+
+    @Test
+    public void firstDiffLeavesCountersOut() {
+        Map<String, Object> user = user(100, 3, 2);
+
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, user);
+
+        // An absolute counter would overwrite other devices' increments
+        Map<String, Object> expected = user(100, 3, 2);
+        expected.keySet().removeAll(UserFieldDiff.COUNTERS);
+        assertEquals(expected, delta.fields);
+        assertTrue(delta.increments.isEmpty());
+
+        // The counters are taken as sent: later changes go out as increments
+        UserFieldDiff.Delta next = UserFieldDiff.diff(userId, user(105, 3, 2));
+        assertEquals(Collections.singletonMap("coins", 5), next.increments);
+    }
+
+    @Test
+    public void seededStateTurnsCounterChangesIntoIncrements() {
+        // e.g. the stored row before the first write after a restart
+        UserFieldDiff.seed(userId, user(100, 3, 2));
+        // A recorded state is not replaced by a later seed
+        UserFieldDiff.seed(userId, user(0, 0, 1));
+
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, user(110, 4, 2));
+
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("coins", 10);
+        expected.put("totalTasksCompleted", 1);
+        assertEquals(expected, delta.increments);
+        assertFalse(delta.fields.containsKey("coins"));
+    }
+
+    @Test
+    public void countersMissingFromTheDocumentStartAtZero() {
+        // Publishing a user whose document does not exist yet
+        UserFieldDiff.reset(userId, Collections.emptyMap());
+
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, user(100, 3, 2));
+
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("coins", 100);
+        expected.put("totalTasksCompleted", 3);
+        assertEquals(expected, delta.increments);
+        assertEquals("igrac", delta.fields.get("username"));
+        assertFalse(delta.fields.containsKey("coins"));
+    }
+
+    @Test
+    public void unchangedStateSendsNothing() {
+        UserFieldDiff.diff(userId, user(100, 3, 2));
+        Map<String, Object> same = user(100, 3, 2);
+        same.put("lastUpdated", 999L);
+
+        assertTrue(UserFieldDiff.diff(userId, same).isEmpty());
+    }
+
+    @Test
+    public void countersAreSentAsIncrements() {
+        UserFieldDiff.diff(userId, user(100, 3, 2));
+
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, user(80, 5, 2));
+
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("coins", -20);
+        expected.put("totalTasksCompleted", 2);
+        assertEquals(expected, delta.increments);
+        // Only the bookkeeping timestamp rides along
+        assertEquals(Collections.singletonMap("lastUpdated", 0L), delta.fields);
+    }
+
+    @Test
+    public void otherFieldsAreSentAbsolute() {
+        UserFieldDiff.diff(userId, user(100, 3, 2));
+
+        Map<String, Object> leveledUp = user(100, 3, 3);
+        leveledUp.put("title", "Vitez");
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, leveledUp);
+
+        assertEquals(3, delta.fields.get("level"));
+        assertEquals("Vitez", delta.fields.get("title"));
+        assertTrue(delta.increments.isEmpty());
+    }
+
+    @Test
+    public void integersAndLongsCompareByValue() {
+        Map<String, Object> local = user(100, 3, 2);
+        UserFieldDiff.diff(userId, local);
+
+        // The server returns Longs for the same values
+        Map<String, Object> server = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : local.entrySet()) {
+            Object value = entry.getValue();
+            server.put(entry.getKey(), value instanceof Integer ? (long) (Integer) value : value);
+        }
+        UserFieldDiff.reset(userId, server);
+
+        assertTrue(UserFieldDiff.diff(userId, user(100, 3, 2)).isEmpty());
+    }
+
+    @Test
+    public void recordedIncrementsAreNotSentTwice() {
+        UserFieldDiff.diff(userId, user(100, 3, 2));
+        // e.g. an expired task counted remotely outside of a profile sync
+        UserFieldDiff.recordIncrement(userId, "coins", 10);
+
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, user(110, 3, 2));
+
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    public void resetToNullForgetsTheSentState() {
+        UserFieldDiff.diff(userId, user(100, 3, 2));
+        UserFieldDiff.reset(userId, null);
+        // Without a known state there is nothing to add an increment to
+        UserFieldDiff.recordIncrement(userId, "coins", 10);
+
+        UserFieldDiff.Delta delta = UserFieldDiff.diff(userId, user(110, 3, 2));
+        assertEquals(2, delta.fields.get("level"));
+        assertFalse(delta.fields.containsKey("coins"));
+        assertTrue(delta.increments.isEmpty());
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private static Map<String, Object> user(int coins, int completed, int level) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("username", "igrac");
+        user.put("coins", coins);
+        user.put("totalTasksCompleted", completed);
+        user.put("level", level);
+        user.put("lastUpdated", 0L);
+        return user;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.rpghabittracker.utils;
+
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Micro-benchmark of DayClock against the Calendar code it replaced, on
+ * timestamps spread over two years: the per-task day-of-month check of the
+ * calendar screen and the day bounds used by the repository queries. Runs in
+ * Europe/Belgrade (DST) for a few seconds and prints the report; DayClockTest
+ * checks that the two paths agree. Only runs on request:
+ * ./gradlew testDebugUnitTest -Pbenchmarks
+ */
+public class DayClockBenchmark {
+
+    private static final int TIMESTAMPS = 10_000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 10;
+    private static final long TWO_YEARS_MS = 2 * 365 * DayClock.DAY_MS;
+
+    private TimeZone defaultZone;
+
+    @BeforeClass
+    public static void onlyOnRequest() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Belgrade"));
+        DayClock.onTimeZoneChanged();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        DayClock.onTimeZoneChanged();
+    }
+
+    @Test
+    public void compareWithCalendar() {
+        long[] timestamps = new long[TIMESTAMPS];
+        Random random = new Random(42);
+        long from = System.currentTimeMillis() - TWO_YEARS_MS / 2;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = from + (long) (random.nextDouble() * TWO_YEARS_MS);
+        }
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += calendarDayOfMonth(timestamps) + dayClockDayOfMonth(timestamps)
+                    + calendarDayBounds(timestamps) + dayClockDayBounds(timestamps);
+        }
+
+        long calendarDayNs = 0, dayClockDayNs = 0, calendarBoundsNs = 0, dayClockBoundsNs = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += calendarDayOfMonth(timestamps);
+            calendarDayNs += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += dayClockDayOfMonth(timestamps);
+            dayClockDayNs += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += calendarDayBounds(timestamps);
+            calendarBoundsNs += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += dayClockDayBounds(timestamps);
+            dayClockBoundsNs += System.nanoTime() - start;
+        }
+
+        long operations = (long) ROUNDS * TIMESTAMPS;
+        StringBuilder report = new StringBuilder();
+        report.append("DayClock vs Calendar, ").append(TIMESTAMPS).append(" timestamps x ")
+                .append(ROUNDS).append(" rounds\n\n");
+        report.append(String.format(Locale.US, "%-16s %12s %12s %8s%n", "op", "Calendar ns", "DayClock ns", "speedup"));
+        appendRow(report, "day of month", calendarDayNs, dayClockDayNs, operations);
+        appendRow(report, "day bounds", calendarBoundsNs, dayClockBoundsNs, operations);
+        report.append("\nchecksum: ").append(sink).append('\n');
+        System.out.println(report);
+    }
+
+    private static void appendRow(StringBuilder report, String name, long calendarNs, long dayClockNs, long operations) {
+        report.append(String.format(Locale.US, "%-16s %12.1f %12.1f %7.1fx%n", name,
+                (double) calendarNs / operations, (double) dayClockNs / operations,
+                (double) calendarNs / Math.max(1, dayClockNs)));
+    }
+
+    // Old CalendarActivity loop: a Calendar per task
+    private static long calendarDayOfMonth(long[] timestamps) {
+        long sum = 0;
+        for (long timestamp : timestamps) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(timestamp);
+            sum += calendar.get(Calendar.DAY_OF_MONTH) + calendar.get(Calendar.MONTH) + calendar.get(Calendar.YEAR);
+        }
+        return sum;
+    }
+
+    private static long dayClockDayOfMonth(long[] timestamps) {
+        long sum = 0;
+        for (long timestamp : timestamps) {
+            long day = DayClock.epochDay(timestamp);
+            sum += DayClock.dayOfMonth(day) + DayClock.month(day) - 1 + DayClock.year(day);
+        }
+        return sum;
+    }
+
+    // Old TaskRepository.getDayBounds
+    private static long calendarDayBounds(long[] timestamps) {
+        long sum = 0;
+        for (long timestamp : timestamps) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(timestamp);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            sum += calendar.getTimeInMillis();
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            sum += calendar.getTimeInMillis();
+        }
+        return sum;
+    }
+
+    private static long dayClockDayBounds(long[] timestamps) {
+        long sum = 0;
+        for (long timestamp : timestamps) {
+            long day = DayClock.epochDay(timestamp);
+            sum += DayClock.startOfDay(day);
+            sum += DayClock.startOfDay(day + 1);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.rpghabittracker.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class DayClockTest {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    // DST zones with the awkward cases: 30 minute shifts (Lord Howe), midnight
+    // skipped (Sao Paulo until 2019), midnight repeated (Havana), a whole day
+    // skipped (Apia, 2011-12-30), southern hemisphere, and fixed offsets
+    private static final String[] ZONES = {
+            "Europe/Belgrade", "America/New_York", "Australia/Lord_Howe", "America/Sao_Paulo",
+            "America/Havana", "Pacific/Apia", "Asia/Kolkata", "UTC"
+    };
+
+    private static final long FROM = Instant.parse("2008-01-01T00:00:00Z").toEpochMilli();
+    private static final long TO = Instant.parse("2030-01-01T00:00:00Z").toEpochMilli();
+
+    private TimeZone defaultZone;
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        defaultLocale = Locale.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        Locale.setDefault(defaultLocale);
+        DayClock.onTimeZoneChanged();
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Instants and epoch days
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void epochDayMatchesJavaTimeAroundEveryTransition() {
+        for (String id : ZONES) {
+            useZone(id);
+            ZoneId zone = ZoneId.of(id);
+            for (long transition : transitions(zone)) {
+                // Every minute from two hours before to two hours after
+                for (long millis = transition - 2 * HOUR_MS; millis <= transition + 2 * HOUR_MS; millis += 60_000) {
+                    assertEquals(id + " at " + Instant.ofEpochMilli(millis),
+                            javaEpochDay(millis, zone), DayClock.epochDay(millis));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void epochDayMatchesJavaTimeInRandomOrder() {
+        // Jumps between years, so the span cache keeps missing and evicting
+        Random random = new Random(3);
+        for (String id : ZONES) {
+            useZone(id);
+            ZoneId zone = ZoneId.of(id);
+            for (int i = 0; i < 50_000; i++) {
+                long millis = FROM + (long) (random.nextDouble() * (TO - FROM));
+                assertEquals(id + " at " + Instant.ofEpochMilli(millis),
+                        javaEpochDay(millis, zone), DayClock.epochDay(millis));
+            }
+        }
+    }
+
+    @Test
+    public void startOfDayMatchesJavaTime() {
+        for (String id : ZONES) {
+            useZone(id);
+            ZoneId zone = ZoneId.of(id);
+            long first = javaEpochDay(FROM, zone);
+            long last = javaEpochDay(TO, zone);
+            for (long day = first; day <= last; day++) {
+                // atStartOfDay: the earlier midnight of an overlap, the transition in a gap
+                long expected = LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant().toEpochMilli();
+                assertEquals(id + " " + LocalDate.ofEpochDay(day), expected, DayClock.startOfDay(day));
+                assertEquals(id + " " + LocalDate.ofEpochDay(day), expected, DayClock.dayStart(expected));
+            }
+        }
+    }
+
+    @Test
+    public void matchesTheCalendarCodeItReplaced() {
+        // Calendar's own answer around a skipped midnight is not the one tested above,
+        // so only zones whose midnight always exists
+        Random random = new Random(42);
+        for (String id : new String[]{"Europe/Belgrade", "America/New_York", "Asia/Kolkata"}) {
+            useZone(id);
+            for (int i = 0; i < 10_000; i++) {
+                long millis = FROM + (long) (random.nextDouble() * (TO - FROM));
+                String label = id + " at " + Instant.ofEpochMilli(millis);
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(millis);
+                long day = DayClock.epochDay(millis);
+                assertEquals(label, calendar.get(Calendar.YEAR), DayClock.year(day));
+                assertEquals(label, calendar.get(Calendar.MONTH) + 1, DayClock.month(day));
+                assertEquals(label, calendar.get(Calendar.DAY_OF_MONTH), DayClock.dayOfMonth(day));
+
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.set(Calendar.SECOND, 0);
+                calendar.set(Calendar.MILLISECOND, 0);
+                assertEquals(label, calendar.getTimeInMillis(), DayClock.dayStart(millis));
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                assertEquals(label, calendar.getTimeInMillis(), DayClock.startOfDay(day + 1));
+            }
+        }
+    }
+
+    @Test
+    public void dstDaysAreShorterAndLonger() {
+        useZone("Europe/Belgrade");
+        long spring = DayClock.epochDay(2026, 3, 29);
+        long autumn = DayClock.epochDay(2026, 10, 25);
+        assertEquals(23 * HOUR_MS, DayClock.startOfDay(spring + 1) - DayClock.startOfDay(spring));
+        assertEquals(25 * HOUR_MS, DayClock.startOfDay(autumn + 1) - DayClock.startOfDay(autumn));
+        assertEquals(24 * HOUR_MS, DayClock.startOfDay(spring) - DayClock.startOfDay(spring - 1));
+
+        useZone("Australia/Lord_Howe");
+        long lordHowe = DayClock.epochDay(2026, 4, 5);
+        assertEquals(24 * HOUR_MS + HOUR_MS / 2, DayClock.startOfDay(lordHowe + 1) - DayClock.startOfDay(lordHowe));
+    }
+
+    @Test
+    public void daySkippingMidnightStartsAtTheTransition() {
+        // 2018-11-04 00:00 did not exist in Sao Paulo; clocks went to 01:00 (-02:00)
+        useZone("America/Sao_Paulo");
+        long day = DayClock.epochDay(2018, 11, 4);
+        assertEquals(Instant.parse("2018-11-04T03:00:00Z").toEpochMilli(), DayClock.startOfDay(day));
+        assertEquals(day, DayClock.epochDay(Instant.parse("2018-11-04T03:00:00Z").toEpochMilli()));
+        assertEquals(day - 1, DayClock.epochDay(Instant.parse("2018-11-04T02:59:59Z").toEpochMilli()));
+    }
+
+    @Test
+    public void dayRepeatingMidnightStartsAtTheFirstOne() {
+        // Havana falls back from 01:00 CDT to 00:00 CST, so midnight happens twice
+        useZone("America/Havana");
+        ZoneId zone = ZoneId.of("America/Havana");
+        LocalDate date = LocalDate.of(2025, 11, 2);
+        long first = ZonedDateTime.ofLocal(date.atStartOfDay(), zone, null)
+                .withEarlierOffsetAtOverlap().toInstant().toEpochMilli();
+        long second = ZonedDateTime.ofLocal(date.atStartOfDay(), zone, null)
+                .withLaterOffsetAtOverlap().toInstant().toEpochMilli();
+        assertEquals(HOUR_MS, second - first);
+        assertEquals(first, DayClock.startOfDay(date.toEpochDay()));
+        assertEquals(date.toEpochDay(), DayClock.epochDay(second + 1));
+    }
+
+    @Test
+    public void skippedCalendarDayHasNoLength() {
+        // Samoa jumped from 2011-12-29 to 2011-12-31
+        useZone("Pacific/Apia");
+        long skipped = DayClock.epochDay(2011, 12, 30);
+        assertEquals(DayClock.startOfDay(skipped), DayClock.startOfDay(skipped + 1));
+        assertEquals(skipped - 1, DayClock.epochDay(DayClock.startOfDay(skipped) - 1));
+        assertEquals(skipped + 1, DayClock.epochDay(DayClock.startOfDay(skipped)));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Zone switches and explicit zones
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void zoneChangeTakesEffectAfterOnTimeZoneChanged() {
+        long lateEvening = Instant.parse("2026-06-01T23:30:00Z").toEpochMilli();
+        useZone("Europe/Belgrade");
+        assertEquals("Europe/Belgrade", DayClock.zoneId());
+        assertEquals(DayClock.epochDay(2026, 6, 2), DayClock.epochDay(lateEvening));
+
+        // Cached until told; TimeZoneReceiver calls onTimeZoneChanged
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        assertEquals("Europe/Belgrade", DayClock.zoneId());
+        assertEquals(DayClock.epochDay(2026, 6, 2), DayClock.epochDay(lateEvening));
+
+        DayClock.onTimeZoneChanged();
+        assertEquals("America/New_York", DayClock.zoneId());
+        assertEquals(DayClock.epochDay(2026, 6, 1), DayClock.epochDay(lateEvening));
+        assertEquals(Instant.parse("2026-06-01T04:00:00Z").toEpochMilli(),
+                DayClock.startOfDay(DayClock.epochDay(2026, 6, 1)));
+    }
+
+    @Test
+    public void zoneSwitchAcrossManyZonesMatchesJavaTime() {
+        Random random = new Random(11);
+        for (int round = 0; round < 3; round++) {
+            for (String id : ZONES) {
+                useZone(id);
+                ZoneId zone = ZoneId.of(id);
+                for (int i = 0; i < 1000; i++) {
+                    long millis = FROM + (long) (random.nextDouble() * (TO - FROM));
+                    assertEquals(id, javaEpochDay(millis, zone), DayClock.epochDay(millis));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void epochDayInExplicitZone() {
+        useZone("Europe/Belgrade");
+        long millis = Instant.parse("2026-06-01T23:30:00Z").toEpochMilli();
+
+        assertEquals(DayClock.epochDay(millis), DayClock.epochDay(millis, null));
+        assertEquals(DayClock.epochDay(millis), DayClock.epochDay(millis, "Europe/Belgrade"));
+        assertEquals(DayClock.epochDay(2026, 6, 1), DayClock.epochDay(millis, "America/New_York"));
+        assertEquals(DayClock.epochDay(2026, 6, 2), DayClock.epochDay(millis, "Asia/Tokyo"));
+        assertEquals(DayClock.epochDay(2026, 6, 1), DayClock.epochDay(millis, "UTC"));
+
+        // Task stats keep the zone a task was counted in, whatever the device zone is now
+        useZone("America/New_York");
+        assertEquals(DayClock.epochDay(2026, 6, 2), DayClock.epochDay(millis, "Europe/Belgrade"));
+        assertEquals(DayClock.epochDay(2026, 6, 1), DayClock.epochDay(millis, DayClock.zoneId()));
+    }
+
+    @Test
+    public void epochDayInExplicitZoneAcrossDst() {
+        useZone("UTC");
+        Random random = new Random(5);
+        for (String id : ZONES) {
+            ZoneId zone = ZoneId.of(id);
+            for (long transition : transitions(zone)) {
+                long millis = transition - HOUR_MS + random.nextInt((int) (2 * HOUR_MS));
+                assertEquals(id, javaEpochDay(millis, zone), DayClock.epochDay(millis, id));
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+    // Weeks, months and civil dates
+    // ──────────────────────────────────────────────────────────────────────────
+
+    @Test
+    public void civilDatesMatchLocalDate() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.isBefore(LocalDate.of(2101, 3, 1)); date = date.plusDays(1)) {
+            long day = date.toEpochDay();
+            String label = date.toString();
+            assertEquals(label, day, DayClock.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(label, date.getYear(), DayClock.year(day));
+            assertEquals(label, date.getMonthValue(), DayClock.month(day));
+            assertEquals(label, date.getDayOfMonth(), DayClock.dayOfMonth(day));
+            assertEquals(label, date.getDayOfWeek().getValue(), DayClock.isoDayOfWeek(day));
+            assertEquals(label, date.lengthOfMonth(), DayClock.lengthOfMonth(date.getYear(), date.getMonthValue()));
+            assertEquals(label, date.withDayOfMonth(1).toEpochDay(), DayClock.monthStartDay(day));
+            assertEquals(label, date.withDayOfMonth(1).plusMonths(1).toEpochDay(), DayClock.nextMonthStartDay(day));
+        }
+    }
+
+    @Test
+    public void weekStartFollowsTheLocale() {
+        useZone("Europe/Belgrade");
+        long wednesday = DayClock.epochDay(2026, 10, 14);
+
+        Locale.setDefault(Locale.GERMANY);
+        DayClock.onTimeZoneChanged();
+        assertEquals(DayClock.epochDay(2026, 10, 12), DayClock.weekStartDay(wednesday));
+        assertEquals(DayOfWeek.MONDAY.getValue(), DayClock.isoDayOfWeek(DayClock.weekStartDay(wednesday)));
+
+        Locale.setDefault(Locale.US);
+        DayClock.onTimeZoneChanged();
+        assertEquals(DayClock.epochDay(2026, 10, 11), DayClock.weekStartDay(wednesday));
+
+        // The start of a week is its own week start
+        long sunday = DayClock.epochDay(2026, 10, 11);
+        assertEquals(sunday, DayClock.weekStartDay(sunday));
+    }
+
+    // ──────────────────────────────────────────────────────────────────────────
+
+    private static void useZone(String id) {
+        TimeZone.setDefault(TimeZone.getTimeZone(id));
+        DayClock.onTimeZoneChanged();
+    }
+
+    private static long javaEpochDay(long millis, ZoneId zone) {
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    private static List<Long> transitions(ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        if (rules.isFixedOffset()) return Collections.emptyList();
+        List<Long> result = new ArrayList<>();
+        Instant instant = Instant.ofEpochMilli(FROM);
+        ZoneOffsetTransition transition;
+        while ((transition = rules.nextTransition(instant)) != null
+                && transition.toEpochSecond() * 1000 < TO) {
+            result.add(transition.toEpochSecond() * 1000);
+            instant = transition.getInstant();
+        }
+        return result;
+    }
+}